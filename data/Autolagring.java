@@ -0,0 +1,247 @@
+/**
+ * Inneholder klassen Autolagring.
+ */
+package data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ *	Klassen lagrer endringene i stedlisten automatisk p en egen trd, slik at datafilen holdes oppdatert uten at brukeren m lagre.
+ *	Autolagringen er en lytter p stedlisten og teller endringene siden forrige lagring. Endringene lagres senest et gitt antall sekunder
+ *	etter den frste av dem, eller med en gang nr det er gjort et gitt antall endringer. Lagringen gr gjennom journalen (se Journal.komprimer()):
+ *	yeblikksbildet tas med ls p stedlisten, mens segmentene skrives og synkes og indeksen byttes ut uten ls, s brukeren kan fortsette imens.
+ *	Brukeren kan ogs be om lagring fra menyen (se lagreN()), og da lagres kuben i tillegg, dersom ingenting er endret siden yeblikksbildet.
+ *	Den automatiske lagringen lagrer ikke kuben, siden den kan lages p nytt om den ikke passer til dataene.
+ *	Intervallet settes ved oppstart med -Dmetrodata.autolagring=sekunder og antallet med -Dmetrodata.autolagring.endringer=antall.
+ *	0 slr av det ene eller det andre, og er begge 0 lagres det bare nr brukeren ber om det.
+ */
+class Autolagring implements Endringslytter
+{
+	/**
+	 * Hvor mange sekunder endringer kan vente fr de lagres, og hvor mange endringer som lagres med en gang.
+	 */
+	static final int INTERVALL = Math.max(0, Integer.getInteger("metrodata.autolagring", 300));
+	static final int TERSKEL = Math.max(0, Integer.getInteger("metrodata.autolagring.endringer", 1000));
+	/**
+	 * Hvor mange millisekunder det ventes etter en lagring som feilet, fr det prves igjen.
+	 */
+	static final long FEILPAUSE = 60000;
+	
+	private final Stedliste sl;
+	private final Journal journal;
+	private final int intervall, terskel;
+	private final ArrayList<Lagringslytter> lyttere = new ArrayList<Lagringslytter>();
+	/**
+	 * Antall endringer siden forrige lagring, og nr den frste av dem ble gjort (fra System.nanoTime()).
+	 */
+	private int endringer;
+	private long frsteEndring;
+	/**
+	 * Om brukeren har bedt om lagring som ikke er startet enn
+	 */
+	private boolean lagreN;
+	
+	/**
+	 * Konstruktr, legger autolagringen til som lytter p stedlisten og starter lagringstrden
+	 * @param sl	Stedlisten
+	 * @param journal	Journalen til stedlisten, som lagringene gr gjennom
+	 * @param intervall	Hvor mange sekunder endringer kan vente fr de lagres, eller 0
+	 * @param terskel	Hvor mange endringer som lagres med en gang, eller 0
+	 */
+	Autolagring(Stedliste sl, Journal journal, int intervall, int terskel)
+	{
+		this.sl = sl;
+		this.journal = journal;
+		this.intervall = intervall;
+		this.terskel = terskel;
+		sl.leggTilLytter(this);
+		Thread trd = new Thread("Autolagring")
+		{
+			public void run()
+			{
+				kjr();
+			}
+		};
+		trd.setDaemon(true);
+		trd.start();
+	}
+	
+	/**
+	 * Legger til en lytter som fr beskjed nr en lagring starter og er ferdig
+	 * @param lytter	Lytteren
+	 */
+	synchronized void leggTilLytter(Lagringslytter lytter)
+	{
+		lyttere.add(lytter);
+	}
+	
+	/**
+	 * Teller endringen
+	 * @param s	Stedet som er satt inn eller slettet
+	 */
+	public synchronized void stedEndret(Sted s)
+	{
+		endret();
+	}
+	
+	/**
+	 * Teller endringen
+	 * @param s			Stedet som har ftt endrede data
+	 * @param dagnummer	Dagnummeret til datoen som er endret
+	 */
+	public synchronized void dataEndret(Sted s, int dagnummer)
+	{
+		endret();
+	}
+	
+	/**
+	 * Teller en endring, og vekker lagringstrden nr det er den frste siden forrige lagring, eller terskelen er ndd
+	 */
+	private void endret()
+	{
+		if(endringer++ == 0)
+		{
+			frsteEndring = System.nanoTime();
+			notifyAll();
+		}
+		else if(terskel > 0 && endringer >= terskel)
+			notifyAll();
+	}
+	
+	/**
+	 * Nullstiller telleren etter at dataene er lagret p vanlig mte
+	 */
+	synchronized void lagret()
+	{
+		endringer = 0;
+	}
+	
+	/**
+	 * Ber lagringstrden lagre med en gang, ogs kuben, og uten  vente p den. Venter trden etter en lagring som feilet, prver den igjen n.
+	 */
+	synchronized void lagreN()
+	{
+		lagreN = true;
+		notifyAll();
+	}
+	
+	/**
+	 * Venter til det er noe  lagre, og lagrer, helt til trden avbrytes
+	 */
+	private void kjr()
+	{
+		try
+		{
+			while(true)
+			{
+				int antall;
+				boolean automatisk;
+				synchronized(this)
+				{
+					long vent = ventetid();
+					while(vent >= 0)
+					{
+						wait(vent);
+						vent = ventetid();
+					}
+					antall = endringer;
+					endringer = 0;
+					automatisk = !lagreN;
+					lagreN = false;
+				}
+				if(!lagre(antall, automatisk))
+				{
+					synchronized(this)
+					{
+						long slutt = System.nanoTime() + FEILPAUSE * 1000000;
+						long vent = FEILPAUSE;
+						while(!lagreN && vent > 0)
+						{
+							wait(vent);
+							vent = (slutt - System.nanoTime()) / 1000000;
+						}
+					}
+				}
+			}
+		}
+		catch(InterruptedException ie)
+		{
+		}
+	} // end of kjr()
+	
+	/**
+	 * Finner ut hvor lenge lagringstrden skal vente. Kallet m ha ls p autolagringen.
+	 * @return	-1 hvis endringene skal lagres n, 0 for  vente til en endring vekker trden, ellers antall millisekunder
+	 */
+	private long ventetid()
+	{
+		if(lagreN)
+			return -1;
+		if(endringer == 0)
+			return 0;
+		if(terskel > 0 && endringer >= terskel)
+			return -1;
+		if(intervall == 0)
+			return 0;
+		long igjen = intervall * 1000L - (System.nanoTime() - frsteEndring) / 1000000;
+		return igjen > 0 ? igjen : -1;
+	}
+	
+	/**
+	 * Lagrer endringene, og gir lytterne beskjed om hvor lang tid det tok. Feiler lagringen, telles endringene med til neste gang.
+	 * Har brukeren bedt om lagringen, lagres ogs kuben, men bare nr ingenting er endret siden yeblikksbildet, siden kuben
+	 * m passe nyaktig til datafilen. Kuben gjres om til bytes med ls p stedlisten, og skrives til fil uten.
+	 * @param antall	Antall endringer som lagres
+	 * @param automatisk	false hvis brukeren har bedt om lagringen
+	 * @return	true hvis endringene ble lagret
+	 */
+	private boolean lagre(int antall, boolean automatisk)
+	{
+		Lagringslytter[] varsle;
+		synchronized(this)
+		{
+			varsle = lyttere.toArray(new Lagringslytter[lyttere.size()]);
+		}
+		for(int i = 0; i < varsle.length; i++)
+			varsle[i].lagringStartet(antall);
+		long start = System.nanoTime();
+		boolean lagret;
+		try
+		{
+			journal.komprimer();
+			lagret = true;
+		}
+		catch(IOException ioe)
+		{
+			System.out.println("Kunne ikke lagre, prver igjen senere (B022)");
+			synchronized(this)
+			{
+				if(endringer == 0)
+					frsteEndring = System.nanoTime();
+				endringer += antall;
+			}
+			lagret = false;
+		}
+		if(lagret && !automatisk)
+		{
+			byte[] kube = null;
+			synchronized(sl)
+			{
+				boolean uendret;
+				synchronized(this)
+				{
+					uendret = endringer == 0;
+				}
+				if(uendret)
+					kube = Filhndterer.serialiserKube(sl);
+			}
+			if(kube != null)
+				Filhndterer.skrivKube(kube);
+		}
+		long millisekunder = (System.nanoTime() - start) / 1000000;
+		for(int i = 0; i < varsle.length; i++)
+			varsle[i].lagringFerdig(antall, millisekunder, lagret, automatisk);
+		return lagret;
+	} // end of lagre(...)
+} // end of class Autolagring
\ No newline at end of file
@@ -0,0 +1,1140 @@
+/**
+ * Inneholder klassen Datafil.
+ */
+package data;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ *	Klassen leser og skriver datafilen i et eget binrt, kolonnevis format, i stedet for med Java-serialisering.
+ *	Fra versjon 3 er vrdataene delt i segmenter, ett for hvert sted og r, som ligger i en egen segmentfil ved siden av datafilen,
+ *	f.eks. Metrodata-2.mds. Datafilen er da en indeks: et hode (magisk tall, versjon, antall steder, en CRC32-kontrollsum for resten av filen,
+ *	den frste journalen som ikke er tatt med i filen, se Journal, nummeret til segmentfilen og hvor mange bytes av den som er i bruk),
+ *	fulgt av en stedtabell med navn, fylke og antall datoer for hvert sted, og r, antall datoer, posisjon, lengde og CRC32 for hvert segment.
+ *	Hvert segment er en blokk: frste dagnummer, avstanden til hver neste dag som varint, og til slutt kolonnene med skalert
+ *	minimumstemperatur, maksimumstemperatur og nedbr som short. Bare segmentene som er endret skrives ved lagring, se Segmentlager.
+ *	I versjon 1 og 2 ligger n blokk per sted i selve datafilen, etter stedtabellen. Slike filer kan fortsatt leses.
+ *	Alle tall er big-endian, og filene leses og skrives gjennom en FileChannel med en fast buffer.
+ *	Filen kan ogs pnes skrivebeskyttet med minnekartlegging, der blokkene frst leses nr et sted brukes.
+ */
+class Datafil
+{
+	/**
+	 * De fire frste bytene i filen, "MTRO".
+	 */
+	static final int MAGI = 0x4D54524F;
+	/**
+	 * Versjonen av formatet som skrives. Filer med hyere versjon kan ikke leses.
+	 */
+	static final int VERSJON = 3;
+	/**
+	 * Strrelsen p hodet i bytes (16 i versjon 1 og 24 i versjon 2). Kontrollsummen gjelder alt etter hodet.
+	 */
+	static final int HODESTRRELSE = 40;
+	/**
+	 * De fire frste bytene i en segmentfil, "MTRS", og strrelsen p hodet i segmentfilen (magisk tall og versjon).
+	 */
+	static final int SEGMENTMAGI = 0x4D545253, SEGMENTHODE = 8;
+	static final String SEGMENTETTERNAVN = ".mds";
+	/**
+	 * Strrelsen p bufferen som brukes mot filen.
+	 */
+	private static final int BUFFERSTRRELSE = 1 << 16;
+	
+	/**
+	 * Synker mappen filen ligger i, slik at et nytt navn eller en slettet fil overlever et krasj. Ikke alle systemer sttter dette,
+	 * og da gjres ingenting.
+	 * @param fil	En fil i mappen
+	 */
+	static void synkroniserMappe(File fil)
+	{
+		File mappe = fil.getAbsoluteFile().getParentFile();
+		try
+		{
+			FileChannel kanal = FileChannel.open(mappe.toPath(), StandardOpenOption.READ);
+			try
+			{
+				kanal.force(true);
+			}
+			finally
+			{
+				kanal.close();
+			}
+		}
+		catch(IOException ioe)
+		{
+		}
+	}
+	
+	/**
+	 * Skriver indeksen til en midlertidig fil ved siden av datafilen, og bytter den inn i stedet for datafilen nr den er ferdig skrevet og synket.
+	 * Segmentene indeksen peker p m vre skrevet og synket frst. Gr noe galt, er den gamle indeksen urrt.
+	 * @param fil	Datafilen
+	 * @param tabell	Stedene, i rekkeflgen de har i stedlisten, med segmentene sine
+	 * @param journal	Generasjonen til den frste journalen som ikke er tatt med
+	 * @param segmentfil	Nummeret til segmentfilen
+	 * @param brukt	Hvor mange bytes av segmentfilen som er i bruk
+	 * @throws IOException	dersom filen ikke kan skrives
+	 */
+	static void skrivIndeks(File fil, Stedtabell tabell, long journal, long segmentfil, long brukt) throws IOException
+	{
+		File midlertidig = new File(fil.getPath() + ".tmp");
+		try
+		{
+			FileChannel kanal = FileChannel.open(midlertidig.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			try
+			{
+				Skriver ut = new Skriver(kanal, HODESTRRELSE);
+				int antall = tabell.navn.length;
+				for(int s = 0; s < antall; s++)
+				{
+					byte[] navn = tabell.navn[s].getBytes(StandardCharsets.UTF_8);
+					if(navn.length > Short.MAX_VALUE)
+						throw new IOException("For langt stedsnavn: " + tabell.navn[s]);
+					ut.skrivShort((short)navn.length);
+					ut.skrivBytes(navn);
+					ut.skrivByte((byte)tabell.fylker[s]);
+					ut.skrivInt(tabell.antallDatoer[s]);
+					Segment[] segmenter = tabell.segmenter[s];
+					ut.skrivInt(segmenter.length);
+					for(int i = 0; i < segmenter.length; i++)
+					{
+						ut.skrivInt(segmenter[i].r);
+						ut.skrivInt(segmenter[i].antall);
+						ut.skrivLong(segmenter[i].posisjon);
+						ut.skrivInt(segmenter[i].lengde);
+						ut.skrivInt(segmenter[i].kontrollsum);
+					}
+				}
+				ut.tm();
+				
+				ByteBuffer hode = ByteBuffer.allocate(HODESTRRELSE);
+				hode.putInt(MAGI);
+				hode.putInt(VERSJON);
+				hode.putInt(antall);
+				hode.putInt((int)ut.kontrollsum());
+				hode.putLong(journal);
+				hode.putLong(segmentfil);
+				hode.putLong(brukt);
+				hode.flip();
+				while(hode.hasRemaining())
+					kanal.write(hode, hode.position());
+				kanal.force(false);
+			}
+			finally
+			{
+				kanal.close();
+			}
+			Files.move(midlertidig.toPath(), fil.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch(IOException ioe)
+		{
+			midlertidig.delete();
+			throw ioe;
+		}
+		synkroniserMappe(fil);
+	} // end of skrivIndeks(...)
+	
+	/**
+	 * Skriver hodet til en ny segmentfil
+	 * @param ut	Skriveren, som str p starten av filen
+	 */
+	static void skrivSegmenthode(Skriver ut) throws IOException
+	{
+		ut.skrivInt(SEGMENTMAGI);
+		ut.skrivInt(VERSJON);
+	}
+	
+	/**
+	 * Sjekker hodet til en segmentfil
+	 * @param kanal	Kanalen til segmentfilen
+	 * @throws IOException	dersom filen ikke er en segmentfil, eller har en versjon som ikke kan leses
+	 */
+	private static void sjekkSegmenthode(FileChannel kanal) throws IOException
+	{
+		ByteBuffer hode = lesDel(kanal, 0, SEGMENTHODE);
+		if(hode.getInt() != SEGMENTMAGI)
+			throw new IOException("Filen er ikke en segmentfil");
+		if(hode.getInt() > VERSJON)
+			throw new IOException("Ukjent versjon av segmentfilen");
+	}
+	
+	/**
+	 * Finner segmentfilen med et gitt nummer
+	 * @param datafil	Datafilen segmentfilen hrer til
+	 * @param nummer	Nummeret til segmentfilen
+	 * @return	Filen, i samme mappe som datafilen
+	 */
+	static File segmentfil(File datafil, long nummer)
+	{
+		return nummerertFil(datafil, nummer, SEGMENTETTERNAVN);
+	}
+	
+	/**
+	 * Finner en fil som hrer til datafilen og har et nummer i navnet, som journalene og segmentfilene
+	 * @param datafil	Datafilen
+	 * @param nummer	Nummeret
+	 * @param etternavn	Etternavnet til filen, med punktum
+	 * @return	Filen, i samme mappe som datafilen, f.eks. Metrodata-3.jrn
+	 */
+	static File nummerertFil(File datafil, long nummer, String etternavn)
+	{
+		return new File(datafil.getAbsoluteFile().getParentFile(), prefiks(datafil) + nummer + etternavn);
+	}
+	
+	/**
+	 * @param datafil	Datafilen
+	 * @return	Navnet p datafilen uten etternavn, med bindestrek bak
+	 */
+	private static String prefiks(File datafil)
+	{
+		String navn = datafil.getName();
+		int punktum = navn.lastIndexOf('.');
+		return (punktum > 0 ? navn.substring(0, punktum) : navn) + "-";
+	}
+	
+	/**
+	 * Finner numrene til filene som hrer til datafilen og har det gitte etternavnet
+	 * @param datafil	Datafilen
+	 * @param etternavn	Etternavnet til filene, med punktum
+	 * @return	Numrene, sortert stigende
+	 */
+	static long[] numre(File datafil, String etternavn)
+	{
+		String[] navn = datafil.getAbsoluteFile().getParentFile().list();
+		if(navn == null)
+			return new long[0];
+		String prefiks = prefiks(datafil);
+		long[] numre = new long[navn.length];
+		int antall = 0;
+		for(int i = 0; i < navn.length; i++)
+		{
+			if(!navn[i].startsWith(prefiks) || !navn[i].endsWith(etternavn))
+				continue;
+			try
+			{
+				numre[antall] = Long.parseLong(navn[i].substring(prefiks.length(), navn[i].length() - etternavn.length()));
+				if(numre[antall] > 0)
+					antall++;
+			}
+			catch(NumberFormatException nfe)
+			{
+			}
+		}
+		numre = Arrays.copyOf(numre, antall);
+		Arrays.sort(numre);
+		return numre;
+	}
+	
+	/**
+	 * Leser inn en stedliste fra filen. For filer i versjon 3 leses segmentene fra segmentfilen indeksen peker p.
+	 * @param fil	Filen som skal leses
+	 * @return	Hodet, stedtabellen og stedlisten med alle stedene i filen
+	 * @throws IOException	dersom filen ikke kan leses, har feil format eller er skadet
+	 */
+	static Innhold lesInn(File fil) throws IOException
+	{
+		FileChannel kanal = FileChannel.open(fil.toPath(), StandardOpenOption.READ);
+		try
+		{
+			Leser inn = new Leser(kanal);
+			Hode hode = lesHode(inn);
+			inn.startKontrollsum();
+			
+			Stedtabell tabell = new Stedtabell(inn, hode);
+			int antall = hode.antall;
+			
+			ArrayList<Sted> steder = new ArrayList<Sted>(antall);
+			if(hode.versjon >= 3)
+			{
+				inn.avslutt(hode.kontrollsum);
+				FileChannel segmenter = FileChannel.open(segmentfil(fil, hode.segmentfil).toPath(), StandardOpenOption.READ);
+				try
+				{
+					sjekkSegmenthode(segmenter);
+					for(int s = 0; s < antall; s++)
+					{
+						tabell.steder[s] = new Sted(tabell.navn[s], tabell.fylker[s],
+								lesSegmenter(null, segmenter, tabell.segmenter[s], tabell.antallDatoer[s], true));
+						steder.add(tabell.steder[s]);
+					}
+				}
+				finally
+				{
+					segmenter.close();
+				}
+			}
+			else
+			{
+				for(int s = 0; s < antall; s++)
+				{
+					if(inn.posisjon() != tabell.posisjoner[s])
+						throw new IOException("Datablokken til " + tabell.navn[s] + " ligger ikke der stedtabellen sier");
+					tabell.steder[s] = new Sted(tabell.navn[s], tabell.fylker[s], lesBlokk(inn, tabell.antallDatoer[s]));
+					steder.add(tabell.steder[s]);
+				}
+				inn.avslutt(hode.kontrollsum);
+			}
+			
+			Stedliste sl = new Stedliste();
+			sl.settInnAlle(steder);
+			return new Innhold(hode, tabell, sl);
+		}
+		finally
+		{
+			kanal.close();
+		}
+	} // end of lesInn(...)
+	
+	/**
+	 * pner filen skrivebeskyttet gjennom minnekartlegging, uten  lese inn vrdataene. Hodet og stedtabellen leses med en gang,
+	 * mens blokkene eller segmentene til hvert sted frst leses nr noen ber om datolisten til stedet (se Sted.getDatoliste()).
+	 * For filer i versjon 3 er det segmentfilen som kartlegges, og kontrollsummen for indeksen sjekkes. Kontrollsummen for hele filen
+	 * i eldre versjoner sjekkes ikke, siden det ville kreve at alt leses, men hver blokk og hvert segment sjekkes nr det leses.
+	 * Kanalen holdes pen s lenge programmet kjrer, og filen m ikke skrives til mens den er pnet slik.
+	 * @param fil	Filen som skal pnes
+	 * @return	En skrivebeskyttet stedliste med alle stedene i filen
+	 * @throws IOException	dersom filen ikke kan pnes, har feil format eller stedtabellen er skadet
+	 */
+	static Stedliste kartlegg(File fil) throws IOException
+	{
+		FileChannel kanal = FileChannel.open(fil.toPath(), StandardOpenOption.READ);
+		try
+		{
+			Leser inn = new Leser(kanal);
+			Hode hode = lesHode(inn);
+			inn.startKontrollsum();
+			Stedtabell tabell = new Stedtabell(inn, hode);
+			int antall = hode.antall;
+			long tabellslutt = inn.posisjon();
+			if(hode.versjon >= 3)
+			{
+				inn.avslutt(hode.kontrollsum);
+				kanal.close();
+				kanal = FileChannel.open(segmentfil(fil, hode.segmentfil).toPath(), StandardOpenOption.READ);
+				sjekkSegmenthode(kanal);
+			}
+			Kart kart = new Kart(kanal);
+			
+			ArrayList<Sted> steder = new ArrayList<Sted>(antall);
+			if(hode.versjon >= 3)
+			{
+				for(int s = 0; s < antall; s++)
+					steder.add(new Sted(tabell.navn[s], tabell.fylker[s], new Blokk(kart, tabell.segmenter[s], tabell.antallDatoer[s], true)));
+			}
+			else
+			{
+				long slutt = kart.strrelse;
+				for(int s = antall - 1; s >= 0; s--)
+				{
+					long start = tabell.posisjoner[s];
+					if(start < tabellslutt || start > slutt)
+						throw new IOException("Datablokken til " + tabell.navn[s] + " ligger utenfor filen");
+					Segment[] blokk = {new Segment(0, tabell.antallDatoer[s], start, (int)(slutt - start), 0)};
+					steder.add(new Sted(tabell.navn[s], tabell.fylker[s], new Blokk(kart, blokk, tabell.antallDatoer[s], false)));
+					slutt = start;
+				}
+			}
+			
+			Stedliste sl = new Stedliste();
+			sl.settInnAlle(steder);
+			sl.settSkrivebeskyttet();
+			return sl;
+		}
+		catch(IOException ioe)
+		{
+			kanal.close();
+			throw ioe;
+		}
+	} // end of kartlegg(...)
+	
+	/**
+	 * Leser bare hodet i filen, og returnerer den frste journalen som ikke er tatt med i filen.
+	 * @param fil	Filen
+	 * @return	Generasjonen til journalen, eller 0 for filer i versjon 1
+	 * @throws IOException	dersom filen ikke kan leses eller ikke er en datafil
+	 */
+	static long journalgenerasjon(File fil) throws IOException
+	{
+		return lesHode(fil).journal;
+	}
+	
+	/**
+	 * Leser bare hodet i filen.
+	 * @param fil	Filen
+	 * @return	hodet
+	 * @throws IOException	dersom filen ikke kan leses eller ikke er en datafil
+	 */
+	static Hode lesHode(File fil) throws IOException
+	{
+		FileChannel kanal = FileChannel.open(fil.toPath(), StandardOpenOption.READ);
+		try
+		{
+			return lesHode(new Leser(kanal));
+		}
+		finally
+		{
+			kanal.close();
+		}
+	}
+	
+	/**
+	 * Innholdet i hodet til filen.
+	 */
+	static class Hode
+	{
+		int versjon, antall, kontrollsum;
+		long journal, segmentfil, brukt;
+	} // end of class Hode
+	
+	/**
+	 * Alt som er lest inn fra filen: hodet, stedtabellen og stedlisten.
+	 */
+	static class Innhold
+	{
+		final Hode hode;
+		final Stedtabell tabell;
+		final Stedliste stedliste;
+		
+		Innhold(Hode hode, Stedtabell tabell, Stedliste stedliste)
+		{
+			this.hode = hode;
+			this.tabell = tabell;
+			this.stedliste = stedliste;
+		}
+	} // end of class Innhold
+	
+	/**
+	 * Leser og sjekker hodet i filen.
+	 * @param inn	Leseren, som str p starten av filen
+	 * @return	hodet
+	 * @throws IOException	dersom filen ikke er en datafil, eller har en versjon som ikke kan leses
+	 */
+	private static Hode lesHode(Leser inn) throws IOException
+	{
+		if(inn.lesInt() != MAGI)
+			throw new IOException("Filen er ikke en datafil");
+		Hode hode = new Hode();
+		hode.versjon = inn.lesInt();
+		if(hode.versjon < 1 || hode.versjon > VERSJON)
+			throw new IOException("Ukjent versjon av datafilen: " + hode.versjon);
+		hode.antall = inn.lesInt();
+		if(hode.antall < 0)
+			throw new IOException("Ugyldig antall steder i datafilen");
+		hode.kontrollsum = inn.lesInt();
+		if(hode.versjon >= 2)
+			hode.journal = inn.lesLong();
+		if(hode.versjon >= 3)
+		{
+			hode.segmentfil = inn.lesLong();
+			hode.brukt = inn.lesLong();
+			if(hode.brukt < SEGMENTHODE)
+				throw new IOException("Ugyldig lengde p segmentfilen");
+		}
+		return hode;
+	}
+	
+	/**
+	 * Regner ut hvor mange bytes blokken til en datoliste tar i filen.
+	 * @param dl	Datolisten
+	 * @return	lengden p blokken
+	 */
+	static int blokklengde(Datoliste dl)
+	{
+		int n = dl.size();
+		if(n == 0)
+			return 0;
+		int lengde = 4 + n * 6;
+		for(int i = 1; i < n; i++)
+			lengde += varintlengde(dl.dagnummerVed(i) - dl.dagnummerVed(i - 1));
+		return lengde;
+	}
+	
+	/**
+	 * Skriver blokken til en datoliste: frste dagnummer, avstandene mellom dagene og de tre kolonnene.
+	 * @param ut	Skriveren
+	 * @param dl	Datolisten som skal skrives
+	 */
+	static void skrivBlokk(Skriver ut, Datoliste dl) throws IOException
+	{
+		int n = dl.size();
+		if(n == 0)
+			return;
+		ut.skrivInt(dl.dagnummerVed(0));
+		for(int i = 1; i < n; i++)
+			ut.skrivVarint(dl.dagnummerVed(i) - dl.dagnummerVed(i - 1));
+		for(int i = 0; i < n; i++)
+			ut.skrivShort(dl.skalertMinTemp(i));
+		for(int i = 0; i < n; i++)
+			ut.skrivShort(dl.skalertMaxTemp(i));
+		for(int i = 0; i < n; i++)
+			ut.skrivShort(dl.skalertNedbr(i));
+	}
+	
+	/**
+	 * Leser blokken til et sted og lager datolisten direkte fra kolonnene.
+	 * @param inn	Leseren, som str p starten av blokken
+	 * @param n	Antall datoer i blokken
+	 * @return	Datolisten
+	 * @throws IOException	dersom dagene ikke er stigende, eller filen slutter for tidlig
+	 */
+	private static Datoliste lesBlokk(Leser inn, int n) throws IOException
+	{
+		int[] dager = new int[n];
+		short[] min = new short[n];
+		short[] max = new short[n];
+		short[] ned = new short[n];
+		lesBlokk(inn, n, dager, min, max, ned, 0);
+		return new Datoliste(dager, min, max, ned);
+	}
+	
+	/**
+	 * Leser en blokk inn i en del av kolonnene, slik at segmentene til et sted kan legges etter hverandre.
+	 * @param inn	Leseren, som str p starten av blokken
+	 * @param n	Antall datoer i blokken
+	 * @param dager	Dagkolonnen
+	 * @param min	Kolonnen med minimumstemperaturer
+	 * @param max	Kolonnen med maksimumstemperaturer
+	 * @param ned	Kolonnen med nedbr
+	 * @param fra	Posisjonen i kolonnene den frste datoen skal st p
+	 * @throws IOException	dersom dagene ikke er stigende, eller filen slutter for tidlig
+	 */
+	private static void lesBlokk(Leser inn, int n, int[] dager, short[] min, short[] max, short[] ned, int fra) throws IOException
+	{
+		if(n == 0)
+			return;
+		dager[fra] = inn.lesInt();
+		for(int i = fra + 1; i < fra + n; i++)
+		{
+			int avstand = inn.lesVarint();
+			if(avstand <= 0)
+				throw new IOException("Dagene i datafilen er ikke stigende");
+			dager[i] = dager[i - 1] + avstand;
+		}
+		inn.lesShorts(min, fra, n);
+		inn.lesShorts(max, fra, n);
+		inn.lesShorts(ned, fra, n);
+	}
+	
+	/**
+	 * Leser segmentene til et sted og legger dem etter hverandre i n datoliste. Segmentene hentes fra kartet dersom filen er
+	 * minnekartlagt, og ellers fra kanalen.
+	 * @param kart	Den kartlagte segmentfilen, eller null
+	 * @param kanal	Kanalen til segmentfilen, nr den ikke er kartlagt
+	 * @param segmenter	Segmentene, sortert p r
+	 * @param antall	Antall datoer i alle segmentene til sammen
+	 * @param kontroller	Om kontrollsummen til hvert segment skal sjekkes
+	 * @return	Datolisten
+	 * @throws IOException	dersom et segment er skadet, eller segmentene ikke passer sammen
+	 */
+	private static Datoliste lesSegmenter(Kart kart, FileChannel kanal, Segment[] segmenter, int antall, boolean kontroller) throws IOException
+	{
+		int[] dager = new int[antall];
+		short[] min = new short[antall];
+		short[] max = new short[antall];
+		short[] ned = new short[antall];
+		int fra = 0;
+		for(int i = 0; i < segmenter.length; i++)
+		{
+			Segment segment = segmenter[i];
+			if(segment.antall > antall - fra)
+				throw new IOException("Segmentene har flere datoer enn stedtabellen sier");
+			ByteBuffer del = kart != null ? kart.del(segment.posisjon, segment.lengde) : lesDel(kanal, segment.posisjon, segment.lengde);
+			if(kontroller && kontrollsum(del) != segment.kontrollsum)
+				throw new IOException("Kontrollsummen for et segment i datafilen stemmer ikke");
+			Leser inn = new Leser(del);
+			lesBlokk(inn, segment.antall, dager, min, max, ned, fra);
+			if(inn.posisjon() != segment.lengde)
+				throw new IOException("Datablokken har feil lengde");
+			if(fra > 0 && segment.antall > 0 && dager[fra] <= dager[fra - 1])
+				throw new IOException("Dagene i datafilen er ikke stigende");
+			fra += segment.antall;
+		}
+		if(fra != antall)
+			throw new IOException("Segmentene har frre datoer enn stedtabellen sier");
+		return new Datoliste(dager, min, max, ned);
+	} // end of lesSegmenter(...)
+	
+	/**
+	 * Leser en del av en fil inn i en buffer
+	 * @param kanal	Kanalen til filen
+	 * @param posisjon	Posisjonen i filen
+	 * @param lengde	Antall bytes
+	 * @return	Bufferen, som str p starten av delen
+	 * @throws EOFException	dersom filen slutter fr
+	 */
+	static ByteBuffer lesDel(FileChannel kanal, long posisjon, int lengde) throws IOException
+	{
+		ByteBuffer del = ByteBuffer.allocate(lengde);
+		while(del.hasRemaining())
+			if(kanal.read(del, posisjon + del.position()) < 0)
+				throw new EOFException("Segmentfilen slutter for tidlig");
+		del.flip();
+		return del;
+	}
+	
+	/**
+	 * @param del	En buffer, som ikke flyttes
+	 * @return	CRC32-kontrollsummen for det som er igjen i bufferen
+	 */
+	static int kontrollsum(ByteBuffer del)
+	{
+		CRC32 kontrollsum = new CRC32();
+		kontrollsum.update(del.duplicate());
+		return (int)kontrollsum.getValue();
+	}
+	
+	/**
+	 * @param verdi	Et positivt tall
+	 * @return	antall bytes tallet tar som varint
+	 */
+	private static int varintlengde(int verdi)
+	{
+		int lengde = 1;
+		while((verdi >>>= 7) != 0)
+			lengde++;
+		return lengde;
+	}
+	
+	/**
+	 * Vrdataene til ett sted for ett r, slik de ligger i segmentfilen. Et segment som er laget fra endrede data, har en kopi
+	 * av dataene og posisjon -1 til det er skrevet.
+	 */
+	static class Segment
+	{
+		final int r, antall;
+		long posisjon;
+		int lengde, kontrollsum;
+		Datoliste data;
+		
+		/**
+		 * Konstruktr for et segment som er lest fra indeksen
+		 * @param r	ret
+		 * @param antall	Antall datoer
+		 * @param posisjon	Posisjonen i segmentfilen
+		 * @param lengde	Lengden i bytes
+		 * @param kontrollsum	CRC32-kontrollsummen for segmentet
+		 */
+		Segment(int r, int antall, long posisjon, int lengde, int kontrollsum)
+		{
+			this.r = r;
+			this.antall = antall;
+			this.posisjon = posisjon;
+			this.lengde = lengde;
+			this.kontrollsum = kontrollsum;
+		}
+		
+		/**
+		 * Konstruktr for et segment som skal skrives
+		 * @param r	ret
+		 * @param data	En egen kopi av dataene for ret
+		 */
+		Segment(int r, Datoliste data)
+		{
+			this(r, data.size(), -1, blokklengde(data), 0);
+			this.data = data;
+		}
+	} // end of class Segment
+	
+	/**
+	 * Navn, fylke og antall datoer for hvert sted, slik de str i stedtabellen, med posisjonen til blokken (versjon 1 og 2)
+	 * eller segmentene (versjon 3) til stedet, og stedet som er laget nr filen leses inn.
+	 */
+	static class Stedtabell
+	{
+		final String[] navn;
+		final int[] fylker;
+		final int[] antallDatoer;
+		final long[] posisjoner;
+		final Segment[][] segmenter;
+		final Sted[] steder;
+		
+		/**
+		 * Konstruktr for en tom tabell som skal fylles ut
+		 * @param antall	Antall steder
+		 */
+		Stedtabell(int antall)
+		{
+			navn = new String[antall];
+			fylker = new int[antall];
+			antallDatoer = new int[antall];
+			posisjoner = new long[antall];
+			segmenter = new Segment[antall][];
+			steder = new Sted[antall];
+		}
+		
+		/**
+		 * Leser stedtabellen
+		 * @param inn	Leseren, som str p starten av tabellen
+		 * @param hode	Hodet til filen
+		 * @throws IOException	dersom tabellen er skadet
+		 */
+		Stedtabell(Leser inn, Hode hode) throws IOException
+		{
+			this(hode.antall);
+			for(int s = 0; s < hode.antall; s++)
+			{
+				int lengde = inn.lesShort();
+				if(lengde < 0)
+					throw new IOException("Ugyldig stedsnavn i datafilen");
+				navn[s] = new String(inn.lesBytes(lengde), StandardCharsets.UTF_8);
+				fylker[s] = inn.lesByte();
+				if(fylker[s] < 0 || fylker[s] >= Sted.FYLKESLISTE.length)
+					throw new IOException("Ugyldig fylke i datafilen: " + fylker[s]);
+				antallDatoer[s] = inn.lesInt();
+				if(antallDatoer[s] < 0)
+					throw new IOException("Ugyldig antall datoer i datafilen");
+				if(hode.versjon < 3)
+				{
+					posisjoner[s] = inn.lesLong();
+					continue;
+				}
+				int antallSegmenter = inn.lesInt();
+				if(antallSegmenter < 0 || antallSegmenter > antallDatoer[s])
+					throw new IOException("Ugyldig antall segmenter i datafilen");
+				segmenter[s] = new Segment[antallSegmenter];
+				for(int i = 0; i < antallSegmenter; i++)
+				{
+					Segment segment = new Segment(inn.lesInt(), inn.lesInt(), inn.lesLong(), inn.lesInt(), inn.lesInt());
+					if(segment.antall <= 0 || segment.lengde <= 0 || segment.posisjon < SEGMENTHODE
+							|| segment.posisjon + segment.lengde > hode.brukt)
+						throw new IOException("Et segment til " + navn[s] + " ligger utenfor segmentfilen");
+					segmenter[s][i] = segment;
+				}
+			}
+		}
+	} // end of class Stedtabell
+	
+	/**
+	 * En minnekartlagt datafil. Starten av filen, opp til 2 GB, kartlegges med n gang, og blokker som ligger lenger ut
+	 * kartlegges hver for seg nr de trengs, slik at ogs strre arkiver kan pnes.
+	 */
+	private static class Kart
+	{
+		private final FileChannel kanal;
+		private final long strrelse;
+		private final MappedByteBuffer hoved;
+		
+		/**
+		 * Konstruktr, kartlegger starten av filen
+		 * @param kanal	Kanalen til filen
+		 */
+		Kart(FileChannel kanal) throws IOException
+		{
+			this.kanal = kanal;
+			strrelse = kanal.size();
+			hoved = kanal.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(strrelse, Integer.MAX_VALUE));
+		}
+		
+		/**
+		 * Returnerer en buffer med en del av filen, fra hovedkartet om delen ligger der
+		 * @param start	Posisjonen i filen
+		 * @param lengde	Antall bytes
+		 * @return	Bufferen, som str p starten av delen
+		 */
+		ByteBuffer del(long start, int lengde) throws IOException
+		{
+			if(start + lengde <= hoved.capacity())
+			{
+				ByteBuffer del = hoved.duplicate();
+				del.limit((int)start + lengde);
+				del.position((int)start);
+				return del.slice();
+			}
+			synchronized(this)
+			{
+				return kanal.map(FileChannel.MapMode.READ_ONLY, start, lengde);
+			}
+		}
+	} // end of class Kart
+	
+	/**
+	 * Blokken eller segmentene til ett sted i en minnekartlagt fil, som leses nr datolisten til stedet trengs frste gang.
+	 */
+	static class Blokk
+	{
+		private final Kart kart;
+		private final Segment[] segmenter;
+		private final int antall;
+		private final boolean kontroller;
+		
+		/**
+		 * Konstruktr
+		 * @param kart	Den kartlagte filen
+		 * @param segmenter	Segmentene til stedet, eller blokken som ett segment i filer fra fr versjon 3
+		 * @param antall	Antall datoer til sammen
+		 * @param kontroller	Om kontrollsummen til segmentene skal sjekkes
+		 */
+		Blokk(Kart kart, Segment[] segmenter, int antall, boolean kontroller)
+		{
+			this.kart = kart;
+			this.segmenter = segmenter;
+			this.antall = antall;
+			this.kontroller = kontroller;
+		}
+		
+		/**
+		 * Leser kolonnene rett fra kartet og lager en skrivebeskyttet datoliste av dem
+		 * @return	Datolisten
+		 * @throws IOException	dersom blokken er skadet
+		 */
+		Datoliste les() throws IOException
+		{
+			Datoliste dl = lesSegmenter(kart, null, segmenter, antall, kontroller);
+			dl.settSkrivebeskyttet();
+			return dl;
+		}
+	} // end of class Blokk
+	
+	/**
+	 * Skriver tall til en kanal gjennom en buffer, og regner ut kontrollsummen for alt som skrives etter at startKontrollsum() sist ble kalt.
+	 */
+	static class Skriver
+	{
+		private final FileChannel kanal;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFERSTRRELSE);
+		private final CRC32 kontrollsum = new CRC32();
+		/**
+		 * Posisjonen i kanalen til starten av bufferen
+		 */
+		private long bufferstart;
+		/**
+		 * Posisjonen i bufferen kontrollsummen er regnet ut til
+		 */
+		private int summert;
+		
+		/**
+		 * Konstruktr
+		 * @param kanal	Kanalen det skrives til
+		 * @param start	Posisjonen i kanalen skrivingen starter p
+		 */
+		Skriver(FileChannel kanal, long start) throws IOException
+		{
+			this.kanal = kanal;
+			kanal.position(start);
+			bufferstart = start;
+		}
+		
+		/**
+		 * Tmmer bufferen dersom det ikke er plass til flere bytes
+		 * @param bytes	Antall bytes som skal skrives
+		 */
+		private void plass(int bytes) throws IOException
+		{
+			if(buffer.remaining() < bytes)
+				tm();
+		}
+		
+		/**
+		 * Tar med bytene som er skrevet til bufferen siden sist i kontrollsummen
+		 */
+		private void summer()
+		{
+			if(summert == buffer.position())
+				return;
+			ByteBuffer skrevet = buffer.duplicate();
+			skrevet.limit(buffer.position());
+			skrevet.position(summert);
+			kontrollsum.update(skrevet);
+			summert = buffer.position();
+		}
+		
+		/**
+		 * Skriver det som ligger i bufferen til kanalen
+		 */
+		void tm() throws IOException
+		{
+			summer();
+			buffer.flip();
+			while(buffer.hasRemaining())
+				kanal.write(buffer);
+			bufferstart += buffer.limit();
+			buffer.clear();
+			summert = 0;
+		}
+		
+		/**
+		 * Starter utregningen av kontrollsummen p nytt fra posisjonen skriveren str p
+		 */
+		void startKontrollsum()
+		{
+			summer();
+			kontrollsum.reset();
+		}
+		
+		/**
+		 * @return	posisjonen i kanalen neste byte skrives til
+		 */
+		long posisjon()
+		{
+			return bufferstart + buffer.position();
+		}
+		
+		void skrivByte(byte verdi) throws IOException
+		{
+			plass(1);
+			buffer.put(verdi);
+		}
+		
+		void skrivShort(short verdi) throws IOException
+		{
+			plass(2);
+			buffer.putShort(verdi);
+		}
+		
+		void skrivInt(int verdi) throws IOException
+		{
+			plass(4);
+			buffer.putInt(verdi);
+		}
+		
+		void skrivLong(long verdi) throws IOException
+		{
+			plass(8);
+			buffer.putLong(verdi);
+		}
+		
+		/**
+		 * Skriver et positivt tall med 7 bits per byte, der den hyeste biten sier om det kommer flere bytes
+		 * @param verdi	Tallet
+		 */
+		void skrivVarint(int verdi) throws IOException
+		{
+			plass(5);
+			while((verdi & ~0x7F) != 0)
+			{
+				buffer.put((byte)((verdi & 0x7F) | 0x80));
+				verdi >>>= 7;
+			}
+			buffer.put((byte)verdi);
+		}
+		
+		/**
+		 * Skriver bytene, i flere omganger om de ikke fr plass i bufferen
+		 * @param verdier	Bytene
+		 */
+		void skrivBytes(byte[] verdier) throws IOException
+		{
+			int i = 0;
+			while(i < verdier.length)
+			{
+				plass(1);
+				int antall = Math.min(buffer.remaining(), verdier.length - i);
+				buffer.put(verdier, i, antall);
+				i += antall;
+			}
+		}
+		
+		/**
+		 * @return	kontrollsummen for det som er skrevet siden startKontrollsum() sist ble kalt, eller siden starten
+		 */
+		long kontrollsum()
+		{
+			summer();
+			return kontrollsum.getValue();
+		}
+	} // end of class Skriver
+	
+	/**
+	 * Leser tall fra en kanal gjennom en buffer, og regner ut kontrollsummen for det som er lest etter at startKontrollsum() er kalt.
+	 */
+	static class Leser
+	{
+		private final FileChannel kanal;
+		private final ByteBuffer buffer;
+		private final CRC32 kontrollsum = new CRC32();
+		/**
+		 * Posisjonen i kanalen til starten av bufferen
+		 */
+		private long bufferstart;
+		/**
+		 * Posisjonen i bufferen kontrollsummen er regnet ut til, eller -1 dersom den ikke regnes ut enn
+		 */
+		private int summert = -1;
+		
+		/**
+		 * Konstruktr
+		 * @param kanal	Kanalen det leses fra, fra starten
+		 */
+		Leser(FileChannel kanal)
+		{
+			this.kanal = kanal;
+			buffer = ByteBuffer.allocateDirect(BUFFERSTRRELSE);
+			buffer.flip();
+		}
+		
+		/**
+		 * Konstruktr for  lese fra en buffer som allerede har alle dataene, f.eks. en minnekartlagt del av filen
+		 * @param data	Bufferen det leses fra, fra posisjonen den str p
+		 */
+		Leser(ByteBuffer data)
+		{
+			kanal = null;
+			buffer = data;
+		}
+		
+		/**
+		 * Fyller bufferen slik at minst det angitte antallet bytes kan leses
+		 * @param bytes	Antall bytes som skal leses, hyst strrelsen p bufferen
+		 * @throws EOFException	dersom filen slutter fr
+		 */
+		private void krev(int bytes) throws IOException
+		{
+			if(buffer.remaining() >= bytes)
+				return;
+			if(kanal == null)
+				throw new EOFException("Datafilen slutter for tidlig");
+			summer();
+			bufferstart += buffer.position();
+			if(summert >= 0)
+				summert = 0;
+			buffer.compact();
+			while(buffer.position() < bytes)
+			{
+				if(kanal.read(buffer) < 0)
+				{
+					buffer.flip();
+					throw new EOFException("Datafilen slutter for tidlig");
+				}
+			}
+			buffer.flip();
+		}
+		
+		/**
+		 * Tar med bytene som er lest siden sist i kontrollsummen
+		 */
+		private void summer()
+		{
+			if(summert < 0 || summert == buffer.position())
+				return;
+			ByteBuffer lest = buffer.duplicate();
+			lest.limit(buffer.position());
+			lest.position(summert);
+			kontrollsum.update(lest);
+			summert = buffer.position();
+		}
+		
+		/**
+		 * Starter utregningen av kontrollsummen fra posisjonen leseren str p
+		 */
+		void startKontrollsum()
+		{
+			summert = buffer.position();
+		}
+		
+		/**
+		 * Sjekker at hele filen er lest og at kontrollsummen stemmer
+		 * @param forventet	Kontrollsummen fra hodet
+		 * @throws IOException	dersom det er noe igjen av filen, eller kontrollsummen ikke stemmer
+		 */
+		void avslutt(int forventet) throws IOException
+		{
+			summer();
+			if(buffer.hasRemaining() || posisjon() != kanal.size())
+				throw new IOException("Datafilen har data etter siste blokk");
+			if((int)kontrollsum.getValue() != forventet)
+				throw new IOException("Kontrollsummen i datafilen stemmer ikke");
+		}
+		
+		/**
+		 * @return	posisjonen i kanalen til neste byte som leses
+		 */
+		long posisjon()
+		{
+			return bufferstart + buffer.position();
+		}
+		
+		byte lesByte() throws IOException
+		{
+			krev(1);
+			return buffer.get();
+		}
+		
+		short lesShort() throws IOException
+		{
+			krev(2);
+			return buffer.getShort();
+		}
+		
+		int lesInt() throws IOException
+		{
+			krev(4);
+			return buffer.getInt();
+		}
+		
+		long lesLong() throws IOException
+		{
+			krev(8);
+			return buffer.getLong();
+		}
+		
+		/**
+		 * Leser et tall skrevet med Skriver.skrivVarint(...)
+		 * @return	Tallet
+		 * @throws IOException	dersom tallet er lengre enn fem bytes
+		 */
+		int lesVarint() throws IOException
+		{
+			// De aller fleste avstandene er n dag, som fr plass i n byte
+			if(buffer.hasRemaining())
+			{
+				byte b = buffer.get(buffer.position());
+				if(b >= 0)
+				{
+					buffer.position(buffer.position() + 1);
+					return b;
+				}
+			}
+			int verdi = 0;
+			for(int skift = 0; skift < 35; skift += 7)
+			{
+				krev(1);
+				byte b = buffer.get();
+				verdi |= (b & 0x7F) << skift;
+				if(b >= 0)
+					return verdi;
+			}
+			throw new IOException("Ugyldig tall i datafilen");
+		}
+		
+		/**
+		 * Fyller en del av en array med short-verdier, med s mange verdier om gangen som bufferen har
+		 * @param verdier	Arrayen som fylles
+		 * @param fra	Frste posisjon i arrayen
+		 * @param n	Antall verdier
+		 */
+		void lesShorts(short[] verdier, int fra, int n) throws IOException
+		{
+			int i = fra;
+			while(i < fra + n)
+			{
+				krev(2);
+				int antall = Math.min(buffer.remaining() / 2, fra + n - i);
+				buffer.asShortBuffer().get(verdier, i, antall);
+				buffer.position(buffer.position() + 2 * antall);
+				i += antall;
+			}
+		}
+		
+		byte[] lesBytes(int antall) throws IOException
+		{
+			krev(antall);
+			byte[] verdier = new byte[antall];
+			buffer.get(verdier);
+			return verdier;
+		}
+	} // end of class Leser
+} // end of class Datafil
\ No newline at end of file
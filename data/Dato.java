@@ -6,6 +6,8 @@
  */
 package data;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
@@ -18,6 +20,11 @@ import logic.Registrering;
 public class Dato implements Serializable
 {
 	private static final long serialVersionUID = 8069404848049956509L;
+	/**
+	 * Navnene p mnedene i ret, og det frste ret det kan registreres og skes p data for.
+	 */
+	public static final String[] MNEDER = {"Januar","Februar","Mars","April","Mai","Juni","Juli","August","September","Oktober","November","Desember"};
+	public static final int FRSTER = 1900;
 	/**
 	 * minTemp	Minimumstemperatur for denne dagen.
 	 * maxTemp	Maksimumstemperatur for denne dagen.
@@ -28,9 +35,18 @@ public class Dato implements Serializable
 	private double maxTemp = Registrering.MAXMAXTEMP + 1;
 	private double nedbr = -1;
 	/**
-	 * Objekt av klassen GregorianCalendar for  lagre hvilken dag, mned og r dette er.
+	 * Dagnummeret (dager siden 1.1.1970) for  lagre hvilken dag, mned og r dette er.
 	 */
-	private GregorianCalendar dato;
+	private int dagnummer;
+	/**
+	 * Datolisten som eier verdiene for denne dagen, eller null s lenge objektet ikke er satt inn i en liste.
+	 * Nr datoen ligger i en liste leses og skrives vrdataene direkte i listens kolonner, og feltene over brukes ikke.
+	 */
+	private transient Datoliste liste;
+	/**
+	 * Sist kjente posisjon for datoen i listen.
+	 */
+	private transient int posisjon;
 	
 	/**
 	 * Setter dag, mned og r.
@@ -41,7 +57,16 @@ public class Dato implements Serializable
 	 */
 	public Dato(int dag, int mned, int r)
 	{
-		this.dato=new GregorianCalendar(r,mned,dag);
+		this.dagnummer=tilDagnummer(r,mned,dag);
+	}
+	
+	/**
+	 * Setter dag, mned og r ut fra et ferdig dagnummer.
+	 * @param dagnummer	antall dager siden 1.1.1970.
+	 */
+	public Dato(int dagnummer)
+	{
+		this.dagnummer=dagnummer;
 	}
 	
 	/**
@@ -51,7 +76,50 @@ public class Dato implements Serializable
 	 */
 	public Dato(GregorianCalendar dato)
 	{
-		this.dato=dato;
+		this.dagnummer=tilDagnummer(dato.get(Calendar.YEAR),dato.get(Calendar.MONTH),dato.get(Calendar.DATE));
+	}
+	
+	/**
+	 * Oppretter en lettvekts-visning av en dag som allerede ligger lagret i en datoliste.
+	 * Verdiene hentes fra og skrives til listens kolonner, slik at objektet kun lages nr noen faktisk ber om det.
+	 * @param liste		datolisten som eier verdiene.
+	 * @param posisjon	posisjonen til dagen i listen.
+	 */
+	Dato(Datoliste liste, int posisjon)
+	{
+		this.liste=liste;
+		this.posisjon=posisjon;
+		this.dagnummer=liste.dagnummerVed(posisjon);
+	}
+	
+	/**
+	 * Knytter datoen til en datoliste etter at verdiene er kopiert inn i listens kolonner.
+	 * @param liste		datolisten som n eier verdiene.
+	 * @param posisjon	posisjonen til dagen i listen.
+	 */
+	void knyttTil(Datoliste liste, int posisjon)
+	{
+		this.liste=liste;
+		this.posisjon=posisjon;
+	}
+	
+	/**
+	 * Finner gjeldende posisjon for datoen i listen. Posisjonen kan ha flyttet seg dersom det er satt inn tidligere datoer etter at objektet ble laget.
+	 * @return	posisjonen til datoen i listen.
+	 */
+	private int posisjon()
+	{
+		posisjon=liste.posisjon(dagnummer,posisjon);
+		return posisjon;
+	}
+	
+	/**
+	 * Get-metode for dagnummeret til datoen.
+	 * @return	antall dager siden 1.1.1970.
+	 */
+	public int getDagnummer()
+	{
+		return this.dagnummer;
 	}
 	
 	/**
@@ -61,7 +129,10 @@ public class Dato implements Serializable
 	 */
 	public void setMinTemp(double minTemp)
 	{
-		this.minTemp=minTemp;
+		if(liste!=null)
+			liste.settMinTemp(posisjon(),minTemp);
+		else
+			this.minTemp=minTemp;
 	}
 	
 	/**
@@ -71,7 +142,10 @@ public class Dato implements Serializable
 	 */
 	public void setMaxTemp(double maxTemp)
 	{
-		this.maxTemp=maxTemp;
+		if(liste!=null)
+			liste.settMaxTemp(posisjon(),maxTemp);
+		else
+			this.maxTemp=maxTemp;
 	}
 	
 	
@@ -82,17 +156,39 @@ public class Dato implements Serializable
 	 */
 	public void setNedbr(double nedbr)
 	{
-		this.nedbr=nedbr;
+		if(liste!=null)
+			liste.settNedbr(posisjon(),nedbr);
+		else
+			this.nedbr=nedbr;
 	}
 	
 	/**
-	 * Get-metode for dato.
+	 * Get-metode for dato. Kalenderobjektet opprettes ved hvert kall, s metoden br kun brukes til visning.
 	 * Skrevet av: Henrik Hermansen
 	 * @return	datoen i form av et GregorianCalendar-objekt.
 	 */
 	public GregorianCalendar getDato()
 	{
-		return this.dato;
+		int[] felt=fraDagnummer(this.dagnummer);
+		return new GregorianCalendar(felt[0],felt[1],felt[2]);
+	}
+	
+	/**
+	 * Get-metode for ret datoen ligger i.
+	 * @return	rstall.
+	 */
+	public int getr()
+	{
+		return fraDagnummer(this.dagnummer)[0];
+	}
+	
+	/**
+	 * Get-metode for mneden datoen ligger i.
+	 * @return	mned i ret (0-11).
+	 */
+	public int getMned()
+	{
+		return fraDagnummer(this.dagnummer)[1];
 	}
 	
 	/**
@@ -102,10 +198,8 @@ public class Dato implements Serializable
 	 */
 	public String getDatoString()
 	{
-		int dag=this.dato.get(Calendar.DATE);
-		int mned=this.dato.get(Calendar.MONTH);
-		int r=this.dato.get(Calendar.YEAR);
-		return dag+"-"+mned+"-"+r;
+		int[] felt=fraDagnummer(this.dagnummer);
+		return felt[2]+"-"+felt[1]+"-"+felt[0];
 	}
 	
 	/**
@@ -115,6 +209,8 @@ public class Dato implements Serializable
 	 */
 	public double getMinTemp()
 	{
+		if(liste!=null)
+			return liste.getMinTempVerdi(posisjon());
 		return this.minTemp;
 	}
 	
@@ -125,6 +221,8 @@ public class Dato implements Serializable
 	 */
 	public double getMaxTemp()
 	{
+		if(liste!=null)
+			return liste.getMaxTempVerdi(posisjon());
 		return this.maxTemp;
 	}
 	
@@ -135,13 +233,9 @@ public class Dato implements Serializable
 	 */
 	public double getAvgTemp()
 	{
-		if(this.minTemp <= Registrering.MAXMAXTEMP && this.maxTemp <= Registrering.MAXMAXTEMP)
-			return (this.minTemp+this.maxTemp)/2;
-		if(this.minTemp <= Registrering.MAXMAXTEMP && this.maxTemp > Registrering.MAXMAXTEMP)
-			return this.minTemp;
-		if(this.minTemp > Registrering.MAXMAXTEMP && this.maxTemp <= Registrering.MAXMAXTEMP)
-			return this.maxTemp;
-		return this.minTemp;
+		if(liste!=null)
+			return liste.getAvgTempVerdi(posisjon());
+		return avgTemp(this.minTemp,this.maxTemp);
 	}
 	
 	/**
@@ -151,9 +245,89 @@ public class Dato implements Serializable
 	 */
 	public double getNedbr()
 	{
+		if(liste!=null)
+			return liste.getNedbrVerdi(posisjon());
 		return this.nedbr;
 	}
 	
+	/**
+	 * Leser inn en dato fra strmmen. Eldre datafiler lagret datoen som et GregorianCalendar-objekt i feltet dato,
+	 * og da regnes dagnummeret ut fra dette.
+	 * @param inn	strmmen objektet leses fra.
+	 */
+	private void readObject(ObjectInputStream inn) throws IOException, ClassNotFoundException
+	{
+		ObjectInputStream.GetField felter=inn.readFields();
+		this.minTemp=felter.get("minTemp",Registrering.MAXMAXTEMP+1);
+		this.maxTemp=felter.get("maxTemp",Registrering.MAXMAXTEMP+1);
+		this.nedbr=felter.get("nedbr",-1.0);
+		if(felter.getObjectStreamClass().getField("dato")!=null)
+		{
+			GregorianCalendar dato=(GregorianCalendar) felter.get("dato",null);
+			this.dagnummer=tilDagnummer(dato.get(Calendar.YEAR),dato.get(Calendar.MONTH),dato.get(Calendar.DATE));
+		}
+		else
+			this.dagnummer=felter.get("dagnummer",0);
+	}
+	
+	/**
+	 * Regner ut gjennomsnittstemperaturen for en dag ut fra minimums- og maksimumstemperatur.
+	 * Dersom bare n av dem er registrert brukes den, og er ingen registrert returneres en ugyldig verdi.
+	 * @param minTemp	minimumstemperatur denne dagen.
+	 * @param maxTemp	maksimumstemperatur denne dagen.
+	 * @return	gjennomsnittstemperatur denne dagen.
+	 */
+	static double avgTemp(double minTemp, double maxTemp)
+	{
+		if(minTemp <= Registrering.MAXMAXTEMP && maxTemp <= Registrering.MAXMAXTEMP)
+			return (minTemp+maxTemp)/2;
+		if(minTemp <= Registrering.MAXMAXTEMP && maxTemp > Registrering.MAXMAXTEMP)
+			return minTemp;
+		if(minTemp > Registrering.MAXMAXTEMP && maxTemp <= Registrering.MAXMAXTEMP)
+			return maxTemp;
+		return minTemp;
+	}
+	
+	/**
+	 * Regner om en dato til dagnummer, alts antall dager siden 1.1.1970, uten  opprette et Calendar-objekt.
+	 * Som GregorianCalendar godtar metoden mneder og dager utenfor gyldig omrde, og ruller dem over til neste mned eller r.
+	 * @param r	rstall.
+	 * @param mned	mned i ret (0-11).
+	 * @param dag	dato i mneden.
+	 * @return	dagnummeret for datoen.
+	 */
+	public static int tilDagnummer(int r, int mned, int dag)
+	{
+		r+=Math.floorDiv(mned,12);
+		int m=Math.floorMod(mned,12)+1;
+		if(m<=2)
+			r--;
+		int ra=(r>=0 ? r : r-399)/400;
+		int r=r-ra*400;
+		int dagIr=(153*(m>2 ? m-3 : m+9)+2)/5;
+		int dagIra=r*365+r/4-r/100+dagIr;
+		return ra*146097+dagIra-719468+dag-1;
+	}
+	
+	/**
+	 * Regner om et dagnummer tilbake til r, mned og dag.
+	 * @param dagnummer	antall dager siden 1.1.1970.
+	 * @return	int-array med r, mned (0-11) og dag i mneden.
+	 */
+	public static int[] fraDagnummer(int dagnummer)
+	{
+		int z=dagnummer+719468;
+		int ra=(z>=0 ? z : z-146096)/146097;
+		int dagIra=z-ra*146097;
+		int r=(dagIra-dagIra/1460+dagIra/36524-dagIra/146096)/365;
+		int dagIr=dagIra-(365*r+r/4-r/100);
+		int mp=(5*dagIr+2)/153;
+		int dag=dagIr-(153*mp+2)/5+1;
+		int mned=mp<10 ? mp+2 : mp-10;
+		int r=r+ra*400+(mned<=1 ? 1 : 0);
+		return new int[]{r,mned,dag};
+	}
+	
 	/**
 	 * toString-metode som gir informasjon om dagen i form av en String.
 	 * Skrevet av: Henrik Hermansen
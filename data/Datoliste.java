@@ -7,45 +7,355 @@
  */
 package data;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.GregorianCalendar;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import logic.Registrering;
 
 /**
  *	Klassen representerer en liste av Dato-objekter, og metoder som kan brukes p disse.
+ *	Dataene lagres kolonnevis i primitive arrayer (dagnummer, minimumstemperatur, maksimumstemperatur og nedbr),
+ *	og Dato-objekter opprettes frst nr noen ber om dem, som visninger inn i kolonnene.
  */
 public class Datoliste implements Serializable
 {
 	private static final long serialVersionUID = 5128304930051989367L;
 	
 	/**
-	 * En liste av typen ArrayList for  lagre alle datoer som er registrert for et bestemt sted.
+	 * Vrdataene lagres som short med n desimal, alts ganget med SKALA.
 	 */
-	private ArrayList<Dato> liste=new ArrayList<Dato>();
+	static final double SKALA = 10.0;
+	/**
+	 * Startkapasitet for kolonnene.
+	 */
+	private static final int STARTKAPASITET = 16;
+	
+	/**
+	 * Kolonnene med dagnummer og vrdata for alle datoer som er registrert for et bestemt sted, sortert kronologisk.
+	 */
+	private transient int[] dager;
+	private transient short[] minTemp;
+	private transient short[] maxTemp;
+	private transient short[] nedbr;
+	/**
+	 * Posisjonen i kolonnene der listen starter, og antall datoer i listen.
+	 * For vanlige lister er start alltid 0, mens utsnitt fra finnDatoer() deler kolonnene med listen de er hentet fra.
+	 */
+	private transient int start, antall;
+	/**
+	 * Om listen er et skrivebeskyttet utsnitt av en annen liste.
+	 */
+	private transient boolean utsnitt;
+	/**
+	 * Om listen er lest fra en datafil som er pnet skrivebeskyttet, se Datafil.kartlegg(...).
+	 */
+	private transient boolean skrivebeskyttet;
+	/**
+	 * Listen et utsnitt er hentet fra, eller null for vanlige lister.
+	 */
+	private transient Datoliste kilde;
+	
+	/**
+	 * Kolonnenumre for summene: minimumstemperatur, maksimumstemperatur, gjennomsnittstemperatur og nedbr.
+	 */
+	private static final int MIN=0, MAX=1, AVG=2, NED=3;
+	/**
+	 * Kumulative summer og antall gyldige verdier for hver kolonne, slik at summer[k][i] er summen av de i frste gyldige verdiene.
+	 * Summene er skalert som kolonnene, og gjennomsnittstemperaturen summeres doblet for  slippe halve tideler.
+	 * Summen over et intervall er da forskjellen mellom to oppslag. Bare vanlige lister har summer, utsnitt bruker kildens.
+	 */
+	private transient int[][] summer, antaller;
+	/**
+	 * Summene er riktige for posisjonene 0 til og med gyldigeSummer. Endringer i kolonnene flytter grensen tilbake,
+	 * og resten regnes ut p nytt neste gang summene trengs.
+	 */
+	private transient int gyldigeSummer;
+	
+	/**
+	 * Typer ekstremverdier som kan skes etter med finnEkstrem() og finnEkstremposisjoner().
+	 */
+	public static final int LAVESTE_MINTEMP=0, HYESTE_MAXTEMP=1, LAVESTE_NEDBR=2, HYESTE_NEDBR=3;
+	/**
+	 * Segmenttrr for hver type ekstremverdi, som bare vanlige lister har. Trrne er riktige for posisjonene fr gyldigeEkstremer,
+	 * og resten oppdateres neste gang et tre trengs.
+	 */
+	private transient Ekstremindeks[] ekstremer;
+	private transient int gyldigeEkstremer;
+	/**
+	 * Dagen som sist ble endret, og de skalerte verdiene den hadde fr endringen, til stedlisten henter dem med gamleVerdier(...).
+	 * Kuben bruker dem til  trekke fra de gamle verdiene. INGEN betyr at ingen endring er husket.
+	 */
+	private static final int INGEN=Integer.MIN_VALUE;
+	private transient int endretDag=INGEN;
+	private transient short gammelMin, gammelMax, gammelNed;
+	
+	/**
+	 * Oppretter en tom datoliste.
+	 * Skrevet av: Henrik Hermansen
+	 */
+	public Datoliste()
+	{
+		dager=new int[STARTKAPASITET];
+		minTemp=new short[STARTKAPASITET];
+		maxTemp=new short[STARTKAPASITET];
+		nedbr=new short[STARTKAPASITET];
+	}
+	
+	/**
+	 * Oppretter en datoliste direkte fra ferdige kolonner, f.eks. nr et sted leses inn fra datafilen.
+	 * Kolonnene tas i bruk som de er, uten kopiering, og dagene m vre sortert kronologisk uten like dager.
+	 * @param dager	dagnummerene.
+	 * @param min	skalerte minimumstemperaturer.
+	 * @param max	skalerte maksimumstemperaturer.
+	 * @param ned	skalert nedbr.
+	 */
+	Datoliste(int[] dager, short[] min, short[] max, short[] ned)
+	{
+		this.dager=dager;
+		minTemp=min;
+		maxTemp=max;
+		nedbr=ned;
+		antall=dager.length;
+	}
+	
+	/**
+	 * Oppretter et skrivebeskyttet utsnitt av en annen liste, uten  kopiere kolonnene.
+	 * Utsnittet er bare gyldig s lenge den opprinnelige listen ikke endres.
+	 * @param kilde	listen utsnittet hentes fra.
+	 * @param fra	frste posisjon i kolonnene som skal vre med.
+	 * @param til	frste posisjon i kolonnene etter utsnittet.
+	 */
+	private Datoliste(Datoliste kilde, int fra, int til)
+	{
+		dager=kilde.dager;
+		minTemp=kilde.minTemp;
+		maxTemp=kilde.maxTemp;
+		nedbr=kilde.nedbr;
+		start=fra;
+		antall=til-fra;
+		utsnitt=true;
+		this.kilde=kilde.kilde==null ? kilde : kilde.kilde;
+	}
 	
 	/**
 	 * Setter Dato-objektet inn i listen liste.
+	 * Plassen finnes ved binrsk i dagkolonnen, og det samme sket avslrer om datoen allerede er registrert.
+	 * Verdiene kopieres inn i kolonnene, og Dato-objektet blir deretter en visning av den nye plassen i listen.
 	 * Skrevet av: Henrik Hermansen
 	 * @param dato	et ferdig objekt av klassen Dato.
+	 * @return	true hvis datoen ble satt inn, false hvis listen allerede har en dato med samme dag.
 	 */
-	public void settInn(Dato dato)
+	public boolean settInn(Dato dato)
 	{
-		liste.add(dato);
-		this.sorter();
+		sjekkSkrivbar();
+		int dag=dato.getDagnummer();
+		int index=Arrays.binarySearch(dager,0,antall,dag);
+		if(index>=0)
+			return false;
+		index=-(index+1);
+		endretDag=dag;
+		gammelMin=gammelMax=skaler(Registrering.MAXMAXTEMP+1);
+		gammelNed=skaler(-1);
+		sikreKapasitet(antall+1);
+		int flytt=antall-index;
+		if(flytt>0)
+		{
+			System.arraycopy(dager,index,dager,index+1,flytt);
+			System.arraycopy(minTemp,index,minTemp,index+1,flytt);
+			System.arraycopy(maxTemp,index,maxTemp,index+1,flytt);
+			System.arraycopy(nedbr,index,nedbr,index+1,flytt);
+		}
+		dager[index]=dag;
+		minTemp[index]=skaler(dato.getMinTemp());
+		maxTemp[index]=skaler(dato.getMaxTemp());
+		nedbr[index]=skaler(dato.getNedbr());
+		antall++;
+		endret(index);
+		dato.knyttTil(this,index);
+		return true;
+	}
+	
+	/**
+	 * Setter inn mange Dato-objekter p n gang, f.eks. nr historikken til et sted lastes inn.
+	 * De nye datoene sorteres for seg, og flettes s inn i kolonnene bakfra i n gjennomgang.
+	 * Datoer som allerede finnes i listen, eller som forekommer flere ganger i samlingen, settes bare inn n gang.
+	 * @param datoer	samlingen med ferdige Dato-objekter som skal settes inn.
+	 * @return	antall datoer som ble satt inn.
+	 */
+	public int settInnAlle(Collection<Dato> datoer)
+	{
+		sjekkSkrivbar();
+		Dato[] nye=datoer.toArray(new Dato[datoer.size()]);
+		Arrays.sort(nye,new Datosammenligner());
+		int n=0;
+		for(int i=0;i<nye.length;i++)
+		{
+			int dag=nye[i].getDagnummer();
+			if(n>0 && nye[n-1].getDagnummer()==dag)
+				continue;
+			if(Arrays.binarySearch(dager,0,antall,dag)>=0)
+				continue;
+			nye[n++]=nye[i];
+		}
+		if(n==0)
+			return 0;
+		sikreKapasitet(antall+n);
+		int gammel=antall-1, ny=n-1;
+		for(int k=antall+n-1;ny>=0;k--)
+		{
+			if(gammel>=0 && dager[gammel]>nye[ny].getDagnummer())
+			{
+				dager[k]=dager[gammel];
+				minTemp[k]=minTemp[gammel];
+				maxTemp[k]=maxTemp[gammel];
+				nedbr[k]=nedbr[gammel];
+				gammel--;
+			}
+			else
+			{
+				Dato dato=nye[ny--];
+				dager[k]=dato.getDagnummer();
+				minTemp[k]=skaler(dato.getMinTemp());
+				maxTemp[k]=skaler(dato.getMaxTemp());
+				nedbr[k]=skaler(dato.getNedbr());
+			}
+		}
+		antall+=n;
+		endret(posisjon(nye[0].getDagnummer(),-1));
+		for(int i=0;i<n;i++)
+			nye[i].knyttTil(this,posisjon(nye[i].getDagnummer(),i));
+		return n;
+	}
+	
+	/**
+	 * Setter alle verdiene for en dag, og setter inn dagen frst om den ikke finnes. Brukes nr journalen spilles av.
+	 * @param dag	dagnummeret.
+	 * @param min	skalert minimumstemperatur.
+	 * @param max	skalert maksimumstemperatur.
+	 * @param ned	skalert nedbr.
+	 */
+	void settVerdier(int dag, short min, short max, short ned)
+	{
+		sjekkSkrivbar();
+		int index=posisjon(dag,-1);
+		if(index<0)
+		{
+			settInn(new Dato(dag));
+			index=posisjon(dag,-1);
+		}
+		husk(index);
+		minTemp[index]=min;
+		maxTemp[index]=max;
+		nedbr[index]=ned;
+		endret(index);
+	}
+	
+	/**
+	 * Lager en kopi av listen med egne kolonner, som ikke endres nr denne listen endres.
+	 * @return	kopien.
+	 */
+	Datoliste kopi()
+	{
+		return new Datoliste(Arrays.copyOfRange(dager,start,start+antall),Arrays.copyOfRange(minTemp,start,start+antall),
+				Arrays.copyOfRange(maxTemp,start,start+antall),Arrays.copyOfRange(nedbr,start,start+antall));
+	}
+	
+	/**
+	 * Kaster UnsupportedOperationException hvis listen er et utsnitt eller skrivebeskyttet, siden de ikke kan endres.
+	 */
+	private void sjekkSkrivbar()
+	{
+		if(utsnitt)
+			throw new UnsupportedOperationException("Utsnitt av en datoliste kan ikke endres");
+		if(skrivebeskyttet)
+			throw new UnsupportedOperationException("Datolisten er pnet skrivebeskyttet");
+	}
+	
+	/**
+	 * Gjr listen skrivebeskyttet.
+	 */
+	void settSkrivebeskyttet()
+	{
+		skrivebeskyttet=true;
+	}
+	
+	/**
+	 * Utvider kolonnene slik at de har plass til minst det angitte antallet datoer.
+	 * @param minste	antall datoer kolonnene m ha plass til.
+	 */
+	private void sikreKapasitet(int minste)
+	{
+		if(minste<=dager.length)
+			return;
+		int kapasitet=Math.max(Math.max(STARTKAPASITET,antall+(antall>>1)),minste);
+		dager=Arrays.copyOf(dager,kapasitet);
+		minTemp=Arrays.copyOf(minTemp,kapasitet);
+		maxTemp=Arrays.copyOf(maxTemp,kapasitet);
+		nedbr=Arrays.copyOf(nedbr,kapasitet);
+	}
+	
+	/**
+	 * Legger en dato til bakerst i kolonnene, og utvider dem ved behov.
+	 * @param dag	dagnummeret til datoen.
+	 * @param min	skalert minimumstemperatur.
+	 * @param max	skalert maksimumstemperatur.
+	 * @param ned	skalert nedbr.
+	 */
+	private void leggTil(int dag, short min, short max, short ned)
+	{
+		sikreKapasitet(antall+1);
+		dager[antall]=dag;
+		minTemp[antall]=min;
+		maxTemp[antall]=max;
+		nedbr[antall]=ned;
+		antall++;
 	}
 	
 	/**
 	 * Sorterer Dato-objektene i listen liste i kronologisk rekkeflge.
+	 * Kolonnene sorteres med innsettingssortering, som er rask nr listen allerede er nesten sortert.
+	 * settInn() og settInnAlle() holder listen sortert selv, s metoden trengs bare hvis kolonnene er fylt p annen mte.
 	 * Skrevet av: Henrik Hermansen
 	 */
 	public void sorter()
 	{
-		Collections.sort(liste,new Datosammenligner());
+		sjekkSkrivbar();
+		endret(0);
+		for(int i=1;i<antall;i++)
+		{
+			int dag=dager[i];
+			if(dager[i-1]<=dag)
+				continue;
+			short min=minTemp[i], max=maxTemp[i], ned=nedbr[i];
+			int j=i;
+			while(j>0 && dager[j-1]>dag)
+			{
+				dager[j]=dager[j-1];
+				minTemp[j]=minTemp[j-1];
+				maxTemp[j]=maxTemp[j-1];
+				nedbr[j]=nedbr[j-1];
+				j--;
+			}
+			dager[j]=dag;
+			minTemp[j]=min;
+			maxTemp[j]=max;
+			nedbr[j]=ned;
+		}
 	}
 	
 	/**
@@ -55,17 +365,421 @@ public class Datoliste implements Serializable
 	 */
 	public int size()
 	{
-		return liste.size();
+		return antall;
 	}
 	
 	/**
-	 * Returnerer iteratoren til listen
+	 * Returnerer iteratoren til listen. Dato-objektene opprettes etter hvert som iteratoren gr gjennom listen.
 	 * Skrevet av: Lars Smeby
 	 * @return	Iterator<Sted> til listen
 	 */
 	public Iterator<Dato> iterator()
 	{
-		return liste.iterator();
+		return new Iterator<Dato>()
+		{
+			private int neste=0;
+			
+			public boolean hasNext()
+			{
+				return neste<antall;
+			}
+			
+			public Dato next()
+			{
+				if(neste>=antall)
+					throw new NoSuchElementException();
+				return get(neste++);
+			}
+			
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+	
+	/**
+	 * Returnerer en spliterator over datoene i listen. Den kjenner strrelsen, holder den kronologiske rekkeflgen,
+	 * og deles i to p midten, slik at parallelle strmmer fr like store deler. Dato-objektene opprettes etter hvert som de trengs.
+	 * @return	Spliterator<Dato> for listen
+	 */
+	public Spliterator<Dato> spliterator()
+	{
+		return new Datodeler(0,antall);
+	}
+	
+	/**
+	 * Returnerer en sekvensiell strm av datoene i listen.
+	 * @return	Stream<Dato> for listen
+	 */
+	public Stream<Dato> stream()
+	{
+		return StreamSupport.stream(spliterator(),false);
+	}
+	
+	/**
+	 * Returnerer en parallell strm av datoene i listen.
+	 * @return	Stream<Dato> for listen
+	 */
+	public Stream<Dato> parallelStream()
+	{
+		return StreamSupport.stream(spliterator(),true);
+	}
+	
+	/**
+	 * Returnerer en strm av de registrerte minimumstemperaturene i listen, rett fra kolonnen og uten manglende verdier.
+	 * @param parallell	om strmmen skal vre parallell.
+	 * @return	DoubleStream med minimumstemperaturene.
+	 */
+	public DoubleStream minTempStrm(boolean parallell)
+	{
+		return StreamSupport.doubleStream(new Kolonnedeler(MIN,start,start+antall),parallell);
+	}
+	
+	/**
+	 * Returnerer en strm av de registrerte maksimumstemperaturene i listen, rett fra kolonnen og uten manglende verdier.
+	 * @param parallell	om strmmen skal vre parallell.
+	 * @return	DoubleStream med maksimumstemperaturene.
+	 */
+	public DoubleStream maxTempStrm(boolean parallell)
+	{
+		return StreamSupport.doubleStream(new Kolonnedeler(MAX,start,start+antall),parallell);
+	}
+	
+	/**
+	 * Returnerer en strm av gjennomsnittstemperaturen for hver dato som har minst n registrert temperatur, regnet ut som getAvgTempVerdi(i).
+	 * @param parallell	om strmmen skal vre parallell.
+	 * @return	DoubleStream med gjennomsnittstemperaturene.
+	 */
+	public DoubleStream avgTempStrm(boolean parallell)
+	{
+		return StreamSupport.doubleStream(new Kolonnedeler(AVG,start,start+antall),parallell);
+	}
+	
+	/**
+	 * Returnerer en strm av de registrerte nedbrsmengdene i listen, rett fra kolonnen og uten manglende verdier.
+	 * @param parallell	om strmmen skal vre parallell.
+	 * @return	DoubleStream med nedbrsmengdene.
+	 */
+	public DoubleStream nedbrStrm(boolean parallell)
+	{
+		return StreamSupport.doubleStream(new Kolonnedeler(NED,start,start+antall),parallell);
+	}
+	
+	/**
+	 * Spliterator over et omrde av posisjoner i listen, som lager Dato-objekter for posisjonene.
+	 */
+	private class Datodeler implements Spliterator<Dato>
+	{
+		private int neste, slutt;
+		
+		/**
+		 * Konstruktr for posisjonene fra og med fra, til men ikke med til
+		 * @param fra	frste posisjon.
+		 * @param til	posisjonen etter den siste.
+		 */
+		private Datodeler(int fra, int til)
+		{
+			neste=fra;
+			slutt=til;
+		}
+		
+		public boolean tryAdvance(Consumer<? super Dato> handling)
+		{
+			if(neste>=slutt)
+				return false;
+			handling.accept(get(neste++));
+			return true;
+		}
+		
+		public void forEachRemaining(Consumer<? super Dato> handling)
+		{
+			while(neste<slutt)
+				handling.accept(get(neste++));
+		}
+		
+		public Spliterator<Dato> trySplit()
+		{
+			int midt=(neste+slutt)>>>1;
+			if(midt<=neste)
+				return null;
+			Datodeler frste=new Datodeler(neste,midt);
+			neste=midt;
+			return frste;
+		}
+		
+		public long estimateSize()
+		{
+			return slutt-neste;
+		}
+		
+		public int characteristics()
+		{
+			return ORDERED | SIZED | SUBSIZED | NONNULL | DISTINCT;
+		}
+	} // end of class Datodeler
+	
+	/**
+	 * Spliterator over de gyldige verdiene i n kolonne, for et omrde av posisjoner i kolonnene. Manglende og ugyldige verdier hoppes over
+	 * med de samme grensene som de kumulative summene bruker, s strrelsen er bare et overslag. Kolonnene leses slik de var da strmmen ble laget.
+	 */
+	private class Kolonnedeler implements Spliterator.OfDouble
+	{
+		private final short[] min=minTemp, max=maxTemp, ned=nedbr;
+		private final int kolonne;
+		private int neste, slutt;
+		
+		/**
+		 * Konstruktr for posisjonene i kolonnene fra og med fra, til men ikke med til
+		 * @param kolonne	MIN, MAX, AVG eller NED.
+		 * @param fra	frste posisjon i kolonnene.
+		 * @param til	posisjonen i kolonnene etter den siste.
+		 */
+		private Kolonnedeler(int kolonne, int fra, int til)
+		{
+			this.kolonne=kolonne;
+			neste=fra;
+			slutt=til;
+		}
+		
+		/**
+		 * Sjekker om posisjonen har en gyldig verdi i kolonnen, med de samme grensene som oppdaterSummer(...)
+		 * @param i	posisjonen i kolonnene.
+		 * @return	true hvis verdien skal vre med i strmmen.
+		 */
+		private boolean gyldig(int i)
+		{
+			short minste=skaler(Registrering.MAXMINTEMP), strste=skaler(Registrering.MAXMAXTEMP);
+			switch(kolonne)
+			{
+				case MIN:	return min[i]>=minste && min[i]<=strste;
+				case MAX:	return max[i]>=minste && max[i]<=strste;
+				case NED:	return ned[i]>=0 && ned[i]<=skaler(Registrering.MAXNEDBR);
+				default:
+					boolean harMin=min[i]<=strste, harMax=max[i]<=strste;
+					int avg=harMin ? (harMax ? min[i]+max[i] : 2*min[i]) : 2*max[i];
+					return (harMin || harMax) && avg>=2*minste;
+			}
+		}
+		
+		/**
+		 * Returnerer verdien p en posisjon i kolonnen
+		 * @param i	posisjonen i kolonnene.
+		 * @return	verdien som double.
+		 */
+		private double verdiVed(int i)
+		{
+			switch(kolonne)
+			{
+				case MIN:	return verdi(min[i]);
+				case MAX:	return verdi(max[i]);
+				case NED:	return verdi(ned[i]);
+				default:	return Dato.avgTemp(verdi(min[i]),verdi(max[i]));
+			}
+		}
+		
+		public boolean tryAdvance(DoubleConsumer handling)
+		{
+			while(neste<slutt)
+			{
+				int i=neste++;
+				if(gyldig(i))
+				{
+					handling.accept(verdiVed(i));
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		public void forEachRemaining(DoubleConsumer handling)
+		{
+			for(;neste<slutt;neste++)
+				if(gyldig(neste))
+					handling.accept(verdiVed(neste));
+		}
+		
+		public Spliterator.OfDouble trySplit()
+		{
+			int midt=(neste+slutt)>>>1;
+			if(midt<=neste)
+				return null;
+			Kolonnedeler frste=new Kolonnedeler(kolonne,neste,midt);
+			neste=midt;
+			return frste;
+		}
+		
+		public long estimateSize()
+		{
+			return slutt-neste;
+		}
+		
+		public int characteristics()
+		{
+			return ORDERED | NONNULL;
+		}
+	} // end of class Kolonnedeler
+	
+	/**
+	 * Returnerer Dato-objektet p en gitt posisjon i listen, som en visning inn i kolonnene.
+	 * @param i	posisjonen i listen.
+	 * @return	et Dato-objekt for posisjonen.
+	 */
+	public Dato get(int i)
+	{
+		return new Dato(this,i);
+	}
+	
+	/**
+	 * Returnerer dagnummeret til datoen p en gitt posisjon.
+	 * @param i	posisjonen i listen.
+	 * @return	antall dager siden 1.1.1970.
+	 */
+	public int dagnummerVed(int i)
+	{
+		return dager[start+i];
+	}
+	
+	/**
+	 * Returnerer minimumstemperaturen p en gitt posisjon, uten  opprette et Dato-objekt.
+	 * @param i	posisjonen i listen.
+	 * @return	minimumstemperaturen.
+	 */
+	public double getMinTempVerdi(int i)
+	{
+		return verdi(minTemp[start+i]);
+	}
+	
+	/**
+	 * Returnerer maksimumstemperaturen p en gitt posisjon, uten  opprette et Dato-objekt.
+	 * @param i	posisjonen i listen.
+	 * @return	maksimumstemperaturen.
+	 */
+	public double getMaxTempVerdi(int i)
+	{
+		return verdi(maxTemp[start+i]);
+	}
+	
+	/**
+	 * Returnerer nedbren p en gitt posisjon, uten  opprette et Dato-objekt.
+	 * @param i	posisjonen i listen.
+	 * @return	nedbrsmengden.
+	 */
+	public double getNedbrVerdi(int i)
+	{
+		return verdi(nedbr[start+i]);
+	}
+	
+	/**
+	 * Returnerer gjennomsnittstemperaturen p en gitt posisjon, uten  opprette et Dato-objekt.
+	 * @param i	posisjonen i listen.
+	 * @return	gjennomsnittstemperaturen.
+	 */
+	public double getAvgTempVerdi(int i)
+	{
+		return Dato.avgTemp(verdi(minTemp[start+i]),verdi(maxTemp[start+i]));
+	}
+	
+	/**
+	 * Returnerer de skalerte verdiene (minimumstemperatur, maksimumstemperatur og nedbr) p en gitt posisjon, slik de ligger i kolonnene.
+	 * Brukes av klasser som lager egne summer av kolonnene.
+	 * @param i	posisjonen i listen.
+	 * @return	den skalerte verdien.
+	 */
+	short skalertMinTemp(int i)
+	{
+		return minTemp[start+i];
+	}
+	
+	short skalertMaxTemp(int i)
+	{
+		return maxTemp[start+i];
+	}
+	
+	short skalertNedbr(int i)
+	{
+		return nedbr[start+i];
+	}
+	
+	/**
+	 * Setter minimumstemperaturen p en gitt posisjon. Brukes av Dato-objekter som er visninger inn i listen.
+	 * Utsnitt kan ikke endres, s posisjonen er alltid den samme som i kolonnene.
+	 * @param i		posisjonen i listen.
+	 * @param verdi	ny minimumstemperatur.
+	 */
+	void settMinTemp(int i, double verdi)
+	{
+		sjekkSkrivbar();
+		husk(i);
+		minTemp[i]=skaler(verdi);
+		endret(i);
+	}
+	
+	/**
+	 * Setter maksimumstemperaturen p en gitt posisjon. Brukes av Dato-objekter som er visninger inn i listen.
+	 * @param i		posisjonen i listen.
+	 * @param verdi	ny maksimumstemperatur.
+	 */
+	void settMaxTemp(int i, double verdi)
+	{
+		sjekkSkrivbar();
+		husk(i);
+		maxTemp[i]=skaler(verdi);
+		endret(i);
+	}
+	
+	/**
+	 * Setter nedbren p en gitt posisjon. Brukes av Dato-objekter som er visninger inn i listen.
+	 * @param i		posisjonen i listen.
+	 * @param verdi	ny nedbrsmengde.
+	 */
+	void settNedbr(int i, double verdi)
+	{
+		sjekkSkrivbar();
+		husk(i);
+		nedbr[i]=skaler(verdi);
+		endret(i);
+	}
+	
+	/**
+	 * Husker verdiene p en posisjon fr de endres, med mindre det allerede er husket verdier for den samme dagen.
+	 * @param i	posisjonen i kolonnene.
+	 */
+	private void husk(int i)
+	{
+		if(endretDag==dager[i])
+			return;
+		endretDag=dager[i];
+		gammelMin=minTemp[i];
+		gammelMax=maxTemp[i];
+		gammelNed=nedbr[i];
+	}
+	
+	/**
+	 * Henter verdiene en dag hadde fr den sist ble endret, og glemmer dem. En dag som er satt inn hadde ingen verdier.
+	 * @param dag	dagnummeret som er endret.
+	 * @return	de skalerte verdiene (minimumstemperatur, maksimumstemperatur og nedbr), eller null om det ikke er husket noe for dagen.
+	 */
+	short[] gamleVerdier(int dag)
+	{
+		if(endretDag!=dag)
+			return null;
+		endretDag=INGEN;
+		return new short[] {gammelMin,gammelMax,gammelNed};
+	}
+	
+	/**
+	 * Finner posisjonen til et dagnummer. Sjekker frst om den oppgitte posisjonen fortsatt stemmer, og binrsker ellers.
+	 * @param dag	dagnummeret det skes etter.
+	 * @param hint	posisjonen dagnummeret sist ble funnet p.
+	 * @return	posisjonen i listen, eller et negativt tall dersom dagnummeret ikke finnes.
+	 */
+	int posisjon(int dag, int hint)
+	{
+		if(hint>=0 && hint<antall && dager[start+hint]==dag)
+			return hint;
+		int index=Arrays.binarySearch(dager,start,start+antall,dag);
+		return index<0 ? -1 : index-start;
 	}
 	
 	/**
@@ -76,9 +790,8 @@ public class Datoliste implements Serializable
 	 */
 	public Dato frste()
 	{
-		Iterator<Dato> iterator=liste.iterator();
-		if(iterator.hasNext())
-			return iterator.next();
+		if(antall>0)
+			return get(0);
 		return null;
 	}
 	
@@ -92,8 +805,20 @@ public class Datoliste implements Serializable
 	 */
 	public Dato finnDato(int r,int mned,int dag)
 	{
-		GregorianCalendar gc=new GregorianCalendar(r,mned,dag);
-		return finnDato(gc);
+		return finnDato(Dato.tilDagnummer(r,mned,dag));
+	}
+	
+	/**
+	 * Finner og returnerer et Dato-objekt basert p dagnummeret, ved binrsk direkte i dagkolonnen.
+	 * @param dagnummer	dagnummeret (dager siden 1.1.1970) til datoen det skal skes etter.
+	 * @return		et Dato-objekt basert p skekriteriet, eller null om datoen ikke er registrert.
+	 */
+	public Dato finnDato(int dagnummer)
+	{
+		int index=posisjon(dagnummer,-1);
+		if(index<0)
+			return null;
+		return get(index);
 	}
 	
 	/**
@@ -104,34 +829,24 @@ public class Datoliste implements Serializable
 	 */
 	public Dato finnDato(GregorianCalendar gc)
 	{
-		Dato dato=new Dato(gc);
-		int index=Collections.binarySearch(liste, dato, new Datosammenligner());
-		if(index<0)
-			return null;
-		return liste.get(index);
+		return finnDato(gc.get(Calendar.YEAR),gc.get(Calendar.MONTH),gc.get(Calendar.DATE));
 	}
 	
 	/**
 	 * Finner og returnerer et Datoliste-objekt som inneholder registrerte datoer i det ret det skes etter.
+	 * Listen er et skrivebeskyttet utsnitt som deler kolonner med denne listen.
 	 * Skrevet av: Henrik Hermansen
 	 * @param r	det rstallet man vil hente datoer ut fra.
 	 * @return		et Datoliste-objekt.
 	 */
 	public Datoliste finnDatoer(int r)
 	{
-		Datoliste datoliste=new Datoliste();
-		Iterator<Dato> iterator = liste.iterator();
-		while(iterator.hasNext())
-		{
-			Dato neste = iterator.next();
-			if(neste.getDato().get(Calendar.YEAR)==r)
-				datoliste.settInn(neste);
-		}
-		return datoliste;
+		return finnIntervall(Dato.tilDagnummer(r,0,1),Dato.tilDagnummer(r+1,0,1));
 	}
 	
 	/**
 	 * Finner og returnerer et Datoliste-objekt som inneholder registrete datoer i den mneden og det ret det skes etter.
+	 * Listen er et skrivebeskyttet utsnitt som deler kolonner med denne listen.
 	 * Skrevet av: Henrik Hermansen
 	 * @param r	det rstallet man vil hente datoer ut fra.
 	 * @param mned	den mneden man vil hente datoer ut fra.
@@ -139,15 +854,55 @@ public class Datoliste implements Serializable
 	 */
 	public Datoliste finnDatoer(int r, int mned)
 	{
-		Datoliste datoliste=new Datoliste();
-		Iterator<Dato> iterator = liste.iterator();
-		while(iterator.hasNext())
+		return finnIntervall(Dato.tilDagnummer(r,mned,1),Dato.tilDagnummer(r,mned+1,1));
+	}
+	
+	/**
+	 * Deler de registrerte datoene i et r opp i mneder. Grensene mellom mnedene finnes i n gjennomgang av dagkolonnen for ret.
+	 * Listene er skrivebeskyttede utsnitt som deler kolonner med denne listen.
+	 * @param r	det rstallet man vil hente datoer ut fra.
+	 * @return		en array med 13 Datoliste-objekter: ett for hver mned (0-11), og til slutt ett for hele ret.
+	 */
+	public Datoliste[] finnMneder(int r)
+	{
+		int[] mnedsstart=new int[13];
+		for(int m=0;m<13;m++)
+			mnedsstart[m]=Dato.tilDagnummer(r,m,1);
+		int fra=grense(mnedsstart[0]), til=grense(mnedsstart[12]);
+		Datoliste[] mneder=new Datoliste[13];
+		int p=fra;
+		for(int m=0;m<12;m++)
 		{
-			Dato neste = iterator.next();
-			if(neste.getDato().get(Calendar.YEAR)==r && neste.getDato().get(Calendar.MONTH)==mned)
-				datoliste.settInn(neste);
+			int frste=p;
+			while(p<til && dager[p]<mnedsstart[m+1])
+				p++;
+			mneder[m]=new Datoliste(this,frste,p);
 		}
-		return datoliste;
+		mneder[12]=new Datoliste(this,fra,til);
+		return mneder;
+	}
+	
+	/**
+	 * Finner og returnerer et utsnitt med registrerte datoer med dagnummer fra og med fra og til (men ikke med) til.
+	 * Grensene finnes ved binrsk, og ingen data kopieres.
+	 * @param fra	frste dagnummer i intervallet.
+	 * @param til	frste dagnummer etter intervallet.
+	 * @return		et Datoliste-objekt.
+	 */
+	private Datoliste finnIntervall(int fra, int til)
+	{
+		return new Datoliste(this,grense(fra),grense(til));
+	}
+	
+	/**
+	 * Finner frste posisjon i kolonnene med dagnummer strre enn eller lik det oppgitte.
+	 * @param dag	dagnummeret det skes etter.
+	 * @return	posisjonen i kolonnene.
+	 */
+	private int grense(int dag)
+	{
+		int index=Arrays.binarySearch(dager,start,start+antall,dag);
+		return index<0 ? -(index+1) : index;
 	}
 	
 	/**
@@ -157,7 +912,7 @@ public class Datoliste implements Serializable
 	 */
 	public double getAvgTemp()
 	{
-		return calcAvgTemp("avg");
+		return calcAvgTemp(AVG);
 	}
 	/**
 	 * Kaller videre p calcAvgTemp med passende parameter
@@ -166,7 +921,7 @@ public class Datoliste implements Serializable
 	 */
 	public double getAvgMaxTemp()
 	{
-		return calcAvgTemp("max");
+		return calcAvgTemp(MAX);
 	}
 	/**
 	 * Kaller videre p calcAvgTemp med passende parameter
@@ -175,38 +930,128 @@ public class Datoliste implements Serializable
 	 */
 	public double getAvgMinTemp()
 	{
-		return calcAvgTemp("min");
+		return calcAvgTemp(MIN);
 	}
 	/**
-	 * Returnerer gjennomsnittet av gjennomsnitts-, minimums- eller maksimumstemperaturene for datoene i datolisten
+	 * Returnerer gjennomsnittet av gjennomsnitts-, minimums- eller maksimumstemperaturene for datoene i datolisten.
+	 * Summen og antallet hentes fra de kumulative summene, s metoden bruker konstant tid.
 	 * Skrevet av: Henrik Hermansen
+	 * @param type	kolonnen det skal regnes gjennomsnitt av (MIN, MAX eller AVG).
 	 * @return en double-verdi med gjennomsnittet av temperaturer
 	 */
-	private double calcAvgTemp(String type)
+	private double calcAvgTemp(int type)
+	{
+		int antDatoer=antallGyldige(type);
+		if(antDatoer==0)
+			return Registrering.MAXMAXTEMP+1;
+		double totalTemp=sum(type)/(type==AVG ? 2*SKALA : SKALA);
+		return totalTemp/antDatoer;
+	}
+	
+	/**
+	 * Returnerer antall datoer i listen som har en gyldig gjennomsnittstemperatur.
+	 * @return	antall datoer med temperatur.
+	 */
+	public int getAntallAvgTemp()
+	{
+		return antallGyldige(AVG);
+	}
+	
+	/**
+	 * Returnerer summen av gyldige nedbrsmengder for datoene i listen.
+	 * @return	total nedbr, 0 hvis ingen datoer har nedbr.
+	 */
+	public double getSumNedbr()
+	{
+		return sum(NED)/SKALA;
+	}
+	
+	/**
+	 * Returnerer antall datoer i listen som har en gyldig nedbrsmengde.
+	 * @return	antall datoer med nedbr.
+	 */
+	public int getAntallNedbr()
+	{
+		return antallGyldige(NED);
+	}
+	
+	/**
+	 * Returnerer den skalerte summen av de gyldige verdiene i en kolonne for datoene i listen, med to oppslag i de kumulative summene.
+	 * @param kolonne	MIN, MAX, AVG eller NED.
+	 * @return	den skalerte summen.
+	 */
+	private long sum(int kolonne)
 	{
-		int antDatoer=0;
-		double totalTemp=0.0;
-		double temp=Registrering.MAXMAXTEMP+1;
-		Iterator<Dato> iterator = liste.iterator();
-		while(iterator.hasNext())
+		Datoliste rot=kilde==null ? this : kilde;
+		rot.oppdaterSummer(start+antall);
+		return (long) rot.summer[kolonne][start+antall]-rot.summer[kolonne][start];
+	}
+	
+	/**
+	 * Returnerer antall gyldige verdier i en kolonne for datoene i listen, med to oppslag i de kumulative summene.
+	 * @param kolonne	MIN, MAX, AVG eller NED.
+	 * @return	antall gyldige verdier.
+	 */
+	private int antallGyldige(int kolonne)
+	{
+		Datoliste rot=kilde==null ? this : kilde;
+		rot.oppdaterSummer(start+antall);
+		return rot.antaller[kolonne][start+antall]-rot.antaller[kolonne][start];
+	}
+	
+	/**
+	 * Markerer at kolonnene er endret fra og med en posisjon, slik at summene og ekstremtrrne derfra m regnes ut p nytt.
+	 * @param posisjon	frste posisjon som er endret.
+	 */
+	private void endret(int posisjon)
+	{
+		if(posisjon<gyldigeSummer)
+			gyldigeSummer=Math.max(posisjon,0);
+		if(posisjon<gyldigeEkstremer)
+			gyldigeEkstremer=Math.max(posisjon,0);
+	}
+	
+	/**
+	 * Regner ut de kumulative summene fra gyldigeSummer og frem til en posisjon. Nr data registreres i kronologisk rekkeflge
+	 * er det bare de nye datoene som m regnes med.
+	 * @param til	posisjonen summene m vre riktige til og med.
+	 */
+	private void oppdaterSummer(int til)
+	{
+		if(summer!=null && til<=gyldigeSummer)
+			return;
+		if(summer==null || summer[0].length<til+1)
 		{
-			Dato neste = iterator.next();
-			if(type.equals("avg"))
-				temp=neste.getAvgTemp();
-			if(type.equals("max"))
-				temp=neste.getMaxTemp();
-			if(type.equals("min"))
-				temp=neste.getMinTemp();
-			if(temp>=Registrering.MAXMINTEMP && temp<=Registrering.MAXMAXTEMP)
+			int lengde=dager.length+1;
+			if(summer==null)
 			{
-				totalTemp+=temp;
-				antDatoer++;
+				summer=new int[4][];
+				antaller=new int[4][];
+				gyldigeSummer=0;
+			}
+			for(int k=0;k<4;k++)
+			{
+				summer[k]=summer[k]==null ? new int[lengde] : Arrays.copyOf(summer[k],lengde);
+				antaller[k]=antaller[k]==null ? new int[lengde] : Arrays.copyOf(antaller[k],lengde);
 			}
-			temp=Registrering.MAXMAXTEMP+1;
 		}
-		if(antDatoer==0)
-			return Registrering.MAXMAXTEMP+1;
-		return (double) totalTemp/antDatoer;
+		short minste=skaler(Registrering.MAXMINTEMP), strste=skaler(Registrering.MAXMAXTEMP), mest=skaler(Registrering.MAXNEDBR);
+		for(int i=gyldigeSummer;i<til;i++)
+		{
+			short min=minTemp[i], max=maxTemp[i], ned=nedbr[i];
+			boolean harMin=min<=strste, harMax=max<=strste;
+			int avg=harMin ? (harMax ? min+max : 2*min) : 2*max;
+			boolean harAvg=(harMin || harMax) && avg>=2*minste;
+			summer[MIN][i+1]=summer[MIN][i]+(harMin && min>=minste ? min : 0);
+			antaller[MIN][i+1]=antaller[MIN][i]+(harMin && min>=minste ? 1 : 0);
+			summer[MAX][i+1]=summer[MAX][i]+(harMax && max>=minste ? max : 0);
+			antaller[MAX][i+1]=antaller[MAX][i]+(harMax && max>=minste ? 1 : 0);
+			summer[AVG][i+1]=summer[AVG][i]+(harAvg ? avg : 0);
+			antaller[AVG][i+1]=antaller[AVG][i]+(harAvg ? 1 : 0);
+			summer[NED][i+1]=summer[NED][i]+(ned>=0 && ned<=mest ? ned : 0);
+			antaller[NED][i+1]=antaller[NED][i]+(ned>=0 && ned<=mest ? 1 : 0);
+		}
+		gyldigeSummer=til;
 	}
 	
 	/**
@@ -216,23 +1061,7 @@ public class Datoliste implements Serializable
 	 */
 	public Datoliste getMinTemp()
 	{
-		double minTemp=Registrering.MAXMAXTEMP+1;
-		Iterator<Dato> iterator = liste.iterator();
-		while(iterator.hasNext())
-		{
-			Dato neste = iterator.next();
-			if(neste.getMinTemp()<minTemp)
-				minTemp=neste.getMinTemp();
-		}
-		Datoliste svar=new Datoliste();
-		iterator = liste.iterator();
-		while(iterator.hasNext())
-		{
-			Dato neste = iterator.next();
-			if(neste.getMinTemp()==minTemp)
-				svar.settInn(neste);
-		}
-		return svar;
+		return kopier(finnEkstremposisjoner(LAVESTE_MINTEMP));
 	}
 	
 	/**
@@ -242,23 +1071,7 @@ public class Datoliste implements Serializable
 	 */
 	public Datoliste getMaxTemp()
 	{
-		double maxTemp=Registrering.MAXMINTEMP-1;
-		Iterator<Dato> iterator = liste.iterator();
-		while(iterator.hasNext())
-		{
-			Dato neste = iterator.next();
-			if(neste.getMaxTemp()>maxTemp && neste.getMaxTemp()<=Registrering.MAXMAXTEMP)
-				maxTemp=neste.getMaxTemp();
-		}
-		Datoliste svar=new Datoliste();
-		iterator = liste.iterator();
-		while(iterator.hasNext())
-		{
-			Dato neste = iterator.next();
-			if(neste.getMaxTemp()==maxTemp)
-				svar.settInn(neste);
-		}
-		return svar;
+		return kopier(finnEkstremposisjoner(HYESTE_MAXTEMP));
 	}
 	
 	/**
@@ -268,24 +1081,10 @@ public class Datoliste implements Serializable
 	 */
 	public double getAvgNedbr()
 	{
-		int antDatoer=0;
-		double totalNedbr=0.0;
-		double nedbr;
-		Iterator<Dato> iterator = liste.iterator();
-		while(iterator.hasNext())
-		{
-			Dato neste = iterator.next();
-			nedbr=neste.getNedbr();
-			if(nedbr>=0 && nedbr<=Registrering.MAXNEDBR)
-			{
-				totalNedbr+=nedbr;
-				antDatoer++;
-			}
-			nedbr=-1;
-		}
+		int antDatoer=antallGyldige(NED);
 		if(antDatoer==0)
 			return -1;
-		return (double) totalNedbr/antDatoer;
+		return sum(NED)/SKALA/antDatoer;
 	}
 	
 	/**
@@ -295,23 +1094,7 @@ public class Datoliste implements Serializable
 	 */
 	public Datoliste getMinNedbr()
 	{
-		double minNedbr=Registrering.MAXNEDBR+1;
-		Iterator<Dato> iterator = liste.iterator();
-		while(iterator.hasNext())
-		{
-			Dato neste = iterator.next();
-			if(neste.getNedbr()<minNedbr && neste.getNedbr()>-1)
-				minNedbr=neste.getNedbr();
-		}
-		Datoliste svar=new Datoliste();
-		iterator = liste.iterator();
-		while(iterator.hasNext())
-		{
-			Dato neste = iterator.next();
-			if(neste.getNedbr()==minNedbr)
-				svar.settInn(neste);
-		}
-		return svar;
+		return kopier(finnEkstremposisjoner(LAVESTE_NEDBR));
 	}
 	
 	/**
@@ -321,22 +1104,162 @@ public class Datoliste implements Serializable
 	 */
 	public Datoliste getMaxNedbr()
 	{
-		double maxNedbr=-1;
-		Iterator<Dato> iterator = liste.iterator();
-		while(iterator.hasNext())
+		return kopier(finnEkstremposisjoner(HYESTE_NEDBR));
+	}
+	
+	/**
+	 * Finner ekstremverdien av en gitt type for datoene i listen, med et sk i segmenttreet.
+	 * Dersom ingen datoer har gyldig verdi returneres samme verdi som startverdiene i FinnEkstremData,
+	 * alts MAXMAXTEMP+1, MAXMINTEMP-1, MAXNEDBR+1 eller -1.
+	 * @param type	LAVESTE_MINTEMP, HYESTE_MAXTEMP, LAVESTE_NEDBR eller HYESTE_NEDBR.
+	 * @return	ekstremverdien.
+	 */
+	public double finnEkstrem(int type)
+	{
+		Datoliste rot=kilde==null ? this : kilde;
+		short verdi=rot.ekstremindeks(type).ekstrem(start,start+antall);
+		if(verdi==Short.MAX_VALUE || verdi==Short.MIN_VALUE)
 		{
-			Dato neste = iterator.next();
-			if(neste.getNedbr()>maxNedbr)
-				maxNedbr=neste.getNedbr();
+			switch(type)
+			{
+				case LAVESTE_MINTEMP:	return Registrering.MAXMAXTEMP+1;
+				case HYESTE_MAXTEMP:	return Registrering.MAXMINTEMP-1;
+				case LAVESTE_NEDBR:	return Registrering.MAXNEDBR+1;
+				default:				return -1;
+			}
 		}
+		return verdi(verdi);
+	}
+	
+	/**
+	 * Finner posisjonene i listen til datoene som har ekstremverdien av en gitt type, i kronologisk rekkeflge.
+	 * Posisjonene kan brukes med get() og de andre posisjonsmetodene. Sket tar logaritmisk tid per treff.
+	 * @param type	LAVESTE_MINTEMP, HYESTE_MAXTEMP, LAVESTE_NEDBR eller HYESTE_NEDBR.
+	 * @return	posisjonene til datoene med ekstremverdien.
+	 */
+	public int[] finnEkstremposisjoner(int type)
+	{
+		Datoliste rot=kilde==null ? this : kilde;
+		Ekstremindeks indeks=rot.ekstremindeks(type);
+		short[] kolonne=type==LAVESTE_MINTEMP ? rot.minTemp : (type==HYESTE_MAXTEMP ? rot.maxTemp : rot.nedbr);
+		int[] posisjoner=indeks.treff(kolonne,start,start+antall,indeks.ekstrem(start,start+antall));
+		for(int i=0;i<posisjoner.length;i++)
+			posisjoner[i]-=start;
+		return posisjoner;
+	}
+	
+	/**
+	 * Returnerer segmenttreet for en type ekstremverdi, etter  ha oppdatert trrne for posisjoner som er endret.
+	 * @param type	typen ekstremverdi.
+	 * @return	segmenttreet.
+	 */
+	private Ekstremindeks ekstremindeks(int type)
+	{
+		if(ekstremer==null)
+		{
+			ekstremer=new Ekstremindeks[4];
+			ekstremer[LAVESTE_MINTEMP]=new Ekstremindeks(true,Short.MIN_VALUE,Short.MAX_VALUE,(short) 0);
+			ekstremer[HYESTE_MAXTEMP]=new Ekstremindeks(false,(short) (skaler(Registrering.MAXMINTEMP-1)+1),skaler(Registrering.MAXMAXTEMP),skaler(Registrering.MAXMINTEMP-1));
+			ekstremer[LAVESTE_NEDBR]=new Ekstremindeks(true,(short) (skaler(-1)+1),(short) (skaler(Registrering.MAXNEDBR+1)-1),skaler(Registrering.MAXNEDBR+1));
+			ekstremer[HYESTE_NEDBR]=new Ekstremindeks(false,Short.MIN_VALUE,Short.MAX_VALUE,(short) 0);
+			gyldigeEkstremer=0;
+		}
+		if(gyldigeEkstremer<antall)
+		{
+			ekstremer[LAVESTE_MINTEMP].oppdater(minTemp,gyldigeEkstremer,antall);
+			ekstremer[HYESTE_MAXTEMP].oppdater(maxTemp,gyldigeEkstremer,antall);
+			ekstremer[LAVESTE_NEDBR].oppdater(nedbr,gyldigeEkstremer,antall);
+			ekstremer[HYESTE_NEDBR].oppdater(nedbr,gyldigeEkstremer,antall);
+			gyldigeEkstremer=antall;
+		}
+		return ekstremer[type];
+	}
+	
+	/**
+	 * Kopierer datoene p gitte posisjoner over i en ny datoliste.
+	 * @param posisjoner	posisjonene i listen som skal kopieres.
+	 * @return	en ny datoliste med datoene.
+	 */
+	private Datoliste kopier(int[] posisjoner)
+	{
 		Datoliste svar=new Datoliste();
-		iterator = liste.iterator();
-		while(iterator.hasNext())
+		for(int i=0;i<posisjoner.length;i++)
 		{
-			Dato neste = iterator.next();
-			if(neste.getNedbr()==maxNedbr)
-				svar.settInn(neste);
+			int k=start+posisjoner[i];
+			svar.leggTil(dager[k],minTemp[k],maxTemp[k],nedbr[k]);
 		}
 		return svar;
 	}
+	
+	/**
+	 * Gjr om en verdi til kolonneformatet (short med n desimal).
+	 * @param verdi	verdien som skal lagres.
+	 * @return	den skalerte verdien.
+	 */
+	static short skaler(double verdi)
+	{
+		return (short) Math.round(verdi*SKALA);
+	}
+	
+	/**
+	 * Gjr om en verdi fra kolonneformatet tilbake til double.
+	 * @param verdi	den skalerte verdien.
+	 * @return	verdien som double.
+	 */
+	static double verdi(short verdi)
+	{
+		return verdi/SKALA;
+	}
+	
+	/**
+	 * Skriver kolonnene til strmmen, uten ubrukt kapasitet.
+	 * @param ut	strmmen objektet skrives til.
+	 */
+	private void writeObject(ObjectOutputStream ut) throws IOException
+	{
+		ut.defaultWriteObject();
+		ut.writeInt(antall);
+		for(int i=start;i<start+antall;i++)
+		{
+			ut.writeInt(dager[i]);
+			ut.writeShort(minTemp[i]);
+			ut.writeShort(maxTemp[i]);
+			ut.writeShort(nedbr[i]);
+		}
+	}
+	
+	/**
+	 * Leser inn kolonnene fra strmmen. Eldre datafiler inneholder en ArrayList med Dato-objekter i feltet liste,
+	 * og disse gjres da om til kolonner.
+	 * @param inn	strmmen objektet leses fra.
+	 */
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream inn) throws IOException, ClassNotFoundException
+	{
+		ObjectInputStream.GetField felter=inn.readFields();
+		// Transiente felt fr ikke startverdien sin ved deserialisering, og 0 er et gyldig dagnummer
+		endretDag=INGEN;
+		int lagret;
+		ArrayList<Dato> gammelListe=null;
+		if(felter.getObjectStreamClass().getField("liste")!=null)
+		{
+			gammelListe=(ArrayList<Dato>) felter.get("liste",null);
+			lagret=gammelListe==null ? 0 : gammelListe.size();
+		}
+		else
+			lagret=inn.readInt();
+		int kapasitet=Math.max(STARTKAPASITET,lagret);
+		dager=new int[kapasitet];
+		minTemp=new short[kapasitet];
+		maxTemp=new short[kapasitet];
+		nedbr=new short[kapasitet];
+		antall=0;
+		if(gammelListe!=null)
+		{
+			settInnAlle(gammelListe);
+			return;
+		}
+		for(int i=0;i<lagret;i++)
+			leggTil(inn.readInt(),inn.readShort(),inn.readShort(),inn.readShort());
+	}
 } // end og class Datoliste
\ No newline at end of file
@@ -14,9 +14,9 @@ import java.util.Comparator;
 public class Datosammenligner implements Comparator<Dato>
 {
 	/**
-	 * Sammenligner to Dato-objekter ved  hente ut datoens GregorianCalendar-objekt(getDato()) og bruker GC sin comepareTo()-metode for sammenligning.
+	 * Sammenligner to Dato-objekter ved  sammenligne dagnummeret til datoene (getDagnummer()).
 	 * Comparator sin compare()-metode skal returnere negativ verdi hvis param1 er mindre enn param2, eller i dette tilfellet hvis n er fr da,
-	 * og dette er samme resultat som GC sin compareTo()-metode gir. Vi kan alts returnere denne direkte.
+	 * og siden dagnummeret ker med n for hver dag kan vi sammenligne tallene direkte uten  opprette kalenderobjekter.
 	 * Skrevet av: Henrik Hermansen
 	 * @param n	et dato-objekt som er "n", "i dag" eller ellers tilsvarer det som forventes av compare() sin param1.
 	 * @param da	et dato-objekt som er fortid eller fremtid og som ellers tilsvarer compare() sin param2.
@@ -24,6 +24,6 @@ public class Datosammenligner implements Comparator<Dato>
 	 */
 	public int compare(Dato n, Dato da)
 	{
-		return n.getDato().compareTo(da.getDato());
+		return Integer.compare(n.getDagnummer(),da.getDagnummer());
 	}
 } // end og class Datosammenligner
\ No newline at end of file
@@ -0,0 +1,174 @@
+/**
+ * Inneholder klassen Ekstremindeks.
+ */
+package data;
+
+import java.util.Arrays;
+
+/**
+ *	Klassen er et segmenttre over n kolonne i en Datoliste, og finner laveste eller hyeste verdi for et intervall av posisjoner i logaritmisk tid.
+ *	Treet finner ogs alle posisjonene i intervallet som har ekstremverdien, uten  g gjennom hele intervallet.
+ *	Verdier utenfor et gyldig omrde kan erstattes med en fast verdi, slik at de ikke blir med i sket.
+ */
+class Ekstremindeks
+{
+	/**
+	 * Om treet finner laveste (true) eller hyeste (false) verdi.
+	 */
+	private final boolean minimum;
+	/**
+	 * Verdier mindre enn laveste eller strre enn hyeste lagres som erstatning i treet.
+	 */
+	private final short laveste, hyeste, erstatning;
+	/**
+	 * Verdien tomme blader har, som aldri vinner over en annen verdi.
+	 */
+	private final short nytral;
+	/**
+	 * Treet lagret i en array, der roten ligger p plass 1 og barna til node k p plass 2k og 2k+1.
+	 * Bladene (posisjonene i kolonnen) ligger fra plass blader og utover.
+	 */
+	private short[] tre;
+	/**
+	 * Antall blader i treet (en toerpotens), og antall blader som har ftt en verdi.
+	 */
+	private int blader, brukt;
+	
+	/**
+	 * Oppretter et tomt tre.
+	 * @param minimum		om treet skal finne laveste verdi (ellers hyeste).
+	 * @param laveste		laveste gyldige verdi.
+	 * @param hyeste		hyeste gyldige verdi.
+	 * @param erstatning	verdien som lagres i stedet for ugyldige verdier.
+	 */
+	Ekstremindeks(boolean minimum, short laveste, short hyeste, short erstatning)
+	{
+		this.minimum=minimum;
+		this.laveste=laveste;
+		this.hyeste=hyeste;
+		this.erstatning=erstatning;
+		this.nytral=minimum ? Short.MAX_VALUE : Short.MIN_VALUE;
+		this.blader=1;
+		this.tre=new short[2];
+		Arrays.fill(tre,nytral);
+	}
+	
+	/**
+	 * Oppdaterer bladene for posisjonene fra og med fra og til (men ikke med) til, og nodene over dem.
+	 * Blader etter til som tidligere hadde verdi tmmes. Treet bygges p nytt dersom det er for lite.
+	 * @param kolonne	kolonnen treet lages over.
+	 * @param fra		frste posisjon som er endret.
+	 * @param til		antall posisjoner i kolonnen.
+	 */
+	void oppdater(short[] kolonne, int fra, int til)
+	{
+		if(til>blader)
+		{
+			while(blader<til)
+				blader<<=1;
+			tre=new short[2*blader];
+			Arrays.fill(tre,nytral);
+			fra=0;
+			brukt=0;
+		}
+		int slutt=Math.max(til,brukt);
+		if(fra>=slutt)
+			return;
+		for(int i=fra;i<slutt;i++)
+			tre[blader+i]=i<til ? lagret(kolonne[i]) : nytral;
+		brukt=til;
+		int lo=(blader+fra)>>1, hi=(blader+slutt-1)>>1;
+		while(lo>=1)
+		{
+			for(int k=lo;k<=hi;k++)
+				tre[k]=velg(tre[2*k],tre[2*k+1]);
+			lo>>=1;
+			hi>>=1;
+		}
+	}
+	
+	/**
+	 * Finner ekstremverdien for posisjonene fra og med fra og til (men ikke med) til.
+	 * @param fra	frste posisjon.
+	 * @param til	frste posisjon etter intervallet.
+	 * @return	ekstremverdien, erstatningsverdien om ingen verdier er gyldige, eller den nytrale verdien om intervallet er tomt.
+	 */
+	short ekstrem(int fra, int til)
+	{
+		short svar=nytral;
+		int l=fra+blader, r=til+blader;
+		while(l<r)
+		{
+			if((l&1)==1)
+				svar=velg(svar,tre[l++]);
+			if((r&1)==1)
+				svar=velg(svar,tre[--r]);
+			l>>=1;
+			r>>=1;
+		}
+		return svar;
+	}
+	
+	/**
+	 * Finner posisjonene i intervallet der kolonnen har en gitt verdi, i stigende rekkeflge.
+	 * Bare deltrr som kan inneholde verdien gs gjennom, s nr verdien er ekstremverdien for intervallet tar sket logaritmisk tid per treff.
+	 * @param kolonne	kolonnen treet er laget over.
+	 * @param fra		frste posisjon.
+	 * @param til		frste posisjon etter intervallet.
+	 * @param verdi		verdien det skes etter.
+	 * @return	posisjonene med verdien.
+	 */
+	int[] treff(short[] kolonne, int fra, int til, short verdi)
+	{
+		if(fra>=til || verdi==nytral || (verdi==erstatning && (verdi<laveste || verdi>hyeste)))
+			return new int[0];
+		int[] svar=new int[treff(1,0,blader,fra,til,verdi,kolonne,null,0)];
+		treff(1,0,blader,fra,til,verdi,kolonne,svar,0);
+		return svar;
+	}
+	
+	/**
+	 * Gr rekursivt gjennom deltreet under en node, og teller eller samler posisjonene med verdien.
+	 * @param svar		arrayen posisjonene legges i, eller null dersom de bare skal telles.
+	 * @param antall	antall posisjoner funnet fr denne noden.
+	 * @return	antall posisjoner funnet etter denne noden.
+	 */
+	private int treff(int node, int nodeFra, int nodeTil, int fra, int til, short verdi, short[] kolonne, int[] svar, int antall)
+	{
+		if(nodeTil<=fra || nodeFra>=til || (minimum ? tre[node]>verdi : tre[node]<verdi))
+			return antall;
+		if(node>=blader)
+		{
+			if(kolonne[node-blader]==verdi)
+			{
+				if(svar!=null)
+					svar[antall]=node-blader;
+				antall++;
+			}
+			return antall;
+		}
+		int midt=(nodeFra+nodeTil)>>>1;
+		antall=treff(2*node,nodeFra,midt,fra,til,verdi,kolonne,svar,antall);
+		return treff(2*node+1,midt,nodeTil,fra,til,verdi,kolonne,svar,antall);
+	}
+	
+	/**
+	 * Velger den laveste eller hyeste av to verdier.
+	 */
+	private short velg(short a, short b)
+	{
+		if(minimum)
+			return a<=b ? a : b;
+		return a>=b ? a : b;
+	}
+	
+	/**
+	 * Returnerer verdien som lagres i treet for en verdi i kolonnen.
+	 */
+	private short lagret(short verdi)
+	{
+		if(verdi<laveste || verdi>hyeste)
+			return erstatning;
+		return verdi;
+	}
+} // end of class Ekstremindeks
\ No newline at end of file
@@ -0,0 +1,25 @@
+/**
+ * Inneholder grensesnittet Endringslytter.
+ */
+package data;
+
+/**
+ *	Grensesnittet implementeres av klasser utenfor datapakken som m vite nr dataene i en stedliste endres,
+ *	for eksempel for  kaste ferdige skeresultater som ikke lenger stemmer. Lyttere legges til med Stedliste.leggTilLytter(...),
+ *	og fr beskjed etter at rekordene, rssummene og kuben er oppdatert.
+ */
+public interface Endringslytter
+{
+	/**
+	 * Kalles etter at et sted er satt inn i eller slettet fra listen
+	 * @param s	Stedet som er satt inn eller slettet
+	 */
+	void stedEndret(Sted s);
+	
+	/**
+	 * Kalles etter at vrdataene til et sted i listen er endret
+	 * @param s			Stedet som har ftt endrede data
+	 * @param dagnummer	Dagnummeret til datoen som er endret
+	 */
+	void dataEndret(Sted s, int dagnummer);
+} // end of interface Endringslytter
\ No newline at end of file
@@ -7,6 +7,8 @@
 package data;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 
 import javax.swing.JPanel;
 
@@ -17,67 +19,301 @@ import logic.SkrivMelding;
  */
 public class Filhndterer
 {
-	final static String FILNAVN = "Metrodata.dta";
+	/**
+	 * Datafilen, i det binre formatet til Datafil. Segmentene med vrdataene ligger i egne filer ved siden av, f.eks. Metrodata-1.mds.
+	 */
+	final static String FILNAVN = "Metrodata.mdf";
+	/**
+	 * Datafilen fra tidligere versjoner, med en serialisert stedliste. Den leses inn og gjres om til det nye formatet
+	 * frste gang programmet starter uten den nye datafilen, og blir liggende urrt som sikkerhetskopi.
+	 */
+	final static String GAMMELT_FILNAVN = "Metrodata.dta";
+	/**
+	 * Filen kuben med summer for fylkene og landet lagres i, ved siden av datafilen.
+	 */
+	final static String KUBEFILNAVN = "Metrokube.dta";
+	/**
+	 * Om datafilen skal pnes skrivebeskyttet med minnekartlegging, slik at vrdataene til et sted frst leses nr stedet brukes.
+	 * Det gjr at store arkiver pnes med en gang og bare tar plass i minnet for stedene det skes i.
+	 * Settes ved oppstart med -Dmetrodata.minnekart=true.
+	 */
+	final static boolean MINNEKART = Boolean.getBoolean("metrodata.minnekart");
+	/**
+	 * Segmentlageret som skriver de endrede delene av datafilen, og journalen over endringene siden datafilen sist ble skrevet,
+	 * se Segmentlager og Journal. Er null nr datafilen er pnet skrivebeskyttet.
+	 */
+	private static Segmentlager lager;
+	private static Journal journal;
+	/**
+	 * Lagrer endringene i bakgrunnen, automatisk og nr brukeren lagrer fra menyen, se Autolagring. Er null nr datafilen er pnet skrivebeskyttet.
+	 */
+	private static Autolagring autolagring;
 	
 	/**
 	 * Metode som laster inn fil ved oppstart av programmet.
 	 * Skrevet av: Brd Skeie
 	 */
 	public static Stedliste lastInnFil()
+	{
+		Stedliste sl;
+		Datafil.Innhold innhold = null;
+		File fil = new File(FILNAVN);
+		long frste = 0;
+		boolean importert = false;
+		
+		if(!fil.exists())
+		{
+			if(new File(GAMMELT_FILNAVN).exists())
+			{
+				sl = importerGammelFil();
+				importert = true;
+			}
+			else
+			{
+				System.out.println("Fant ikke fil, oppretter ny (B002)");
+				sl = new Stedliste();
+			}
+		}
+		else if(MINNEKART)
+			return kartlegg(fil);
+		else
+		{
+			try
+			{
+				innhold = Datafil.lesInn(fil);
+				sl = innhold.stedliste;
+				frste = innhold.hode.journal;
+			}
+			catch(IOException ioe)
+			{
+				System.out.println("Ukjent programfeil, oppretter ny fil (B003)");
+				sl = new Stedliste();
+				// Journalene hrer til dataene som ikke kunne leses
+				frste = Long.MAX_VALUE;
+			}
+		}
+		lager = innhold != null ? new Segmentlager(fil, innhold) : new Segmentlager(fil, sl);
+		if(importert)
+			lagreImport();
+		// Kuben hrer til datafilen slik den ble skrevet, s den lastes inn fr journalen spilles av, og fr endringene fra den
+		if(innhold != null)
+			lastInnKube(sl, innhold.hode);
+		journal = new Journal(lager, frste);
+		autolagring = new Autolagring(sl, journal, Autolagring.INTERVALL, Autolagring.TERSKEL);
+		
+		return sl;
+	}
+	
+	/**
+	 * pner datafilen skrivebeskyttet med minnekartlegging.
+	 * @param fil	Datafilen
+	 */
+	private static Stedliste kartlegg(File fil)
+	{
+		try
+		{
+			if(Journal.harEndringer(fil))
+				System.out.println("Endringene i journalen vises ikke nr datafilen er pnet skrivebeskyttet (B021)");
+			// Kuben lastes ikke inn, men lages p nytt om den trengs
+			return Datafil.kartlegg(fil);
+		}
+		catch(IOException ioe)
+		{
+			System.out.println("Ukjent programfeil, oppretter ny fil (B003)");
+			return new Stedliste();
+		}
+	}
+	
+	/**
+	 * Leser inn datafilen fra tidligere versjoner. Dataene lagres i det nye formatet med en gang (se lagreImport()),
+	 * slik at den gamle filen bare leses n gang.
+	 */
+	private static Stedliste importerGammelFil()
 	{
 		Stedliste sl;
 		ObjectInputStream inn;
 		
 		try
 		{
-			inn = new ObjectInputStream(new FileInputStream(FILNAVN));
+			inn = new ObjectInputStream(new BufferedInputStream(new FileInputStream(GAMMELT_FILNAVN)));
 			sl = (Stedliste)inn.readObject();
 			inn.close();
 		}
 		catch(ClassNotFoundException cnfe)
 		{
 			System.out.println("Ukjent programfeil, oppretter ny fil (B001)");
-			sl = new Stedliste();
-		}
-		catch(FileNotFoundException fnfe)
-		{
-			System.out.println("Fant ikke fil, oppretter ny (B002)");
-			sl = new Stedliste();
+			return new Stedliste();
 		}
 		catch(IOException ioe)
 		{
 			System.out.println("Ukjent programfeil, oppretter ny fil (B003)");
-			sl = new Stedliste();
+			return new Stedliste();
 		}
 		
 		return sl;
 	}
 	
 	/**
-	 * Metode som lagrer fil. Metoden kobles til "avslutt-knappen", "lagre-knappen" 
+	 * Lagrer dataene som er importert fra den gamle datafilen i det nye formatet.
+	 */
+	private static void lagreImport()
+	{
+		try
+		{
+			lager.lagre(0);
+			System.out.println(GAMMELT_FILNAVN + " er gjort om til " + FILNAVN + " (B015)");
+		}
+		catch(IOException ioe)
+		{
+			System.out.println("Kunne ikke lagre i nytt filformat, prver igjen ved neste lagring (B016)");
+		}
+	}
+	
+	/**
+	 * Ber lagringstrden lagre endringene og kuben med en gang, uten  vente p den. Brukes av "lagre-knappen", s brukeren kan fortsette
+	 * mens dataene lagres. Lagringslytterne fr beskjed nr lagringen starter og er ferdig.
+	 * @return	true hvis lagringen er satt i gang, false hvis datafilen er pnet skrivebeskyttet og ingenting kan lagres
+	 */
+	public static boolean lagreN()
+	{
+		if(autolagring == null)
+			return false;
+		autolagring.lagreN();
+		return true;
+	}
+	
+	/**
+	 * Metode som lagrer fil, og venter til dataene er lagret. Metoden kobles til "avslutt-knappen" 
 	 * og "vinduslukke-knappen".
+	 * Endringene er allerede lagret i journalen, og n skrives bare segmentene de gjelder til datafilen, fr en ny journal startes
+	 * og kuben skrives. Kallet m ha ls p stedlisten.
 	 * Skrevet av: Brd Skeie
+	 * @return	true hvis dataene er lagret, false hvis det ble vist en feilmelding
 	 */
-	public static void lagreFil(Stedliste sl, JPanel panel)
+	public static boolean lagreFil(Stedliste sl, JPanel panel)
 	{
-		ObjectOutputStream ut;
-		
+		// En skrivebeskyttet liste kan ikke vre endret, og filen er kartlagt i minnet
+		if(sl.erSkrivebeskyttet())
+			return true;
 		try
 		{
-			ut = new ObjectOutputStream(new FileOutputStream(FILNAVN));
-			ut.writeObject(sl);
-			ut.flush();
-			ut.close();
+			journal.lagre();
+			if(autolagring != null)
+				autolagring.lagret();
+			lagreKube(sl);
+			return true;
+		}
+		catch(IOException ioe)
+		{
+			SkrivMelding.skriv("Ukjent programfeil, fikk ikke lagret (B005)/E", panel);
+			return false;
+		}
+	}
+	
+	/**
+	 * Legger til en lytter som fr beskjed nr endringene lagres i bakgrunnen, og nr journalen stopper etter en skrivefeil
+	 * og virker igjen. Lytteren fr ingen beskjeder nr datafilen er pnet skrivebeskyttet.
+	 * @param lytter	Lytteren
+	 */
+	public static void leggTilLagringslytter(Lagringslytter lytter)
+	{
+		if(autolagring != null)
+			autolagring.leggTilLytter(lytter);
+		if(journal != null)
+			journal.leggTilLytter(lytter);
+	}
+	
+	/**
+	 * Leser inn kuben som ble lagret sammen med datafilen, og gir den til stedlisten dersom den ble lagret sammen med akkurat denne
+	 * utgaven av datafilen. Mangler kuben, eller passer den ikke, f.eks. fordi datafilen er autolagret etterp, lages den p nytt
+	 * frste gang den trengs.
+	 * @param sl	Stedlisten som er lest inn
+	 * @param hode	Hodet i datafilen stedlisten er lest fra
+	 */
+	private static void lastInnKube(Stedliste sl, Datafil.Hode hode)
+	{
+		try(ObjectInputStream inn = new ObjectInputStream(new FileInputStream(KUBEFILNAVN)))
+		{
+			Kube kube = (Kube)inn.readObject();
+			if(!sl.settKube(kube, hode))
+				System.out.println("Kuben passer ikke til datafilen, lager ny (B012)");
 		}
-		catch(NotSerializableException nse)
+		catch(FileNotFoundException fnfe)
+		{
+		}
+		catch(ClassNotFoundException cnfe)
 		{
-			SkrivMelding.skriv("Ukjent programfeil, fikk ikke lagret (B004)/E", panel);
-			System.exit(1);
+			System.out.println("Kunne ikke lese kuben, lager ny (B013)");
 		}
 		catch(IOException ioe)
 		{
-			SkrivMelding.skriv("Ukjent programfeil, fikk ikke lagret (B005)/E", panel);
-			System.exit(1);
+			System.out.println("Kunne ikke lese kuben, lager ny (B013)");
+		}
+	}
+	
+	/**
+	 * Lagrer kuben til stedlisten ved siden av datafilen, dersom den er laget. Kallet m ha ls p stedlisten.
+	 * Kuben kan alltid lages p nytt fra dataene, s en feil her er ikke alvorlig.
+	 * @param sl	Stedlisten som er lagret
+	 */
+	private static void lagreKube(Stedliste sl)
+	{
+		byte[] kube = serialiserKube(sl);
+		if(kube != null)
+			skrivKube(kube);
+	}
+	
+	/**
+	 * Gjr kuben til stedlisten om til bytes, merket med hodet til datafilen, som m vre skrevet med de samme dataene.
+	 * Kallet m ha ls p stedlisten, men filen kan skrives uten, med skrivKube(...).
+	 * @param sl	Stedlisten som er lagret
+	 * @return	Kuben som bytes, eller null dersom den ikke er laget eller ikke kunne gjres om
+	 */
+	static byte[] serialiserKube(Stedliste sl)
+	{
+		Kube kube = sl.kube();
+		if(kube == null)
+			return null;
+		try
+		{
+			kube.forberedLagring(Datafil.lesHode(new File(FILNAVN)));
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try(ObjectOutputStream ut = new ObjectOutputStream(bytes))
+			{
+				ut.writeObject(kube);
+			}
+			return bytes.toByteArray();
+		}
+		catch(IOException ioe)
+		{
+			System.out.println("Kunne ikke lagre kuben (B014)");
+			return null;
+		}
+	}
+	
+	/**
+	 * Skriver kuben til kubefilen. Som datafilen skrives kuben til en midlertidig fil som byttes inn nr den er synket,
+	 * s en lagring som blir avbrutt etterlater den gamle kuben hel.
+	 * @param kube	Kuben, fra serialiserKube(...)
+	 */
+	static void skrivKube(byte[] kube)
+	{
+		File fil = new File(KUBEFILNAVN);
+		File midlertidig = new File(fil.getPath() + ".tmp");
+		try
+		{
+			try(FileOutputStream ut = new FileOutputStream(midlertidig))
+			{
+				ut.write(kube);
+				ut.getFD().sync();
+			}
+			Files.move(midlertidig.toPath(), fil.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			Datafil.synkroniserMappe(fil);
+		}
+		catch(IOException ioe)
+		{
+			midlertidig.delete();
+			System.out.println("Kunne ikke lagre kuben (B014)");
 		}
 	}
 } // end of class Filhndterer
\ No newline at end of file
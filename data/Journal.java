@@ -0,0 +1,548 @@
+/**
+ * Inneholder klassen Journal.
+ */
+package data;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+
+/**
+ *	Klassen frer en journal over alle endringer i stedlisten, slik at ingenting gr tapt om programmet krasjer mellom to lagringer.
+ *	Journalen er en lytter p stedlisten, og hver gang et sted settes inn eller slettes eller vrdata registreres, legges en kort post
+ *	bakerst i journalfilen, og endringen er ikke ferdig fr posten er synket til disken. Poster som kommer mens en annen trd synker,
+ *	synkes samlet neste gang, slik at flere endringer deler n synkronisering.
+ *	Ved oppstart spilles journalene av over datafilen. Ved hver lagring, og i bakgrunnen nr journalen blir stor, komprimeres den:
+ *	en ny journal startes, segmentene som er endret skrives til datafilen (se Segmentlager), og de gamle journalene slettes.
+ *	Datafilen husker hvilken journal som er den frste som ikke er tatt med, s en journal spilles aldri av to ganger.
+ *	Journalfilene heter som datafilen, med generasjonen bak, f.eks. Metrodata-3.jrn. Hver post er lengden, innholdet og en CRC32-kontrollsum
+ *	for innholdet, og en post som ikke ble skrevet ferdig fr et krasj hoppes over.
+ *	Stopper journalen etter en skrivefeil, fr lagringslytterne beskjed, og ved neste endring startes en komprimering, som skriver
+ *	endringene til datafilen og prver  starte en ny journal.
+ */
+class Journal implements Endringslytter
+{
+	/**
+	 * De fire frste bytene i en journalfil, "MTRJ".
+	 */
+	static final int MAGI = 0x4D54524A;
+	static final int VERSJON = 1;
+	/**
+	 * Strrelsen p hodet i en journalfil: magisk tall, versjon og generasjon.
+	 */
+	static final int HODESTRRELSE = 16;
+	/**
+	 * Postene i journalen: et sted er satt inn, et sted er slettet, eller vrdataene for en dag er endret.
+	 */
+	static final byte STED_LAGT_TIL = 1, STED_SLETTET = 2, DATA = 3;
+	/**
+	 * Journalen komprimeres i bakgrunnen nr den har blitt strre enn dette antallet bytes.
+	 */
+	static final long KOMPRIMERINGSGRENSE = 1 << 20;
+	private static final String ETTERNAVN = ".jrn";
+	
+	private final Stedliste sl;
+	private final Segmentlager lager;
+	private final File datafil;
+	/**
+	 * Generasjonen og kanalen til journalen som skrives n. Kanalen er null om journalen ikke kunne pnes.
+	 */
+	private long generasjon;
+	private FileChannel kanal;
+	private long strrelse;
+	/**
+	 * Poster som er lagt til, men ikke skrevet til kanalen enn.
+	 */
+	private ByteBuffer ventende = ByteBuffer.allocate(4096);
+	private final CRC32 kontrollsum = new CRC32();
+	/**
+	 * Antall poster som er lagt til, og hvor mange av dem som er synket til disken.
+	 */
+	private long lagtTil, synket;
+	/**
+	 * Om en skrivefeil har stoppet journalen. Endringene lagres da frst nr datafilen lagres neste gang, og neste endring starter
+	 * en komprimering for  f det gjort og starte en ny journal.
+	 */
+	private boolean delagt;
+	/**
+	 * Lagringslytterne som fr beskjed nr journalen stopper og virker igjen, og om de sist fikk beskjed om at den er stoppet.
+	 */
+	private final ArrayList<Lagringslytter> lyttere = new ArrayList<Lagringslytter>();
+	private boolean varsletdelagt;
+	/**
+	 * Tas av trden som skriver til og synker kanalen, slik at bare n trd gjr det om gangen.
+	 */
+	private final Object skrivels = new Object();
+	private Thread komprimering;
+	
+	/**
+	 * Spiller av journalene som hrer til datafilen over stedlisten, starter en ny journal, og legger den til som lytter p stedlisten.
+	 * Journalen fr ikke beskjed om endringer fr avspillingen er ferdig, mens segmentlageret fr det, slik at de avspilte endringene
+	 * skrives til datafilen ved neste lagring. Kan ikke journalen pnes, skrives endringene frst ved neste lagring.
+	 * @param lager	Segmentlageret til stedlisten som er lest inn fra datafilen
+	 * @param frste	Den frste journalen som skal spilles av, fra hodet i datafilen, eller Long.MAX_VALUE om ingen skal spilles av
+	 */
+	Journal(Segmentlager lager, long frste)
+	{
+		this.lager = lager;
+		sl = lager.stedliste();
+		datafil = lager.datafil();
+		long[] generasjoner = generasjoner(datafil);
+		long spiltAv = 0;
+		for(int i = 0; i < generasjoner.length; i++)
+			if(generasjoner[i] >= frste)
+				spiltAv += spillAv(journalfil(datafil, generasjoner[i]));
+		// Den nye journalen m komme etter alle som finnes, og ikke fr den frste datafilen venter p
+		generasjon = generasjoner.length == 0 ? 1 : generasjoner[generasjoner.length - 1] + 1;
+		if(frste != Long.MAX_VALUE)
+			generasjon = Math.max(generasjon, frste);
+		try
+		{
+			pneNy();
+		}
+		catch(IOException ioe)
+		{
+			System.out.println("Kunne ikke pne journalen, endringer lagres ved neste lagring (B018)");
+			delagt = true;
+		}
+		sl.leggTilLytter(this);
+		if(spiltAv > KOMPRIMERINGSGRENSE)
+			startKomprimering();
+	}
+	
+	/**
+	 * Sjekker om det finnes journaler med endringer som ikke er tatt med i datafilen
+	 * @param datafil	Datafilen
+	 * @return	true hvis det finnes slike journaler
+	 * @throws IOException	dersom hodet i datafilen ikke kan leses
+	 */
+	static boolean harEndringer(File datafil) throws IOException
+	{
+		long[] generasjoner = generasjoner(datafil);
+		long frste = Datafil.journalgenerasjon(datafil);
+		for(int i = 0; i < generasjoner.length; i++)
+			if(generasjoner[i] >= frste && journalfil(datafil, generasjoner[i]).length() > HODESTRRELSE)
+				return true;
+		return false;
+	}
+	
+	/**
+	 * Finner journalfilen for en generasjon
+	 * @param datafil	Datafilen journalen hrer til
+	 * @param g	Generasjonen
+	 * @return	Filen, i samme mappe som datafilen
+	 */
+	private static File journalfil(File datafil, long g)
+	{
+		return Datafil.nummerertFil(datafil, g, ETTERNAVN);
+	}
+	
+	/**
+	 * Finner generasjonene til journalfilene som finnes
+	 * @param datafil	Datafilen journalene hrer til
+	 * @return	Generasjonene, sortert stigende
+	 */
+	private static long[] generasjoner(File datafil)
+	{
+		return Datafil.numre(datafil, ETTERNAVN);
+	}
+	
+	/**
+	 * Spiller av postene i en journalfil over stedlisten. Avspillingen stopper ved den frste posten som ikke er hel.
+	 * @param fil	Journalfilen
+	 * @return	Strrelsen p filen
+	 */
+	private long spillAv(File fil)
+	{
+		int poster = 0;
+		try
+		{
+			FileChannel inn = FileChannel.open(fil.toPath(), StandardOpenOption.READ);
+			try
+			{
+				long lengde = inn.size();
+				Datafil.Leser leser = new Datafil.Leser(inn);
+				if(leser.lesInt() != MAGI || leser.lesInt() > VERSJON)
+					throw new IOException("Filen er ikke en journal");
+				leser.lesLong();
+				while(leser.posisjon() < lengde)
+				{
+					int postlengde = leser.lesInt();
+					if(postlengde <= 0 || postlengde > Short.MAX_VALUE + 32)
+						throw new IOException("Ugyldig post");
+					byte[] post = leser.lesBytes(postlengde);
+					kontrollsum.reset();
+					kontrollsum.update(post, 0, post.length);
+					if(leser.lesInt() != (int)kontrollsum.getValue())
+						throw new IOException("Feil kontrollsum");
+					utfr(ByteBuffer.wrap(post));
+					poster++;
+				}
+				return lengde;
+			}
+			finally
+			{
+				inn.close();
+			}
+		}
+		catch(EOFException eofe)
+		{
+			// Posten ble ikke skrevet ferdig fr programmet stoppet
+			return fil.length();
+		}
+		catch(IOException ioe)
+		{
+			System.out.println("Journalen " + fil.getName() + " er skadet, leste " + poster + " endringer (B019)");
+			return fil.length();
+		}
+	} // end of spillAv(...)
+	
+	/**
+	 * Gjr endringen i en post p nytt
+	 * @param post	Innholdet i posten
+	 */
+	private void utfr(ByteBuffer post)
+	{
+		byte type = post.get();
+		byte[] navn = new byte[post.getShort()];
+		post.get(navn);
+		String n = new String(navn, StandardCharsets.UTF_8);
+		int fylke = post.get();
+		Sted sted = sl.finnSted(n, fylke);
+		if(type == STED_LAGT_TIL)
+		{
+			if(sted == null)
+				sl.settInn(new Sted(n, fylke));
+		}
+		else if(type == STED_SLETTET)
+		{
+			if(sted != null)
+				sl.slettSted(sted);
+		}
+		else if(type == DATA && sted != null)
+		{
+			int dag = post.getInt();
+			sted.getDatoliste().settVerdier(dag, post.getShort(), post.getShort(), post.getShort());
+			sl.dataEndret(sted, dag);
+		}
+	}
+	
+	/**
+	 * Oppretter journalfilen for gjeldende generasjon og skriver hodet
+	 */
+	private void pneNy() throws IOException
+	{
+		File fil = journalfil(datafil, generasjon);
+		kanal = FileChannel.open(fil.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		ByteBuffer hode = ByteBuffer.allocate(HODESTRRELSE);
+		hode.putInt(MAGI);
+		hode.putInt(VERSJON);
+		hode.putLong(generasjon);
+		hode.flip();
+		while(hode.hasRemaining())
+			kanal.write(hode);
+		kanal.force(false);
+		Datafil.synkroniserMappe(fil);
+		strrelse = hode.capacity();
+	}
+	
+	/**
+	 * Skriver en post om at et sted er satt inn eller slettet. Stedet er satt inn dersom det finnes i listen.
+	 * @param s	Stedet som er satt inn eller slettet
+	 */
+	public void stedEndret(Sted s)
+	{
+		byte type = sl.finnSted(s.getNavn(), s.getFylke()) == s ? STED_LAGT_TIL : STED_SLETTET;
+		skriv(type, s, 0, null, 0);
+	}
+	
+	/**
+	 * Skriver en post med alle verdiene stedet n har for dagen
+	 * @param s			Stedet som har ftt endrede data
+	 * @param dagnummer	Dagnummeret til datoen som er endret
+	 */
+	public void dataEndret(Sted s, int dagnummer)
+	{
+		Datoliste dl = s.getDatoliste();
+		int i = dl.posisjon(dagnummer, -1);
+		if(i >= 0)
+			skriv(DATA, s, dagnummer, dl, i);
+	}
+	
+	/**
+	 * Legger en post til journalen, og venter til den er synket til disken
+	 * @param type	Typen post
+	 * @param s	Stedet posten gjelder
+	 * @param dag	Dagnummeret, for DATA
+	 * @param dl	Datolisten verdiene hentes fra, for DATA
+	 * @param i	Posisjonen til dagen i datolisten, for DATA
+	 */
+	private void skriv(byte type, Sted s, int dag, Datoliste dl, int i)
+	{
+		byte[] navn = s.getNavn().getBytes(StandardCharsets.UTF_8);
+		int lengde = 1 + 2 + navn.length + 1 + (type == DATA ? 10 : 0);
+		long nummer;
+		synchronized(this)
+		{
+			if(delagt)
+			{
+				// Endringen kommer med i datafilen ved komprimeringen, som ogs prver  starte en ny journal
+				startKomprimering();
+				return;
+			}
+			if(ventende.remaining() < lengde + 8)
+			{
+				ByteBuffer strre = ByteBuffer.allocate(Math.max(ventende.capacity() * 2, ventende.position() + lengde + 8));
+				ventende.flip();
+				strre.put(ventende);
+				ventende = strre;
+			}
+			ventende.putInt(lengde);
+			int start = ventende.position();
+			ventende.put(type);
+			ventende.putShort((short)navn.length);
+			ventende.put(navn);
+			ventende.put((byte)s.getFylke());
+			if(type == DATA)
+			{
+				ventende.putInt(dag);
+				ventende.putShort(dl.skalertMinTemp(i));
+				ventende.putShort(dl.skalertMaxTemp(i));
+				ventende.putShort(dl.skalertNedbr(i));
+			}
+			kontrollsum.reset();
+			kontrollsum.update(ventende.array(), start, lengde);
+			ventende.putInt((int)kontrollsum.getValue());
+			nummer = ++lagtTil;
+		}
+		synkroniser(nummer);
+		varsleLyttere();
+		boolean stor;
+		synchronized(this)
+		{
+			stor = strrelse > KOMPRIMERINGSGRENSE;
+		}
+		if(stor)
+			startKomprimering();
+	} // end of skriv(...)
+	
+	/**
+	 * Venter til en post er synket til disken. Trden som fr skrivelsen skriver og synker alle postene som venter,
+	 * s trder som kommer mens den synker, fr sine poster synket samlet etterp.
+	 * @param nummer	Nummeret til posten
+	 */
+	private void synkroniser(long nummer)
+	{
+		synchronized(skrivels)
+		{
+			ByteBuffer data;
+			long til;
+			synchronized(this)
+			{
+				if(synket >= nummer || delagt)
+					return;
+				data = ventende;
+				ventende = ByteBuffer.allocate(data.capacity());
+				til = lagtTil;
+			}
+			skrivTilKanal(data, til);
+		}
+	} // end of synkroniser(...)
+	
+	/**
+	 * Skriver postene i en buffer til kanalen og synker dem. Kallet m ha skrivelsen.
+	 * @param data	Postene, med posisjonen bak den siste
+	 * @param til	Nummeret til den siste posten i bufferen
+	 */
+	private void skrivTilKanal(ByteBuffer data, long til)
+	{
+		try
+		{
+			data.flip();
+			int antall = data.remaining();
+			while(data.hasRemaining())
+				kanal.write(data);
+			kanal.force(false);
+			synchronized(this)
+			{
+				synket = til;
+				strrelse += antall;
+			}
+		}
+		catch(IOException ioe)
+		{
+			feil();
+		}
+	}
+	
+	/**
+	 * Stopper journalen etter en skrivefeil
+	 */
+	private void feil()
+	{
+		System.out.println("Kunne ikke skrive til journalen, endringer lagres ved neste lagring (B018)");
+		synchronized(this)
+		{
+			delagt = true;
+			ventende.clear();
+		}
+		try
+		{
+			kanal.close();
+		}
+		catch(IOException ioe)
+		{
+		}
+	}
+	
+	/**
+	 * Legger til en lagringslytter som fr beskjed nr journalen stopper og virker igjen. Er journalen stoppet n, fr lytteren beskjed med en gang.
+	 * @param lytter	Lytteren
+	 */
+	void leggTilLytter(Lagringslytter lytter)
+	{
+		boolean stoppet;
+		synchronized(this)
+		{
+			lyttere.add(lytter);
+			stoppet = varsletdelagt;
+		}
+		if(stoppet)
+			lytter.journalStoppet();
+		varsleLyttere();
+	}
+	
+	/**
+	 * Gir lytterne beskjed dersom journalen har stoppet eller virker igjen siden de sist fikk beskjed.
+	 * Kalles uten ls p journalen, s lytterne ikke holder p den.
+	 */
+	private void varsleLyttere()
+	{
+		Lagringslytter[] varsle;
+		boolean stoppet;
+		synchronized(this)
+		{
+			if(delagt == varsletdelagt)
+				return;
+			varsletdelagt = stoppet = delagt;
+			varsle = lyttere.toArray(new Lagringslytter[lyttere.size()]);
+		}
+		for(int i = 0; i < varsle.length; i++)
+		{
+			if(stoppet)
+				varsle[i].journalStoppet();
+			else
+				varsle[i].journalVirkerIgjen();
+		}
+	}
+	
+	/**
+	 * Lagrer alle endringer i datafilen og starter en ny journal. Bare segmentene som er endret skrives, s det gr fort
+	 * selv om arkivet er stort. Kallet m ha ls p stedlisten.
+	 * @throws IOException	dersom datafilen ikke kunne skrives. Endringene ligger da fortsatt i journalen, om den virker.
+	 */
+	void lagre() throws IOException
+	{
+		komprimer();
+	}
+	
+	/**
+	 * Starter en ny journal, og skriver endringene til datafilen, som da tar over for de gamle journalene. yeblikksbildet av
+	 * stedlisten tas med ls, mens datafilen skrives uten, s sk og registreringer kan fortsette imens.
+	 * @throws IOException	dersom datafilen ikke kunne skrives. Journalene er da urrt.
+	 */
+	void komprimer() throws IOException
+	{
+		Segmentlager.yeblikk bilde;
+		long ny;
+		synchronized(sl)
+		{
+			ny = roter();
+			bilde = lager.tayeblikk(ny);
+		}
+		varsleLyttere();
+		lager.skriv(bilde);
+		long[] generasjoner = generasjoner(datafil);
+		for(int i = 0; i < generasjoner.length; i++)
+			if(generasjoner[i] < ny)
+				journalfil(datafil, generasjoner[i]).delete();
+		Datafil.synkroniserMappe(datafil);
+	}
+	
+	/**
+	 * Synker postene som venter og avslutter journalen, og starter en ny med neste generasjon.
+	 * Journalen er lst hele tiden, s ingen post kan legges til mellom de siste postene synkes og den nye journalen starter,
+	 * og dermed verken havne i den gamle journalen etter at den er synket eller bli borte nr den nye starter.
+	 * Kan ikke den nye journalen pnes, er journalen delagt til neste komprimering.
+	 * @return	Generasjonen til den nye journalen
+	 */
+	private long roter()
+	{
+		synchronized(skrivels)
+		{
+			synchronized(this)
+			{
+				if(!delagt && synket < lagtTil)
+				{
+					ByteBuffer data = ventende;
+					ventende = ByteBuffer.allocate(data.capacity());
+					skrivTilKanal(data, lagtTil);
+				}
+				try
+				{
+					if(kanal != null)
+						kanal.close();
+				}
+				catch(IOException ioe)
+				{
+				}
+				kanal = null;
+				generasjon++;
+				ventende.clear();
+				synket = lagtTil;
+				try
+				{
+					pneNy();
+					delagt = false;
+				}
+				catch(IOException ioe)
+				{
+					System.out.println("Kunne ikke pne journalen, endringer lagres ved neste lagring (B018)");
+					delagt = true;
+				}
+				return generasjon;
+			}
+		}
+	} // end of roter()
+	
+	/**
+	 * Starter en komprimering i bakgrunnen, om det ikke allerede gr en
+	 */
+	synchronized void startKomprimering()
+	{
+		if(komprimering != null && komprimering.isAlive())
+			return;
+		komprimering = new Thread("Journalkomprimering")
+		{
+			public void run()
+			{
+				try
+				{
+					komprimer();
+				}
+				catch(IOException ioe)
+				{
+					System.out.println("Kunne ikke komprimere journalen, prver igjen senere (B020)");
+				}
+			}
+		};
+		komprimering.setDaemon(true);
+		komprimering.start();
+	}
+} // end of class Journal
\ No newline at end of file
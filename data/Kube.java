@@ -0,0 +1,463 @@
+/**
+ * Inneholder klassen Kube.
+ */
+package data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+
+import logic.Registrering;
+
+/**
+ *	Klassen er en ferdig utregnet kube med vrdata for hvert fylke og for hele landet, p dag-, mneds- og rsniv.
+ *	Hver celle inneholder sum, antall, minste og strste verdi for nedbr og temperatur, slik at sprringer for et fylke eller hele landet
+ *	kan besvares uten  g gjennom stedene. Kuben holdes oppdatert av stedlisten nr steder settes inn eller slettes og nr vrdata registreres,
+ *	og lagres ved siden av datafilen slik at den ikke m bygges p nytt ved oppstart. En lagret kube hrer til n bestemt utgave av datafilen,
+ *	og tas bare i bruk igjen nr hodet i datafilen fortsatt er det samme.
+ */
+public class Kube implements Serializable
+{
+	private static final long serialVersionUID = 2L;
+	/**
+	 * Omrdet for hele landet. Fylkene har omrdenummer lik fylkesnummeret.
+	 */
+	public static final int LAND = Sted.FYLKESLISTE.length;
+	/**
+	 * Nivene i kuben. Nkkelen er dagnummeret for DAG, r*12+mned for MNED og rstallet for R.
+	 */
+	public static final int DAG = 0, MNED = 1, R = 2;
+	/**
+	 * Feltene i hver celle. Temperatursummen er summen av gjennomsnittstemperaturen for hver dag, og minste og strste temperatur
+	 * er laveste minimumstemperatur og hyeste maksimumstemperatur.
+	 */
+	public static final int SUM_NEDBR = 0, ANTALL_NEDBR = 1, MIN_NEDBR = 2, MAX_NEDBR = 3, SUM_TEMP = 4, ANTALL_TEMP = 5, MIN_TEMP = 6, MAX_TEMP = 7;
+	/**
+	 * Cellene for hvert niv og omrde, se tabell(...). Verdiene er skalert som i Datoliste, og temperatursummen er doblet.
+	 */
+	private final ArrayList<ArrayList<HashMap<Integer, long[]>>> celler;
+	/**
+	 * Journalgenerasjonen og kontrollsummen fra hodet i datafilen kuben ble lagret sammen med, se Datafil.Hode.
+	 * Begge endres hver gang datafilen skrives, ogs ved autolagring, s en kube som ikke ble lagret samtidig passer ikke.
+	 */
+	private long journal;
+	private int indekssum;
+	/**
+	 * Stedlisten kuben gjelder for.
+	 */
+	private transient Stedliste steder;
+	
+	/**
+	 * Lager kuben og legger inn dataene til alle stedene i listen. Kuben lages inne i sk som kjrer i bakgrunnen, med ls p stedlisten,
+	 * s trden sjekkes mellom hvert sted, slik at et avbrutt sk slipper lsen med en gang i stedet for  lage hele kuben frst.
+	 * @param steder	stedlisten kuben skal gjelde for.
+	 * @return	kuben, eller null dersom trden ble avbrutt fr den var ferdig.
+	 */
+	static Kube lag(Stedliste steder)
+	{
+		Kube kube = new Kube(steder);
+		Iterator<Sted> iterator = steder.iterator();
+		while(iterator.hasNext())
+		{
+			if(Thread.currentThread().isInterrupted())
+				return null;
+			kube.leggTilSted(iterator.next());
+		}
+		return kube;
+	}
+	
+	/**
+	 * Oppretter en tom kube.
+	 * @param steder	stedlisten kuben skal gjelde for.
+	 */
+	private Kube(Stedliste steder)
+	{
+		this.steder = steder;
+		celler = new ArrayList<ArrayList<HashMap<Integer, long[]>>>(3);
+		for(int niv = 0; niv < 3; niv++)
+		{
+			ArrayList<HashMap<Integer, long[]>> omrder = new ArrayList<HashMap<Integer, long[]>>(LAND + 1);
+			for(int omrde = 0; omrde <= LAND; omrde++)
+				omrder.add(new HashMap<Integer, long[]>());
+			celler.add(omrder);
+		}
+	}
+	
+	/**
+	 * Returnerer nkkelen til en mned p mnedsnivet.
+	 * @param r	rstallet.
+	 * @param mned	mneden (0-11).
+	 * @return	nkkelen r*12+mned.
+	 */
+	public static int mnedsnkkel(int r, int mned)
+	{
+		return r * 12 + mned;
+	}
+	
+	/**
+	 * Returnerer et felt i en celle, regnet om fra kolonneformatet.
+	 * @param omrde	fylkesnummeret, eller LAND.
+	 * @param niv		DAG, MNED eller R.
+	 * @param nkkel	dagnummeret, mnedsnkkelen eller rstallet.
+	 * @param felt		feltet i cellen, for eksempel SUM_NEDBR.
+	 * @return	verdien, 0 for summer og antall i tomme celler, og NaN for minste og strste verdi nr det ikke finnes gyldige verdier.
+	 */
+	public double finnVerdi(int omrde, int niv, int nkkel, int felt)
+	{
+		long[] celle = celle(omrde, niv, nkkel);
+		if(felt == ANTALL_NEDBR || felt == ANTALL_TEMP)
+			return celle == null ? 0 : celle[felt];
+		if(felt == SUM_NEDBR)
+			return celle == null ? 0 : celle[felt] / Datoliste.SKALA;
+		if(felt == SUM_TEMP)
+			return celle == null ? 0 : celle[felt] / (2 * Datoliste.SKALA);
+		if(celle == null || celle[felt] == Long.MAX_VALUE || celle[felt] == Long.MIN_VALUE)
+			return Double.NaN;
+		return celle[felt] / Datoliste.SKALA;
+	}
+	
+	/**
+	 * Finner ekstremverdien av en gitt type i en celle, med de samme verdiene for manglende data som Datoliste.finnEkstrem().
+	 * @param omrde	fylkesnummeret, eller LAND.
+	 * @param niv		DAG, MNED eller R.
+	 * @param nkkel	dagnummeret, mnedsnkkelen eller rstallet.
+	 * @param type		LAVESTE_MINTEMP, HYESTE_MAXTEMP, LAVESTE_NEDBR eller HYESTE_NEDBR fra Datoliste.
+	 * @return	ekstremverdien.
+	 */
+	public double finnEkstrem(int omrde, int niv, int nkkel, int type)
+	{
+		double verdi;
+		switch(type)
+		{
+			case Datoliste.LAVESTE_MINTEMP:	verdi = finnVerdi(omrde, niv, nkkel, MIN_TEMP);		break;
+			case Datoliste.HYESTE_MAXTEMP:	verdi = finnVerdi(omrde, niv, nkkel, MAX_TEMP);		break;
+			case Datoliste.LAVESTE_NEDBR:	verdi = finnVerdi(omrde, niv, nkkel, MIN_NEDBR);	break;
+			default:						verdi = finnVerdi(omrde, niv, nkkel, MAX_NEDBR);
+		}
+		if(!Double.isNaN(verdi))
+			return verdi;
+		switch(type)
+		{
+			case Datoliste.LAVESTE_MINTEMP:	return Registrering.MAXMAXTEMP+1;
+			case Datoliste.HYESTE_MAXTEMP:	return Registrering.MAXMINTEMP-1;
+			case Datoliste.LAVESTE_NEDBR:	return Registrering.MAXNEDBR+1;
+			default:						return -1;
+		}
+	}
+	
+	/**
+	 * Returnerer en celle, eller null om den ikke finnes.
+	 */
+	private long[] celle(int omrde, int niv, int nkkel)
+	{
+		if(omrde < 0 || omrde > LAND)
+			return null;
+		return tabell(omrde, niv).get(nkkel);
+	}
+	
+	/**
+	 * Returnerer cellene for et omrde p et niv, med dagnummeret, mnedsnkkelen eller rstallet som nkkel.
+	 */
+	private HashMap<Integer, long[]> tabell(int omrde, int niv)
+	{
+		return celler.get(niv).get(omrde);
+	}
+	
+	/**
+	 * Legger dataene til et nytt sted inn i kuben, for stedets fylke og for hele landet.
+	 * @param sted	stedet som er satt inn.
+	 */
+	void leggTilSted(Sted sted)
+	{
+		int fylke = sted.getFylke();
+		Datoliste datoer = sted.getDatoliste();
+		for(int i = 0; i < datoer.size(); i++)
+		{
+			int dag = datoer.dagnummerVed(i);
+			int[] dato = Dato.fraDagnummer(dag);
+			int[] nkler = {dag, mnedsnkkel(dato[0], dato[1]), dato[0]};
+			for(int niv = 0; niv < 3; niv++)
+			{
+				if(fylke >= 0 && fylke < LAND)
+					leggTil(hentCelle(fylke, niv, nkler[niv]), datoer, i);
+				leggTil(hentCelle(LAND, niv, nkler[niv]), datoer, i);
+			}
+		}
+	}
+	
+	/**
+	 * Trekker dataene til et slettet sted fra i kuben, dag for dag. Stedet m allerede vre fjernet fra stedlisten.
+	 * @param sted	stedet som er slettet.
+	 */
+	void fjernSted(Sted sted)
+	{
+		Datoliste datoer = sted.getDatoliste();
+		long[] ingen = tomCelle();
+		for(int i = 0; i < datoer.size(); i++)
+		{
+			long[] gammel = tomCelle();
+			leggTil(gammel, datoer, i);
+			endre(sted.getFylke(), datoer.dagnummerVed(i), gammel, ingen);
+		}
+	}
+	
+	/**
+	 * Oppdaterer kuben etter at vrdataene for en dato hos et sted er endret. De gamle verdiene trekkes fra og de nye legges til
+	 * i hver celle som dekker dagen. Er de gamle verdiene ukjente, regnes dagcellen for fylket ut p nytt, og endringen i den fres videre.
+	 * @param sted		stedet som har ftt endrede data.
+	 * @param dagnummer	dagnummeret til datoen som er endret.
+	 * @param gamle		de skalerte verdiene dagen hadde fr endringen (se Datoliste.gamleVerdier(...)), eller null om de ikke er kjent.
+	 */
+	void dataEndret(Sted sted, int dagnummer, short[] gamle)
+	{
+		int fylke = sted.getFylke();
+		long[] gammel, ny;
+		if(gamle != null)
+		{
+			gammel = tomCelle();
+			leggTil(gammel, gamle[0], gamle[1], gamle[2]);
+			ny = tomCelle();
+			Datoliste datoer = sted.getDatoliste();
+			int posisjon = datoer.posisjon(dagnummer, -1);
+			if(posisjon >= 0)
+				leggTil(ny, datoer, posisjon);
+		}
+		else if(fylke >= 0 && fylke < LAND)
+		{
+			long[] celle = celle(fylke, DAG, dagnummer);
+			gammel = celle != null ? celle.clone() : tomCelle();
+			ny = tomCelle();
+			beregnFylkesdag(ny, fylke, dagnummer);
+		}
+		else
+			return;
+		endre(fylke, dagnummer, gammel, ny);
+	}
+	
+	/**
+	 * Frer en endring i bidraget til en dag over i dag-, mneds- og rscellene for fylket og for hele landet.
+	 * Cellene p et niv oppdateres fr nivet over, og fylket fr landet, siden ekstremverdiene kan mtte regnes ut fra cellene under.
+	 * @param fylke		fylket endringen gjelder.
+	 * @param dag		dagnummeret.
+	 * @param gammel	bidraget fr endringen.
+	 * @param ny		bidraget etter endringen.
+	 */
+	private void endre(int fylke, int dag, long[] gammel, long[] ny)
+	{
+		int[] dato = Dato.fraDagnummer(dag);
+		int[] nkler = {dag, mnedsnkkel(dato[0], dato[1]), dato[0]};
+		for(int niv = 0; niv < 3; niv++)
+		{
+			if(fylke >= 0 && fylke < LAND)
+				endre(fylke, niv, nkler[niv], gammel, ny);
+			endre(LAND, niv, nkler[niv], gammel, ny);
+		}
+	}
+	
+	/**
+	 * Trekker det gamle bidraget fra og legger det nye til i n celle. Summene og antallene endres direkte, og ekstremverdiene
+	 * regnes bare ut p nytt fra cellene under nr den gamle verdien var ekstremverdien og den nye ikke er like god.
+	 */
+	private void endre(int omrde, int niv, int nkkel, long[] gammel, long[] ny)
+	{
+		long[] celle = hentCelle(omrde, niv, nkkel);
+		celle[SUM_NEDBR] += ny[SUM_NEDBR] - gammel[SUM_NEDBR];
+		celle[ANTALL_NEDBR] += ny[ANTALL_NEDBR] - gammel[ANTALL_NEDBR];
+		celle[SUM_TEMP] += ny[SUM_TEMP] - gammel[SUM_TEMP];
+		celle[ANTALL_TEMP] += ny[ANTALL_TEMP] - gammel[ANTALL_TEMP];
+		boolean beregn = endreMinste(celle, MIN_NEDBR, gammel, ny);
+		beregn |= endreStrste(celle, MAX_NEDBR, gammel, ny);
+		beregn |= endreMinste(celle, MIN_TEMP, gammel, ny);
+		beregn |= endreStrste(celle, MAX_TEMP, gammel, ny);
+		if(beregn)
+			beregnEkstremer(omrde, niv, nkkel, celle);
+		settCelle(omrde, niv, nkkel, celle);
+	}
+	
+	/**
+	 * Oppdaterer en minsteverdi i en celle.
+	 * @return	true hvis den gamle verdien var minsteverdien, og den nye er strre, slik at minsteverdien m regnes ut p nytt.
+	 */
+	private static boolean endreMinste(long[] celle, int felt, long[] gammel, long[] ny)
+	{
+		if(ny[felt] <= gammel[felt])
+		{
+			celle[felt] = Math.min(celle[felt], ny[felt]);
+			return false;
+		}
+		return celle[felt] == gammel[felt];
+	}
+	
+	/**
+	 * Oppdaterer en strste verdi i en celle.
+	 * @return	true hvis den gamle verdien var den strste, og den nye er mindre, slik at den strste verdien m regnes ut p nytt.
+	 */
+	private static boolean endreStrste(long[] celle, int felt, long[] gammel, long[] ny)
+	{
+		if(ny[felt] >= gammel[felt])
+		{
+			celle[felt] = Math.max(celle[felt], ny[felt]);
+			return false;
+		}
+		return celle[felt] == gammel[felt];
+	}
+	
+	/**
+	 * Regner ut ekstremverdiene i en celle p nytt: en dag i et fylke fra stedene i fylket, en dag for hele landet fra fylkene,
+	 * en mned fra dagene og et r fra mnedene.
+	 */
+	private void beregnEkstremer(int omrde, int niv, int nkkel, long[] celle)
+	{
+		long[] ny = tomCelle();
+		if(niv == DAG && omrde < LAND)
+			beregnFylkesdag(ny, omrde, nkkel);
+		else if(niv == DAG)
+		{
+			for(int fylke = 0; fylke < LAND; fylke++)
+				slSammen(ny, celle(fylke, DAG, nkkel));
+		}
+		else if(niv == MNED)
+		{
+			int fra = Dato.tilDagnummer(nkkel / 12, nkkel % 12, 1), til = Dato.tilDagnummer(nkkel / 12, nkkel % 12 + 1, 1);
+			for(int dag = fra; dag < til; dag++)
+				slSammen(ny, celle(omrde, DAG, dag));
+		}
+		else
+		{
+			for(int mned = 0; mned < 12; mned++)
+				slSammen(ny, celle(omrde, MNED, mnedsnkkel(nkkel, mned)));
+		}
+		celle[MIN_NEDBR] = ny[MIN_NEDBR];
+		celle[MAX_NEDBR] = ny[MAX_NEDBR];
+		celle[MIN_TEMP] = ny[MIN_TEMP];
+		celle[MAX_TEMP] = ny[MAX_TEMP];
+	}
+	
+	/**
+	 * Legger verdiene alle stedene i et fylke har for en dag til i en celle.
+	 */
+	private void beregnFylkesdag(long[] celle, int fylke, int dag)
+	{
+		Iterator<Sted> iterator = steder.finnSted(fylke).iterator();
+		while(iterator.hasNext())
+		{
+			Datoliste datoer = iterator.next().getDatoliste();
+			int posisjon = datoer.posisjon(dag, -1);
+			if(posisjon >= 0)
+				leggTil(celle, datoer, posisjon);
+		}
+	}
+	
+	/**
+	 * Returnerer en celle, og oppretter den om den ikke finnes.
+	 */
+	private long[] hentCelle(int omrde, int niv, int nkkel)
+	{
+		long[] celle = tabell(omrde, niv).get(nkkel);
+		if(celle == null)
+		{
+			celle = tomCelle();
+			tabell(omrde, niv).put(nkkel, celle);
+		}
+		return celle;
+	}
+	
+	/**
+	 * Lagrer en celle som er endret, eller fjerner den om den er tom.
+	 */
+	private void settCelle(int omrde, int niv, int nkkel, long[] celle)
+	{
+		if(celle[ANTALL_NEDBR] == 0 && celle[ANTALL_TEMP] == 0 && celle[MIN_TEMP] == Long.MAX_VALUE && celle[MAX_TEMP] == Long.MIN_VALUE)
+			tabell(omrde, niv).remove(nkkel);
+		else
+			tabell(omrde, niv).put(nkkel, celle);
+	}
+	
+	/**
+	 * Oppretter en tom celle.
+	 */
+	private static long[] tomCelle()
+	{
+		long[] celle = new long[8];
+		celle[MIN_NEDBR] = celle[MIN_TEMP] = Long.MAX_VALUE;
+		celle[MAX_NEDBR] = celle[MAX_TEMP] = Long.MIN_VALUE;
+		return celle;
+	}
+	
+	/**
+	 * Legger verdiene p en posisjon i en datoliste til i en celle. Gyldige verdier regnes ut p samme mte som i datolistens summer.
+	 */
+	private static void leggTil(long[] celle, Datoliste datoer, int i)
+	{
+		leggTil(celle, datoer.skalertMinTemp(i), datoer.skalertMaxTemp(i), datoer.skalertNedbr(i));
+	}
+	
+	/**
+	 * Legger skalerte verdier for en dag til i en celle.
+	 */
+	private static void leggTil(long[] celle, short min, short max, short ned)
+	{
+		short minste = Datoliste.skaler(Registrering.MAXMINTEMP), strste = Datoliste.skaler(Registrering.MAXMAXTEMP), mest = Datoliste.skaler(Registrering.MAXNEDBR);
+		boolean harMin = min <= strste, harMax = max <= strste;
+		int avg = harMin ? (harMax ? min + max : 2 * min) : 2 * max;
+		if(ned >= 0 && ned <= mest)
+		{
+			celle[SUM_NEDBR] += ned;
+			celle[ANTALL_NEDBR]++;
+			celle[MIN_NEDBR] = Math.min(celle[MIN_NEDBR], ned);
+			celle[MAX_NEDBR] = Math.max(celle[MAX_NEDBR], ned);
+		}
+		if((harMin || harMax) && avg >= 2 * minste)
+		{
+			celle[SUM_TEMP] += avg;
+			celle[ANTALL_TEMP]++;
+		}
+		if(harMin && min >= minste)
+			celle[MIN_TEMP] = Math.min(celle[MIN_TEMP], min);
+		if(harMax && max >= minste)
+			celle[MAX_TEMP] = Math.max(celle[MAX_TEMP], max);
+	}
+	
+	/**
+	 * Legger en celle til i en annen.
+	 */
+	private static void slSammen(long[] celle, long[] annen)
+	{
+		if(annen == null)
+			return;
+		celle[SUM_NEDBR] += annen[SUM_NEDBR];
+		celle[ANTALL_NEDBR] += annen[ANTALL_NEDBR];
+		celle[MIN_NEDBR] = Math.min(celle[MIN_NEDBR], annen[MIN_NEDBR]);
+		celle[MAX_NEDBR] = Math.max(celle[MAX_NEDBR], annen[MAX_NEDBR]);
+		celle[SUM_TEMP] += annen[SUM_TEMP];
+		celle[ANTALL_TEMP] += annen[ANTALL_TEMP];
+		celle[MIN_TEMP] = Math.min(celle[MIN_TEMP], annen[MIN_TEMP]);
+		celle[MAX_TEMP] = Math.max(celle[MAX_TEMP], annen[MAX_TEMP]);
+	}
+	
+	/**
+	 * Gjr kuben klar til  lagres, ved  merke den med hodet til datafilen som nettopp er skrevet med de samme dataene.
+	 * @param hode	hodet i datafilen.
+	 */
+	void forberedLagring(Datafil.Hode hode)
+	{
+		journal = hode.journal;
+		indekssum = hode.kontrollsum;
+	}
+	
+	/**
+	 * Knytter en innlest kube til stedlisten som er lest fra datafilen, dersom kuben ble lagret sammen med akkurat denne utgaven av datafilen.
+	 * Kuben m knyttes til fr journalene spilles av, slik at endringene i dem fres inn i kuben.
+	 * @param steder	den innleste stedlisten.
+	 * @param hode		hodet i datafilen stedlisten er lest fra.
+	 * @return	true dersom kuben passer til datafilen.
+	 */
+	boolean knyttTil(Stedliste steder, Datafil.Hode hode)
+	{
+		if(celler == null || celler.size() != 3 || celler.get(0).size() != LAND + 1 || journal != hode.journal || indekssum != hode.kontrollsum)
+			return false;
+		this.steder = steder;
+		return true;
+	}
+} // end of class Kube
\ No newline at end of file
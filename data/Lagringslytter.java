@@ -0,0 +1,38 @@
+/**
+ * Inneholder grensesnittet Lagringslytter.
+ */
+package data;
+
+/**
+ *	Grensesnittet implementeres av klasser utenfor datapakken som vil vise hva lagringen i bakgrunnen gjr, for eksempel i en statuslinje,
+ *	og om journalen over endringene virker. Lyttere legges til med Filhndterer.leggTilLagringslytter(...).
+ *	Metodene kalles p lagringstrden eller trden som gjorde endringen, ikke ndvendigvis p event dispatch-trden.
+ */
+public interface Lagringslytter
+{
+	/**
+	 * Kalles nr en lagring i bakgrunnen starter, automatisk eller fordi brukeren har bedt om det
+	 * @param endringer	Antall endringer som lagres
+	 */
+	void lagringStartet(int endringer);
+	
+	/**
+	 * Kalles nr en lagring i bakgrunnen er ferdig
+	 * @param endringer	Antall endringer som ble lagret
+	 * @param millisekunder	Hvor lang tid lagringen tok
+	 * @param lagret	true hvis dataene ble lagret, false hvis lagringen feilet og skal prves igjen senere
+	 * @param automatisk	true hvis lagringen var automatisk, false hvis brukeren ba om den (se Filhndterer.lagreN())
+	 */
+	void lagringFerdig(int endringer, long millisekunder, boolean lagret, boolean automatisk);
+	
+	/**
+	 * Kalles nr journalen har stoppet etter en skrivefeil. Endringene som gjres n, kan g tapt om programmet krasjer fr datafilen
+	 * er lagret. Er journalen allerede stoppet nr lytteren legges til, kalles metoden med en gang.
+	 */
+	void journalStoppet();
+	
+	/**
+	 * Kalles nr journalen virker igjen etter at den har stoppet
+	 */
+	void journalVirkerIgjen();
+} // end of interface Lagringslytter
\ No newline at end of file
@@ -0,0 +1,348 @@
+/**
+ * Inneholder klassen Rekordindeks.
+ */
+package data;
+
+import java.util.Iterator;
+
+import logic.Registrering;
+
+/**
+ *	Klassen holder rekordene for hver mned for alle stedene i en stedliste: for hver type ekstremverdi (fra Datoliste) og hver mned lagres
+ *	rekordverdien og alle stedene og datoene som har den, sortert p sted og deretter kronologisk.
+ *	Indeksen bygges n gang og holdes deretter oppdatert av stedlisten nr steder settes inn eller slettes, og nr vrdata registreres.
+ *	Bare nr den siste innehaveren av en rekord forsvinner m rekorden for den mneden regnes ut p nytt.
+ */
+public class Rekordindeks
+{
+	/**
+	 * Stedlisten indeksen gjelder for.
+	 */
+	private final Stedliste steder;
+	/**
+	 * Rekordverdien for hver type og mned. Verdien gjelder bare nr det er minst n innehaver.
+	 */
+	private final double[][] rekord=new double[4][12];
+	/**
+	 * Innehaverne av hver rekord, som par av sted og dagnummer i to arrayer, og antallet innehavere.
+	 */
+	private final Sted[][][] rekordsteder=new Sted[4][12][];
+	private final int[][][] rekorddager=new int[4][12][];
+	private final int[][] antall=new int[4][12];
+	
+	/**
+	 * Lager indeksen og finner rekordene for alle stedene i listen. Som kuben lages indeksen inne i sk med ls p stedlisten,
+	 * s et avbrutt sk stopper mellom to steder og slipper lsen.
+	 * @param steder	stedlisten indeksen skal gjelde for.
+	 * @return	indeksen, eller null dersom trden ble avbrutt fr den var ferdig.
+	 */
+	static Rekordindeks lag(Stedliste steder)
+	{
+		Rekordindeks indeks=new Rekordindeks(steder);
+		Iterator<Sted> iterator=steder.iterator();
+		while(iterator.hasNext())
+		{
+			if(Thread.currentThread().isInterrupted())
+				return null;
+			indeks.leggTilSted(iterator.next());
+		}
+		return indeks;
+	}
+	
+	/**
+	 * Oppretter en tom indeks.
+	 * @param steder	stedlisten indeksen skal gjelde for.
+	 */
+	private Rekordindeks(Stedliste steder)
+	{
+		this.steder=steder;
+		for(int type=0;type<4;type++)
+		{
+			for(int mned=0;mned<12;mned++)
+			{
+				rekordsteder[type][mned]=new Sted[4];
+				rekorddager[type][mned]=new int[4];
+			}
+		}
+	}
+	
+	/**
+	 * Returnerer antall datoer som har rekorden for en mned.
+	 * @param type	LAVESTE_MINTEMP, HYESTE_MAXTEMP, LAVESTE_NEDBR eller HYESTE_NEDBR fra Datoliste.
+	 * @param mned	mneden (0-11).
+	 * @return	antall innehavere av rekorden, eller 0 om det ikke finnes data for mneden.
+	 */
+	public int antallRekorder(int type, int mned)
+	{
+		return antall[type][mned];
+	}
+	
+	/**
+	 * Returnerer rekordverdien for en mned. Verdien gjelder bare om antallRekorder(type, mned) er strre enn 0.
+	 * @param type	typen ekstremverdi (fra Datoliste).
+	 * @param mned	mneden (0-11).
+	 * @return	rekordverdien.
+	 */
+	public double getRekord(int type, int mned)
+	{
+		return rekord[type][mned];
+	}
+	
+	/**
+	 * Returnerer stedet til en av innehaverne av rekorden for en mned.
+	 * @param type	typen ekstremverdi (fra Datoliste).
+	 * @param mned	mneden (0-11).
+	 * @param i		nummeret p innehaveren, fra 0 til antallRekorder(type, mned).
+	 * @return	stedet som har rekorden.
+	 */
+	public Sted getRekordsted(int type, int mned, int i)
+	{
+		return rekordsteder[type][mned][i];
+	}
+	
+	/**
+	 * Returnerer dagnummeret til datoen for en av innehaverne av rekorden for en mned.
+	 * @param type	typen ekstremverdi (fra Datoliste).
+	 * @param mned	mneden (0-11).
+	 * @param i		nummeret p innehaveren, fra 0 til antallRekorder(type, mned).
+	 * @return	dagnummeret til datoen rekorden ble satt.
+	 */
+	public int getRekorddag(int type, int mned, int i)
+	{
+		return rekorddager[type][mned][i];
+	}
+	
+	/**
+	 * Tar med dataene til et nytt sted i rekordene, mned for mned i hvert r stedet har data.
+	 * @param sted	stedet som er satt inn.
+	 */
+	void leggTilSted(Sted sted)
+	{
+		Datoliste datoliste=sted.getDatoliste();
+		if(datoliste.size()==0)
+			return;
+		int frster=Dato.fraDagnummer(datoliste.dagnummerVed(0))[0];
+		int sister=Dato.fraDagnummer(datoliste.dagnummerVed(datoliste.size()-1))[0];
+		for(int r=frster;r<=sister;r++)
+		{
+			for(int mned=0;mned<12;mned++)
+			{
+				Datoliste mnedsliste=datoliste.finnDatoer(r,mned);
+				if(mnedsliste.size()==0)
+					continue;
+				for(int type=0;type<4;type++)
+					vurder(type,mned,sted,mnedsliste);
+			}
+		}
+	}
+	
+	/**
+	 * Fjerner et slettet sted fra rekordene. Rekorder som ikke lenger har noen innehaver regnes ut p nytt.
+	 * @param sted	stedet som er slettet.
+	 */
+	void fjernSted(Sted sted)
+	{
+		for(int type=0;type<4;type++)
+		{
+			for(int mned=0;mned<12;mned++)
+			{
+				int n=antall[type][mned];
+				if(n==0)
+					continue;
+				Sted[] s=rekordsteder[type][mned];
+				int[] d=rekorddager[type][mned];
+				int igjen=0;
+				for(int i=0;i<n;i++)
+				{
+					if(s[i]!=sted)
+					{
+						s[igjen]=s[i];
+						d[igjen]=d[i];
+						igjen++;
+					}
+				}
+				for(int i=igjen;i<n;i++)
+					s[i]=null;
+				antall[type][mned]=igjen;
+				if(igjen==0)
+					beregn(type,mned);
+			}
+		}
+	}
+	
+	/**
+	 * Oppdaterer rekordene etter at vrdataene for en dato hos et sted er endret.
+	 * En bedre verdi blir ny rekord, en lik verdi blir en ny innehaver, og en innehaver som har ftt en drligere verdi fjernes.
+	 * @param sted		stedet som har ftt endrede data.
+	 * @param dagnummer	dagnummeret til datoen som er endret.
+	 */
+	void dataEndret(Sted sted, int dagnummer)
+	{
+		Dato dato=sted.getDatoliste().finnDato(dagnummer);
+		int mned=Dato.fraDagnummer(dagnummer)[1];
+		for(int type=0;type<4;type++)
+		{
+			int n=antall[type][mned];
+			boolean gyldig=dato!=null && gyldig(type,verdi(dato,type));
+			double verdi=gyldig ? verdi(dato,type) : 0;
+			if(gyldig && (n==0 || bedre(type,verdi,rekord[type][mned])))
+			{
+				for(int i=0;i<n;i++)
+					rekordsteder[type][mned][i]=null;
+				antall[type][mned]=0;
+				rekord[type][mned]=verdi;
+				leggTilInnehaver(type,mned,sted,dagnummer);
+			}
+			else if(gyldig && verdi==rekord[type][mned])
+				leggTilInnehaver(type,mned,sted,dagnummer);
+			else
+			{
+				int index=finnInnehaver(type,mned,sted,dagnummer);
+				if(index<0)
+					continue;
+				System.arraycopy(rekordsteder[type][mned],index+1,rekordsteder[type][mned],index,n-index-1);
+				System.arraycopy(rekorddager[type][mned],index+1,rekorddager[type][mned],index,n-index-1);
+				rekordsteder[type][mned][n-1]=null;
+				antall[type][mned]=n-1;
+				if(n==1)
+					beregn(type,mned);
+			}
+		} // end of for(type)
+	}
+	
+	/**
+	 * Regner ut rekorden for n type og n mned p nytt fra alle stedene i listen.
+	 * @param type	typen ekstremverdi (fra Datoliste).
+	 * @param mned	mneden (0-11).
+	 */
+	private void beregn(int type, int mned)
+	{
+		antall[type][mned]=0;
+		Iterator<Sted> iterator=steder.iterator();
+		while(iterator.hasNext())
+		{
+			Sted sted=iterator.next();
+			Datoliste datoliste=sted.getDatoliste();
+			if(datoliste.size()==0)
+				continue;
+			int frster=Dato.fraDagnummer(datoliste.dagnummerVed(0))[0];
+			int sister=Dato.fraDagnummer(datoliste.dagnummerVed(datoliste.size()-1))[0];
+			for(int r=frster;r<=sister;r++)
+			{
+				Datoliste mnedsliste=datoliste.finnDatoer(r,mned);
+				if(mnedsliste.size()>0)
+					vurder(type,mned,sted,mnedsliste);
+			}
+		}
+	}
+	
+	/**
+	 * Sammenligner ekstremverdien for n mned hos et sted med rekorden, og oppdaterer rekorden og innehaverne.
+	 * @param type		typen ekstremverdi (fra Datoliste).
+	 * @param mned		mneden (0-11).
+	 * @param sted		stedet dataene hrer til.
+	 * @param periode	datoene til stedet i n bestemt mned og ett bestemt r.
+	 */
+	private void vurder(int type, int mned, Sted sted, Datoliste periode)
+	{
+		double verdi=periode.finnEkstrem(type);
+		if(!gyldig(type,verdi))
+			return;
+		int n=antall[type][mned];
+		if(n>0 && verdi!=rekord[type][mned])
+		{
+			if(!bedre(type,verdi,rekord[type][mned]))
+				return;
+			for(int i=0;i<n;i++)
+				rekordsteder[type][mned][i]=null;
+			antall[type][mned]=0;
+		}
+		rekord[type][mned]=verdi;
+		int[] posisjoner=periode.finnEkstremposisjoner(type);
+		for(int i=0;i<posisjoner.length;i++)
+			leggTilInnehaver(type,mned,sted,periode.dagnummerVed(posisjoner[i]));
+	}
+	
+	/**
+	 * Setter inn en innehaver av en rekord p riktig plass, dersom den ikke finnes fra fr.
+	 */
+	private void leggTilInnehaver(int type, int mned, Sted sted, int dagnummer)
+	{
+		int index=finnInnehaver(type,mned,sted,dagnummer);
+		if(index>=0)
+			return;
+		index=-(index+1);
+		int n=antall[type][mned];
+		if(n==rekordsteder[type][mned].length)
+		{
+			Sted[] s=new Sted[2*n];
+			int[] d=new int[2*n];
+			System.arraycopy(rekordsteder[type][mned],0,s,0,n);
+			System.arraycopy(rekorddager[type][mned],0,d,0,n);
+			rekordsteder[type][mned]=s;
+			rekorddager[type][mned]=d;
+		}
+		System.arraycopy(rekordsteder[type][mned],index,rekordsteder[type][mned],index+1,n-index);
+		System.arraycopy(rekorddager[type][mned],index,rekorddager[type][mned],index+1,n-index);
+		rekordsteder[type][mned][index]=sted;
+		rekorddager[type][mned][index]=dagnummer;
+		antall[type][mned]=n+1;
+	}
+	
+	/**
+	 * Finner en innehaver av en rekord ved binrsk. Innehaverne er sortert p sted (som i stedlisten) og deretter p dagnummer.
+	 * @return	plassen til innehaveren, eller -(innsettingspunkt + 1) om den ikke finnes.
+	 */
+	private int finnInnehaver(int type, int mned, Sted sted, int dagnummer)
+	{
+		Sted[] s=rekordsteder[type][mned];
+		int[] d=rekorddager[type][mned];
+		int lav=0, hy=antall[type][mned]-1;
+		while(lav<=hy)
+		{
+			int midt=(lav+hy)>>>1;
+			int sammenligning=s[midt]==sted ? 0 : Stedsammenligner.MED_FYLKE.compare(s[midt],sted);
+			if(sammenligning==0)
+				sammenligning=d[midt]<dagnummer ? -1 : (d[midt]==dagnummer ? 0 : 1);
+			if(sammenligning<0)
+				lav=midt+1;
+			else if(sammenligning>0)
+				hy=midt-1;
+			else
+				return midt;
+		}
+		return -(lav+1);
+	}
+	
+	/**
+	 * Returnerer verdien en dato har for en type ekstremverdi.
+	 */
+	private static double verdi(Dato dato, int type)
+	{
+		if(type==Datoliste.LAVESTE_NEDBR || type==Datoliste.HYESTE_NEDBR)
+			return dato.getNedbr();
+		if(type==Datoliste.LAVESTE_MINTEMP)
+			return dato.getMinTemp();
+		return dato.getMaxTemp();
+	}
+	
+	/**
+	 * Sjekker om en verdi er en registrert verdi for typen, og ikke en verdi som betyr at det mangler data.
+	 */
+	private static boolean gyldig(int type, double verdi)
+	{
+		if(type==Datoliste.LAVESTE_NEDBR || type==Datoliste.HYESTE_NEDBR)
+			return verdi>=0 && verdi<=Registrering.MAXNEDBR;
+		return verdi>=Registrering.MAXMINTEMP && verdi<=Registrering.MAXMAXTEMP;
+	}
+	
+	/**
+	 * Sjekker om en verdi er lavere (for LAVESTE_-typene) eller hyere (for HYESTE_-typene) enn rekorden.
+	 */
+	private static boolean bedre(int type, double verdi, double rekord)
+	{
+		if(type==Datoliste.LAVESTE_NEDBR || type==Datoliste.LAVESTE_MINTEMP)
+			return verdi<rekord;
+		return verdi>rekord;
+	}
+} // end of class Rekordindeks
\ No newline at end of file
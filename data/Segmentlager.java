@@ -0,0 +1,445 @@
+/**
+ * Inneholder klassen Segmentlager.
+ */
+package data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ *	Klassen holder styr p segmentene i datafilen (se Datafil), og srger for at en lagring bare skriver segmentene som er endret.
+ *	Segmentlageret er en lytter p stedlisten, og husker hvilke r som er endret for hvert sted. En lagring skjer i to steg:
+ *	frst tas et yeblikksbilde med ls p stedlisten, der de endrede rene kopieres og alle andre segmenter gjenbrukes som de er.
+ *	Deretter skrives de nye segmentene bakerst i segmentfilen og synkes, og til slutt byttes indeksen i datafilen ut i n operasjon.
+ *	Et krasj underveis etterlater bare ubrukte bytes bak i segmentfilen, som skrives over neste gang.
+ *	Nr segmentfilen er blitt mer enn dobbelt s stor som segmentene som er i bruk, skrives alle segmentene til en ny segmentfil,
+ *	og den gamle slettes nr indeksen er byttet ut.
+ */
+class Segmentlager implements Endringslytter
+{
+	/**
+	 * Hvor mange bytes segmentfilen kan ha som ikke er i bruk, utover strrelsen p segmentene som er i bruk, fr den skrives p nytt.
+	 */
+	static final long SLAKK = 1 << 20;
+	
+	private final Stedliste sl;
+	private final File datafil;
+	/**
+	 * Segmentene til hvert sted i det siste yeblikksbildet, sortert p r, og rene som er endret for hvert sted siden.
+	 * Er alleEndret satt, skrives alle segmentene, f.eks. nr dataene er lest fra en fil i et eldre format.
+	 */
+	private HashMap<Sted, Datafil.Segment[]> segmenter = new HashMap<Sted, Datafil.Segment[]>();
+	private HashMap<Sted, HashSet<Integer>> endrede = new HashMap<Sted, HashSet<Integer>>();
+	private boolean alleEndret;
+	private long bilder;
+	/**
+	 * Tas av trden som skriver segmentfilen og indeksen, slik at bare n trd gjr det om gangen.
+	 * Feltene under endres bare med denne lsen.
+	 */
+	private final Object skrivels = new Object();
+	/**
+	 * Nummeret til yeblikksbildet indeksen sist ble skrevet for. Et eldre yeblikksbilde skrives ikke.
+	 */
+	private long skrevet;
+	/**
+	 * Nummeret til segmentfilen, eller 0 om det ikke finnes noen, hvor mange bytes av den som er i bruk, og kanalen nye segmenter skrives til.
+	 */
+	private long segmentfil, brukt;
+	private FileChannel kanal;
+	
+	/**
+	 * Konstruktr for data som er lest inn fra datafilen. Segmentene i en fil i versjon 3 tas vare p, mens filer i eldre versjoner
+	 * skrives helt p nytt ved frste lagring. Segmentlageret legges til som lytter p stedlisten.
+	 * @param datafil	Datafilen
+	 * @param innhold	Det som er lest inn fra datafilen
+	 */
+	Segmentlager(File datafil, Datafil.Innhold innhold)
+	{
+		this.datafil = datafil;
+		sl = innhold.stedliste;
+		if(innhold.hode.versjon >= 3)
+		{
+			segmentfil = innhold.hode.segmentfil;
+			brukt = innhold.hode.brukt;
+			Datafil.Stedtabell tabell = innhold.tabell;
+			for(int s = 0; s < tabell.steder.length; s++)
+				segmenter.put(tabell.steder[s], tabell.segmenter[s]);
+		}
+		else
+			alleEndret = true;
+		sl.leggTilLytter(this);
+	}
+	
+	/**
+	 * Konstruktr for en stedliste som ikke er lest fra datafilen, f.eks. en ny eller importert liste. Alt skrives ved frste lagring.
+	 * @param datafil	Datafilen
+	 * @param sl	Stedlisten
+	 */
+	Segmentlager(File datafil, Stedliste sl)
+	{
+		this.datafil = datafil;
+		this.sl = sl;
+		alleEndret = true;
+		sl.leggTilLytter(this);
+	}
+	
+	/**
+	 * @return	Stedlisten segmentene hrer til
+	 */
+	Stedliste stedliste()
+	{
+		return sl;
+	}
+	
+	/**
+	 * @return	Datafilen indeksen skrives til
+	 */
+	File datafil()
+	{
+		return datafil;
+	}
+	
+	/**
+	 * Et sted som er satt inn fr alle rene det har data for merket som endret. Et sted som er slettet glemmes.
+	 * @param s	Stedet som er satt inn eller slettet
+	 */
+	public synchronized void stedEndret(Sted s)
+	{
+		segmenter.remove(s);
+		endrede.remove(s);
+		if(sl.finnSted(s.getNavn(), s.getFylke()) != s)
+			return;
+		Datoliste dl = s.getDatoliste();
+		int i = 0;
+		while(i < dl.size())
+		{
+			int r = Dato.fraDagnummer(dl.dagnummerVed(i))[0];
+			merk(s, r);
+			i += dl.finnDatoer(r).size();
+		}
+	}
+	
+	/**
+	 * Merker ret datoen ligger i som endret for stedet
+	 * @param s			Stedet som har ftt endrede data
+	 * @param dagnummer	Dagnummeret til datoen som er endret
+	 */
+	public synchronized void dataEndret(Sted s, int dagnummer)
+	{
+		merk(s, Dato.fraDagnummer(dagnummer)[0]);
+	}
+	
+	/**
+	 * @param s	Stedet
+	 * @param r	ret som er endret
+	 */
+	private void merk(Sted s, int r)
+	{
+		HashSet<Integer> endreder = endrede.get(s);
+		if(endreder == null)
+		{
+			endreder = new HashSet<Integer>();
+			endrede.put(s, endreder);
+		}
+		endreder.add(r);
+	}
+	
+	/**
+	 * Et yeblikksbilde av stedlisten, med segmentene hvert sted har, som kan skrives uten ls p stedlisten.
+	 */
+	static class yeblikk
+	{
+		private final long nummer, journal;
+		private final Datafil.Stedtabell tabell;
+		
+		private yeblikk(long nummer, long journal, Datafil.Stedtabell tabell)
+		{
+			this.nummer = nummer;
+			this.journal = journal;
+			this.tabell = tabell;
+		}
+	} // end of class yeblikk
+	
+	/**
+	 * Tar et yeblikksbilde av stedlisten. rene som er endret kopieres til nye segmenter, mens segmentene for de andre rene gjenbrukes.
+	 * Kallet m ha ls p stedlisten, og tar bare tid i forhold til antall steder og hvor mye som er endret.
+	 * @param journal	Generasjonen til den frste journalen som ikke er tatt med
+	 * @return	yeblikksbildet, som skrives med skriv(...)
+	 */
+	synchronized yeblikk tayeblikk(long journal)
+	{
+		List<Sted> steder = sl.steder();
+		Datafil.Stedtabell tabell = new Datafil.Stedtabell(steder.size());
+		HashMap<Sted, Datafil.Segment[]> nye = new HashMap<Sted, Datafil.Segment[]>(steder.size() * 2);
+		Iterator<Sted> iterator = steder.iterator();
+		int s = 0;
+		while(iterator.hasNext())
+		{
+			Sted sted = iterator.next();
+			Datafil.Segment[] gamle = segmenter.get(sted);
+			HashSet<Integer> r = endrede.get(sted);
+			Datafil.Segment[] segmenterTilSted;
+			if(alleEndret || r != null)
+				segmenterTilSted = oppdater(alleEndret ? null : gamle, sted.getDatoliste(), alleEndret ? null : r);
+			else
+				segmenterTilSted = gamle != null ? gamle : new Datafil.Segment[0];
+			tabell.navn[s] = sted.getNavn();
+			tabell.fylker[s] = sted.getFylke();
+			for(int i = 0; i < segmenterTilSted.length; i++)
+				tabell.antallDatoer[s] += segmenterTilSted[i].antall;
+			tabell.segmenter[s] = segmenterTilSted;
+			tabell.steder[s] = sted;
+			nye.put(sted, segmenterTilSted);
+			s++;
+		}
+		segmenter = nye;
+		endrede = new HashMap<Sted, HashSet<Integer>>();
+		alleEndret = false;
+		return new yeblikk(++bilder, journal, tabell);
+	} // end of tayeblikk(...)
+	
+	/**
+	 * Lager nye segmenter for rene som er endret, og beholder de gamle segmentene for resten
+	 * @param gamle	Segmentene stedet hadde, eller null
+	 * @param dl	Datolisten til stedet
+	 * @param r	rene som er endret, eller null om alle r skal lages p nytt
+	 * @return	Segmentene, sortert p r
+	 */
+	private static Datafil.Segment[] oppdater(Datafil.Segment[] gamle, Datoliste dl, HashSet<Integer> r)
+	{
+		ArrayList<Datafil.Segment> liste = new ArrayList<Datafil.Segment>();
+		if(gamle != null)
+			for(int i = 0; i < gamle.length; i++)
+				if(!r.contains(gamle[i].r))
+					liste.add(gamle[i]);
+		if(r == null)
+		{
+			int i = 0;
+			while(i < dl.size())
+			{
+				int a = Dato.fraDagnummer(dl.dagnummerVed(i))[0];
+				Datoliste del = dl.finnDatoer(a);
+				liste.add(new Datafil.Segment(a, del.kopi()));
+				i += del.size();
+			}
+		}
+		else
+		{
+			Iterator<Integer> iterator = r.iterator();
+			while(iterator.hasNext())
+			{
+				int a = iterator.next();
+				Datoliste del = dl.finnDatoer(a);
+				if(del.size() > 0)
+					liste.add(new Datafil.Segment(a, del.kopi()));
+			}
+			Collections.sort(liste, new Comparator<Datafil.Segment>()
+			{
+				public int compare(Datafil.Segment a, Datafil.Segment b)
+				{
+					return Integer.compare(a.r, b.r);
+				}
+			});
+		}
+		return liste.toArray(new Datafil.Segment[liste.size()]);
+	} // end of oppdater(...)
+	
+	/**
+	 * Tar et yeblikksbilde og skriver det med en gang
+	 * @param journal	Generasjonen til den frste journalen som ikke er tatt med
+	 * @throws IOException	dersom segmentene eller indeksen ikke kunne skrives
+	 */
+	void lagre(long journal) throws IOException
+	{
+		yeblikk bilde;
+		synchronized(sl)
+		{
+			bilde = tayeblikk(journal);
+		}
+		skriv(bilde);
+	}
+	
+	/**
+	 * Skriver segmentene i yeblikksbildet som ikke er skrevet enn bakerst i segmentfilen, synker dem, og bytter ut indeksen.
+	 * Er det tatt et nyere yeblikksbilde som allerede er skrevet, gjres ingenting, siden det ogs har med alle endringene i dette.
+	 * Gr skrivingen galt, blir de nye segmentene med i neste yeblikksbilde, og skrives da.
+	 * Kallet trenger ikke ls p stedlisten.
+	 * @param bilde	yeblikksbildet
+	 * @throws IOException	dersom segmentene eller indeksen ikke kunne skrives. Den gamle indeksen er da urrt.
+	 */
+	void skriv(yeblikk bilde) throws IOException
+	{
+		synchronized(skrivels)
+		{
+			if(bilde.nummer <= skrevet)
+				return;
+			Datafil.Segment[][] segmenterTilSted = bilde.tabell.segmenter;
+			long iBruk = 0, nye = 0;
+			for(int s = 0; s < segmenterTilSted.length; s++)
+				for(int i = 0; i < segmenterTilSted[s].length; i++)
+				{
+					iBruk += segmenterTilSted[s][i].lengde;
+					if(segmenterTilSted[s][i].posisjon < 0)
+						nye += segmenterTilSted[s][i].lengde;
+				}
+			long gammel = segmentfil;
+			if(segmentfil == 0 || brukt + nye > 2 * iBruk + SLAKK)
+				skrivNySegmentfil(segmenterTilSted);
+			else
+				leggTil(segmenterTilSted);
+			Datafil.skrivIndeks(datafil, bilde.tabell, bilde.journal, segmentfil, brukt);
+			skrevet = bilde.nummer;
+			if(gammel != segmentfil)
+			{
+				long[] numre = Datafil.numre(datafil, Datafil.SEGMENTETTERNAVN);
+				for(int i = 0; i < numre.length; i++)
+					if(numre[i] != segmentfil)
+						Datafil.segmentfil(datafil, numre[i]).delete();
+				Datafil.synkroniserMappe(datafil);
+			}
+		}
+	} // end of skriv(...)
+	
+	/**
+	 * Skriver segmentene som ikke er skrevet enn bakerst i segmentfilen, og synker filen. Posisjonene til segmentene settes frst
+	 * nr alle er synket.
+	 * @param segmenterTilSted	Segmentene til hvert sted i yeblikksbildet
+	 */
+	private void leggTil(Datafil.Segment[][] segmenterTilSted) throws IOException
+	{
+		pneKanal();
+		ArrayList<Datafil.Segment> skrevne = new ArrayList<Datafil.Segment>();
+		ArrayList<long[]> plasser = new ArrayList<long[]>();
+		Datafil.Skriver ut = new Datafil.Skriver(kanal, brukt);
+		for(int s = 0; s < segmenterTilSted.length; s++)
+			for(int i = 0; i < segmenterTilSted[s].length; i++)
+			{
+				Datafil.Segment segment = segmenterTilSted[s][i];
+				if(segment.posisjon >= 0)
+					continue;
+				plasser.add(skrivSegment(ut, segment));
+				skrevne.add(segment);
+			}
+		if(skrevne.isEmpty())
+			return;
+		ut.tm();
+		kanal.force(false);
+		for(int i = 0; i < skrevne.size(); i++)
+			plasser(skrevne.get(i), plasser.get(i));
+		brukt = ut.posisjon();
+	} // end of leggTil(...)
+	
+	/**
+	 * pner segmentfilen indeksen peker p, om den ikke er pnet
+	 */
+	private void pneKanal() throws IOException
+	{
+		if(kanal != null)
+			return;
+		kanal = FileChannel.open(Datafil.segmentfil(datafil, segmentfil).toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+		// Alt etter det indeksen sier er i bruk er rester etter en lagring som ikke ble ferdig
+		kanal.truncate(brukt);
+	}
+	
+	/**
+	 * Skriver alle segmentene i yeblikksbildet til en ny segmentfil. Segmenter som allerede er skrevet kopieres fra den gamle filen,
+	 * og kontrollsummen deres sjekkes underveis. Den gamle filen slettes ikke fr den nye indeksen er skrevet.
+	 * @param segmenterTilSted	Segmentene til hvert sted i yeblikksbildet
+	 */
+	private void skrivNySegmentfil(Datafil.Segment[][] segmenterTilSted) throws IOException
+	{
+		if(segmentfil != 0)
+			pneKanal();
+		long[] numre = Datafil.numre(datafil, Datafil.SEGMENTETTERNAVN);
+		long nummer = Math.max(segmentfil, numre.length == 0 ? 0 : numre[numre.length - 1]) + 1;
+		File fil = Datafil.segmentfil(datafil, nummer);
+		FileChannel ny = FileChannel.open(fil.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		try
+		{
+			ArrayList<Datafil.Segment> skrevne = new ArrayList<Datafil.Segment>();
+			ArrayList<long[]> plasser = new ArrayList<long[]>();
+			Datafil.Skriver ut = new Datafil.Skriver(ny, 0);
+			Datafil.skrivSegmenthode(ut);
+			for(int s = 0; s < segmenterTilSted.length; s++)
+				for(int i = 0; i < segmenterTilSted[s].length; i++)
+				{
+					Datafil.Segment segment = segmenterTilSted[s][i];
+					if(segment.posisjon < 0)
+						plasser.add(skrivSegment(ut, segment));
+					else
+						plasser.add(kopierSegment(ut, segment));
+					skrevne.add(segment);
+				}
+			ut.tm();
+			ny.force(false);
+			Datafil.synkroniserMappe(fil);
+			for(int i = 0; i < skrevne.size(); i++)
+				plasser(skrevne.get(i), plasser.get(i));
+			if(kanal != null)
+				kanal.close();
+			kanal = ny;
+			segmentfil = nummer;
+			brukt = ut.posisjon();
+		}
+		catch(IOException ioe)
+		{
+			ny.close();
+			fil.delete();
+			throw ioe;
+		}
+	} // end of skrivNySegmentfil(...)
+	
+	/**
+	 * Skriver et nytt segment
+	 * @param ut	Skriveren
+	 * @param segment	Segmentet, med dataene
+	 * @return	Posisjonen og kontrollsummen segmentet fikk
+	 */
+	private static long[] skrivSegment(Datafil.Skriver ut, Datafil.Segment segment) throws IOException
+	{
+		long posisjon = ut.posisjon();
+		ut.startKontrollsum();
+		Datafil.skrivBlokk(ut, segment.data);
+		return new long[]{posisjon, ut.kontrollsum()};
+	}
+	
+	/**
+	 * Kopierer et segment fra den gamle segmentfilen
+	 * @param ut	Skriveren til den nye filen
+	 * @param segment	Segmentet, som er skrevet i den gamle filen
+	 * @return	Posisjonen segmentet fikk, og kontrollsummen
+	 * @throws IOException	dersom segmentet ikke kan leses, eller er skadet
+	 */
+	private long[] kopierSegment(Datafil.Skriver ut, Datafil.Segment segment) throws IOException
+	{
+		ByteBuffer del = Datafil.lesDel(kanal, segment.posisjon, segment.lengde);
+		if(Datafil.kontrollsum(del) != segment.kontrollsum)
+			throw new IOException("Kontrollsummen for et segment i datafilen stemmer ikke");
+		long posisjon = ut.posisjon();
+		ut.skrivBytes(del.array());
+		return new long[]{posisjon, segment.kontrollsum};
+	}
+	
+	/**
+	 * Gir et segment posisjonen og kontrollsummen det har ftt i segmentfilen, og slipper kopien av dataene
+	 * @param segment	Segmentet
+	 * @param plass	Posisjonen og kontrollsummen
+	 */
+	private static void plasser(Datafil.Segment segment, long[] plass)
+	{
+		segment.posisjon = plass[0];
+		segment.kontrollsum = (int)plass[1];
+		segment.data = null;
+	}
+} // end of class Segmentlager
\ No newline at end of file
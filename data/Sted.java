@@ -6,7 +6,10 @@
  */
 package data;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.text.CollationKey;
 
 /**
  *	Klassen representerer et sted, og inneholder navn, fylke og en Datoliste for stedet.
@@ -49,14 +52,23 @@ public class Sted implements Serializable
 	 * Stedsnavn
 	 */
 	private String navn;
+	/**
+	 * Kollasjonsnkkelen til stedsnavnet, som brukes av Stedsammenligner. Regnes ut p nytt nr navnet endres.
+	 */
+	private transient CollationKey kollasjonsnkkel;
 	/**
 	 * Fylkesnummer
 	 */
 	private int fylke;
 	/**
-	 * Et datoliste-objekt som refererer til vrdataene registrert om stedet
+	 * Et datoliste-objekt som refererer til vrdataene registrert om stedet.
+	 * For steder i en minnekartlagt datafil er den null til den leses inn fra blokk frste gang den trengs.
 	 */
-	private Datoliste datoliste;
+	private volatile Datoliste datoliste;
+	/**
+	 * Blokken i en minnekartlagt datafil som vrdataene leses fra, eller null
+	 */
+	private transient Datafil.Blokk blokk;
 	
 	/**
 	 * Konstruktr
@@ -67,10 +79,39 @@ public class Sted implements Serializable
 	public Sted(String n, int f)
 	{
 		navn = n;
+		kollasjonsnkkel = n == null ? null : Stedsammenligner.kollasjonsnkkel(n);
 		fylke = f;
 		datoliste = new Datoliste();
 	}
 	
+	/**
+	 * Konstruktr for et sted med ferdige vrdata, f.eks. nr stedet leses inn fra datafilen
+	 * @param n	Navn p sted
+	 * @param f	Fylkesnummer p fylket som stedet ligger i
+	 * @param d	Datolisten med vrdataene til stedet
+	 */
+	Sted(String n, int f, Datoliste d)
+	{
+		navn = n;
+		kollasjonsnkkel = n == null ? null : Stedsammenligner.kollasjonsnkkel(n);
+		fylke = f;
+		datoliste = d;
+	}
+	
+	/**
+	 * Konstruktr for et sted i en minnekartlagt datafil, der vrdataene frst leses nr de trengs
+	 * @param n	Navn p sted
+	 * @param f	Fylkesnummer p fylket som stedet ligger i
+	 * @param b	Blokken i filen med vrdataene til stedet
+	 */
+	Sted(String n, int f, Datafil.Blokk b)
+	{
+		navn = n;
+		kollasjonsnkkel = n == null ? null : Stedsammenligner.kollasjonsnkkel(n);
+		fylke = f;
+		blokk = b;
+	}
+	
 	/**
 	 * Returnerer stedsnavnet
 	 * Skrevet av: Lars Smeby
@@ -81,6 +122,15 @@ public class Sted implements Serializable
 		return navn;
 	}
 	
+	/**
+	 * Returnerer kollasjonsnkkelen til stedsnavnet
+	 * @return	kollasjonsnkkel
+	 */
+	CollationKey getKollasjonsnkkel()
+	{
+		return kollasjonsnkkel;
+	}
+	
 	/**
 	 * Returnerer fylkesnummeret
 	 * Skrevet av: Lars Smeby
@@ -98,6 +148,34 @@ public class Sted implements Serializable
 	 */
 	public Datoliste getDatoliste()
 	{
+		Datoliste d = datoliste;
+		if(d == null)
+			d = lesDatoliste();
+		return d;
+	}
+	
+	/**
+	 * Leser inn vrdataene fra blokken i den minnekartlagte datafilen. Kalles bare frste gang, og sk i parallell kan kalle
+	 * den fra flere trder samtidig. Er blokken skadet, fr stedet en tom datoliste.
+	 * @return	datoliste
+	 */
+	private synchronized Datoliste lesDatoliste()
+	{
+		if(datoliste == null)
+		{
+			try
+			{
+				datoliste = blokk.les();
+			}
+			catch(IOException ioe)
+			{
+				System.out.println("Kunne ikke lese vrdataene til " + navn + ", stedet vises uten data (B017)");
+				Datoliste tom = new Datoliste();
+				tom.settSkrivebeskyttet();
+				datoliste = tom;
+			}
+			blokk = null;
+		}
 		return datoliste;
 	}
 	
@@ -109,6 +187,7 @@ public class Sted implements Serializable
 	public void setNavn(String n)
 	{
 		navn = n;
+		kollasjonsnkkel = n == null ? null : Stedsammenligner.kollasjonsnkkel(n);
 	}
 	
 	/**
@@ -120,4 +199,14 @@ public class Sted implements Serializable
 	{
 		fylke = f;
 	}
+	
+	/**
+	 * Leser inn stedet fra strmmen og regner ut kollasjonsnkkelen, som ikke lagres
+	 * @param inn	strmmen objektet leses fra
+	 */
+	private void readObject(ObjectInputStream inn) throws IOException, ClassNotFoundException
+	{
+		inn.defaultReadObject();
+		kollasjonsnkkel = navn == null ? null : Stedsammenligner.kollasjonsnkkel(navn);
+	}
 } // end of class Sted
\ No newline at end of file
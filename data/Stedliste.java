@@ -9,6 +9,8 @@ package data;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import logic.SkrivMelding;
 
@@ -22,16 +24,211 @@ public class Stedliste implements Serializable
 	 * Arrayliste som inneholder stedene
 	 */
 	private ArrayList<Sted> liste = new ArrayList<Sted>();
+	/**
+	 * Hashtabell fra skenkkel (navn og fylke) til sted, for oppslag i konstant tid.
+	 * Bygges frste gang finnSted(navn, fylke) kalles, og holdes deretter oppdatert av settInn og slettSted.
+	 */
+	private transient HashMap<String, Sted> indeks;
+	/**
+	 * Stedene fordelt p fylke, hver sortert p samme mte som liste.
+	 * Bygges frste gang det sprres etter et fylke, og holdes deretter oppdatert av settInn og slettSted.
+	 */
+	private transient ArrayList<ArrayList<Sted>> fylkeslister;
+	/**
+	 * Skrivebeskyttede utsnitt og stedsnavn for hvert fylke, som lages ved behov og gjenbrukes.
+	 * Navnelisten for et fylke lages p nytt etter at fylket er endret.
+	 */
+	private transient Stedliste[] fylkesutsnitt;
+	private transient String[][] fylkesnavn;
+	/**
+	 * Om listen er et skrivebeskyttet utsnitt for ett fylke, og i s fall hvilket fylke
+	 */
+	private transient boolean utsnitt;
+	private transient int utsnittfylke;
+	/**
+	 * Listen et utsnitt er laget fra, som stedene sls opp i
+	 */
+	private transient Stedliste forelder;
+	/**
+	 * Om listen er pnet skrivebeskyttet fra en minnekartlagt datafil, se Datafil.kartlegg(...)
+	 */
+	private transient boolean skrivebeskyttet;
+	/**
+	 * Rekordene for hver mned for stedene i listen.
+	 * Bygges frste gang getRekordindeks() kalles, og holdes deretter oppdatert av settInn, slettSted og dataEndret.
+	 */
+	private transient Rekordindeks rekorder;
+	/**
+	 * rlige summer for fylkene og landet.
+	 * Lages frste gang getUtviklingsindeks() kalles, og fr deretter beskjed om endringer fra settInn, slettSted og dataEndret.
+	 */
+	private transient Utviklingsindeks rssummer;
+	/**
+	 * Ferdig utregnede summer for fylkene og landet per dag, mned og r.
+	 * Lages frste gang getKube() kalles (eller leses inn sammen med datafilen), og holdes deretter oppdatert av settInn, slettSted og dataEndret.
+	 */
+	private transient Kube kube;
+	/**
+	 * Lyttere utenfor datapakken som fr beskjed om endringer, se Endringslytter.
+	 */
+	private transient ArrayList<Endringslytter> lyttere;
+	
+	/**
+	 * Konstruktr for en tom stedliste
+	 * Skrevet av: Lars Smeby
+	 */
+	public Stedliste()
+	{
+	}
+	
+	/**
+	 * Konstruktr for et skrivebeskyttet utsnitt som deler stedene med en fylkesliste
+	 * @param forelder	Listen utsnittet er laget fra, eller null for et tomt utsnitt
+	 * @param steder	Fylkeslisten utsnittet viser
+	 * @param fylke	Fylkesnummer
+	 */
+	private Stedliste(Stedliste forelder, ArrayList<Sted> steder, int fylke)
+	{
+		this.forelder = forelder;
+		liste = steder;
+		utsnitt = true;
+		utsnittfylke = fylke;
+	}
 	
 	/**
-	 * Setter inn et sted-objekt bakerst i listen
+	 * Setter inn et sted-objekt p riktig plass i listen, funnet med binrsk
 	 * Skrevet av: Lars Smeby
 	 * @param s	Sted-objekt
+	 * @return	true hvis stedet ble satt inn, false hvis et sted med samme navn og fylke allerede finnes
+	 */
+	public boolean settInn(Sted s)
+	{
+		sjekkSkrivbar();
+		int index = Collections.binarySearch(liste, s, Stedsammenligner.MED_FYLKE);
+		if(index >= 0)
+			return false;
+		liste.add(-(index + 1), s);
+		lagtTil(s);
+		return true;
+	}
+	
+	/**
+	 * Setter inn mange sted-objekter p n gang. Stedene legges bakerst og listen sorteres n gang til slutt.
+	 * Steder som allerede finnes, eller som forekommer flere ganger i samlingen, settes bare inn n gang.
+	 * @param steder	Samling med Sted-objekter
+	 * @return	Antall steder som ble satt inn
+	 */
+	public int settInnAlle(Collection<Sted> steder)
+	{
+		sjekkSkrivbar();
+		Stedsammenligner sammenligner = Stedsammenligner.MED_FYLKE;
+		ArrayList<Sted> nye = new ArrayList<Sted>(steder);
+		Collections.sort(nye, sammenligner);
+		int lengde = liste.size();
+		Sted forrige = null;
+		Iterator<Sted> iterator = nye.iterator();
+		while(iterator.hasNext())
+		{
+			Sted neste = iterator.next();
+			if(forrige != null && sammenligner.compare(forrige, neste) == 0)
+				continue;
+			forrige = neste;
+			if(Collections.binarySearch(liste.subList(0, lengde), neste, sammenligner) < 0)
+			{
+				liste.add(neste);
+				lagtTil(neste);
+			}
+		}
+		if(liste.size() > lengde)
+			sorter();
+		return liste.size() - lengde;
+	}
+	
+	/**
+	 * Oppdaterer hashtabellen og fylkeslistene etter at et sted er satt inn i listen
+	 * @param s	Stedet som er satt inn
 	 */
-	public void settInn(Sted s)
+	private void lagtTil(Sted s)
 	{
-		liste.add(s);
-		sorter();		
+		if(indeks != null)
+			indeks.put(Stedsammenligner.skenkkel(s.getKollasjonsnkkel(), s.getFylke()), s);
+		int fylke = s.getFylke();
+		if(fylkeslister != null && gyldigFylke(fylke))
+		{
+			ArrayList<Sted> fylkesliste = fylkeslister.get(fylke);
+			fylkesliste.add(-(Collections.binarySearch(fylkesliste, s, Stedsammenligner.MED_FYLKE) + 1), s);
+			fylkesnavn[fylke] = null;
+		}
+		if(rekorder != null)
+			rekorder.leggTilSted(s);
+		if(rssummer != null)
+			rssummer.stedEndret(s);
+		if(kube != null)
+			kube.leggTilSted(s);
+		varsleSted(s);
+	}
+	
+	/**
+	 * Sjekker om listen er et skrivebeskyttet utsnitt for ett fylke
+	 * @return	true hvis listen er et utsnitt
+	 */
+	public boolean erUtsnitt()
+	{
+		return utsnitt;
+	}
+	
+	/**
+	 * Returnerer stedene i listen, i samme rekkeflge som listen, uten  kopiere dem
+	 * @return	En liste som ikke kan endres, og som flger med p endringer i stedlisten
+	 */
+	List<Sted> steder()
+	{
+		return Collections.unmodifiableList(liste);
+	}
+	
+	/**
+	 * Lager en kopi av stedene i listen, der hvert sted har en egen kopi av vrdataene. Kopien kan skrives til fil
+	 * uten ls p listen, mens listen endres. Kallet m ha ls p listen.
+	 * @return	Kopiene av stedene, i samme rekkeflge som listen
+	 */
+	ArrayList<Sted> kopi()
+	{
+		ArrayList<Sted> kopi = new ArrayList<Sted>(liste.size());
+		Iterator<Sted> iterator = liste.iterator();
+		while(iterator.hasNext())
+		{
+			Sted s = iterator.next();
+			kopi.add(new Sted(s.getNavn(), s.getFylke(), s.getDatoliste().kopi()));
+		}
+		return kopi;
+	}
+	
+	/**
+	 * Sjekker om listen er pnet skrivebeskyttet, slik at steder og vrdata ikke kan registreres eller slettes
+	 * @return	true hvis listen er skrivebeskyttet
+	 */
+	public boolean erSkrivebeskyttet()
+	{
+		return skrivebeskyttet;
+	}
+	
+	/**
+	 * Gjr listen skrivebeskyttet
+	 */
+	void settSkrivebeskyttet()
+	{
+		skrivebeskyttet = true;
+	}
+	
+	/**
+	 * Kaster UnsupportedOperationException hvis listen er et utsnitt eller skrivebeskyttet, siden de ikke kan endres
+	 */
+	private void sjekkSkrivbar()
+	{
+		if(utsnitt)
+			throw new UnsupportedOperationException("Utsnitt av en stedliste kan ikke endres");
+		if(skrivebeskyttet)
+			throw new UnsupportedOperationException("Stedlisten er pnet skrivebeskyttet");
 	}
 	
 	/**
@@ -40,7 +237,8 @@ public class Stedliste implements Serializable
 	 */
 	public void sorter()
 	{
-		Collections.sort(liste, new Stedsammenligner(true));
+		sjekkSkrivbar();
+		Collections.sort(liste, Stedsammenligner.MED_FYLKE);
 	}
 	
 	/**
@@ -60,11 +258,40 @@ public class Stedliste implements Serializable
 	 */
 	public Iterator<Sted> iterator()
 	{
+		if(utsnitt)
+			return Collections.unmodifiableList(liste).iterator();
 		return liste.iterator();
 	}
 	
 	/**
-	 * Finner et sted-objekt hvis det finnes i listen, bruker binrsk
+	 * Returnerer en spliterator over stedene i listen, i samme rekkeflge som iteratoren. Den kjenner strrelsen og deles i to p midten.
+	 * @return	Spliterator<Sted> for listen
+	 */
+	public Spliterator<Sted> spliterator()
+	{
+		return liste.spliterator();
+	}
+	
+	/**
+	 * Returnerer en sekvensiell strm av stedene i listen
+	 * @return	Stream<Sted> for listen
+	 */
+	public Stream<Sted> stream()
+	{
+		return StreamSupport.stream(spliterator(), false);
+	}
+	
+	/**
+	 * Returnerer en parallell strm av stedene i listen
+	 * @return	Stream<Sted> for listen
+	 */
+	public Stream<Sted> parallelStream()
+	{
+		return StreamSupport.stream(spliterator(), true);
+	}
+	
+	/**
+	 * Finner et sted-objekt hvis det finnes i listen, bruker hashtabellen indeks (for utsnitt hashtabellen til listen utsnittet er laget fra)
 	 * Skrevet av: Lars Smeby
 	 * @param navn	Navn p sted
 	 * @param fylke	Fylket stedet ligger i (SSBs fylkesnummer)
@@ -72,57 +299,120 @@ public class Stedliste implements Serializable
 	 */
 	public Sted finnSted(String navn, int fylke)
 	{
-		int index=-1;
-		try
-		{
-			index = Collections.binarySearch(liste, new Sted(navn, fylke), new Stedsammenligner(true));
-		}
-		catch(NullPointerException npe)
+		if(navn == null)
 		{
 			SkrivMelding.skriv("Ukjent programfeil (L001)/E", null);
 			return null;
 		}
-		if(index<0)
-			return null;
-		return liste.get(index);
+		if(utsnitt)
+		{
+			if(fylke != utsnittfylke || forelder == null)
+				return null;
+			return forelder.finnSted(navn, fylke);
+		}
+		if(indeks == null)
+			byggIndeks();
+		return indeks.get(Stedsammenligner.skenkkel(navn, fylke));
 	}
 	
 	/**
-	 * Returnerer en Stedliste med stedene i et gitt fylke
-	 * Skrevet av: Henrik Hermansen
-	 * @param fylke	int fylkesnummeret
-	 * @return	Stedliste med Stedobjektene i et gitt fylke
+	 * Bygger hashtabellen indeks fra listen
 	 */
-	public Stedliste finnSted(int fylke)
+	private void byggIndeks()
 	{
-		Stedliste stedliste = new Stedliste();
+		indeks = new HashMap<String, Sted>(liste.size() * 2);
 		Iterator<Sted> iterator = liste.iterator();
 		while(iterator.hasNext())
 		{
 			Sted neste = iterator.next();
-			if(neste.getFylke()==fylke)
-				stedliste.settInn(neste);
+			indeks.put(Stedsammenligner.skenkkel(neste.getKollasjonsnkkel(), neste.getFylke()), neste);
 		}
-		return stedliste;
 	}
 	
 	/**
-	 * Metode for  f tak i en array med alle stedene i et gitt fylke
+	 * Returnerer en Stedliste med stedene i et gitt fylke.
+	 * Listen er et skrivebeskyttet utsnitt som flger med p endringer i denne listen, og det samme objektet returneres hver gang.
+	 * Skrevet av: Henrik Hermansen
+	 * @param fylke	int fylkesnummeret
+	 * @return	Stedliste med Stedobjektene i et gitt fylke
+	 */
+	public Stedliste finnSted(int fylke)
+	{
+		if(utsnitt)
+			return fylke == utsnittfylke ? this : new Stedliste(null, new ArrayList<Sted>(), fylke);
+		if(!gyldigFylke(fylke))
+			return new Stedliste(null, new ArrayList<Sted>(), fylke);
+		if(fylkeslister == null)
+			byggFylkeslister();
+		if(fylkesutsnitt[fylke] == null)
+			fylkesutsnitt[fylke] = new Stedliste(this, fylkeslister.get(fylke), fylke);
+		return fylkesutsnitt[fylke];
+	}
+	
+	/**
+	 * Metode for  f tak i en array med alle stedene i et gitt fylke.
+	 * Arrayen gjenbrukes til fylket endres, og m derfor ikke endres av den som kaller metoden.
 	 * Skrevet av: Lars Smeby
 	 * @param fylke	Fylkesnummer
 	 * @return	String-array av alle stedsnavnene i et gitt fylke
 	 */
 	public String[] toString(int fylke)
 	{
-		Stedliste templiste = finnSted(fylke);
-		Iterator<Sted> iterator = templiste.iterator();
-		String[] steder = new String[templiste.size()];
+		if(!utsnitt && gyldigFylke(fylke))
+		{
+			if(fylkeslister == null)
+				byggFylkeslister();
+			if(fylkesnavn[fylke] == null)
+				fylkesnavn[fylke] = navnene(fylkeslister.get(fylke));
+			return fylkesnavn[fylke];
+		}
+		return navnene(finnSted(fylke).liste);
+	}
+	
+	/**
+	 * Lager en array med navnene til stedene i en liste
+	 * @param steder	Liste med steder
+	 * @return	String-array med stedsnavnene
+	 */
+	private static String[] navnene(ArrayList<Sted> steder)
+	{
+		Iterator<Sted> iterator = steder.iterator();
+		String[] navn = new String[steder.size()];
 		int lkketeller = 0;
 		
 		while(iterator.hasNext())
-			steder[lkketeller++] = iterator.next().getNavn();
+			navn[lkketeller++] = iterator.next().getNavn();
 
-		return steder;
+		return navn;
+	}
+	
+	/**
+	 * Fordeler stedene p fylkeslistene. Listen er sortert, s hver fylkesliste blir ogs sortert.
+	 */
+	private void byggFylkeslister()
+	{
+		fylkeslister = new ArrayList<ArrayList<Sted>>(Sted.FYLKESLISTE.length);
+		for(int i = 0; i < Sted.FYLKESLISTE.length; i++)
+			fylkeslister.add(new ArrayList<Sted>());
+		fylkesutsnitt = new Stedliste[Sted.FYLKESLISTE.length];
+		fylkesnavn = new String[Sted.FYLKESLISTE.length][];
+		Iterator<Sted> iterator = liste.iterator();
+		while(iterator.hasNext())
+		{
+			Sted neste = iterator.next();
+			if(gyldigFylke(neste.getFylke()))
+				fylkeslister.get(neste.getFylke()).add(neste);
+		}
+	}
+	
+	/**
+	 * Sjekker om et fylkesnummer finnes i Sted.FYLKESLISTE
+	 * @param fylke	Fylkesnummer
+	 * @return	true hvis fylkesnummeret er gyldig
+	 */
+	private static boolean gyldigFylke(int fylke)
+	{
+		return fylke >= 0 && fylke < Sted.FYLKESLISTE.length;
 	}
 	
 	/**
@@ -132,7 +422,130 @@ public class Stedliste implements Serializable
 	 */
 	public void slettSted(Sted s)
 	{
-		liste.remove(s);
-		sorter();
+		sjekkSkrivbar();
+		if(!liste.remove(s))
+			return;
+		if(indeks != null)
+			indeks.remove(Stedsammenligner.skenkkel(s.getKollasjonsnkkel(), s.getFylke()));
+		int fylke = s.getFylke();
+		if(fylkeslister != null && gyldigFylke(fylke))
+		{
+			fylkeslister.get(fylke).remove(s);
+			fylkesnavn[fylke] = null;
+		}
+		if(rekorder != null)
+			rekorder.fjernSted(s);
+		if(rssummer != null)
+			rssummer.stedEndret(s);
+		if(kube != null)
+			kube.fjernSted(s);
+		varsleSted(s);
+	}
+	
+	/**
+	 * Returnerer rekordene for hver mned for stedene i listen. Indeksen bygges frste gang, og det samme objektet returneres hver gang.
+	 * Blir trden avbrutt mens indeksen bygges, bygges den p nytt neste gang.
+	 * @return	Rekordindeks for listen, eller null dersom trden ble avbrutt
+	 */
+	public Rekordindeks getRekordindeks()
+	{
+		if(rekorder == null)
+			rekorder = Rekordindeks.lag(this);
+		return rekorder;
+	}
+	
+	/**
+	 * Returnerer de rlige summene for fylkene og landet. Indeksen lages frste gang, og det samme objektet returneres hver gang.
+	 * @return	Utviklingsindeks for listen
+	 */
+	public Utviklingsindeks getUtviklingsindeks()
+	{
+		if(rssummer == null)
+			rssummer = new Utviklingsindeks(this);
+		return rssummer;
+	}
+	
+	/**
+	 * Returnerer kuben med summer for fylkene og landet. Kuben lages frste gang den trengs, hvis den ikke ble lest inn sammen med datafilen.
+	 * Blir trden avbrutt mens kuben lages, lages den p nytt neste gang.
+	 * @return	Kube for listen, eller null dersom trden ble avbrutt
+	 */
+	public Kube getKube()
+	{
+		if(kube == null)
+			kube = Kube.lag(this);
+		return kube;
+	}
+	
+	/**
+	 * Returnerer kuben hvis den er laget, uten  lage den. Brukes ved lagring.
+	 * @return	Kube for listen, eller null
+	 */
+	Kube kube()
+	{
+		return kube;
+	}
+	
+	/**
+	 * Tar i bruk en innlest kube, dersom den ble lagret sammen med datafilen listen er lest fra
+	 * @param k	Kuben som er lest inn
+	 * @param hode	Hodet i datafilen
+	 * @return	true hvis kuben ble tatt i bruk
+	 */
+	boolean settKube(Kube k, Datafil.Hode hode)
+	{
+		if(!k.knyttTil(this, hode))
+			return false;
+		kube = k;
+		return true;
+	}
+	
+	/**
+	 * Legger til en lytter som fr beskjed nr steder settes inn eller slettes og nr vrdata endres
+	 * @param lytter	Lytteren som skal legges til
+	 */
+	public void leggTilLytter(Endringslytter lytter)
+	{
+		if(utsnitt)
+			throw new UnsupportedOperationException("Utsnitt av en stedliste kan ikke endres");
+		if(lyttere == null)
+			lyttere = new ArrayList<Endringslytter>();
+		lyttere.add(lytter);
+	}
+	
+	/**
+	 * Gir lytterne beskjed om at et sted er satt inn eller slettet
+	 * @param s	Stedet som er satt inn eller slettet
+	 */
+	private void varsleSted(Sted s)
+	{
+		if(lyttere == null)
+			return;
+		Iterator<Endringslytter> iterator = lyttere.iterator();
+		while(iterator.hasNext())
+			iterator.next().stedEndret(s);
+	}
+	
+	/**
+	 * M kalles etter at vrdataene til et sted i listen er endret, slik at rekordene, rssummene, kuben og lytterne holdes oppdatert
+	 * @param s			Stedet som har ftt endrede data
+	 * @param dagnummer	Dagnummeret til datoen som er endret
+	 */
+	public void dataEndret(Sted s, int dagnummer)
+	{
+		// Verdiene dagen hadde fr endringen hentes alltid, s de ikke blir liggende til en senere endring
+		short[] gamle = s.getDatoliste().gamleVerdier(dagnummer);
+		if(rekorder != null)
+			rekorder.dataEndret(s, dagnummer);
+		if(rssummer != null)
+			rssummer.dataEndret(s, dagnummer);
+		if(kube != null)
+			kube.dataEndret(s, dagnummer, gamle);
+		if(lyttere != null)
+		{
+			Iterator<Endringslytter> iterator = lyttere.iterator();
+			while(iterator.hasNext())
+				iterator.next().dataEndret(s, dagnummer);
+		}
 	}
 } // end of class Stedliste
\ No newline at end of file
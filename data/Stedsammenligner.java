@@ -13,6 +13,8 @@ import logic.SkrivMelding;
 
 /**
  * Klassen implementerer en Comparator, og brukes til  sortere steder etter navn.
+ * Sammenligningen bruker kollasjonsnklene som er lagret p hvert Sted, s objektene har ingen tilstand
+ * som endres og kan deles mellom trder.
  */
 public class Stedsammenligner implements Comparator<Sted>
 {
@@ -20,18 +22,23 @@ public class Stedsammenligner implements Comparator<Sted>
 	/**
 	 * Rekkeflge for kollatoren som brukes til  bestemme sortering p stedsnavn
 	 */
-	private final String rekkeflge = "<\0<0<1<2<3<4<5<6<7<8<9" +
+	private static final String REKKEFLGE = "<\0<0<1<2<3<4<5<6<7<8<9" +
 								"<A,a<B,b<C,c<D,d<E,e<F,f<G,g<H,h<I,i<J,j" +
 								"<K,k<L,l<M,m<N,n<O,o<P,p<Q,q<R,r<S,s<T,t" +
 								"<U,u<V,v<W,w<X,x<Y,y<Z,z<,<,<=AA,=aa;AA,aa";
 	/**
-	 * Kollator som brukes til sk
+	 * Kollator som brukes til  lage kollasjonsnkler. Kollatoren er ikke trdsikker, s den brukes bare i synkroniserte metoder.
 	 */
-	private RuleBasedCollator kollator;
+	private static final RuleBasedCollator KOLLATOR = lagKollator();
+	/**
+	 * Felles sammenlignere med og uten fylke
+	 */
+	public static final Stedsammenligner MED_FYLKE = new Stedsammenligner(true),
+										UTEN_FYLKE = new Stedsammenligner(false);
 	/**
 	 * Avgjr om fylket stedet ligger i skal vre med p  avgjre sorteringen
 	 */
-	private boolean fylkesk;
+	private final boolean fylkesk;
 	
 	/**
 	 * Konstruktr
@@ -41,15 +48,23 @@ public class Stedsammenligner implements Comparator<Sted>
 	public Stedsammenligner(boolean fs)
 	{
 		fylkesk = fs;
-		
+	}
+	
+	/**
+	 * Bygger kollatoren fra reglene i REKKEFLGE
+	 * @return	Kollatoren
+	 */
+	private static RuleBasedCollator lagKollator()
+	{
 		try
 		{
-			kollator = new RuleBasedCollator(rekkeflge);
+			return new RuleBasedCollator(REKKEFLGE);
 		}
 		catch (ParseException pe)
 		{
 			SkrivMelding.skriv("Ukjent programfeil (L002)/E", null);
 			System.exit(1);
+			return null;
 		}
 	}
 	
@@ -60,11 +75,49 @@ public class Stedsammenligner implements Comparator<Sted>
 	@Override
 	public int compare(Sted a, Sted b)
 	{
-		int verdi = kollator.compare(a.getNavn(), b.getNavn());
+		int verdi = a.getKollasjonsnkkel().compareTo(b.getKollasjonsnkkel());
 		if(!fylkesk)
 			return verdi;
 		if(verdi != 0)
 			return verdi;
-		return kollator.compare(Integer.toString(a.getFylke()), Integer.toString(b.getFylke()));
+		return a.getFylke() < b.getFylke() ? -1 : (a.getFylke() == b.getFylke() ? 0 : 1);
+	}
+	
+	/**
+	 * Lager kollasjonsnkkelen for et stedsnavn. Nkler kan sammenlignes byte for byte med samme resultat som kollatoren.
+	 * @param navn	Navn p sted
+	 * @return	Kollasjonsnkkelen for navnet
+	 */
+	public static synchronized CollationKey kollasjonsnkkel(String navn)
+	{
+		return KOLLATOR.getCollationKey(navn);
+	}
+	
+	/**
+	 * Lager en skenkkel for et sted ut fra navn og fylke. To steder fr samme nkkel hvis og bare hvis
+	 * compare() med fylkesk sier at de er like, slik at nkkelen kan brukes i en hashtabell.
+	 * @param navn	Navn p sted
+	 * @param fylke	Fylkesnummer
+	 * @return	Skenkkel for stedet
+	 */
+	public static String skenkkel(String navn, int fylke)
+	{
+		return skenkkel(kollasjonsnkkel(navn), fylke);
+	}
+	
+	/**
+	 * Lager en skenkkel ut fra en ferdig kollasjonsnkkel og fylke
+	 * @param kollasjonsnkkel	Kollasjonsnkkelen til stedsnavnet
+	 * @param fylke	Fylkesnummer
+	 * @return	Skenkkel for stedet
+	 */
+	static String skenkkel(CollationKey kollasjonsnkkel, int fylke)
+	{
+		byte[] kollasjon = kollasjonsnkkel.toByteArray();
+		StringBuilder nkkel = new StringBuilder(kollasjon.length + 3);
+		nkkel.append(fylke).append(':');
+		for(int i = 0; i < kollasjon.length; i++)
+			nkkel.append((char) (kollasjon[i] & 0xff));
+		return nkkel.toString();
 	}
 } // end of class Stedsammenligner
\ No newline at end of file
@@ -0,0 +1,166 @@
+/**
+ * Inneholder klassen Utviklingsindeks.
+ */
+package data;
+
+import java.util.HashMap;
+import java.util.Iterator;
+
+import logic.Registrering;
+
+/**
+ * Klassen holder rlige summer for fylkene og hele landet for en stedliste: total nedbr og gjennomsnittstemperatur for hvert r,
+ * regnet ut p samme mte som i Gjennomsnitt (summen av stedenes totalnedbr, og gjennomsnittet av stedenes gjennomsnittstemperatur).
+ * Summene for hvert sted og r hentes fra datolistenes kumulative summer. Summene for et fylke et r regnes ut frste gang de trengs,
+ * og tas vare p til et sted i fylket fr nye data det ret. Da regnes bare det ene fylket og det ene ret ut p nytt.
+ * Dermed koster en graf over mange r bare tid i forhold til antall r, og ikke i forhold til mengden data.
+ */
+public class Utviklingsindeks
+{
+	/**
+	 * Stedlisten summene gjelder for
+	 */
+	private final Stedliste steder;
+	/**
+	 * Summene for hvert r og fylke, som {totalnedbr, gjennomsnittstemperatur}. null betyr at summene m regnes ut p nytt.
+	 */
+	private final HashMap<Integer, double[][]> fylkessummer = new HashMap<Integer, double[][]>();
+	/**
+	 * Summene for hele landet for hvert r, som {totalnedbr, gjennomsnittstemperatur}
+	 */
+	private final HashMap<Integer, double[]> landssummer = new HashMap<Integer, double[]>();
+	
+	/**
+	 * Oppretter en tom indeks med rssummer for en stedliste
+	 * @param steder	Stedlisten summene gjelder for
+	 */
+	Utviklingsindeks(Stedliste steder)
+	{
+		this.steder = steder;
+	}
+	
+	/**
+	 * Returnerer total nedbr og gjennomsnittstemperatur for et fylke et r
+	 * @param fylke	Fylkesnummer
+	 * @param r	ret
+	 * @return	double-array med totalnedbr (-1 hvis ingen data) og gjennomsnittstemperatur (MAXMAXTEMP + 1 hvis ingen data)
+	 */
+	public double[] fylke(int fylke, int r)
+	{
+		double[][] summer = fylkessummer.get(r);
+		if(summer == null)
+		{
+			summer = new double[Sted.FYLKESLISTE.length][];
+			fylkessummer.put(r, summer);
+		}
+		if(fylke < 0 || fylke >= summer.length)
+			return beregn(steder.finnSted(fylke), r);
+		if(summer[fylke] == null)
+			summer[fylke] = beregn(steder.finnSted(fylke), r);
+		return summer[fylke];
+	}
+	
+	/**
+	 * Returnerer total nedbr og gjennomsnittstemperatur for hele landet et r.
+	 * Totalnedbren er summen for fylkene, og temperaturen er gjennomsnittet av fylkenes gjennomsnitt.
+	 * @param r	ret
+	 * @return	double-array med totalnedbr (-1 hvis ingen data) og gjennomsnittstemperatur (MAXMAXTEMP + 1 hvis ingen data)
+	 */
+	public double[] land(int r)
+	{
+		double[] summer = landssummer.get(r);
+		if(summer != null)
+			return summer;
+		double nedbr = 0, temperatur = 0;
+		int nedbrTeller = 0, temperaturTeller = 0;
+		for(int i = 0; i < Sted.FYLKESLISTE.length; i++)
+		{
+			double[] fylkessum = fylke(i, r);
+			if(fylkessum[0] >= 0)
+			{
+				nedbr += fylkessum[0];
+				nedbrTeller++;
+			}
+			if(fylkessum[1] <= Registrering.MAXMAXTEMP)
+			{
+				temperatur += fylkessum[1];
+				temperaturTeller++;
+			}
+		}
+		summer = resultat(nedbr, nedbrTeller, temperatur, temperaturTeller);
+		landssummer.put(r, summer);
+		return summer;
+	}
+	
+	/**
+	 * Regner ut total nedbr og gjennomsnittstemperatur for stedene i en liste et r, fra datolistenes kumulative summer
+	 * @param stedliste	Stedene i et fylke
+	 * @param r	ret
+	 * @return	double-array med totalnedbr og gjennomsnittstemperatur
+	 */
+	private static double[] beregn(Stedliste stedliste, int r)
+	{
+		double nedbr = 0, temperatur = 0;
+		int nedbrTeller = 0, temperaturTeller = 0;
+		Iterator<Sted> iterator = stedliste.iterator();
+		while(iterator.hasNext())
+		{
+			Datoliste datoer = iterator.next().getDatoliste().finnDatoer(r);
+			if(datoer.getAntallNedbr() != 0)
+			{
+				nedbr += datoer.getSumNedbr();
+				nedbrTeller++;
+			}
+			double avgTemp = datoer.getAvgTemp();
+			if(avgTemp <= Registrering.MAXMAXTEMP)
+			{
+				temperatur += avgTemp;
+				temperaturTeller++;
+			}
+		}
+		return resultat(nedbr, nedbrTeller, temperatur, temperaturTeller);
+	}
+	
+	/**
+	 * Lager resultat-arrayet fra summer og antall
+	 */
+	private static double[] resultat(double nedbr, int nedbrTeller, double temperatur, int temperaturTeller)
+	{
+		double[] summer = new double[2];
+		summer[0] = nedbrTeller != 0 ? nedbr : -1;
+		summer[1] = temperaturTeller != 0 ? temperatur/temperaturTeller : Registrering.MAXMAXTEMP + 1;
+		return summer;
+	}
+	
+	/**
+	 * Glemmer summene for fylket til et sted alle r, etter at stedet er satt inn eller slettet
+	 * @param s	Stedet som er satt inn eller slettet
+	 */
+	void stedEndret(Sted s)
+	{
+		int fylke = s.getFylke();
+		Iterator<double[][]> iterator = fylkessummer.values().iterator();
+		while(iterator.hasNext())
+		{
+			double[][] summer = iterator.next();
+			if(fylke >= 0 && fylke < summer.length)
+				summer[fylke] = null;
+		}
+		landssummer.clear();
+	}
+	
+	/**
+	 * Glemmer summene for fylket til et sted det ret en dato hos stedet er endret
+	 * @param s	Stedet som har ftt endrede data
+	 * @param dagnummer	Dagnummeret til datoen som er endret
+	 */
+	void dataEndret(Sted s, int dagnummer)
+	{
+		int r = Dato.fraDagnummer(dagnummer)[0];
+		double[][] summer = fylkessummer.get(r);
+		int fylke = s.getFylke();
+		if(summer != null && fylke >= 0 && fylke < summer.length)
+			summer[fylke] = null;
+		landssummer.remove(r);
+	}
+} // end of class Utviklingsindeks
\ No newline at end of file
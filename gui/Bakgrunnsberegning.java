@@ -0,0 +1,143 @@
+/**
+ * Inneholder klassen Bakgrunnsberegning.
+ */
+package gui;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.SwingWorker;
+
+import logic.SkrivMelding;
+
+import data.Stedliste;
+
+/**
+ *	Klassen kjrer sk i logikklaget p en egen trd, slik at vinduet ikke fryser mens sket pgr.
+ *	Hvert panel har sin egen bakgrunnsberegning med en fremdriftsindikator, og et nytt sk avbryter sket panelet allerede kjrer.
+ *	Skene leser stedlisten med ls p listen, og resultatet vises p event dispatch-trden.
+ */
+class Bakgrunnsberegning
+{
+	/**
+	 * Et sk som skal kjres i bakgrunnen.
+	 */
+	interface Oppgave<T>
+	{
+		/**
+		 * Gjr sket. Kjres p bakgrunnstrden, med ls p stedlisten.
+		 * @return	resultatet, eller null dersom det ikke er noe  vise
+		 */
+		T beregn();
+		
+		/**
+		 * Viser resultatet. Kjres p event dispatch-trden dersom sket ikke ble avbrutt og resultatet ikke er null.
+		 * @param resultat	resultatet fra beregn()
+		 */
+		void vis(T resultat);
+	} // end of interface Oppgave
+	
+	private static final ArrayList<Bakgrunnsberegning> alle = new ArrayList<Bakgrunnsberegning>();
+	private final Stedliste sl;
+	private final JPanel panel;
+	private final JProgressBar fremdrift;
+	private SwingWorker<?, Void> aktiv;
+	
+	/**
+	 * Konstruktr, oppretter fremdriftsindikatoren for panelet
+	 * @param sl	Stedlisten skene gjres i
+	 * @param panel	Panelet skene kjres fra
+	 */
+	Bakgrunnsberegning(Stedliste sl, JPanel panel)
+	{
+		this.sl = sl;
+		this.panel = panel;
+		fremdrift = new JProgressBar();
+		fremdrift.setIndeterminate(true);
+		fremdrift.setString("Henter data...");
+		fremdrift.setStringPainted(true);
+		fremdrift.setVisible(false);
+		alle.add(this);
+	}
+	
+	/**
+	 * Returnerer fremdriftsindikatoren, som er synlig s lenge et sk kjrer
+	 * @return	fremdriftsindikatoren til panelet
+	 */
+	JProgressBar getFremdrift()
+	{
+		return fremdrift;
+	}
+	
+	/**
+	 * Starter et sk i bakgrunnen. Et sk som allerede kjrer fra panelet avbrytes frst.
+	 * @param oppgave	Sket som skal kjres
+	 */
+	<T> void kjr(final Oppgave<T> oppgave)
+	{
+		avbryt();
+		SwingWorker<T, Void> arbeider = new SwingWorker<T, Void>()
+		{
+			protected T doInBackground()
+			{
+				synchronized(sl)
+				{
+					if(isCancelled())
+						return null;
+					return oppgave.beregn();
+				}
+			}
+			
+			protected void done()
+			{
+				if(aktiv != this)
+					return;
+				aktiv = null;
+				fremdrift.setVisible(false);
+				try
+				{
+					T resultat = get();
+					if(resultat != null)
+						oppgave.vis(resultat);
+				}
+				catch(InterruptedException ie)
+				{
+					return;
+				}
+				catch(ExecutionException ee)
+				{
+					//Feil i sket meldes til brukeren med feilkoden, som alle andre programfeil
+					SkrivMelding.skriv("Ukjent programfeil (L014)/E", panel);
+				}
+			} // end of done()
+		};
+		aktiv = arbeider;
+		fremdrift.setVisible(true);
+		arbeider.execute();
+	} // end of kjr(...)
+	
+	/**
+	 * Avbryter sket som kjrer fra panelet, om det finnes et. Resultatet av et avbrutt sk blir aldri vist.
+	 */
+	void avbryt()
+	{
+		if(aktiv == null)
+			return;
+		aktiv.cancel(true);
+		aktiv = null;
+		fremdrift.setVisible(false);
+	}
+	
+	/**
+	 * Avbryter skene i alle panelene, for eksempel nr det byttes panel eller fr data skal endres
+	 */
+	static void avbrytAlle()
+	{
+		Iterator<Bakgrunnsberegning> iterator = alle.iterator();
+		while(iterator.hasNext())
+			iterator.next().avbryt();
+	}
+} // end of class Bakgrunnsberegning
\ No newline at end of file
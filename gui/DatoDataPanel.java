@@ -10,7 +10,8 @@ package gui;
 import java.awt.event.*;
 import javax.swing.*;
 
-import logic.FinnData;
+import logic.SkrivMelding;
+import logic.Utvalg;
 
 import data.Stedliste;
 
@@ -62,7 +63,7 @@ public class DatoDataPanel extends MetroPanel
 	}
 	
 	/**
-	 * Handlingslytter til vrdata for dato.
+	 * Handlingslytter til vrdata for dato. Sket kjres i bakgrunnen, og avbrytes om ret eller mneden endres.
 	 * Skrevet av: Brd Skeie
 	 */
 	private class HandlingsLytter implements ActionListener
@@ -71,10 +72,15 @@ public class DatoDataPanel extends MetroPanel
 		{
 			if(e.getSource() == hentData)
 			{
-				Object[][] data = FinnData.FinnDatoVaer(sl, fylke, lr, lmned, ldag, panel);
-				if(data != null)
-					genererTabell(data);
+				int r = tallFra(lr);
+				int dag = tallFra(ldag);
+				if(r < 0 || dag < 0)
+					SkrivMelding.skriv("Ukjent programfeil (B006)/E", panel);
+				else
+					kjrSk(new Utvalg(Utvalg.VERDIER, Utvalg.ALLE, Utvalg.FYLKE, fylke.getSelectedIndex(), null, Utvalg.DAG, r, lmned.getSelectedIndex(), dag));
 			}
+			else
+				beregning.avbryt();
 			if(e.getSource() == lr || e.getSource() == lmned)
 				hentDager(ldag.getSelectedIndex());
 		} // end of actionPerformed(...)
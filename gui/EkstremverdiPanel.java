@@ -12,8 +12,11 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import javax.swing.*;
 
-import logic.FinnEkstremData;
+import logic.Resultat;
+import logic.SkrivMelding;
+import logic.Utvalg;
 
+import data.Datoliste;
 import data.Stedliste;
 
 /**
@@ -167,8 +170,18 @@ public class EkstremverdiPanel extends MetroPanel
 		panel.repaint();
 	}
 	
+	/**
+	 * Viser resultatet av et sk i tabellen, tilpasset typen ekstremverdi som er valgt.
+	 * @param resultat	Resultatet av sket
+	 */
+	protected void visResultat(Resultat resultat)
+	{
+		genererTabell(resultat.getTabell(),rMinNedbr,rNedbr,rMintemp,rMaxtemp);
+	}
+	
 	/**
 	 * Privat lytterklasse for elementene i panelet.
+	 * Sket kjres i bakgrunnen, og avbrytes dersom noe annet i panelet endres fr det er ferdig.
 	 * Skrevet av: Henrik Hermansen
 	 */
 	private class HandlingsLytter implements ActionListener
@@ -177,10 +190,27 @@ public class EkstremverdiPanel extends MetroPanel
 		{
 			if(e.getSource() == hentData)
 			{
-				Object[][] data = FinnEkstremData.finnData(sl, panel, stedLandet, stedFylke, stedSted, fylke, sted, rdag, rmned, rr, ldag, lmned, lr, rEnkelverdi, rAvgverdi, rMinNedbr, rNedbr, rMintemp, rMaxtemp);
-				if(data != null)
-					genererTabell(data,rMinNedbr,rNedbr,rMintemp,rMaxtemp);
+				int r = tallFra(lr);
+				int dag = tallFra(ldag);
+				int omfang = stedLandet.isSelected() ? Utvalg.LAND : stedFylke.isSelected() ? Utvalg.FYLKE : Utvalg.STED;
+				int periode = rdag.isSelected() ? Utvalg.DAG : rmned.isSelected() ? Utvalg.MNED : Utvalg.R;
+				int aggregering = rEnkelverdi.isSelected() ? Utvalg.EKSTREMVERDI : Utvalg.EKSTREM_GJENNOMSNITT;
+				int type;
+				if(rMinNedbr.isSelected())
+					type = Datoliste.LAVESTE_NEDBR;
+				else if(rNedbr.isSelected())
+					type = Datoliste.HYESTE_NEDBR;
+				else if(rMintemp.isSelected())
+					type = Datoliste.LAVESTE_MINTEMP;
+				else
+					type = Datoliste.HYESTE_MAXTEMP;
+				if(r < 0 || (periode == Utvalg.DAG && dag < 0))
+					SkrivMelding.skriv("Ukjent programfeil (H-FED001)/E", panel);
+				else
+					kjrSk(new Utvalg(aggregering, type, omfang, fylke.getSelectedIndex(), (String)sted.getSelectedItem(), periode, r, lmned.getSelectedIndex(), dag));
 			}
+			else
+				beregning.avbryt();
 			if(e.getSource() == fylke)
 			{
 				hentSteder(fylke.getSelectedIndex());
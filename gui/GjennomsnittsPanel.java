@@ -12,7 +12,8 @@ import java.awt.event.ActionListener;
 
 import javax.swing.*;
 
-import logic.Gjennomsnitt;
+import logic.SkrivMelding;
+import logic.Utvalg;
 
 import data.Stedliste;
 
@@ -96,13 +97,15 @@ public class GjennomsnittsPanel extends MetroPanel
 	}
 	
 	/**
-	 * Lytter p knapper og felt
+	 * Lytter p knapper og felt. Sket kjres i bakgrunnen, og avbrytes dersom noe annet i panelet endres fr det er ferdig.
 	 * Skrevet av: Lars Smeby
 	 */
 	private class HandlingsLytter implements ActionListener
 	{
 		public void actionPerformed(ActionEvent e)
 		{	
+			if(e.getSource() != hentData)
+				beregning.avbryt();
 			if(e.getSource() == fylke)
 			{
 				hentSteder(fylke.getSelectedIndex());
@@ -124,9 +127,12 @@ public class GjennomsnittsPanel extends MetroPanel
 			}
 			if(e.getSource() == hentData)
 			{
-				Object[][] data = Gjennomsnitt.finnGjennomsnitt(sl, lr, panel, fylke, sted, rland, rfylke, rsted);
-				if(data != null)
-					genererTabell(data);
+				int r = tallFra(lr);
+				int omfang = rland.isSelected() ? Utvalg.LAND : rfylke.isSelected() ? Utvalg.FYLKE : Utvalg.STED;
+				if(r < 0)
+					SkrivMelding.skriv("Ukjent programfeil (B007)/E", panel);
+				else
+					kjrSk(new Utvalg(Utvalg.GJENNOMSNITT, Utvalg.ALLE, omfang, fylke.getSelectedIndex(), (String)sted.getSelectedItem(), Utvalg.R, r, 0, 0));
 			} // end of if(...)
 		} // end of actionPerformed(...)
 	} // end of class HandlingsLytter
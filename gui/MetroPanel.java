@@ -10,8 +10,12 @@ import java.awt.*;
 import java.util.GregorianCalendar;
 import javax.swing.*;
 
+import logic.Analyse;
+import logic.Resultat;
 import logic.SkrivMelding;
+import logic.Utvalg;
 
+import data.Dato;
 import data.Sted;
 import data.Stedliste;
 
@@ -25,8 +29,9 @@ public abstract class MetroPanel
 	protected Stedliste sl;
 	protected JComboBox fylke, sted, ldag, lmned, lr;
 	protected JTable tabell;
-	public static final int FRSTER = 1900;
-	public static final String[] MNEDER = {"Januar","Februar","Mars","April","Mai","Juni","Juli","August","September","Oktober","November","Desember"};
+	protected Bakgrunnsberegning beregning;
+	public static final int FRSTER = Dato.FRSTER;
+	public static final String[] MNEDER = Dato.MNEDER;
 	
 	/**
 	 * Konstruktr som tegner opp panelet
@@ -56,7 +61,12 @@ public abstract class MetroPanel
 		dato.add(lmned);
 		dato.add(lr);
 
-		panel.add(grid, BorderLayout.PAGE_START);
+		beregning = new Bakgrunnsberegning(sl, panel);
+		JPanel topp = new JPanel(new BorderLayout(0, 10));
+		topp.add(grid, BorderLayout.CENTER);
+		topp.add(beregning.getFremdrift(), BorderLayout.PAGE_END);
+		
+		panel.add(topp, BorderLayout.PAGE_START);
 		panel.add(new JLabel(""), BorderLayout.CENTER); //Plassholder for tabellen
 		panel.setBorder(BorderFactory.createEmptyBorder(25, 35, 10, 35));
 	}
@@ -72,13 +82,19 @@ public abstract class MetroPanel
 	}
 	
 	/**
-	 * Oppdaterer stedlisten i gui etter hvilket fylke som er valgt
+	 * Oppdaterer stedlisten i gui etter hvilket fylke som er valgt.
+	 * Stedlisten leses med ls, siden et sk i bakgrunnen kan holde p  avslutte.
 	 * Skrevet av: Lars Smeby
 	 * @param fylke	Fylkesnummeret det skal vises steder for
 	 */
 	protected void hentSteder(int fylke)
 	{
-		sted.setModel(new DefaultComboBoxModel(sl.toString(fylke)));
+		String[] navn;
+		synchronized(sl)
+		{
+			navn = sl.toString(fylke);
+		}
+		sted.setModel(new DefaultComboBoxModel(navn));
 		sted.validate();
 		sted.repaint();
 	}
@@ -132,6 +148,55 @@ public abstract class MetroPanel
 		return fylke.getSelectedIndex();
 	}
 	
+	/**
+	 * Leser et tall fra en nedtrekksliste med rstall eller dager.
+	 * @param liste	Nedtrekkslisten
+	 * @return	Tallet som er valgt, eller -1 dersom det ikke er valgt et gyldig tall
+	 */
+	protected static int tallFra(JComboBox<?> liste)
+	{
+		try
+		{
+			return Integer.parseInt((String)liste.getSelectedItem());
+		}
+		catch(NumberFormatException nfe)
+		{
+			return -1;
+		}
+	}
+	
+	/**
+	 * Kjrer et sk i bakgrunnen. Nr sket er ferdig vises resultatet med visResultat(...), eller meldingen i resultatet dersom sket ikke ga noe  vise.
+	 * @param utvalg	Sket, laget fra valgene i panelet
+	 */
+	protected void kjrSk(final Utvalg utvalg)
+	{
+		beregning.kjr(new Bakgrunnsberegning.Oppgave<Resultat>()
+		{
+			public Resultat beregn()
+			{
+				return Analyse.kjr(sl, utvalg);
+			}
+			
+			public void vis(Resultat resultat)
+			{
+				if(resultat.harData())
+					visResultat(resultat);
+				else
+					SkrivMelding.skriv(resultat.getMelding(), panel);
+			}
+		});
+	}
+	
+	/**
+	 * Viser resultatet av et sk. Standard er  vise det i en tabell med genererTabell(...), og paneler som viser resultatet p en annen mte overrider denne.
+	 * @param resultat	Resultatet av sket
+	 */
+	protected void visResultat(Resultat resultat)
+	{
+		genererTabell(resultat.getTabell());
+	}
+	
 	/**
 	 * Genererer en tabell og tegner den ut p panelet. Denne m overrides og validate()/repaint() i subklassene
 	 * Skrevet av: Lars Smeby
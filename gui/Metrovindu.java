@@ -10,11 +10,14 @@ package gui;
 
 import java.awt.*;
 import java.awt.event.*;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import javax.swing.*;
 
 import logic.LastIkon;
 import logic.SkrivMelding;
 
+import data.Lagringslytter;
 import data.Stedliste;
 import data.Filhndterer;
 
@@ -37,6 +40,7 @@ public class Metrovindu extends JFrame
 	private MetroPanel srPanel, vrPanel, sdPanel, ddPanel, gsPanel, evPanel, utPanel, ssPanel, rkPanel;
 	private JButton regSted, regData, finnSted, finnDato, gjennomsnittKnapp, ekstremKnapp, utviklingKnapp, rekordKnapp;
 	private JPanel startpanel;
+	private JLabel lagringsstatus;
 	private Container c;
 	private JMenuItem filStart, filAvslutt, filLagre, registrerSted, slettSted, registrerData, finnDataSted, finnDataDato, statGjennomsnitt, statEkstrem, statUtvikling, statRekord, hjelpHjelp, hjelpOm;
 	public static final int BREDDE = 800;
@@ -80,6 +84,7 @@ public class Metrovindu extends JFrame
 		c = getContentPane();
 		c.setLayout(new BorderLayout());
 		
+		setDefaultCloseOperation(DO_NOTHING_ON_CLOSE);
 		addWindowListener(new Vinduslytter());
 		
 		JMenuBar menylinje = new JMenuBar();
@@ -236,6 +241,11 @@ public class Metrovindu extends JFrame
 		
 		c.add(sidewrapper, BorderLayout.LINE_START);
 		c.add(startpanel, BorderLayout.CENTER);
+		
+		lagringsstatus = new JLabel(" ");
+		lagringsstatus.setBorder(BorderFactory.createEmptyBorder(2, 5, 2, 5));
+		c.add(lagringsstatus, BorderLayout.PAGE_END);
+		Filhndterer.leggTilLagringslytter(new Lagringsvisning());
 		setJMenuBar(menylinje);
 		setVisible(true);
 		setResizable(true);
@@ -267,13 +277,14 @@ public class Metrovindu extends JFrame
 	/**
 	 * Privat lytteklasse av typen ActionListener for menyknappene 
 	 * til venstre i hovedvinduet og til knappene til i menyen.
-	 * Tar seg av skifting av de forskjellige panelene.
+	 * Tar seg av skifting av de forskjellige panelene. Sk som kjrer i bakgrunnen avbrytes nr det velges noe i menyen.
 	 * Skrevet av: Lars Smeby, Brd Skeie
 	 */
 	private class MenyKnappelytter implements ActionListener
 	{
 		public void actionPerformed(ActionEvent e)
 		{
+			Bakgrunnsberegning.avbrytAlle();
 			if(e.getSource() == regSted || e.getSource() == registrerSted)
 			{
 				c.remove(1);
@@ -348,13 +359,12 @@ public class Metrovindu extends JFrame
 			}
 			if(e.getSource() == filAvslutt)
 			{
-				Filhndterer.lagreFil(sl, null);
-				System.exit(0);
+				avslutt();
 			}
 			if(e.getSource() == filLagre)
 			{
-				Filhndterer.lagreFil(sl, null);
-				JOptionPane.showMessageDialog(getMetrovindu(), "Data er lagret til fil", "Lagret", JOptionPane.INFORMATION_MESSAGE);
+				if(!Filhndterer.lagreN())
+					lagringsstatus.setText("Datafilen er pnet skrivebeskyttet, og kan ikke lagres");
 			}
 			if(e.getSource() == hjelpHjelp)
 			{
@@ -376,8 +386,83 @@ public class Metrovindu extends JFrame
 	{
 		public void windowClosing(WindowEvent e)
 		{
-			Filhndterer.lagreFil(sl, null);
-			System.exit(0);
+			Bakgrunnsberegning.avbrytAlle();
+			avslutt();
 		} // end of windowClosing(...)
 	} // end of class Vinduslytter
+	
+	/**
+	 * Lytteklasse for den automatiske lagringen. Viser i statuslinjen nederst i vinduet nr endringene lagres, og hvor lang tid det tok,
+	 * og om journalen har stoppet. Lagringen gr p en egen trd, s teksten settes p event dispatch-trden.
+	 */
+	private class Lagringsvisning implements Lagringslytter
+	{
+		public void lagringStartet(int endringer)
+		{
+			visStatus("Lagrer " + endringer + (endringer == 1 ? " endring..." : " endringer..."));
+		}
+		
+		public void lagringFerdig(int endringer, long millisekunder, boolean lagret, boolean automatisk)
+		{
+			String klokkeslett = new SimpleDateFormat("HH:mm:ss").format(new Date());
+			if(lagret)
+				visStatus("Lagret " + endringer + (endringer == 1 ? " endring" : " endringer") + (automatisk ? " automatisk" : "")
+						+ " kl. " + klokkeslett + " (" + millisekunder + " ms)");
+			else
+				visStatus((automatisk ? "Automatisk lagring" : "Lagringen") + " feilet kl. " + klokkeslett + ", prver igjen senere");
+		}
+		
+		public void journalStoppet()
+		{
+			String klokkeslett = new SimpleDateFormat("HH:mm:ss").format(new Date());
+			visStatus("Journalen kunne ikke skrives kl. " + klokkeslett + ", endringene lagres ved neste lagring (B018)");
+		}
+		
+		public void journalVirkerIgjen()
+		{
+			String klokkeslett = new SimpleDateFormat("HH:mm:ss").format(new Date());
+			visStatus("Journalen virker igjen fra kl. " + klokkeslett);
+		}
+		
+		/**
+		 * Setter teksten i statuslinjen p event dispatch-trden
+		 * @param tekst	Teksten som skal vises
+		 */
+		private void visStatus(final String tekst)
+		{
+			EventQueue.invokeLater(new Runnable()
+			{
+				public void run()
+				{
+					lagringsstatus.setText(tekst);
+				}
+			});
+		}
+	} // end of class Lagringsvisning
+	
+	/**
+	 * Lagrer og avslutter programmet. Kunne ikke dataene lagres, fr brukeren velge om programmet skal avsluttes likevel,
+	 * slik at endringene ikke gr tapt uten at brukeren vet det.
+	 */
+	private void avslutt()
+	{
+		boolean lagret;
+		synchronized(sl)
+		{
+			lagret = Filhndterer.lagreFil(sl, null);
+		}
+		if(!lagret)
+		{
+			Object[] valg = { "Ja", "Nei" };
+			int svar = JOptionPane.showOptionDialog(this,
+					"Dataene ble ikke lagret, og endringene siden forrige lagring kan g tapt.\nVil du avslutte likevel?",
+					"Advarsel",
+					JOptionPane.DEFAULT_OPTION,
+					JOptionPane.WARNING_MESSAGE,
+					null, valg, valg[1]);
+			if(svar != 0)
+				return;
+		}
+		System.exit(0);
+	}
 } // end of class Metrovindu
\ No newline at end of file
@@ -13,8 +13,10 @@ import java.awt.event.ActionListener;
 
 import javax.swing.*;
 
-import logic.FinnRekordData;
+import logic.Resultat;
+import logic.Utvalg;
 
+import data.Datoliste;
 import data.Stedliste;
 
 /**
@@ -92,7 +94,16 @@ public class RekordPanel extends MetroPanel
 	}
 	
 	/**
-	 * Privat lytterklasse for elementene i panelet.
+	 * Viser rekordene i tabellen, tilpasset typen rekord som er valgt.
+	 * @param resultat	Resultatet av sket
+	 */
+	protected void visResultat(Resultat resultat)
+	{
+		genererTabell(resultat.getTabell(),rNedbr,rMintemp,rMaxtemp);
+	}
+	
+	/**
+	 * Privat lytterklasse for elementene i panelet. Et nytt valg avbryter sket for det forrige, om det ikke er ferdig.
 	 * Skrevet av: Henrik Hermansen
 	 */
 	private class HandlingsLytter implements ActionListener
@@ -101,9 +112,14 @@ public class RekordPanel extends MetroPanel
 		{
 			if(e.getSource() == rNedbr || e.getSource() == rMintemp || e.getSource() == rMaxtemp)
 			{
-				Object[][] data = FinnRekordData.finnData(sl, panel, rNedbr, rMintemp, rMaxtemp);
-				if(data != null)
-					genererTabell(data,rNedbr,rMintemp,rMaxtemp);
+				int type;
+				if(rNedbr.isSelected())
+					type = Datoliste.HYESTE_NEDBR;
+				else if(rMintemp.isSelected())
+					type = Datoliste.LAVESTE_MINTEMP;
+				else
+					type = Datoliste.HYESTE_MAXTEMP;
+				kjrSk(new Utvalg(Utvalg.REKORD, type, Utvalg.LAND, 0, null, Utvalg.R, 0, 0, 0));
 			} // end of if(...)
 		} // end of actionPerformed(...)
 	} // end of class HanslingsLytter
@@ -11,7 +11,8 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import javax.swing.*;
 
-import logic.FinnData;
+import logic.SkrivMelding;
+import logic.Utvalg;
 
 import data.Stedliste;
 
@@ -86,7 +87,7 @@ public class StedDataPanel extends MetroPanel
 	}
 	
 	/**
-	 * Lytteklasse som lytter p knapper og felt
+	 * Lytteklasse som lytter p knapper og felt. Sket kjres i bakgrunnen, og avbrytes dersom noe annet i panelet endres fr det er ferdig.
 	 * Skrevet av: Lars Smeby
 	 */
 	private class HandlingsLytter implements ActionListener
@@ -95,25 +96,16 @@ public class StedDataPanel extends MetroPanel
 		{
 			if(e.getSource() == hentData)
 			{
-				if(rdag.isSelected())
-				{
-					Object[][] data = FinnData.finnDataSted(sl, panel, fylke, sted, ldag, lmned, lr);
-					if(data != null)
-						genererTabell(data);
-				}
-				if(rmned.isSelected())
-				{
-					Object[][] data = FinnData.finnDataSted(sl, panel, fylke, sted, lmned, lr);
-					if(data != null)
-						genererTabell(data);
-				}
-				if(rr.isSelected())
-				{
-					Object[][] data = FinnData.finnDataSted(sl, panel, fylke, sted, lr);
-					if(data != null)
-						genererTabell(data);
-				}
+				int r = tallFra(lr);
+				int dag = tallFra(ldag);
+				int periode = rdag.isSelected() ? Utvalg.DAG : rmned.isSelected() ? Utvalg.MNED : Utvalg.R;
+				if(r < 0 || (periode == Utvalg.DAG && dag < 0))
+					SkrivMelding.skriv("Ukjent programfeil (L006)/E", panel);
+				else
+					kjrSk(new Utvalg(Utvalg.VERDIER, Utvalg.ALLE, Utvalg.STED, fylke.getSelectedIndex(), (String)sted.getSelectedItem(), periode, r, lmned.getSelectedIndex(), dag));
 			}
+			else
+				beregning.avbryt();
 			if(e.getSource() == fylke)
 			{
 				hentSteder(fylke.getSelectedIndex());
@@ -54,6 +54,7 @@ public class StedRegPanel extends MetroPanel
 	{
 		public void actionPerformed(ActionEvent e)
 		{
+			Bakgrunnsberegning.avbrytAlle();
 			String melding = Registrering.registrerSted(navn, fylke, sl);
 			SkrivMelding.skriv(melding, panel);
 			navn.setText("");
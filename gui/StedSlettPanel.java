@@ -73,6 +73,7 @@ public class StedSlettPanel extends MetroPanel
 			
 			if(e.getSource()==sletteSted)
 			{
+				Bakgrunnsberegning.avbrytAlle();
 				String resultat = Registrering.slettSted(fylke, sted, sl, panel);
 				if(resultat == null)
 					return;
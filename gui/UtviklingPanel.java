@@ -12,7 +12,9 @@ import java.awt.event.ActionListener;
 
 import javax.swing.*;
 
+import logic.Resultat;
 import logic.SkrivMelding;
+import logic.Utvalg;
 import logic.Utvikling;
 
 import data.Stedliste;
@@ -66,10 +68,10 @@ public class UtviklingPanel extends MetroPanel
 		{
 			SkrivMelding.skriv("Ukjent programfeil (L004)/E", panel);
 		}
-		if(frar <= FRSTER+9)
+		if(frar <= FRSTER+Utvikling.getAntallr()-1)
 			frar = FRSTER;
 		else
-			frar -= 9;
+			frar -= Utvikling.getAntallr()-1;
 		
 		datogruppe = new ButtonGroup();
 		rmned = new JRadioButton("", false);
@@ -132,13 +134,24 @@ public class UtviklingPanel extends MetroPanel
 	}
 	
 	/**
-	 * Lytter p knapper og felt
+	 * Viser resultatet av et sk som grafikk
+	 * @param resultat	Resultatet med data til grafikken
+	 */
+	protected void visResultat(Resultat resultat)
+	{
+		genererGrafikk(resultat.getGrafikk());
+	}
+	
+	/**
+	 * Lytter p knapper og felt. Grafikken lages i bakgrunnen, og sket avbrytes dersom noe annet i panelet endres fr det er ferdig.
 	 * Skrevet av: Lars Smeby
 	 */
 	private class HandlingsLytter implements ActionListener
 	{
 		public void actionPerformed(ActionEvent e)
 		{
+			if(e.getSource() != hentData)
+				beregning.avbryt();
 			if(e.getSource() == fylke)
 			{
 				hentSteder(fylke.getSelectedIndex());
@@ -154,10 +167,10 @@ public class UtviklingPanel extends MetroPanel
 				{
 					SkrivMelding.skriv("Ukjent programfeil (L005)/E", panel);
 				}
-				if(frar <= FRSTER+9)
+				if(frar <= FRSTER+Utvikling.getAntallr()-1)
 					frar = FRSTER;
 				else
-					frar -= 9;
+					frar -= Utvikling.getAntallr()-1;
 				rmanger.setText("Fra "+frar+" til");
 			}
 			if(rland.isSelected())
@@ -189,9 +202,13 @@ public class UtviklingPanel extends MetroPanel
 			}
 			if(e.getSource() == hentData)
 			{
-				double[][] data = Utvikling.dataTilGrafikk(sl,panel,rland,rfylke,rsted,rr,rmned,rmanger,fylke,sted,lr,lmned);
-				if(data != null)
-					genererGrafikk(data);
+				int r = tallFra(lr);
+				int omfang = rland.isSelected() ? Utvalg.LAND : rfylke.isSelected() ? Utvalg.FYLKE : Utvalg.STED;
+				int periode = rmanger.isSelected() ? Utvalg.MANGE_R : rr.isSelected() ? Utvalg.R : Utvalg.MNED;
+				if(r < 0)
+					SkrivMelding.skriv("Ukjent programfeil (L012)/E", panel);
+				else
+					kjrSk(new Utvalg(Utvalg.UTVIKLING, Utvalg.ALLE, omfang, fylke.getSelectedIndex(), (String)sted.getSelectedItem(), periode, r, lmned.getSelectedIndex(), 1));
 			} // end of if(...)
 		} // end of actionPerformed(...)
 	} // end of class HandlingsLytter
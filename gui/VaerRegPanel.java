@@ -77,6 +77,7 @@ public class VaerRegPanel extends MetroPanel
 				hentDager(ldag.getSelectedIndex());
 			if(e.getSource()==registrer)
 			{
+				Bakgrunnsberegning.avbrytAlle();
 				String resultat = Registrering.registrerData(minTemp, maxTemp, nedbr, sl, sted, fylke, lr, lmned, ldag, panel);
 				if(resultat.equals("Data ble satt inn i tabellen/I")) //En svak test med tanke p endringer
 				{
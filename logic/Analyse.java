@@ -0,0 +1,85 @@
+/**
+ * Inneholder klassen Analyse.
+ */
+package logic;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import data.Sted;
+import data.Stedliste;
+
+/**
+ *	Klassen er inngangen til alle skene i programmet. Den tar imot et Utvalg og sender det til klassen som gjr sket,
+ *	og bruker ingen gui-klasser, slik at sk kan kjres fra andre trder og utenfor gui.
+ *	Resultatene tas vare p i en Resultatbuffer for hver stedliste, slik at et sk som gjentas hentes fra bufferen.
+ */
+public class Analyse
+{
+	private static final Map<Stedliste, Resultatbuffer> buffere = new WeakHashMap<Stedliste, Resultatbuffer>();
+	
+	/**
+	 * Kjrer et sk, eller henter resultatet fra bufferen dersom det samme sket er gjort fr og dataene det dekker ikke er endret siden.
+	 * @param sl	Stedlisten med alle lagrede data
+	 * @param utvalg	Sket som skal kjres
+	 * @return	Resultatet, eller null dersom utvalget ikke beskriver et sk programmet kan gjre eller sket ble avbrutt
+	 */
+	public static Resultat kjr(Stedliste sl, Utvalg utvalg)
+	{
+		if(sl.erUtsnitt())
+			return beregn(sl, utvalg);
+		Resultatbuffer buffer = getBuffer(sl);
+		Resultat resultat = buffer.hent(utvalg);
+		if(resultat != null)
+			return resultat;
+		long versjon = buffer.getVersjon();
+		resultat = beregn(sl, utvalg);
+		if(resultat != null)
+		{
+			Sted sted = null;
+			if(utvalg.getOmfang() == Utvalg.STED && utvalg.getSted() != null)
+				sted = sl.finnSted(utvalg.getSted(), utvalg.getFylke());
+			buffer.legg(utvalg, resultat, sted, versjon);
+		}
+		return resultat;
+	}
+	
+	/**
+	 * Returnerer bufferen med skeresultater for en stedliste. Bufferen lages frste gang, med plass til Resultatbuffer.STANDARDSTRRELSE resultater.
+	 * @param sl	Stedlisten
+	 * @return	Bufferen for stedlisten
+	 */
+	public static Resultatbuffer getBuffer(Stedliste sl)
+	{
+		synchronized(buffere)
+		{
+			Resultatbuffer buffer = buffere.get(sl);
+			if(buffer == null)
+			{
+				buffer = new Resultatbuffer(sl, Resultatbuffer.STANDARDSTRRELSE);
+				buffere.put(sl, buffer);
+			}
+			return buffer;
+		}
+	}
+	
+	/**
+	 * Sender sket til klassen som gjr det
+	 * @param sl	Stedlisten med alle lagrede data
+	 * @param utvalg	Sket som skal kjres
+	 * @return	Resultatet, eller null
+	 */
+	private static Resultat beregn(Stedliste sl, Utvalg utvalg)
+	{
+		switch(utvalg.getAggregering())
+		{
+			case Utvalg.VERDIER:				return FinnData.finnData(sl, utvalg);
+			case Utvalg.GJENNOMSNITT:			return Gjennomsnitt.finnGjennomsnitt(sl, utvalg);
+			case Utvalg.UTVIKLING:				return Utvikling.dataTilGrafikk(sl, utvalg);
+			case Utvalg.EKSTREMVERDI:
+			case Utvalg.EKSTREM_GJENNOMSNITT:	return FinnEkstremData.finnData(sl, utvalg);
+			case Utvalg.REKORD:					return FinnRekordData.finnData(sl, utvalg);
+			default:							return null;
+		}
+	}
+} // end of class Analyse
\ No newline at end of file
@@ -9,8 +9,6 @@ package logic;
 
 import java.util.Iterator;
 
-import javax.swing.*;
-
 import data.*;
 
 /**
@@ -20,54 +18,52 @@ public class FinnData
 {
 	
 	/**
-	 * Metode for  f tak i all data for et gitt sted en gitt dag.
+	 * Metode som sjekker hva sket etter registrerte verdier gjelder, og gjr kall p aktuell metode.
+	 * For et sted kan det skes p en dag, en mned eller et r, og for et fylke p en dag.
 	 * Skrevet av: Lars Smeby
 	 * @param sl	Stedlisten med alle lagrede data
-	 * @param panel	Panelet metodekallet gjres fra
-	 * @param fylke	JComboBox fylkesliste
-	 * @param sted	JComboBox stedliste
-	 * @param ldag	JComboBox dagliste
-	 * @param lmned	JComboBox mnedsliste
-	 * @param lr	JComboBox rliste
-	 * @return	Object[][] array med en dato og igjen data for et gitt sted en gitt dag
+	 * @param utvalg	Sket
+	 * @return	Resultatet fra undermetoden, eller null dersom utvalget ikke kan skes p
 	 */
-	public static Object[][] finnDataSted(Stedliste sl, JPanel panel, JComboBox fylke, JComboBox sted, JComboBox ldag, JComboBox lmned, JComboBox lr)
+	public static Resultat finnData(Stedliste sl, Utvalg utvalg)
 	{
-		int f = fylke.getSelectedIndex();
-		String s = (String)sted.getSelectedItem();
-		int dag;
-		int mned = lmned.getSelectedIndex();
-		int r;
-		if(s == null)
-		{
-			SkrivMelding.skriv("Ingen steder valgt/W", panel);
+		if(utvalg.getOmfang() == Utvalg.FYLKE && utvalg.getPeriode() == Utvalg.DAG)
+			return finnDatoVaer(sl, utvalg.getFylke(), utvalg.getr(), utvalg.getMned(), utvalg.getDag());
+		if(utvalg.getOmfang() != Utvalg.STED)
 			return null;
-		}
-		try
-		{
-			dag = Integer.parseInt((String)ldag.getSelectedItem());
-			r = Integer.parseInt((String)lr.getSelectedItem());
-		}
-		catch(NumberFormatException nfe)
+		switch(utvalg.getPeriode())
 		{
-			SkrivMelding.skriv("Ukjent programfeil (L006)/E", panel);
-			return null;
+			case Utvalg.DAG:	return finnDataSted(sl, utvalg.getFylke(), utvalg.getSted(), utvalg.getr(), utvalg.getMned(), utvalg.getDag());
+			case Utvalg.MNED:	return finnDataSted(sl, utvalg.getFylke(), utvalg.getSted(), utvalg.getr(), utvalg.getMned());
+			case Utvalg.R:		return finnDataSted(sl, utvalg.getFylke(), utvalg.getSted(), utvalg.getr());
+			default:			return null;
 		}
+	}
+	
+	/**
+	 * Metode for  f tak i all data for et gitt sted en gitt dag.
+	 * Skrevet av: Lars Smeby
+	 * @param sl	Stedlisten med alle lagrede data
+	 * @param f	Fylket stedet ligger i
+	 * @param s	Navnet p stedet, eller null om ingen steder er valgt
+	 * @param r	ret
+	 * @param mned	Mneden
+	 * @param dag	Dagen i mneden
+	 * @return	Resultat med en dato og igjen data for et gitt sted en gitt dag
+	 */
+	public static Resultat finnDataSted(Stedliste sl, int f, String s, int r, int mned, int dag)
+	{
+		if(s == null)
+			return Resultat.melding("Ingen steder valgt/W");
 		
 		Sted st = sl.finnSted(s, f);
 		if(st == null)
-		{
-			SkrivMelding.skriv("Ukjent programfeil (L007)/E", panel);
-			return null;
-		}
+			return Resultat.melding("Ukjent programfeil (L007)/E");
 		
 		Dato dato = st.getDatoliste().finnDato(r, mned, dag);
 
 		if(dato == null)
-		{
-			SkrivMelding.skriv("Det eksisterer ikke data for dette stedet i denne tidsperioden/I", panel);
-			return null;
-		}
+			return Resultat.melding("Det eksisterer ikke data for dette stedet i denne tidsperioden/I");
 		
 		Object[][] returarray = new Object[1][5];
 
@@ -77,56 +73,33 @@ public class FinnData
 		returarray[0][3] = dato.getMinTemp() <= Registrering.MAXMAXTEMP ? dato.getMinTemp() : null;
 		returarray[0][4] = dato.getMaxTemp() <= Registrering.MAXMAXTEMP ? dato.getMaxTemp() : null;
 		
-		return returarray;
+		return Resultat.tabell(returarray);
 	}
 	
 	/**
 	 * Metode for  f tak i all data for et gitt sted en gitt mned.
 	 * Skrevet av: Lars Smeby
 	 * @param sl	Stedlisten med alle lagrede data
-	 * @param panel	Panelet metodekallet gjres fra
-	 * @param fylke	JComboBox fylkesliste
-	 * @param sted	JComboBox stedliste
-	 * @param lmned	JComboBox mnedsliste
-	 * @param lr	JComboBox rliste
-	 * @return	Object[][] array med datoer og igjen data for et gitt sted en gitt mned
+	 * @param f	Fylket stedet ligger i
+	 * @param s	Navnet p stedet, eller null om ingen steder er valgt
+	 * @param r	ret
+	 * @param mned	Mneden
+	 * @return	Resultat med datoer og igjen data for et gitt sted en gitt mned, eller null om sket ble avbrutt
 	 */
-	public static Object[][] finnDataSted(Stedliste sl, JPanel panel, JComboBox fylke, JComboBox sted, JComboBox lmned, JComboBox lr)
+	public static Resultat finnDataSted(Stedliste sl, int f, String s, int r, int mned)
 	{
-		int f = fylke.getSelectedIndex();
-		String s = (String)sted.getSelectedItem();
-		int mned = lmned.getSelectedIndex();
-		int r;
 		if(s == null)
-		{
-			SkrivMelding.skriv("Ingen steder valgt/W", panel);
-			return null;
-		}
-		try
-		{
-			r = Integer.parseInt((String)lr.getSelectedItem());
-		}
-		catch(NumberFormatException nfe)
-		{
-			SkrivMelding.skriv("Ukjent programfeil (L008)/E", panel);
-			return null;
-		}
+			return Resultat.melding("Ingen steder valgt/W");
 		
 		Sted st = sl.finnSted(s, f);
 		if(st == null)
-		{
-			SkrivMelding.skriv("Ukjent programfeil (L009)/E", panel);
-			return null;
-		}
+			return Resultat.melding("Ukjent programfeil (L009)/E");
 		
 		Datoliste mnedliste = st.getDatoliste().finnDatoer(r, mned);
 		
 		int lengde = mnedliste.size();
 		if(lengde == 0)
-		{
-			SkrivMelding.skriv("Det eksisterer ikke data for dette stedet i denne tidsperioden/I", panel);
-			return null;
-		}
+			return Resultat.melding("Det eksisterer ikke data for dette stedet i denne tidsperioden/I");
 		
 		Object[][] returarray = new Object[lengde][5];
 		
@@ -134,6 +107,8 @@ public class FinnData
 		
 		for(int i = 0; i < lengde; i++)
 		{
+			if(Thread.currentThread().isInterrupted())
+				return null;
 			Dato neste = iterator.next();
 			returarray[i][0] = null;
 			returarray[i][1] = neste.getDato().getTime();
@@ -142,54 +117,32 @@ public class FinnData
 			returarray[i][4] = neste.getMaxTemp() <= Registrering.MAXMAXTEMP ? neste.getMaxTemp() : null;
 		}
 		
-		return returarray;
+		return Resultat.tabell(returarray);
 	}
 	
 	/**
 	 * Metode for  f tak i all data for et gitt sted et gitt r.
 	 * Skrevet av: Lars Smeby
 	 * @param sl	Stedlisten med alle lagrede data
-	 * @param panel	Panelet metodekallet gjres fra
-	 * @param fylke	JComboBox fylkesliste
-	 * @param sted	JComboBox stedliste
-	 * @param lr	JComboBox rliste
-	 * @return	Object[][] array med datoer og igjen data for et gitt sted et gitt r
+	 * @param f	Fylket stedet ligger i
+	 * @param s	Navnet p stedet, eller null om ingen steder er valgt
+	 * @param r	ret
+	 * @return	Resultat med datoer og igjen data for et gitt sted et gitt r, eller null om sket ble avbrutt
 	 */
-	public static Object[][] finnDataSted(Stedliste sl, JPanel panel, JComboBox fylke, JComboBox sted, JComboBox lr)
+	public static Resultat finnDataSted(Stedliste sl, int f, String s, int r)
 	{
-		int f = fylke.getSelectedIndex();
-		String s = (String)sted.getSelectedItem();
-		int r;
 		if(s == null)
-		{
-			SkrivMelding.skriv("Ingen steder valgt/W", panel);
-			return null;
-		}
-		try
-		{
-			r = Integer.parseInt((String)lr.getSelectedItem());
-		}
-		catch(NumberFormatException nfe)
-		{
-			SkrivMelding.skriv("Ukjent programfeil (L010)/E", panel);
-			return null;
-		}
+			return Resultat.melding("Ingen steder valgt/W");
 		
 		Sted st = sl.finnSted(s, f);
 		if(st == null)
-		{
-			SkrivMelding.skriv("Ukjent programfeil (L011)/E", panel);
-			return null;
-		}
+			return Resultat.melding("Ukjent programfeil (L011)/E");
 		
 		Datoliste rliste = st.getDatoliste().finnDatoer(r);
 		
 		int lengde = rliste.size();
 		if(lengde == 0)
-		{
-			SkrivMelding.skriv("Det eksisterer ikke data for dette stedet i denne tidsperioden/I", panel);
-			return null;
-		}
+			return Resultat.melding("Det eksisterer ikke data for dette stedet i denne tidsperioden/I");
 		
 		Object[][] returarray = new Object[lengde][5];
 		
@@ -197,6 +150,8 @@ public class FinnData
 		
 		for(int i = 0; i < lengde; i++)
 		{
+			if(Thread.currentThread().isInterrupted())
+				return null;
 			Dato neste = iterator.next();
 			returarray[i][0] = null;
 			returarray[i][1] = neste.getDato().getTime();
@@ -205,60 +160,41 @@ public class FinnData
 			returarray[i][4] = neste.getMaxTemp() <= Registrering.MAXMAXTEMP ? neste.getMaxTemp() : null;
 		}
 		
-		return returarray;
+		return Resultat.tabell(returarray);
 	}
 	
 	/**
-	 * Metode for  finne vrdata for et gitt sted p en gitt dato.
+	 * Metode for  finne vrdata for alle stedene i et fylke p en gitt dato.
 	 * Skrevet av: Brd Skeie
 	 * @param stedliste	Referanse til programmets hoved-stedliste
-	 * @param fylke		Comboboxen med fylkeslisten
-	 * @param lr		Comboboxen med rstallene
-	 * @param lmned	Comboboxen med mnedene
-	 * @param ldag		Comboboxen med dagene i mneden
-	 * @param panel		Panelet som kaller opp metoden
-	 * @return	Object[][] array med datoer og data for et gitt fylke et gitt r
+	 * @param f			Fylket
+	 * @param r		ret
+	 * @param mned		Mneden
+	 * @param dag		Dagen i mneden
+	 * @return	Resultat med data for hvert sted i fylket den gitte datoen, eller null om sket ble avbrutt
 	 */
-	public static Object[][] FinnDatoVaer(Stedliste stedliste, JComboBox fylke, JComboBox lr, JComboBox lmned, JComboBox ldag, JPanel panel)
+	public static Resultat finnDatoVaer(Stedliste stedliste, int f, int r, int mned, int dag)
 	{
-		int f = fylke.getSelectedIndex();
 		Stedliste sted = stedliste.finnSted(f);
 		if(sted == null)
-		{
-			SkrivMelding.skriv("Fylket har ingen registrerte steder/I", panel);
-			return null;
-		}
+			return Resultat.melding("Fylket har ingen registrerte steder/I");
 		Iterator<Sted> iterator = sted.iterator();
 		
-		int r;
-		int mned = lmned.getSelectedIndex();
-		int dag;
-		
-		try
-		{
-			r = Integer.parseInt((String)lr.getSelectedItem());
-			dag = Integer.parseInt((String)ldag.getSelectedItem());
-		}
-		catch(NumberFormatException nfe)
-		{
-			SkrivMelding.skriv("Ukjent programfeil (B006)/E", panel);
-			return null;
-		}
-		
+		int dagnummer = Dato.tilDagnummer(r, mned, dag);
 		Stedliste stedDatoListe = new Stedliste();
 		while(iterator.hasNext())
 		{
+			//Sket avbrytes her dersom det kjrer i bakgrunnen og brukeren har endret valgene sine.
+			if(Thread.currentThread().isInterrupted())
+				return null;
 			Sted neste = iterator.next();
 			Datoliste dato = neste.getDatoliste();
-			if(dato.finnDato(r, mned, dag) != null)
+			if(dato.finnDato(dagnummer) != null)
 				stedDatoListe.settInn(neste);
 		}
 		int lengde = stedDatoListe.size();
 		if(lengde == 0)
-		{
-			SkrivMelding.skriv("Fylket har ingen data/I", panel);
-			return null;
-		}
+			return Resultat.melding("Fylket har ingen data/I");
 		
 		iterator = stedDatoListe.iterator();
 		
@@ -266,17 +202,20 @@ public class FinnData
 		
 		for(int i = 0; i < lengde; i++)
 		{
+			if(Thread.currentThread().isInterrupted())
+				return null;
 			Sted neste = iterator.next();
+			Dato dato = neste.getDatoliste().finnDato(dagnummer);
 			returarray[i][0] = neste.getNavn();
 			returarray[i][1] = null;
-			returarray[i][2] = neste.getDatoliste().finnDato(r, mned, dag).getNedbr() >= 0
-								? neste.getDatoliste().finnDato(r, mned, dag).getNedbr() : null;
-			returarray[i][3] = neste.getDatoliste().finnDato(r, mned, dag).getMinTemp() <= Registrering.MAXMAXTEMP
-								? neste.getDatoliste().finnDato(r, mned, dag).getMinTemp() : null;
-			returarray[i][4] = neste.getDatoliste().finnDato(r, mned, dag).getMaxTemp() <= Registrering.MAXMAXTEMP
-								? neste.getDatoliste().finnDato(r, mned, dag).getMaxTemp() : null;
+			returarray[i][2] = dato.getNedbr() >= 0
+								? dato.getNedbr() : null;
+			returarray[i][3] = dato.getMinTemp() <= Registrering.MAXMAXTEMP
+								? dato.getMinTemp() : null;
+			returarray[i][4] = dato.getMaxTemp() <= Registrering.MAXMAXTEMP
+								? dato.getMaxTemp() : null;
 		}
 
-		return returarray;
+		return Resultat.tabell(returarray);
 	} // end of FinnDatoVaer(...)
 } // end of class FinnData
\ No newline at end of file
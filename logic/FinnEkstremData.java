@@ -6,14 +6,13 @@
  */
 package logic;
 
+import java.util.Arrays;
 import java.util.Iterator;
-
-import javax.swing.JComboBox;
-import javax.swing.JPanel;
-import javax.swing.JRadioButton;
+import java.util.concurrent.RecursiveTask;
 
 import data.Dato;
 import data.Datoliste;
+import data.Kube;
 import data.Sted;
 import data.Stedliste;
 
@@ -25,65 +24,31 @@ public class FinnEkstremData
 {
 	// =========================== NIV 1 =========================== NIV 1 =========================== NIV 1 =========================== NIV 1 ===========================
 	/**
-	 * Hovedmetode som behandler data og sender parametere videre til korrekt undermetode.
-	 * Her blir dag, mned og r behandlet og gjort om til int, det blir opprettet Sted-objekt basert p sted-comboboxen og fylke blir lagret i int basert p fylke-comboboxen
+	 * Hovedmetode som behandler sket og sender parametere videre til korrekt undermetode.
+	 * Her blir det opprettet Sted-objekt basert p stedsnavnet og fylket i utvalget
 	 * Skrevet av: Henrik Hermansen
 	 * @param sl			hoved-stedlisten i programmet
-	 * @param panel			panelet som kaller opp metoden
-	 * @param stedLandet	radioknappen som sier om det sprres etter data for hele landet
-	 * @param stedFylke		radioknappen som sier om det sprres etter data fra et bestemt fylke
-	 * @param stedSted		radioknappen som sier om det sprres etter data fra et bestemt sted
-	 * @param fylke			comboboxen med valgt fylke
-	 * @param sted			comboboxen med valgt sted
-	 * @param rdag			radioknappen om sier om det sprres etter data fra en bestemt dag
-	 * @param rmned		radioknappen om sier om det sprres etter data fra en bestemt mned
-	 * @param rr			radioknappen om sier om det sprres etter data fra et bestemt r
-	 * @param ldag			comboboxen med valgt dag
-	 * @param lmned		comboboxen med valgt mned
-	 * @param lr			comboboxen med valgt r
-	 * @param rEnkelverdi	radioknappen som sier om det sprres etter en enkeltverdi
-	 * @param rAvgverdi		radioknappen som sier om det sprres etter en gjennomsnittsverdi
-	 * @param rMinNedbr	radioknappen som sier om det sprres etter data om minimumsnedbr
-	 * @param rNedbr		radioknappen som sier om det sprres etter data om maksimumsnedbr
-	 * @param rMintemp		radioknappen som sier om det sprres etter data om minimumstemperaturer
-	 * @param rMaxtemp		radioknappen som sier om det sprres etter data om maksimumstemperaturer
+	 * @param utvalg		sket, med aggregeringen EKSTREMVERDI eller EKSTREM_GJENNOMSNITT og typen ekstremverdi fra Datoliste som mling
 	 * @return det som returneres av "undermetodene"
 	 */
-	public static Object[][] finnData(Stedliste sl, JPanel panel, JRadioButton stedLandet, JRadioButton stedFylke, JRadioButton stedSted, JComboBox fylke, JComboBox sted, JRadioButton rdag, JRadioButton rmned, JRadioButton rr, JComboBox ldag, JComboBox lmned, JComboBox lr, JRadioButton rEnkelverdi, JRadioButton rAvgverdi, JRadioButton rMinNedbr, JRadioButton rNedbr, JRadioButton rMintemp, JRadioButton rMaxtemp)
+	public static Resultat finnData(Stedliste sl, Utvalg utvalg)
 	{
-		int f = fylke.getSelectedIndex();
-		String s = (String)sted.getSelectedItem();
-		int mned = lmned.getSelectedIndex();
-		int r;
-		int dag;
-		if(stedSted.isSelected() && s == null)
-		{
-			SkrivMelding.skriv("Ingen steder valgt/W", panel);
-			return null;
-		}
-		try
-		{
-			r = Integer.parseInt((String)lr.getSelectedItem());
-			dag = Integer.parseInt((String)ldag.getSelectedItem());
-		}
-		catch(NumberFormatException nfe)
-		{
-			SkrivMelding.skriv("Ukjent programfeil (H-FED001)/E", panel);
-			return null;
-		}
+		int f = utvalg.getFylke();
+		String s = utvalg.getSted();
+		boolean stedSted = utvalg.getOmfang() == Utvalg.STED;
+		if(stedSted && s == null)
+			return Resultat.melding("Ingen steder valgt/W");
 		
 		Sted st=null;
 		if(s!=null)
 			st = sl.finnSted(s, f);
-		if(stedSted.isSelected() && st == null)
-		{
-			SkrivMelding.skriv("Ukjent programfeil (H-FED002)/E", panel);
-			return null;
-		}
-		if(stedLandet.isSelected() || stedFylke.isSelected())
-			return finnDataForSteder(sl,panel,f,rdag,rmned,rr,dag,mned,r,rEnkelverdi,rAvgverdi,rMinNedbr,rNedbr,rMintemp,rMaxtemp,stedLandet,stedFylke);
-		if(stedSted.isSelected())
-			return finnDataForSted(panel,st,rdag,rmned,rr,dag,mned,r,rEnkelverdi,rAvgverdi,rMinNedbr,rNedbr,rMintemp,rMaxtemp);
+		if(stedSted && st == null)
+			return Resultat.melding("Ukjent programfeil (H-FED002)/E");
+		boolean enkelverdi = utvalg.getAggregering() == Utvalg.EKSTREMVERDI;
+		if(utvalg.getOmfang() == Utvalg.LAND || utvalg.getOmfang() == Utvalg.FYLKE)
+			return finnDataForSteder(sl,utvalg.getOmfang() == Utvalg.LAND,f,utvalg.getPeriode(),utvalg.getDag(),utvalg.getMned(),utvalg.getr(),enkelverdi,utvalg.getMling());
+		if(stedSted)
+			return finnDataForSted(st,utvalg.getPeriode(),utvalg.getMned(),utvalg.getr(),enkelverdi,utvalg.getMling());
 		return null;
 	}
 
@@ -92,306 +57,267 @@ public class FinnEkstremData
 	 * Undermetode som behandler data og sender parametere videre til korrekt undermetode.
 	 * I denne metoden blir det generert en datoliste med de datoene som passer til sket.
 	 * Skrevet av: Henrik Hermansen
-	 * @param panel			panelet som kaller opp metoden
 	 * @param sted			Sted-objekt av valgt sted
-	 * @param rdag			radioknappen om sier om det sprres etter data fra en bestemt dag
-	 * @param rmned		radioknappen om sier om det sprres etter data fra en bestemt mned
-	 * @param rr			radioknappen om sier om det sprres etter data fra et bestemt r
-	 * @param dag			int-representasjon av valgt dag
+	 * @param periode		Utvalg.DAG, MNED eller R
 	 * @param mned			int-representasjon av valgt mned
 	 * @param r			int-representasjon av valgt r
-	 * @param rEnkelverdi	radioknappen som sier om det sprres etter en enkeltverdi
-	 * @param rAvgverdi		radioknappen som sier om det sprres etter en gjennomsnittsverdi
-	 * @param rMinNedbr	radioknappen som sier om det sprres etter data om minimumsnedbr
-	 * @param rNedbr		radioknappen som sier om det sprres etter data om maksimumsnedbr
-	 * @param rMintemp		radioknappen som sier om det sprres etter data om minimumstemperaturer
-	 * @param rMaxtemp		radioknappen som sier om det sprres etter data om maksimumstemperaturer
+	 * @param enkelverdi	om det sprres etter en enkeltverdi (ellers en gjennomsnittsverdi)
+	 * @param type			typen ekstremverdi det skes etter (fra Datoliste)
 	 * @return det som returneres av "undermetoden"
 	 */
-	private static Object[][] finnDataForSted(JPanel panel, Sted sted, JRadioButton rdag, JRadioButton rmned, JRadioButton rr, int dag, int mned, int r, JRadioButton rEnkelverdi, JRadioButton rAvgverdi, JRadioButton rMinNedbr, JRadioButton rNedbr, JRadioButton rMintemp, JRadioButton rMaxtemp)
+	private static Resultat finnDataForSted(Sted sted, int periode, int mned, int r, boolean enkelverdi, int type)
 	{
 		Datoliste datoliste=new Datoliste();
-		if(rmned.isSelected())
+		if(periode==Utvalg.MNED)
 		{
 			datoliste = sted.getDatoliste().finnDatoer(r,mned);
 		}
-		if(rr.isSelected())
+		if(periode==Utvalg.R)
 		{
 			datoliste = sted.getDatoliste().finnDatoer(r);
 		}
 		
 		int lengde = datoliste.size();
 		if(lengde == 0)
-		{
-			SkrivMelding.skriv("Det eksisterer ikke data for dette stedet i denne tidsperioden/I", panel);
-			return null;
-		}
-		if(rMinNedbr.isSelected())
+			return Resultat.melding("Det eksisterer ikke data for dette stedet i denne tidsperioden/I");
+		if(type==Datoliste.LAVESTE_NEDBR)
 			datoliste=datoliste.getMinNedbr();
-		if(rNedbr.isSelected())
+		if(type==Datoliste.HYESTE_NEDBR)
 			datoliste=datoliste.getMaxNedbr();
-		if(rMintemp.isSelected())
+		if(type==Datoliste.LAVESTE_MINTEMP)
 			datoliste=datoliste.getMinTemp();
-		if(rMaxtemp.isSelected())
+		if(type==Datoliste.HYESTE_MAXTEMP)
 			datoliste=datoliste.getMaxTemp();
-		if(rEnkelverdi.isSelected())
-			return finnEnkelverdiForSted(datoliste,rMinNedbr,rNedbr,rMintemp,rMaxtemp,sted);
+		if(enkelverdi)
+			return Resultat.tabell(finnEnkelverdiForSted(datoliste,type,sted));
 		return null;
 	}
 
 	/**
 	 * Undermetode som behandler data og sender parametere videre til korrekt undermetode.
-	 * I denne metoden blir alle steder i sket og alle stedene sine datoer som inngr i sket gjennomgtt for  finne ekstremverdien.
-	 * Deretter blir det generert en stedliste med steder som har en eller flere datoer som har samme verdi som ekstremverdien.
+	 * I denne metoden blir hvert sted i sket gjennomgtt n gang med finnTreff(...).
+	 * For enkeltverdier er ekstremverdien for hele fylket eller landet kjent p forhnd fra kuben, s da samles bare treffene med den verdien.
+	 * Dermed tar sket for hele landet liner tid i antall steder, og resultatet lages direkte fra treffene.
+	 * Er parallell kjring valgt (se Parallell), deles stedene opp i deloppgaver, og treffene fra hver del sls sammen i rekkeflge.
 	 * Skrevet av: Henrik Hermansen
 	 * @param sl			hoved-stedlisten i programmet
-	 * @param panel			panelet som kaller opp metoden
+	 * @param landet		om det sprres etter data for hele landet (ellers for fylket)
 	 * @param fylke			int-representasjon av valgt fylke
-	 * @param rdag			radioknappen om sier om det sprres etter data fra en bestemt dag
-	 * @param rmned		radioknappen om sier om det sprres etter data fra en bestemt mned
-	 * @param rr			radioknappen om sier om det sprres etter data fra et bestemt r
+	 * @param periode		Utvalg.DAG, MNED eller R
 	 * @param dag			int-representasjon av valgt dag
 	 * @param mned			int-representasjon av valgt mned
 	 * @param r			int-representasjon av valgt r
-	 * @param rEnkelverdi	radioknappen som sier om det sprres etter en enkeltverdi
-	 * @param rAvgverdi		radioknappen som sier om det sprres etter en gjennomsnittsverdi
-	 * @param rMinNedbr	radioknappen som sier om det sprres etter data om minimumsnedbr
-	 * @param rNedbr		radioknappen som sier om det sprres etter data om maksimumsnedbr
-	 * @param rMintemp		radioknappen som sier om det sprres etter data om minimumstemperaturer
-	 * @param rMaxtemp		radioknappen som sier om det sprres etter data om maksimumstemperaturer
-	 * @param stedLandet	radioknappen som sier om det sprres etter data for hele landet
-	 * @param stedFylke		radioknappen som sier om det sprres etter data fra et bestemt fylke
+	 * @param enkelverdi	om det sprres etter en enkeltverdi (ellers en gjennomsnittsverdi)
+	 * @param type			typen ekstremverdi det skes etter (fra Datoliste)
 	 * @return det som returneres av "undermetoden"
 	 */
-	private static Object[][] finnDataForSteder(Stedliste sl, JPanel panel, int fylke, JRadioButton rdag, JRadioButton rmned, JRadioButton rr, int dag, int mned, int r, JRadioButton rEnkelverdi, JRadioButton rAvgverdi, JRadioButton rMinNedbr, JRadioButton rNedbr, JRadioButton rMintemp, JRadioButton rMaxtemp, JRadioButton stedLandet, JRadioButton stedFylke)
+	private static Resultat finnDataForSteder(Stedliste sl, boolean landet, int fylke, int periode, int dag, int mned, int r, boolean enkelverdi, int type)
 	{
-		Stedliste stedliste=stedLandet.isSelected() ? sl : sl.finnSted(fylke);
-		Stedliste aktuelleSteder=new Stedliste();
+		Stedliste stedliste=landet ? sl : sl.finnSted(fylke);
 		if(stedliste.size()==0)
-		{
-			SkrivMelding.skriv("Det eksisterer ikke data for dette omrdet i denne tidsperioden/I", panel);
+			return Resultat.melding("Det eksisterer ikke data for dette omrdet i denne tidsperioden/I");
+		if(type<Datoliste.LAVESTE_MINTEMP || type>Datoliste.HYESTE_NEDBR)
 			return null;
-		}
+		int dagnummer=Dato.tilDagnummer(r,mned,dag);
+		
+		Sted[] steder=new Sted[stedliste.size()];
 		Iterator<Sted> iterator=stedliste.iterator();
-		double verdi,minNedbr,maxNedbr,minTemp,maxTemp;
-		Dato tempDato=null;
-		int antVerdier=0;
-		verdi=-100;
-		minNedbr=Registrering.MAXNEDBR+1;
-		maxNedbr=-1;
-		minTemp=Registrering.MAXMAXTEMP+1;
-		maxTemp=Registrering.MAXMINTEMP-1;
-		if(rMinNedbr.isSelected())
+		for(int i=0;iterator.hasNext();i++)
+			steder[i]=iterator.next();
+		double ekstrem=0;
+		
+		// For en enkeltverdi hentes ekstremverdien for fylket eller landet rett fra kuben, og bare stedene som har den samles inn.
+		if(enkelverdi)
 		{
-			while(iterator.hasNext())
-			{
-				Sted sted=iterator.next();
-				if(rEnkelverdi.isSelected())
-				{
-					if(rdag.isSelected())			tempDato=sted.getDatoliste().finnDato(r,mned,dag);
-					else if(rmned.isSelected())	tempDato=sted.getDatoliste().finnDatoer(r,mned).getMinNedbr().frste();
-					else							tempDato=sted.getDatoliste().finnDatoer(r).getMinNedbr().frste();
-					if(tempDato!=null)
-					{
-						verdi=tempDato.getNedbr();
-						if(verdi >= 0 && verdi==minNedbr && verdi<=Registrering.MAXNEDBR)
-						{
-							if(rdag.isSelected())			antVerdier+=1;
-							else if(rmned.isSelected())	antVerdier+=sted.getDatoliste().finnDatoer(r,mned).getMinNedbr().size();
-							else							antVerdier+=sted.getDatoliste().finnDatoer(r).getMinNedbr().size();
-							aktuelleSteder.settInn(sted);
-						}
-						if(verdi >= 0 && verdi<minNedbr && verdi<=Registrering.MAXNEDBR)
-						{
-							antVerdier=0;
-							if(rdag.isSelected())			antVerdier+=1;
-							else if(rmned.isSelected())	antVerdier+=sted.getDatoliste().finnDatoer(r,mned).getMinNedbr().size();
-							else							antVerdier+=sted.getDatoliste().finnDatoer(r).getMinNedbr().size();
-							minNedbr=verdi;
-							aktuelleSteder=new Stedliste();
-							aktuelleSteder.settInn(sted);
-						}
-					} // end of if(tempDato!=null)
-				} // end of if(rEnkelverdi.isSelected())
-				else
-				{
-					verdi=rmned.isSelected() ? sted.getDatoliste().finnDatoer(r,mned).getAvgNedbr() : sted.getDatoliste().finnDatoer(r).getAvgNedbr();
-					if(verdi>=0 && verdi==minNedbr && verdi<=Registrering.MAXNEDBR)
-					{
-						antVerdier+=1;
-						aktuelleSteder.settInn(sted);
-					}
-					if(verdi>=0 && verdi<minNedbr && verdi<=Registrering.MAXNEDBR)
-					{
-						antVerdier=1;
-						minNedbr=verdi;
-						aktuelleSteder=new Stedliste();
-						aktuelleSteder.settInn(sted);
-					}
-				} // end of else
-			} // end of while(...)
-		} // end of if(rMinNedbr.isSelected())
-		if(rNedbr.isSelected())
+			Kube kube=sl.getKube();
+			// Kuben er null dersom sket ble avbrutt mens den ble laget
+			if(kube==null)
+				return null;
+			int omrde=landet ? Kube.LAND : fylke;
+			if(periode==Utvalg.DAG)			ekstrem=kube.finnEkstrem(omrde,Kube.DAG,dagnummer,type);
+			else if(periode==Utvalg.MNED)	ekstrem=kube.finnEkstrem(omrde,Kube.MNED,Kube.mnedsnkkel(r,mned),type);
+			else							ekstrem=kube.finnEkstrem(omrde,Kube.R,r,type);
+			if(!gyldig(type,ekstrem))
+				return Resultat.melding("Det eksisterer ikke data for dette omrdet i denne tidsperioden/I");
+		}
+		
+		Treff treff;
+		if(Parallell.brukes(steder.length,Parallell.TERSKEL))
+			treff=Parallell.kjr(new Stedoppgave(steder,0,steder.length,periode,dagnummer,mned,r,enkelverdi,type,ekstrem,Thread.currentThread()));
+		else
+			treff=finnTreff(steder,0,steder.length,periode,dagnummer,mned,r,enkelverdi,type,ekstrem,Thread.currentThread());
+		if(treff==null)
+			return null;
+		
+		if(treff.antall==0)
+			return Resultat.melding("Det eksisterer ikke data for dette omrdet i denne tidsperioden/I");
+		if(enkelverdi)
+			return Resultat.tabell(finnEnkelverdiForSteder(steder,treff.steder,treff.dager,treff.antall,treff.ekstrem,type));
+		return Resultat.tabell(finnAvgverdiForSteder(steder,treff.steder,treff.antall,periode==Utvalg.MNED,mned,r,type));
+	} // end of finnDataForSteder(...)
+	
+	/**
+	 * Gr gjennom en del av stedene i sket. Ekstremverdien for stedets periode hentes fra segmenttrrene i datolisten,
+	 * og stedene og datoene som har samme verdi som den beste ekstremverdien s langt samles i treffene. Nr en bedre verdi blir funnet nullstilles treffene.
+	 * @param steder		alle stedene i sket
+	 * @param fra			plassen til det frste stedet i delen
+	 * @param til			plassen etter det siste stedet i delen
+	 * @param periode		Utvalg.DAG, MNED eller R
+	 * @param dagnummer		dagnummeret til valgt dag
+	 * @param mned			int-representasjon av valgt mned
+	 * @param r			int-representasjon av valgt r
+	 * @param enkelverdi	om det sprres etter en enkeltverdi (ellers en gjennomsnittsverdi)
+	 * @param type			typen ekstremverdi det skes etter (fra Datoliste)
+	 * @param ekstrem		ekstremverdien fra kuben for enkeltverdier
+	 * @param kaller		trden som startet sket
+	 * @return treffene i delen, eller null om sket ble avbrutt
+	 */
+	private static Treff finnTreff(Sted[] steder, int fra, int til, int periode, int dagnummer, int mned, int r, boolean enkelverdi, int type, double ekstrem, Thread kaller)
+	{
+		Treff treff=new Treff(ekstrem);
+		for(int s=fra;s<til;s++)
 		{
-			while(iterator.hasNext())
+			//Sket avbrytes her dersom det kjrer i bakgrunnen og brukeren har endret valgene sine.
+			if(kaller.isInterrupted())
+				return null;
+			Sted sted=steder[s];
+			Datoliste datoer=null;
+			double verdi;
+			if(enkelverdi && periode==Utvalg.DAG)
 			{
-				Sted sted=iterator.next();
-				if(rEnkelverdi.isSelected())
-				{
-					if(rdag.isSelected())			tempDato=sted.getDatoliste().finnDato(r,mned,dag);
-					else if(rmned.isSelected())	tempDato=sted.getDatoliste().finnDatoer(r,mned).getMaxNedbr().frste();
-					else							tempDato=sted.getDatoliste().finnDatoer(r).getMaxNedbr().frste();
-					if(tempDato!=null)
-					{
-						verdi=tempDato.getNedbr();
-						if(verdi >= 0 && verdi==maxNedbr)
-						{
-							if(rdag.isSelected())			antVerdier+=1;
-							else if(rmned.isSelected())	antVerdier+=sted.getDatoliste().finnDatoer(r,mned).getMaxNedbr().size();
-							else							antVerdier+=sted.getDatoliste().finnDatoer(r).getMaxNedbr().size();
-							aktuelleSteder.settInn(sted);
-						}
-						if(verdi>maxNedbr)
-						{
-							antVerdier=0;
-							if(rdag.isSelected())			antVerdier+=1;
-							else if(rmned.isSelected())	antVerdier+=sted.getDatoliste().finnDatoer(r,mned).getMaxNedbr().size();
-							else							antVerdier+=sted.getDatoliste().finnDatoer(r).getMaxNedbr().size();
-							maxNedbr=verdi;
-							aktuelleSteder=new Stedliste();
-							aktuelleSteder.settInn(sted);
-						}
-					} // end of if(tempDato!=null)
-				} // end of if(rEnkelverdi.isSelected())
-				else
-				{
-					verdi=rmned.isSelected() ? sted.getDatoliste().finnDatoer(r,mned).getAvgNedbr() : sted.getDatoliste().finnDatoer(r).getAvgNedbr();
-					if(verdi>=0 && verdi==maxNedbr)
-					{
-						antVerdier+=1;
-						aktuelleSteder.settInn(sted);
-					}
-					if(verdi>maxNedbr)
-					{
-						antVerdier=1;
-						maxNedbr=verdi;
-						aktuelleSteder=new Stedliste();
-						aktuelleSteder.settInn(sted);
-					}
-				} // end of else
-			} // end of while(...)
-		} // end of if(rNedbr.isSelected())
-		if(rMintemp.isSelected())
-		{
-			while(iterator.hasNext())
+				Dato dato=sted.getDatoliste().finnDato(dagnummer);
+				if(dato==null)
+					continue;
+				verdi=verdi(dato,type);
+			}
+			else
+			{
+				datoer=periode==Utvalg.MNED ? sted.getDatoliste().finnDatoer(r,mned) : sted.getDatoliste().finnDatoer(r);
+				verdi=enkelverdi ? datoer.finnEkstrem(type) : gjennomsnitt(datoer,type);
+			}
+			
+			if(enkelverdi ? verdi==treff.ekstrem : gyldig(type,verdi) && (treff.antall==0 || verdi==treff.ekstrem || bedre(type,verdi,treff.ekstrem)))
 			{
-				Sted sted=iterator.next();
-				if(rEnkelverdi.isSelected())
+				if(treff.antall>0 && verdi!=treff.ekstrem)
+					treff.antall=0;
+				treff.ekstrem=verdi;
+				if(enkelverdi && datoer!=null)
 				{
-					if(rdag.isSelected())			tempDato=sted.getDatoliste().finnDato(r,mned,dag);
-					else if(rmned.isSelected())	tempDato=sted.getDatoliste().finnDatoer(r,mned).getMinTemp().frste();
-					else							tempDato=sted.getDatoliste().finnDatoer(r).getMinTemp().frste();
-					if(tempDato!=null)
-					{
-						verdi=tempDato.getMinTemp();
-						if(verdi <= Registrering.MAXMAXTEMP && verdi==minTemp)
-						{
-							if(rdag.isSelected())			antVerdier+=1;
-							else if(rmned.isSelected())	antVerdier+=sted.getDatoliste().finnDatoer(r,mned).getMinTemp().size();
-							else							antVerdier+=sted.getDatoliste().finnDatoer(r).getMinTemp().size();
-							aktuelleSteder.settInn(sted);
-						}
-						if(verdi <= Registrering.MAXMAXTEMP && verdi<minTemp)
-						{
-							antVerdier=0;
-							if(rdag.isSelected())			antVerdier+=1;
-							else if(rmned.isSelected())	antVerdier+=sted.getDatoliste().finnDatoer(r,mned).getMinTemp().size();
-							else							antVerdier+=sted.getDatoliste().finnDatoer(r).getMinTemp().size();
-							minTemp=verdi;
-							aktuelleSteder=new Stedliste();
-							aktuelleSteder.settInn(sted);
-						}
-					} // end of if(tempDato!=null)
-				} // end of if(rEnkelverdi.isSelected())
+					int[] posisjoner=datoer.finnEkstremposisjoner(type);
+					for(int i=0;i<posisjoner.length;i++)
+						treff.leggTil(s,datoer.dagnummerVed(posisjoner[i]));
+				}
 				else
-				{
-					verdi=rmned.isSelected() ? sted.getDatoliste().finnDatoer(r,mned).getAvgMinTemp() : sted.getDatoliste().finnDatoer(r).getAvgMinTemp();
-					if(verdi <= Registrering.MAXMAXTEMP && verdi==minTemp)
-					{
-						antVerdier+=1;
-						aktuelleSteder.settInn(sted);
-					}
-					if(verdi <= Registrering.MAXMAXTEMP && verdi<minTemp)
-					{
-						antVerdier=1;
-						minTemp=verdi;
-						aktuelleSteder=new Stedliste();
-						aktuelleSteder.settInn(sted);
-					}
-				} // end of else
-			} // end of while(...)
-		} // end of if(rMintemp.isSelected())
-		if(rMaxtemp.isSelected())
+					treff.leggTil(s,dagnummer);
+			}
+		} // end of for(...)
+		return treff;
+	} // end of finnTreff(...)
+	
+	/**
+	 * Treffene fra en del av stedene: den beste ekstremverdien, og plassen til stedet og dagnummeret for hver dato som har den.
+	 */
+	private static class Treff
+	{
+		private double ekstrem;
+		private int antall;
+		private int[] steder=new int[16];
+		private int[] dager=new int[16];
+		
+		/**
+		 * Konstruktr for tomme treff
+		 * @param ekstrem	ekstremverdien fra kuben for enkeltverdier, ellers 0
+		 */
+		private Treff(double ekstrem)
+		{
+			this.ekstrem=ekstrem;
+		}
+		
+		/**
+		 * Legger til et treff, og gjr arrayene strre ved behov
+		 * @param sted	plassen til stedet
+		 * @param dag	dagnummeret til datoen
+		 */
+		private void leggTil(int sted, int dag)
 		{
-			while(iterator.hasNext())
+			if(antall==steder.length)
 			{
-				Sted sted=iterator.next();
-				if(rEnkelverdi.isSelected())
-				{
-					if(rdag.isSelected())			tempDato=sted.getDatoliste().finnDato(r,mned,dag);
-					else if(rmned.isSelected())	tempDato=sted.getDatoliste().finnDatoer(r,mned).getMaxTemp().frste();
-					else							tempDato=sted.getDatoliste().finnDatoer(r).getMaxTemp().frste();
-					if(tempDato!=null)
-					{
-						verdi=tempDato.getMaxTemp();
-						if(verdi <= Registrering.MAXMAXTEMP && verdi==maxTemp)
-						{
-							if(rdag.isSelected())			antVerdier+=1;
-							else if(rmned.isSelected())	antVerdier+=sted.getDatoliste().finnDatoer(r,mned).getMaxTemp().size();
-							else							antVerdier+=sted.getDatoliste().finnDatoer(r).getMaxTemp().size();
-							aktuelleSteder.settInn(sted);
-						}
-						if(verdi <= Registrering.MAXMAXTEMP && verdi>maxTemp)
-						{
-							antVerdier=0;
-							if(rdag.isSelected())			antVerdier+=1;
-							else if(rmned.isSelected())	antVerdier+=sted.getDatoliste().finnDatoer(r,mned).getMaxTemp().size();
-							else							antVerdier+=sted.getDatoliste().finnDatoer(r).getMaxTemp().size();
-							maxTemp=verdi;
-							aktuelleSteder=new Stedliste();
-							aktuelleSteder.settInn(sted);
-						}
-					} // end of if(tempDato!=null)
-				} // end of if(rEnkelverdi.isSelected())
-				else
-				{
-					verdi=rmned.isSelected() ? sted.getDatoliste().finnDatoer(r,mned).getAvgMaxTemp() : sted.getDatoliste().finnDatoer(r).getAvgMaxTemp();
-					if(verdi <= Registrering.MAXMAXTEMP && verdi==maxTemp)
-					{
-						antVerdier+=1;
-						aktuelleSteder.settInn(sted);
-					}
-					if(verdi <= Registrering.MAXMAXTEMP && verdi>maxTemp)
-					{
-						antVerdier=1;
-						maxTemp=verdi;
-						aktuelleSteder=new Stedliste();
-						aktuelleSteder.settInn(sted);
-					}
-				} // end of else
-			} // end of while(...)
-		} // end of if(rMaxtemp.isSelected())
-		if((rMinNedbr.isSelected() && minNedbr > Registrering.MAXNEDBR) || (rNedbr.isSelected() && maxNedbr == -1) || (rMintemp.isSelected() && minTemp>Registrering.MAXMAXTEMP) || (rMaxtemp.isSelected() && maxTemp<Registrering.MAXMINTEMP))
+				steder=Arrays.copyOf(steder,2*antall);
+				dager=Arrays.copyOf(dager,2*antall);
+			}
+			steder[antall]=sted;
+			dager[antall]=dag;
+			antall++;
+		}
+		
+		/**
+		 * Slr sammen treffene fra to deler som ligger etter hverandre, slik at svaret blir det samme som om stedene var gtt gjennom i ett.
+		 * @param venstre	treffene fra den frste delen
+		 * @param hyre		treffene fra den andre delen
+		 * @param type		typen ekstremverdi det skes etter (fra Datoliste)
+		 * @return	de samlede treffene, eller null om en av delene ble avbrutt
+		 */
+		private static Treff slSammen(Treff venstre, Treff hyre, int type)
 		{
-			SkrivMelding.skriv("Det eksisterer ikke data for dette omrdet i denne tidsperioden/I", panel);
-			return null;
+			if(venstre==null || hyre==null)
+				return null;
+			if(hyre.antall==0)
+				return venstre;
+			if(venstre.antall==0)
+				return hyre;
+			if(venstre.ekstrem!=hyre.ekstrem)
+				return bedre(type,hyre.ekstrem,venstre.ekstrem) ? hyre : venstre;
+			for(int i=0;i<hyre.antall;i++)
+				venstre.leggTil(hyre.steder[i],hyre.dager[i]);
+			return venstre;
 		}
-		if(rEnkelverdi.isSelected())
-			return finnEnkelverdiForSteder(aktuelleSteder,rdag,rmned,rr,dag,mned,r,rMinNedbr,rNedbr,rMintemp,rMaxtemp,antVerdier);
-		if(rAvgverdi.isSelected())
-			return finnAvgverdiForSteder(aktuelleSteder, rmned, rr, mned, r, rMinNedbr, rNedbr, rMintemp, rMaxtemp, antVerdier);
-		return null;
-	} // end of finnDataForSteder(...)
+	} // end of class Treff
+	
+	/**
+	 * Deloppgave for parallell gjennomgang av stedene. Delen deles i to til den er liten nok, og treffene sls sammen fra venstre mot hyre.
+	 */
+	private static class Stedoppgave extends RecursiveTask<Treff>
+	{
+		private static final long serialVersionUID = 1L;
+		private final Sted[] steder;
+		private final int fra, til, periode, dagnummer, mned, r, type;
+		private final boolean enkelverdi;
+		private final double ekstrem;
+		private final Thread kaller;
+		
+		/**
+		 * Konstruktr, se finnTreff(...) for parameterne
+		 */
+		private Stedoppgave(Sted[] steder, int fra, int til, int periode, int dagnummer, int mned, int r, boolean enkelverdi, int type, double ekstrem, Thread kaller)
+		{
+			this.steder=steder;
+			this.fra=fra;
+			this.til=til;
+			this.periode=periode;
+			this.dagnummer=dagnummer;
+			this.mned=mned;
+			this.r=r;
+			this.enkelverdi=enkelverdi;
+			this.type=type;
+			this.ekstrem=ekstrem;
+			this.kaller=kaller;
+		}
+		
+		/**
+		 * Gr gjennom delen direkte, eller deler den i to
+		 */
+		protected Treff compute()
+		{
+			if(til-fra<=Parallell.TERSKEL)
+				return finnTreff(steder,fra,til,periode,dagnummer,mned,r,enkelverdi,type,ekstrem,kaller);
+			int midt=(fra+til)>>>1;
+			Stedoppgave venstre=new Stedoppgave(steder,fra,midt,periode,dagnummer,mned,r,enkelverdi,type,ekstrem,kaller);
+			Stedoppgave hyre=new Stedoppgave(steder,midt,til,periode,dagnummer,mned,r,enkelverdi,type,ekstrem,kaller);
+			venstre.fork();
+			Treff hyretreff=hyre.compute();
+			return Treff.slSammen(venstre.join(),hyretreff,type);
+		}
+	} // end of class Stedoppgave
 	
 	// =========================== NIV 3 =========================== NIV 3 =========================== NIV 3 =========================== NIV 3 ===========================
 
@@ -399,14 +325,11 @@ public class FinnEkstremData
 	 * Metoden behandler dataene som kommer inn og setter dem inn i et to-dimensjonalt array som s returneres
 	 * Skrevet av: Henrik Hermansen
 	 * @param datoliste	datoliste som inneholder de datoer som har den ekstremverdien det skes etter
-	 * @param rMinNedbr	radioknappen som sier om det sprres etter data om minimumsnedbr
-	 * @param rNedbr		radioknappen som sier om det sprres etter data om maksimumsnedbr
-	 * @param rMintemp	radioknappen som sier om det sprres etter data om minimumstemperaturer
-	 * @param rMaxtemp	radioknappen som sier om det sprres etter data om maksimumstemperaturer
+	 * @param type		typen ekstremverdi det skes etter (fra Datoliste)
 	 * @param sted		Sted-objekt for det stedet det skes etter
 	 * @return et to-dimensjonalt array med de dataene det ble skt etter
 	 */
-	private static Object[][] finnEnkelverdiForSted(Datoliste datoliste, JRadioButton rMinNedbr, JRadioButton rNedbr, JRadioButton rMintemp, JRadioButton rMaxtemp, Sted sted)
+	private static Object[][] finnEnkelverdiForSted(Datoliste datoliste, int type, Sted sted)
 	{
 		Object[][] returarray = new Object[datoliste.size()][6];
 		int i=0;
@@ -416,9 +339,9 @@ public class FinnEkstremData
 			Dato dato=iterator.next();
 			returarray[i][0] = sted.getNavn();
 			returarray[i][1] = dato.getDato().getTime();
-			returarray[i][2] = (rNedbr.isSelected() || rMinNedbr.isSelected()) ? dato.getNedbr() : null;
-			returarray[i][3] = rMintemp.isSelected() ? dato.getMinTemp() : null;
-			returarray[i][4] = rMaxtemp.isSelected() ? dato.getMaxTemp() : null;
+			returarray[i][2] = (type==Datoliste.LAVESTE_NEDBR || type==Datoliste.HYESTE_NEDBR) ? dato.getNedbr() : null;
+			returarray[i][3] = type==Datoliste.LAVESTE_MINTEMP ? dato.getMinTemp() : null;
+			returarray[i][4] = type==Datoliste.HYESTE_MAXTEMP ? dato.getMaxTemp() : null;
 			returarray[i][5] = Sted.FYLKESLISTE[sted.getFylke()];
 			i++;
 		}
@@ -427,117 +350,117 @@ public class FinnEkstremData
 	}
 
 	/**
-	 * Metoden behandler dataene som kommer inn og setter dem i et to-dimensjonalt array som s returneres
+	 * Metoden lager et to-dimensjonalt array direkte fra treffene fra finnDataForSteder(...), med n rad for hver dato som har ekstremverdien
 	 * Skrevet av: Henrik Hermansen
-	 * @param sl			stedliste med de stedene som har en eller flere datoer med den ekstremverdien det skes etter
-	 * @param rdag			radioknappen om sier om det sprres etter data fra en bestemt dag
-	 * @param rmned		radioknappen om sier om det sprres etter data fra en bestemt mned
-	 * @param rr			radioknappen om sier om det sprres etter data fra et bestemt r
-	 * @param dag			int-representasjon av valgt dag
-	 * @param mned			int-representasjon av valgt mned
-	 * @param r			int-representasjon av valgt r
-	 * @param rMinNedbr	radioknappen som sier om det sprres etter data om minimumsnedbr
-	 * @param rNedbr		radioknappen som sier om det sprres etter data om maksimumsnedbr
-	 * @param rMintemp		radioknappen som sier om det sprres etter data om minimumstemperaturer
-	 * @param rMaxtemp		radioknappen som sier om det sprres etter data om maksimumstemperaturer
-	 * @param antVerdier	int-verdi med strrelsen p den frste dimensjonen i retur-arrayet
+	 * @param steder		stedene i sket
+	 * @param treffSteder	plassen i steder til stedet for hvert treff
+	 * @param treffDager	dagnummeret til datoen for hvert treff
+	 * @param antVerdier	antall treff, og strrelsen p den frste dimensjonen i retur-arrayet
+	 * @param ekstrem		ekstremverdien alle treffene har
+	 * @param type			typen ekstremverdi det skes etter (fra Datoliste)
 	 * @return et to-dimensjonalt array med de dataene det ble skt etter
 	 */
-	private static Object[][] finnEnkelverdiForSteder(Stedliste sl, JRadioButton rdag, JRadioButton rmned, JRadioButton rr, int dag, int mned, int r, JRadioButton rMinNedbr, JRadioButton rNedbr, JRadioButton rMintemp, JRadioButton rMaxtemp, int antVerdier)
+	private static Object[][] finnEnkelverdiForSteder(Sted[] steder, int[] treffSteder, int[] treffDager, int antVerdier, double ekstrem, int type)
 	{
 		Object[][] returarray = new Object[antVerdier][6];
-		int i=0;
-		Iterator<Sted> iterator=sl.iterator();
-		Iterator<Dato> datoiterator;
-		while(iterator.hasNext())
+		for(int i=0;i<antVerdier;i++)
 		{
-			Sted sted=iterator.next();
-			if(rdag.isSelected())
-			{
-				returarray[i][0] = sted.getNavn();
-				returarray[i][1] = sted.getDatoliste().finnDato(r,mned,dag).getDato().getTime();
-				returarray[i][2] = (rNedbr.isSelected() || rMinNedbr.isSelected()) ? sted.getDatoliste().finnDato(r,mned,dag).getNedbr() : null;
-				returarray[i][3] = rMintemp.isSelected() ? sted.getDatoliste().finnDato(r,mned,dag).getMinTemp() : null;
-				returarray[i][4] = rMaxtemp.isSelected() ? sted.getDatoliste().finnDato(r,mned,dag).getMaxTemp() : null;
-				returarray[i][5] = Sted.FYLKESLISTE[sted.getFylke()];
-				i++;
-			}
-			else
-			{
-				if(rmned.isSelected())
-				{
-					if(rMinNedbr.isSelected())		datoiterator=sted.getDatoliste().finnDatoer(r,mned).getMinNedbr().iterator();
-					else if(rNedbr.isSelected())	datoiterator=sted.getDatoliste().finnDatoer(r,mned).getMaxNedbr().iterator();
-					else if(rMintemp.isSelected())	datoiterator=sted.getDatoliste().finnDatoer(r,mned).getMinTemp().iterator();
-					else							datoiterator=sted.getDatoliste().finnDatoer(r,mned).getMaxTemp().iterator();
-				}
-				else
-				{
-					if(rMinNedbr.isSelected())		datoiterator=sted.getDatoliste().finnDatoer(r).getMinNedbr().iterator();
-					else if(rNedbr.isSelected())	datoiterator=sted.getDatoliste().finnDatoer(r).getMaxNedbr().iterator();
-					else if(rMintemp.isSelected())	datoiterator=sted.getDatoliste().finnDatoer(r).getMinTemp().iterator();
-					else							datoiterator=sted.getDatoliste().finnDatoer(r).getMaxTemp().iterator();
-				}
-				while(datoiterator.hasNext())
-				{
-					Dato dato=datoiterator.next();
-					returarray[i][0] = sted.getNavn();
-					returarray[i][1] = dato.getDato().getTime();
-					returarray[i][2] = (rNedbr.isSelected() || rMinNedbr.isSelected()) ? dato.getNedbr() : null;
-					returarray[i][3] = rMintemp.isSelected() ? dato.getMinTemp() : null;
-					returarray[i][4] = rMaxtemp.isSelected() ? dato.getMaxTemp() : null;
-					returarray[i][5] = Sted.FYLKESLISTE[sted.getFylke()];
-					i++;
-				}
-			} // end of else
-		} // end of while(iterator.hasNext())
+			Sted sted=steder[treffSteder[i]];
+			returarray[i][0] = sted.getNavn();
+			returarray[i][1] = new Dato(treffDager[i]).getDato().getTime();
+			returarray[i][2] = (type==Datoliste.LAVESTE_NEDBR || type==Datoliste.HYESTE_NEDBR) ? ekstrem : null;
+			returarray[i][3] = type==Datoliste.LAVESTE_MINTEMP ? ekstrem : null;
+			returarray[i][4] = type==Datoliste.HYESTE_MAXTEMP ? ekstrem : null;
+			returarray[i][5] = Sted.FYLKESLISTE[sted.getFylke()];
+		}
 		return returarray;
 	} // end of finnEnkelverdiForSteder(...)
 	
 	/**
-	 * Metoden behandler dataene som kommer inn og setter dem i et to-dimensjonalt array som s returneres
+	 * Metoden lager et to-dimensjonalt array direkte fra treffene fra finnDataForSteder(...), med n rad for hvert sted som har ekstremverdien
 	 * Skrevet av: Henrik Hermansen
-	 * @param sl			stedliste med de stedene som har en eller flere datoer med den ekstremverdien det skes etter
-	 * @param rmned		radioknappen om sier om det sprres etter data fra en bestemt mned
-	 * @param rr			radioknappen om sier om det sprres etter data fra et bestemt r
+	 * @param steder		stedene i sket
+	 * @param treffSteder	plassen i steder til stedet for hvert treff
+	 * @param antVerdier	antall treff, og strrelsen p den frste dimensjonen i retur-arrayet
+	 * @param mnedlig		om det sprres etter data fra en bestemt mned (ellers et helt r)
 	 * @param mned			int-representasjon av valgt mned
 	 * @param r			int-representasjon av valgt r
-	 * @param rMinNedbr	radioknappen som sier om det sprres etter data om minimumsnedbr
-	 * @param rNedbr		radioknappen som sier om det sprres etter data om maksimumsnedbr
-	 * @param rMintemp		radioknappen som sier om det sprres etter data om minimumstemperaturer
-	 * @param rMaxtemp		radioknappen som sier om det sprres etter data om maksimumstemperaturer
-	 * @param antVerdier	int-verdi med strrelsen p den frste dimensjonen i retur-arrayet
+	 * @param type			typen ekstremverdi det skes etter (fra Datoliste)
 	 * @return et to-dimensjonalt array med de dataene det ble skt etter
 	 */
-	private static Object[][] finnAvgverdiForSteder(Stedliste sl, JRadioButton rmned, JRadioButton rr, int mned, int r, JRadioButton rMinNedbr, JRadioButton rNedbr, JRadioButton rMintemp, JRadioButton rMaxtemp, int antVerdier)
+	private static Object[][] finnAvgverdiForSteder(Sted[] steder, int[] treffSteder, int antVerdier, boolean mnedlig, int mned, int r, int type)
 	{
 		Object[][] returarray = new Object[antVerdier][6];
-		int i=0;
-		Iterator<Sted> iterator=sl.iterator();
-		double avgNedbr, avgMinTemp, avgMaxTemp;
-		while(iterator.hasNext())
+		for(int i=0;i<antVerdier;i++)
 		{
-			Sted sted=iterator.next();
-			if(rmned.isSelected())
-			{
-				avgNedbr=sted.getDatoliste().finnDatoer(r,mned).getAvgNedbr();
-				avgMinTemp=sted.getDatoliste().finnDatoer(r,mned).getAvgMinTemp();
-				avgMaxTemp=sted.getDatoliste().finnDatoer(r,mned).getAvgMaxTemp();
-			}
-			else
-			{
-				avgNedbr=sted.getDatoliste().finnDatoer(r).getAvgNedbr();
-				avgMinTemp=sted.getDatoliste().finnDatoer(r).getAvgMinTemp();
-				avgMaxTemp=sted.getDatoliste().finnDatoer(r).getAvgMaxTemp();
-			}
+			Sted sted=steder[treffSteder[i]];
+			Datoliste periode=mnedlig ? sted.getDatoliste().finnDatoer(r,mned) : sted.getDatoliste().finnDatoer(r);
 			returarray[i][0] = sted.getNavn();
 			returarray[i][1] = null;
-			returarray[i][2] = (rNedbr.isSelected() || rMinNedbr.isSelected()) ? avgNedbr : null;
-			returarray[i][3] = rMintemp.isSelected() ? avgMinTemp : null;
-			returarray[i][4] = rMaxtemp.isSelected() ? avgMaxTemp : null;
+			returarray[i][2] = (type==Datoliste.LAVESTE_NEDBR || type==Datoliste.HYESTE_NEDBR) ? periode.getAvgNedbr() : null;
+			returarray[i][3] = type==Datoliste.LAVESTE_MINTEMP ? periode.getAvgMinTemp() : null;
+			returarray[i][4] = type==Datoliste.HYESTE_MAXTEMP ? periode.getAvgMaxTemp() : null;
 			returarray[i][5] = Sted.FYLKESLISTE[sted.getFylke()];
-			i++;
 		}
 		return returarray;
 	} // end of finnAvgverdiForSteder(...)
+	
+	// =========================== HJELPEMETODER =========================== HJELPEMETODER =========================== HJELPEMETODER ===========================
+	
+	/**
+	 * Returnerer verdien en dato har for typen ekstremverdi det skes etter.
+	 * @param dato	datoen verdien hentes fra
+	 * @param type	typen ekstremverdi (fra Datoliste)
+	 * @return	nedbren, minimumstemperaturen eller maksimumstemperaturen til datoen
+	 */
+	private static double verdi(Dato dato, int type)
+	{
+		if(type==Datoliste.LAVESTE_NEDBR || type==Datoliste.HYESTE_NEDBR)
+			return dato.getNedbr();
+		if(type==Datoliste.LAVESTE_MINTEMP)
+			return dato.getMinTemp();
+		return dato.getMaxTemp();
+	}
+	
+	/**
+	 * Returnerer gjennomsnittet for en periode av den verdien typen ekstremverdi gjelder.
+	 * @param periode	datolisten med perioden
+	 * @param type		typen ekstremverdi (fra Datoliste)
+	 * @return	gjennomsnittlig nedbr, minimumstemperatur eller maksimumstemperatur
+	 */
+	private static double gjennomsnitt(Datoliste periode, int type)
+	{
+		if(type==Datoliste.LAVESTE_NEDBR || type==Datoliste.HYESTE_NEDBR)
+			return periode.getAvgNedbr();
+		if(type==Datoliste.LAVESTE_MINTEMP)
+			return periode.getAvgMinTemp();
+		return periode.getAvgMaxTemp();
+	}
+	
+	/**
+	 * Sjekker om en verdi er en registrert verdi for typen det skes etter, og ikke en verdi som betyr at det mangler data.
+	 * @param type	typen ekstremverdi (fra Datoliste)
+	 * @param verdi	verdien som skal sjekkes
+	 * @return	true hvis verdien er gyldig
+	 */
+	private static boolean gyldig(int type, double verdi)
+	{
+		if(type==Datoliste.LAVESTE_NEDBR || type==Datoliste.HYESTE_NEDBR)
+			return verdi>=0 && verdi<=Registrering.MAXNEDBR;
+		return verdi>=Registrering.MAXMINTEMP && verdi<=Registrering.MAXMAXTEMP;
+	}
+	
+	/**
+	 * Sjekker om en verdi er mer ekstrem enn den beste verdien som er funnet s langt.
+	 * @param type		typen ekstremverdi (fra Datoliste)
+	 * @param verdi		verdien som skal sjekkes
+	 * @param ekstrem	den beste verdien s langt
+	 * @return	true hvis verdien er lavere (for LAVESTE_-typene) eller hyere (for HYESTE_-typene) enn ekstrem
+	 */
+	private static boolean bedre(int type, double verdi, double ekstrem)
+	{
+		if(type==Datoliste.LAVESTE_NEDBR || type==Datoliste.LAVESTE_MINTEMP)
+			return verdi<ekstrem;
+		return verdi>ekstrem;
+	}
 } // end of class FinnEkstremData
\ No newline at end of file
@@ -6,15 +6,9 @@
  */
 package logic;
 
-import gui.MetroPanel;
-
-import java.util.GregorianCalendar;
-import java.util.Iterator;
-
-import javax.swing.JPanel;
-import javax.swing.JRadioButton;
-
 import data.Dato;
+import data.Datoliste;
+import data.Rekordindeks;
 import data.Sted;
 import data.Stedliste;
 
@@ -24,167 +18,50 @@ import data.Stedliste;
 public class FinnRekordData
 {
 	/**
-	 * Metode som finner rekordverdier for hver mneder i alle r der det finnes data.
+	 * Metode som henter rekordverdiene for hver mned, for alle r der det finnes data, fra rekordindeksen til stedlisten.
+	 * Indeksen holdes oppdatert nr data registreres og steder slettes, s metoden bruker bare tid p  lage resultatet.
 	 * Deretter returneres at to-dimensjonalt Object-array med det/de stedet/stedene som har rekordverdien det sprres etter, for hver mned.
 	 * Skrevet av: Henrik Hermansen
 	 * @param sl		hoved-stedlisten i programmet
-	 * @param panel		panelet som kaller opp metoden
-	 * @param rNedbr	radioknappen som sier om det sprres etter data om maksimumsnedbr
-	 * @param rMintemp	radioknappen som sier om det sprres etter data om minimumstemperaturer
-	 * @param rMaxtemp	radioknappen som sier om det sprres etter data om maksimumstemperaturer
-	 * @return et to-dimensjonalt Object-array med det/de stedet/stedene som har den rekordverdien det sprres etter, for hver mned hvert r.
+	 * @param utvalg	sket, med HYESTE_NEDBR, LAVESTE_MINTEMP eller HYESTE_MAXTEMP fra Datoliste som mling
+	 * @return et to-dimensjonalt Object-array med det/de stedet/stedene som har den rekordverdien det sprres etter, for hver mned hvert r, eller null om sket ble avbrutt.
 	 */
-	public static Object[][] finnData(Stedliste sl, JPanel panel, JRadioButton rNedbr, JRadioButton rMintemp, JRadioButton rMaxtemp)
+	public static Resultat finnData(Stedliste sl, Utvalg utvalg)
 	{
-		double[] maxNedbr=new double[12];
-		double[] minTemp=new double[12];
-		double[] maxTemp=new double[12];
-		for(int j=0;j<12;j++)
-		{
-			maxNedbr[j]=-1;
-			minTemp[j]=Registrering.MAXMAXTEMP+1;
-			maxTemp[j]=Registrering.MAXMINTEMP-1;
-		}
-		Iterator<Sted> iterator=sl.iterator();
-		Iterator<Dato> datoiterator;
-		while(iterator.hasNext())
-		{
-			Sted sted=iterator.next();
-			datoiterator=sted.getDatoliste().iterator();
-			while(datoiterator.hasNext())
-			{
-				Dato dato=datoiterator.next();
-				int mned=dato.getDato().get(GregorianCalendar.MONTH);
-				if(rNedbr.isSelected() && dato.getNedbr()>maxNedbr[mned] && dato.getNedbr()>-1 && dato.getNedbr()<=Registrering.MAXNEDBR)
-					maxNedbr[mned]=dato.getNedbr();
-				if(rMintemp.isSelected() && dato.getMinTemp()<minTemp[mned] && dato.getMinTemp()>=Registrering.MAXMINTEMP && dato.getMinTemp()<=Registrering.MAXMAXTEMP)
-					minTemp[mned]=dato.getMinTemp();
-				if(rMaxtemp.isSelected() && dato.getMaxTemp()>maxTemp[mned] && dato.getMaxTemp()>=Registrering.MAXMINTEMP && dato.getMaxTemp()<=Registrering.MAXMAXTEMP)
-					maxTemp[mned]=dato.getMaxTemp();
-			} // end of while(datoiterator.hasNext())
-		} // end of while(iterator.hasNext())
-		Object[][] returarray=new Object[0][7];
-		int[] returVedlegg=new int[0];
+		int type=utvalg.getMling();
+		if(type!=Datoliste.HYESTE_NEDBR && type!=Datoliste.LAVESTE_MINTEMP && type!=Datoliste.HYESTE_MAXTEMP)
+			return Resultat.melding("Fant ingen data for dette sket./W");
+		Rekordindeks rekorder=sl.getRekordindeks();
+		// Indeksen er null dersom sket ble avbrutt mens den ble bygd
+		if(rekorder==null)
+			return null;
+		int antall=0;
+		for(int mned=0;mned<12;mned++)
+			antall+=rekorder.antallRekorder(type,mned);
+		if(antall==0)
+			return Resultat.melding("Fant ingen data for dette sket./W");
+		// Innehaverne av hver rekord er sortert p sted og deretter kronologisk, s radene kan lages mned for mned.
+		Object[][] returarray=new Object[antall][7];
 		int i=0;
-		iterator=sl.iterator();
-		while(iterator.hasNext())
+		for(int mned=0;mned<12;mned++)
 		{
-			Sted sted=iterator.next();
-			datoiterator=sted.getDatoliste().iterator();
-			while(datoiterator.hasNext())
+			//Sket avbrytes her dersom det kjrer i bakgrunnen og brukeren har endret valgene sine.
+			if(Thread.currentThread().isInterrupted())
+				return null;
+			Double rekord=rekorder.getRekord(type,mned);
+			for(int j=0;j<rekorder.antallRekorder(type,mned);j++)
 			{
-				Dato dato=datoiterator.next();
-				int mned=dato.getDato().get(GregorianCalendar.MONTH);
-				if(rNedbr.isSelected() && dato.getNedbr()==maxNedbr[mned] && dato.getNedbr()>-1 && dato.getNedbr()<=Registrering.MAXNEDBR)
-				{
-					returarray=returarray.length==0?new Object[1][7]:utvidArray(returarray);
-					returVedlegg=returVedlegg.length==0?new int[1]:utvidArray(returVedlegg);
-					returarray[i][0] = sted.getNavn();
-					returarray[i][1] = dato.getDato().getTime();
-					returarray[i][2] = rNedbr.isSelected() ? dato.getNedbr() : null;
-					returarray[i][3] = rMintemp.isSelected() ? dato.getMinTemp() : null;
-					returarray[i][4] = rMaxtemp.isSelected() ? dato.getMaxTemp() : null;
-					returarray[i][5] = Sted.FYLKESLISTE[sted.getFylke()];
-					returarray[i][6] = null;
-					returVedlegg[i] = dato.getDato().get(GregorianCalendar.MONTH);
-					i++;
-				}
-				if(rMintemp.isSelected() && dato.getMinTemp()==minTemp[mned] && dato.getMinTemp()>=Registrering.MAXMINTEMP && dato.getMinTemp()<=Registrering.MAXMAXTEMP)
-				{
-					returarray=returarray.length==0?new Object[1][7]:utvidArray(returarray);
-					returVedlegg=returVedlegg.length==0?new int[1]:utvidArray(returVedlegg);
-					returarray[i][0] = sted.getNavn();
-					returarray[i][1] = dato.getDato().getTime();
-					returarray[i][2] = rNedbr.isSelected() ? dato.getNedbr() : null;
-					returarray[i][3] = rMintemp.isSelected() ? dato.getMinTemp() : null;
-					returarray[i][4] = rMaxtemp.isSelected() ? dato.getMaxTemp() : null;
-					returarray[i][5] = Sted.FYLKESLISTE[sted.getFylke()];
-					returarray[i][6] = null;
-					returVedlegg[i] = dato.getDato().get(GregorianCalendar.MONTH);
-					i++;
-				}
-				if(rMaxtemp.isSelected() && dato.getMaxTemp()==maxTemp[mned] && dato.getMaxTemp()>=Registrering.MAXMINTEMP && dato.getMaxTemp()<=Registrering.MAXMAXTEMP)
-				{
-					returarray=returarray.length==0?new Object[1][7]:utvidArray(returarray);
-					returVedlegg=returVedlegg.length==0?new int[1]:utvidArray(returVedlegg);
-					returarray[i][0] = sted.getNavn();
-					returarray[i][1] = dato.getDato().getTime();
-					returarray[i][2] = rNedbr.isSelected() ? dato.getNedbr() : null;
-					returarray[i][3] = rMintemp.isSelected() ? dato.getMinTemp() : null;
-					returarray[i][4] = rMaxtemp.isSelected() ? dato.getMaxTemp() : null;
-					returarray[i][5] = Sted.FYLKESLISTE[sted.getFylke()];
-					returarray[i][6] = null;
-					returVedlegg[i] = dato.getDato().get(GregorianCalendar.MONTH);
-					i++;
-				}
-			} // end of while(datoiterator.hasNext())
-		} // end of while(iterator.hasNext())
-		if(returarray.length==0)
-		{
-			SkrivMelding.skriv("Fant ingen data for dette sket./W", panel);
-			return null;
+				Sted sted=rekorder.getRekordsted(type,mned,j);
+				returarray[i][0] = sted.getNavn();
+				returarray[i][1] = new Dato(rekorder.getRekorddag(type,mned,j)).getDato().getTime();
+				returarray[i][2] = type==Datoliste.HYESTE_NEDBR ? rekord : null;
+				returarray[i][3] = type==Datoliste.LAVESTE_MINTEMP ? rekord : null;
+				returarray[i][4] = type==Datoliste.HYESTE_MAXTEMP ? rekord : null;
+				returarray[i][5] = Sted.FYLKESLISTE[sted.getFylke()];
+				returarray[i][6] = Dato.MNEDER[mned];
+				i++;
+			}
 		}
-		return forberedArray(returarray, returVedlegg);
+		return Resultat.tabell(returarray);
 	} // end of finnData(...)
-	
-	/**
-	 * Metoden utvider strrelsen p den frste dimensjonen av det to-dimensjonalet Object-arrayet array med 1
-	 * Skrevet av: Henrik Hermansen
-	 * @param array et to-dimensjonalt Object-array som skal utvides
-	 * @return et to-dimensjonalt Object-array der den frste dimensjonens strrelse er utvidet med 1 i forhold til parameteret array
-	 */
-	private static Object[][] utvidArray(Object[][] array)
-	{
-		if(array.length==0)
-			return null;
-		Object[][] returarray=new Object[array.length+1][array[0].length];
-		for(int i=0;i<array.length;i++)
-			returarray[i]=array[i];
-		return returarray;
-	}
-	
-	/**
-	 * Metoden utvider strrelsen p arrayet array med 1
-	 * Skrevet av: Henrik Hermansen
-	 * @param array et int-array som skal utvides
-	 * @return et int-array der strrelsen er utvidet med 1 i forhold til parameteret array
-	 */
-	private static int[] utvidArray(int[] array)
-	{
-		if(array.length==0)
-			return null;
-		int[] returarray=new int[array.length+1];
-		for(int i=0;i<array.length;i++)
-			returarray[i]=array[i];
-		return returarray;
-	}
-	
-	/**
-	 * Metoden sorterer den frste dimensjonen av det to-dimensjonalet Object-arrayet array basert p tilhrende verdi i int-arrayet arrayVedlegg.
-	 * arrayVedlegg skal inneholde int-verdien for den mneden tilhrende array-verdi har en rekordverdi for. Dersom arrayVedlegg[2]==3 vil array[2] inneholde data om en rekordverdi for april (mnedene er 0-11).
-	 * Metoden setter ogs array[x][6] til en String-verdi som representerer mneden som array[x] har rekorddata for.
-	 * @param array			et to-dimensjonalt array som skal sorteres og bli tildelt String-verdi for mneden
-	 * @param arrayVedlegg	et int-array der posisjon x beskriver hvilken mned tilsvarende posisjon i arrayet array inneholder rekorddata for
-	 * @return	et sortert to-dimensjonalt Object-array som ogs har ftt tildelt String-verdi for mneden hver enkel posisjon har rekorddata for
-	 */
-	private static Object[][] forberedArray(Object[][] array, int[] arrayVedlegg)
-	{
-		if(array.length==0)
-			return null;
-		Object[][] returarray=new Object[array.length][array[0].length];
-		int i=0; // i representerer posisjon i returarray
-		for(int m=0;m<12;m++) // m representerer mnedene i ret
-		{
-			for(int j=0;j<array.length;j++) // j representerer posisjon i array
-			{
-				if(arrayVedlegg[j]==m)
-				{
-					returarray[i]=array[j];
-					returarray[i][6]=MetroPanel.MNEDER[m];
-					i++;
-				} // end of if()
-			} // end of for(int j)
-		} // end of for(int m)
-		return returarray;
-	}
 } // end of class FinnRekordData
\ No newline at end of file
@@ -6,13 +6,8 @@
  */
 package logic;
 
-import gui.MetroPanel;
-
 import java.util.Iterator;
-
-import javax.swing.JComboBox;
-import javax.swing.JPanel;
-import javax.swing.JRadioButton;
+import java.util.concurrent.RecursiveTask;
 
 import data.Dato;
 import data.Datoliste;
@@ -28,89 +23,55 @@ public class Gjennomsnitt
 	/**
 	 * Metode som regner ut gjennomsnittstemperatur, gjennomsnittsnedbr og total-nedbr for et gitt sted et gitt r
 	 * Skrevet av: Brd Skeie
-	 * @param panel	panelet metoden kalles fra
 	 * @param r	aktuelt r
 	 * @param sted	sted
 	 * @return	double-array med totalnedbr, gjennomsnittsnedbr og gjennomsnittstemperatur
 	 */
-	public static double[] gjennomsnitt(JPanel panel, int r, Sted sted)
+	public static double[] gjennomsnitt(int r, Sted sted)
 	{
-		Datoliste stedDatoer = sted.getDatoliste().finnDatoer(r);
-			
-		Iterator<Dato> iterator = stedDatoer.iterator();
-		
-		int nedbrTeller = 0;
-		int tempTeller = 0;
-		double totalNedbr = 0;
-		double totalTemp = 0;
-		
-		while(iterator.hasNext())
-		{
-			Dato neste = iterator.next();
-			if(neste.getAvgTemp() <= Registrering.MAXMAXTEMP)
-			{
-				totalTemp += neste.getAvgTemp();
-				tempTeller++;
-			}
-			if(neste.getNedbr() >= 0)
-			{
-				totalNedbr += neste.getNedbr();
-				nedbrTeller++;
-			}
-		} // end of while(...)
-		
-		//Oppretter og setter inn i retur-arrayet.
-		double[] returarray = new double[3];
-		if(nedbrTeller != 0)
-			returarray[0] = totalNedbr;
-		else
-			returarray[0] = -1;
-		if(nedbrTeller != 0)
-			returarray[1]= totalNedbr/nedbrTeller;
-		else
-			returarray[1] = -1;
-		if(tempTeller != 0)
-			returarray[2] = totalTemp/tempTeller;
-		else
-			returarray[2] = Registrering.MAXMAXTEMP + 1;
-		
-		return returarray;
+		return gjennomsnitt(sted.getDatoliste().finnDatoer(r));
 	}
 	
 	/**
 	 * Metode som regner ut gjennomsnittstemperatur, gjennomsnittsnedbr og total-nedbr for et gitt sted en gitt mned
 	 * Skrevet av: Brd Skeie
-	 * @param panel	referanse til panelet metoden kalles fra
 	 * @param r	aktuelt r
 	 * @param mned	aktuell mned
 	 * @param sted	aktuelt sted
 	 * @return	double-array med totalnedbr, gjennomsnittsnedbr og gjennomsnittstemperatur
 	 */
-	public static double[] gjennomsnitt(JPanel panel, int r, int mned, Sted sted)
+	public static double[] gjennomsnitt(int r, int mned, Sted sted)
 	{
-		Datoliste stedDatoer = sted.getDatoliste().finnDatoer(r, mned);
-			
-		Iterator<Dato> iterator = stedDatoer.iterator();
-		
-		int nedbrTeller = 0;
-		int tempTeller = 0;
-		double totalNedbr = 0;
-		double totalTemp = 0;
-		
-		while(iterator.hasNext())
-		{
-			Dato neste = iterator.next();
-			if(neste.getAvgTemp() <= Registrering.MAXMAXTEMP)
-			{
-				totalTemp += neste.getAvgTemp();
-				tempTeller++;
-			}
-			if(neste.getNedbr() >= 0)
-			{
-				totalNedbr += neste.getNedbr();
-				nedbrTeller++;
-			}
-		} // end of while(...)
+		return gjennomsnitt(sted.getDatoliste().finnDatoer(r, mned));
+	}
+	
+	/**
+	 * Metode som regner ut gjennomsnittstemperatur, gjennomsnittsnedbr og total-nedbr for et gitt sted for hver mned i et r, og for hele ret.
+	 * Stedets datoer for ret deles opp i mneder i n gjennomgang, i stedet for at hver mned skes opp for seg.
+	 * @param r	aktuelt r
+	 * @param sted	aktuelt sted
+	 * @return	Todimensjonalt double-array med totalnedbr, gjennomsnittsnedbr og gjennomsnittstemperatur, en linje per mned samt en for r
+	 */
+	public static double[][] gjennomsnittMneder(int r, Sted sted)
+	{
+		Datoliste[] perioder = sted.getDatoliste().finnMneder(r);
+		double[][] returarray = new double[perioder.length][];
+		for(int i = 0; i < perioder.length; i++)
+			returarray[i] = gjennomsnitt(perioder[i]);
+		return returarray;
+	}
+	
+	/**
+	 * Metode som regner ut gjennomsnittstemperatur, gjennomsnittsnedbr og total-nedbr for datoene i en datoliste
+	 * Skrevet av: Brd Skeie
+	 * @param stedDatoer	datolisten med aktuell periode for et sted
+	 * @return	double-array med totalnedbr, gjennomsnittsnedbr og gjennomsnittstemperatur
+	 */
+	private static double[] gjennomsnitt(Datoliste stedDatoer)
+	{
+		//Summene og antallene hentes fra datolistens kumulative summer, uten  g gjennom datoene.
+		int nedbrTeller = stedDatoer.getAntallNedbr();
+		double totalNedbr = stedDatoer.getSumNedbr();
 		
 		//Oppretter og setter inn i retur-arrayet.
 		double[] returarray = new double[3];
@@ -122,23 +83,33 @@ public class Gjennomsnitt
 			returarray[1]= totalNedbr/nedbrTeller;
 		else
 			returarray[1] = -1;
-		if(tempTeller != 0)
-			returarray[2] = totalTemp/tempTeller;
-		else
-			returarray[2] = Registrering.MAXMAXTEMP + 1;
+		returarray[2] = stedDatoer.getAvgTemp();
 		
 		return returarray;
 	}
 	
 	/**
 	 * Metode som regner ut gjennomsnittstemperatur, gjennomsnittsnedbr og total-nedbr pr fylke.
+	 * Hvert sted gjennomgs n gang, og fyller alle de 13 linjene (hver mned og hele ret) samtidig.
 	 * Skrevet av: Brd Skeie
 	 * @param fylkesl Stedliste med alle stedene tilhrende fylket.
-	 * @param panel Referanse til panelet som metoden kalles fra.
 	 * @param r ret sprringen gjelder.
-	 * @return Todimensjonalt double-array med totalnedbr, gjennomsnittsnedbr og gjennomsnittstemperatur
+	 * @return Todimensjonalt double-array med totalnedbr, gjennomsnittsnedbr og gjennomsnittstemperatur, eller null om sket ble avbrutt
+	 */
+	public static double[][] gjennomsnittFylke(Stedliste fylkesl, int r)
+	{
+		return gjennomsnittFylke(fylkesl, r, Thread.currentThread());
+	}
+	
+	/**
+	 * Regner ut gjennomsnittene for et fylke som gjennomsnittFylke(fylkesl, r), og avbryter dersom trden som startet sket er avbrutt.
+	 * Deloppgavene i Fylkesoppgave kjrer i andre trder, og sjekker derfor trden som startet sket i stedet for sin egen.
+	 * @param fylkesl Stedliste med alle stedene tilhrende fylket.
+	 * @param r ret sprringen gjelder.
+	 * @param kaller Trden som startet sket.
+	 * @return Todimensjonalt double-array med totalnedbr, gjennomsnittsnedbr og gjennomsnittstemperatur, eller null om sket ble avbrutt
 	 */
-	public static double[][] gjennomsnittFylke(Stedliste fylkesl, JPanel panel, int r)
+	private static double[][] gjennomsnittFylke(Stedliste fylkesl, int r, Thread kaller)
 	{
 		Iterator<Sted> iterator = fylkesl.iterator();
 		double[][] dataarray = new double[13][3];
@@ -146,11 +117,14 @@ public class Gjennomsnitt
 		
 		while(iterator.hasNext())
 		{
-			Sted tempsted = iterator.next();
+			//Sket avbrytes her dersom det kjrer i bakgrunnen og brukeren har endret valgene sine.
+			if(kaller.isInterrupted())
+				return null;
+			double[][] stedarray = gjennomsnittMneder(r, iterator.next());
 			
-			for(int i = 0; i < dataarray.length - 1; i++)
+			for(int i = 0; i < dataarray.length; i++)
 			{
-				double[] temp = gjennomsnitt(panel, r, i, tempsted);
+				double[] temp = stedarray[i];
 				if(temp[0] >= 0)
 				{
 					dataarray[i][0] += temp[0];
@@ -167,23 +141,6 @@ public class Gjennomsnitt
 					tellerarray[i][2]++;
 				}				
 			} // end of for(...)
-			
-			double[] temp = gjennomsnitt(panel, r, tempsted);
-			if(temp[0] >= 0)
-			{
-				dataarray[dataarray.length-1][0] += temp[0];
-				tellerarray[dataarray.length-1][0]++;
-			}
-			if(temp[1] >= 0)
-			{
-				dataarray[dataarray.length-1][1] += temp[1];
-				tellerarray[dataarray.length-1][1]++;
-			}
-			if(temp[2] <= Registrering.MAXMAXTEMP)
-			{
-				dataarray[dataarray.length-1][2] += temp[2];
-				tellerarray[dataarray.length-1][2]++;
-			}
 		} // end of while(...)
 		
 		for(int i = 0; i < dataarray.length; i++)
@@ -210,19 +167,39 @@ public class Gjennomsnitt
 	 * for hele landet.
 	 * Skrevet av: Brd Skeie
 	 * @param sl Stedsliste med alle registrerte steder.
-	 * @param panel Panelet som metoden kalles fra.
 	 * @param r ret sket gjelder for.
-	 * @return Todimensjonalt double-array med totalnedbr, gjennomsnittsnedbr og gjennomsnittstemperatur
+	 * @return Todimensjonalt double-array med totalnedbr, gjennomsnittsnedbr og gjennomsnittstemperatur, eller null om sket ble avbrutt
 	 */
-	public static double[][] gjennomsnittLand(Stedliste sl, JPanel panel, int r)
+	public static double[][] gjennomsnittLand(Stedliste sl, int r)
 	{
 		double[][] dataarray = new double[13][3];
 		int[][] tellerarray = new int[13][3];
 		
-		for(int i = 0; i < Sted.FYLKESLISTE.length; i++)
+		//Fylkene regnes ut hver for seg, i parallell om det er valgt, og legges sammen i fylkesrekkeflge etterp.
+		Stedliste[] fylker = new Stedliste[Sted.FYLKESLISTE.length];
+		for(int i = 0; i < fylker.length; i++)
+			fylker[i] = sl.finnSted(i);
+		double[][][] fylkesdata;
+		if(Parallell.brukes(sl.size(), Parallell.TERSKEL))
+		{
+			fylkesdata = Parallell.kjr(new Fylkesoppgave(fylker, new double[fylker.length][][], 0, fylker.length, r));
+			if(fylkesdata == null)
+				return null;
+		}
+		else
+		{
+			fylkesdata = new double[fylker.length][][];
+			for(int i = 0; i < fylker.length; i++)
+			{
+				fylkesdata[i] = gjennomsnittFylke(fylker[i], r);
+				if(fylkesdata[i] == null)
+					return null;
+			}
+		}
+		
+		for(int i = 0; i < fylker.length; i++)
 		{
-			Stedliste fylkesl = sl.finnSted(i);
-			double[][] templiste = gjennomsnittFylke(fylkesl, panel, r);
+			double[][] templiste = fylkesdata[i];
 			
 			for( int j = 0; j < templiste.length; j++)
 			{
@@ -264,58 +241,98 @@ public class Gjennomsnitt
 	}
 	
 	/**
-	 * Metode som sjekker hva gjennomsnittssprringen gjelder og gjr kall
-	 * p aktuell metode og sender med relevante parametere.
-	 * Skrevet av: Brd Skeie
-	 * @param stedliste Stedliste med alle registrerte fylker.
-	 * @param lr ret sket gjelder for
-	 * @param panel Panelet metoden kalles fra.
-	 * @param fylke Fylket sket gjelder for.
-	 * @param jsted Stedet sket gjelder for.
-	 * @param rland Radioknapp for  velge hele landet.
-	 * @param rfylke Radioknapp for  velge et fylke.
-	 * @param rsted Radioknapp for  velge et sted.
-	 * @return 2-dim. Object-array med gjennomsnittsdata, en linje per mned samt en for r
+	 * Deloppgave for  regne ut gjennomsnittene for flere fylker i parallell. Hvert fylke regnes ut med gjennomsnittFylke(...)
+	 * og legges p sin plass i arrayet, slik at fylkene kan legges sammen i samme rekkeflge som nr de regnes ut ett og ett.
 	 */
-	public static Object[][] finnGjennomsnitt(Stedliste stedliste, JComboBox lr, JPanel panel, JComboBox fylke, JComboBox jsted, JRadioButton rland, JRadioButton rfylke, JRadioButton rsted)
+	private static class Fylkesoppgave extends RecursiveTask<double[][][]>
 	{
-		int r;		
-		try
+		private static final long serialVersionUID = 1L;
+		private final Stedliste[] fylker;
+		private final double[][][] fylkesdata;
+		private final int fra, til, r;
+		private final Thread kaller;
+		
+		/**
+		 * Konstruktr for fylkene fra og med fra, til men ikke med til
+		 * @param fylker	Stedlistene for alle fylkene
+		 * @param fylkesdata	Arrayet gjennomsnittene for hvert fylke legges i
+		 * @param fra	Frste fylke
+		 * @param til	Fylket etter det siste
+		 * @param r	ret sket gjelder for
+		 */
+		private Fylkesoppgave(Stedliste[] fylker, double[][][] fylkesdata, int fra, int til, int r)
 		{
-			r = Integer.parseInt((String)lr.getSelectedItem());
+			this(fylker, fylkesdata, fra, til, r, Thread.currentThread());
 		}
-		catch(NumberFormatException nfe)
+		
+		/**
+		 * Konstruktr for deloppgavene, som sjekker om trden som startet sket er avbrutt
+		 */
+		private Fylkesoppgave(Stedliste[] fylker, double[][][] fylkesdata, int fra, int til, int r, Thread kaller)
 		{
-			SkrivMelding.skriv("Ukjent programfeil (B007)/E", panel);
-			return null;
+			this.fylker = fylker;
+			this.fylkesdata = fylkesdata;
+			this.fra = fra;
+			this.til = til;
+			this.r = r;
+			this.kaller = kaller;
+		}
+		
+		/**
+		 * Regner ut ett fylke, eller deler fylkene i to
+		 */
+		protected double[][][] compute()
+		{
+			if(kaller.isInterrupted())
+				return null;
+			if(til - fra == 1)
+			{
+				fylkesdata[fra] = gjennomsnittFylke(fylker[fra], r, kaller);
+				return fylkesdata[fra] == null ? null : fylkesdata;
+			}
+			int midt = (fra + til) >>> 1;
+			Fylkesoppgave venstre = new Fylkesoppgave(fylker, fylkesdata, fra, midt, r, kaller);
+			Fylkesoppgave hyre = new Fylkesoppgave(fylker, fylkesdata, midt, til, r, kaller);
+			venstre.fork();
+			double[][][] hyredata = hyre.compute();
+			if(venstre.join() == null || hyredata == null)
+				return null;
+			return fylkesdata;
 		}
-		if(rland.isSelected())
+	} // end of class Fylkesoppgave
+	
+	/**
+	 * Metode som sjekker hva gjennomsnittssprringen gjelder og gjr kall
+	 * p aktuell metode og sender med relevante parametere.
+	 * Skrevet av: Brd Skeie
+	 * @param stedliste Stedliste med alle registrerte fylker.
+	 * @param utvalg Sket, med r og omrde.
+	 * @return Resultat med gjennomsnittsdata, en linje per mned samt en for r
+	 */
+	public static Resultat finnGjennomsnitt(Stedliste stedliste, Utvalg utvalg)
+	{
+		int r = utvalg.getr();
+		if(utvalg.getOmfang() == Utvalg.LAND)
 		{
-			return finnGjennomsnittLand(stedliste, panel, r);
+			return finnGjennomsnittLand(stedliste, r);
 		}
 		
-		int f = fylke.getSelectedIndex();
-		if(rfylke.isSelected())
+		int f = utvalg.getFylke();
+		if(utvalg.getOmfang() == Utvalg.FYLKE)
 		{
-			return finnGjennomsnittFylke(stedliste, panel, f, r);
+			return finnGjennomsnittFylke(stedliste, f, r);
 		}
 		
-		String s = (String) jsted.getSelectedItem();
+		String s = utvalg.getSted();
 		if(s == null)
-		{
-			SkrivMelding.skriv("Sted er ikke valgt/W", panel);
-			return null;
-		}
+			return Resultat.melding("Sted er ikke valgt/W");
 		
 		Sted sted = stedliste.finnSted(s, f);
 		if(sted == null)
+			return Resultat.melding("Ukjent programfeil (B008)/E");
+		if(utvalg.getOmfang() == Utvalg.STED)
 		{
-			SkrivMelding.skriv("Ukjent programfeil (B008)/E", panel);
-			return null;
-		}
-		if(rsted.isSelected())
-		{
-			return finnGjennomsnittSted(r, panel, f, sted);
+			return finnGjennomsnittSted(r, f, sted);
 		}
 		
 		return null;
@@ -325,58 +342,47 @@ public class Gjennomsnitt
 	 * Metode som returnerer et flerdimensjonalt Object-array til bruk i tabell
 	 * Skrevet av: Brd Skeie
 	 * @param r	int-verdi av ret
-	 * @param panel	aktuelt panel
 	 * @param fylke	fylkesvelger
 	 * @param sted	Sted-objektet
-	 * @return	2-dim. Object-array med gjennomsnittsdata, en linje per mned samt en for r
+	 * @return	Resultat med gjennomsnittsdata, en linje per mned samt en for r
 	 */
-	public static Object[][] finnGjennomsnittSted(int r, JPanel panel, int fylke, Sted sted)
+	public static Resultat finnGjennomsnittSted(int r, int fylke, Sted sted)
 	{
-		String[] mneder = utvidArray(MetroPanel.MNEDER,"Hele ret");
+		String[] mneder = utvidArray(Dato.MNEDER,"Hele ret");
 		Object[][] returarray = new Object[13][5];
+		double[][] dataarray = gjennomsnittMneder(r, sted);
 		
-		for(int i = 0; i < returarray.length - 1; i++)
+		for(int i = 0; i < returarray.length; i++)
 		{
-			double[] mndArray = gjennomsnitt(panel, r, i, sted);
 			returarray[i][0] = mneder[i];
 			returarray[i][1] = null;
-			returarray[i][2] = mndArray[0] >= 0 ? mndArray[0] : null;
-			returarray[i][3] = mndArray[1] >= 0 ? mndArray[1] : null;
-			returarray[i][4] = mndArray[2] <= Registrering.MAXMAXTEMP ? mndArray[2] : null;
+			returarray[i][2] = dataarray[i][0] >= 0 ? dataarray[i][0] : null;
+			returarray[i][3] = dataarray[i][1] >= 0 ? dataarray[i][1] : null;
+			returarray[i][4] = dataarray[i][2] <= Registrering.MAXMAXTEMP ? dataarray[i][2] : null;
 		}
 		
-		double[] rArray = gjennomsnitt(panel, r, sted);
-		
-		returarray[returarray.length-1][0] = mneder[returarray.length-1];
-		returarray[returarray.length-1][1] = null;
-		returarray[returarray.length-1][2] = rArray[0] >= 0 ? rArray[0] : null;
-		returarray[returarray.length-1][3] = rArray[1] >= 0 ? rArray[1] : null;
-		returarray[returarray.length-1][4] = rArray[2] <= Registrering.MAXMAXTEMP ? rArray[2] : null;
-				
-		return returarray;		
+		return Resultat.tabell(returarray);
 	}
 	
 	/**
 	 * Metode som lager og returnerer et 2-dim. Object-array med data som viser aktuelt gjennomsnitt.
 	 * Skrevet av: Brd Skeie
 	 * @param sl Stedliste med alle data.
-	 * @param panel Aktuelt panel.
 	 * @param f Fylkesvelger.
 	 * @param r rvelger.
-	 * @return 2-dim. Object-array med gjennomsnittsdata, en linje per mned samt en for r
+	 * @return Resultat med gjennomsnittsdata, en linje per mned samt en for r, eller null om sket ble avbrutt
 	 */
-	public static Object[][] finnGjennomsnittFylke(Stedliste sl, JPanel panel, int f, int r)
+	public static Resultat finnGjennomsnittFylke(Stedliste sl, int f, int r)
 	{
 		Stedliste fylkesl = sl.finnSted(f);
 		if(fylkesl.size() == 0)
-		{
-			SkrivMelding.skriv("Fylket har ingen registrerte steder/I", panel);
-			return null;
-		}
+			return Resultat.melding("Fylket har ingen registrerte steder/I");
 		
-		double[][] dataarray = gjennomsnittFylke(fylkesl, panel, r);
+		double[][] dataarray = gjennomsnittFylke(fylkesl, r);
+		if(dataarray == null)
+			return null;
 		Object[][] returarray = new Object[13][5];
-		String[] mneder = utvidArray(MetroPanel.MNEDER,"Hele ret");
+		String[] mneder = utvidArray(Dato.MNEDER,"Hele ret");
 		
 		for(int i = 0; i < returarray.length; i++)
 		{
@@ -387,22 +393,23 @@ public class Gjennomsnitt
 			returarray[i][4] = dataarray[i][2] <= Registrering.MAXMAXTEMP ? dataarray[i][2] : null;
 		}
 		
-		return returarray;
+		return Resultat.tabell(returarray);
 	}
 	
 	/**
 	 * Metode som lager og returnerer et 2-dim. Object-array med data som viser aktuelt gjennomsnitt.
 	 * Skrevet av: Brd Skeie
 	 * @param sl Stedliste med alle data.
-	 * @param panel Aktuelt panel.
 	 * @param r rvelger.
-	 * @return  2-dim. Object-array med gjennomsnittsdata, en linje per mned samt en for r
+	 * @return  Resultat med gjennomsnittsdata, en linje per mned samt en for r, eller null om sket ble avbrutt
 	 */
-	public static Object[][] finnGjennomsnittLand(Stedliste sl, JPanel panel, int r)
+	public static Resultat finnGjennomsnittLand(Stedliste sl, int r)
 	{
-		double[][] dataarray = gjennomsnittLand(sl, panel, r);
+		double[][] dataarray = gjennomsnittLand(sl, r);
+		if(dataarray == null)
+			return null;
 		Object[][] returarray = new Object[13][5];
-		String[] mneder = utvidArray(MetroPanel.MNEDER,"Hele ret");
+		String[] mneder = utvidArray(Dato.MNEDER,"Hele ret");
 		
 		for(int i = 0; i < returarray.length; i++)
 		{
@@ -413,7 +420,7 @@ public class Gjennomsnitt
 			returarray[i][4] = dataarray[i][2] <= Registrering.MAXMAXTEMP ? dataarray[i][2] : null;
 		}
 		
-		return returarray;
+		return Resultat.tabell(returarray);
 	}
 	
 	/**
@@ -0,0 +1,92 @@
+/**
+ * Inneholder klassen Parallell.
+ */
+package logic;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ *	Klassen styrer om skene over hele landet skal g gjennom stedene i parallell. Da deles stedene opp i deloppgaver som kjres
+ *	p en felles ForkJoinPool, og delresultatene sls sammen i samme rekkeflge som stedene har i listen, slik at svaret blir det samme
+ *	som nr stedene gs gjennom ett og ett. Parallelliteten settes med setParallellitet(...), eller ved oppstart med -Dmetrodata.parallell=antall trder.
+ *	0 betyr at skene gr sekvensielt, som fr.
+ */
+public class Parallell
+{
+	/**
+	 * Minste antall steder i en deloppgave. Frre steder enn dette gs gjennom direkte.
+	 */
+	public static final int TERSKEL = 64;
+	
+	private static int parallellitet = Math.max(0, Integer.getInteger("metrodata.parallell", 0));
+	private static ForkJoinPool pool;
+	
+	/**
+	 * Setter hvor mange trder skene skal bruke. Den gamle poolen avsluttes nr oppgavene den har er ferdige.
+	 * @param trder	Antall trder, eller 0 for  g gjennom stedene sekvensielt
+	 */
+	public static synchronized void setParallellitet(int trder)
+	{
+		parallellitet = Math.max(0, trder);
+		if(pool != null)
+		{
+			pool.shutdown();
+			pool = null;
+		}
+	}
+	
+	/**
+	 * @return	Antall trder skene bruker, eller 0 om de gr sekvensielt
+	 */
+	public static synchronized int getParallellitet()
+	{
+		return parallellitet;
+	}
+	
+	/**
+	 * Sjekker om skene skal g i parallell for et gitt antall steder eller fylker
+	 * @param antall	Antall steder eller fylker som skal gs gjennom
+	 * @param terskel	Minste antall som lnner seg  dele opp
+	 * @return	true hvis parallell kjring er valgt og det er nok  dele opp
+	 */
+	static synchronized boolean brukes(int antall, int terskel)
+	{
+		return parallellitet > 0 && antall > terskel;
+	}
+	
+	/**
+	 * Kjrer en oppgave p poolen og venter p svaret. Blir trden som venter avbrutt, ventes det til oppgaven har stoppet, og null returneres,
+	 * slik at sk i bakgrunnen kan avbrytes som fr. Oppgaven br derfor sjekke om trden som startet den er avbrutt.
+	 * @param oppgave	Oppgaven som skal kjres
+	 * @return	Svaret fra oppgaven, eller null om den ble avbrutt
+	 */
+	static <T> T kjr(ForkJoinTask<T> oppgave)
+	{
+		synchronized(Parallell.class)
+		{
+			if(pool == null)
+				pool = new ForkJoinPool(Math.max(1, parallellitet));
+			pool.execute(oppgave);
+		}
+		try
+		{
+			return oppgave.get();
+		}
+		catch(InterruptedException ie)
+		{
+			// Deloppgavene leser stedlisten, s lsen p listen kan ikke slippes fr de har stoppet.
+			// De sjekker om trden som startet sket er avbrutt, og gir seg raskt.
+			Thread.currentThread().interrupt();
+			oppgave.join();
+			return null;
+		}
+		catch(ExecutionException ee)
+		{
+			if(ee.getCause() instanceof RuntimeException)
+				throw (RuntimeException)ee.getCause();
+			throw new RuntimeException(ee.getCause());
+		}
+	} // end of kjr(...)
+} // end of class Parallell
\ No newline at end of file
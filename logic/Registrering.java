@@ -23,7 +23,11 @@ public class Registrering
 	 */
 	public static final double MAXMINTEMP = -60, MAXMAXTEMP =  40, MAXNEDBR = 300;
 	/**
-	 * Metode for  registrere sted
+	 * Tilbakemelding nr datafilen er pnet skrivebeskyttet (se Filhndterer), og ingenting kan registreres eller slettes.
+	 */
+	private static final String SKRIVEBESKYTTET = "Datafilen er pnet skrivebeskyttet, og kan ikke endres/W";
+	/**
+	 * Metode for  registrere sted. Stedlisten lses bare mens stedet settes inn.
 	 * Skrevet av: Lars Smeby
 	 * @param navn JTextField med navn p sted
 	 * @param fylke JComboBox med fylke
@@ -32,6 +36,8 @@ public class Registrering
 	 */
 	public static String registrerSted(JTextField navn, JComboBox fylke, Stedliste stedliste)
 	{
+		if(stedliste.erSkrivebeskyttet())
+			return SKRIVEBESKYTTET;
 		String n = navn.getText();
 		String pattern = "[a-zA-Z(-.)\\s]*";
 		
@@ -41,15 +47,19 @@ public class Registrering
 		if(!n.matches(pattern))
 			return "Stednavnet skal kun inneholde bokstaver/I";
 
-		if (stedliste.finnSted(n, fylke.getSelectedIndex()) != null)
-			return "Dette stedet eksisterer allerede i dette fylket/I";
-		
-		stedliste.settInn(new Sted(n, fylke.getSelectedIndex()));
+		synchronized(stedliste)
+		{
+			if (stedliste.finnSted(n, fylke.getSelectedIndex()) != null)
+				return "Dette stedet eksisterer allerede i dette fylket/I";
+			
+			stedliste.settInn(new Sted(n, fylke.getSelectedIndex()));
+		}
 		return n+" ble registrert i "+fylke.getSelectedItem().toString()+"/I";
 	}
 	
 	/**
 	 * Metode for  slette steder. Data tilknyttet stedet blir ogs slettet.
+	 * Brukeren svarer p sprsmlet fr stedlisten lses, s autolagringen ikke m vente p dialogboksen.
 	 * Skrevet av: Brd Skeie
 	 * @param fylke Fylket som stedet hrer til.
 	 * @param sted Stedsnavn p stedet som skal slettes.
@@ -59,6 +69,8 @@ public class Registrering
 	 */
 	public static String slettSted(JComboBox fylke, JComboBox sted, Stedliste sl, JPanel panel )
 	{
+		if(sl.erSkrivebeskyttet())
+			return SKRIVEBESKYTTET;
 		String stedString = (String) sted.getSelectedItem();
 		if(stedString == null)
 			return "Ingen steder valgt/W";
@@ -74,21 +86,29 @@ public class Registrering
 			return null;	
 		else
 		{
-			Sted slettSted = sl.finnSted(stedString, fylke.getSelectedIndex());
-			if(slettSted == null)
-				return "Ukjent programfeil! (B009)/E";
-			sl.slettSted(slettSted);
+			synchronized(sl)
+			{
+				Sted slettSted = sl.finnSted(stedString, fylke.getSelectedIndex());
+				if(slettSted == null)
+					return "Ukjent programfeil! (B009)/E";
+				sl.slettSted(slettSted);
+			}
 			return stedString + " og alle tilhrende data ble slettet fra registeret./I";
 		}
 	} // end of slettSted(...)
 	
 	/**
 	 * Metode som registrerer vrdata for et sted.
+	 * Stedlisten lses bare mens stedet og datoen sls opp og mens datoen endres, ikke mens brukeren svarer p om registrerte verdier
+	 * skal overskrives, s autolagringen og sk i bakgrunnen ikke m vente p dialogboksene. Datoene endres bare fra event dispatch-trden,
+	 * s verdiene som vises i dialogboksene er de samme nr lsen tas igjen.
 	 * Skrevet av: Brd Skeie
 	 * @return String med tilbakemelding p resultat.
 	 */
 	public static String registrerData(JTextField min, JTextField max, JTextField ned, Stedliste stedliste, JComboBox navn, JComboBox fylke, JComboBox lr, JComboBox lmned, JComboBox ldag, JPanel panel )
 	{
+		if(stedliste.erSkrivebeskyttet())
+			return SKRIVEBESKYTTET;
 		String minTempString = min.getText();
 		String maxTempString = max.getText();
 		String nedbrString = ned.getText();
@@ -165,24 +185,22 @@ public class Registrering
 		String n = (String) navn.getSelectedItem();
 		if(n == null)
 			return "Ingen steder valgt/W";
-		Sted sted = stedliste.finnSted(n, fylke.getSelectedIndex());
-		if(sted == null)
-			return "Ukjent programfeil! (B011)/E";
-		
-		Datoliste dl = sted.getDatoliste();
-		Dato d = dl.finnDato(r, mned, dag);
-		if(d == null)
+		Sted sted;
+		Dato d;
+		synchronized(stedliste)
 		{
-			d = new Dato(dag, mned, r);
-			dl.settInn(d);
+			sted = stedliste.finnSted(n, fylke.getSelectedIndex());
+			d = sted == null ? null : sted.getDatoliste().finnDato(r, mned, dag);
 		}
+		if(sted == null)
+			return "Ukjent programfeil! (B011)/E";
 		
 		double gammelMaksTemp = MAXMAXTEMP + 1;
 		double gammelMinTemp = MAXMAXTEMP + 1;
 		
 		Object[] valg = { "Ja", "Nei" }; //Valg til showOptionDialog-boksene.
 		
-		if(minT)
+		if(minT && d != null)
 		{
 			if(d.getMinTemp() < MAXMAXTEMP)
 			{
@@ -197,13 +215,9 @@ public class Registrering
 				else
 					gammelMinTemp = d.getMinTemp();
 			}
-			if(minT)
-			{
-				d.setMinTemp(minTemp);
-			} // end of if(minT)
 		} // end of if(minT)
 		
-		if(maxT)
+		if(maxT && d != null)
 		{
 			if(d.getMaxTemp() < MAXMAXTEMP)
 			{
@@ -218,13 +232,9 @@ public class Registrering
 				else
 					gammelMaksTemp = d.getMaxTemp();
 			}
-			if(maxT)
-			{
-				d.setMaxTemp(maxTemp);
-			} // end of if(maxT)
 		} // end of if(maxT)
 		
-		if(nedB)
+		if(nedB && d != null)
 		{
 			if(d.getNedbr() >= 0)
 			{
@@ -237,40 +247,55 @@ public class Registrering
 				if(svar == 1 || svar == JOptionPane.CLOSED_OPTION)
 					nedB = false;					
 			}
-			if(nedB)
-			{
-				d.setNedbr(nedbr);
-			} // end of if(nedB)
 		} // end of if(nedB)
 		
+		// En ny dato fr ingen sprsml, s den har alltid minst n verdi her og blir aldri satt inn tom
 		if(!nedB && !minT && !maxT)
 			return "Ingen data registrert/I";
 		
-		/**
-		 * 	Hvis det kun er endret minimumstemperatur og maksimumstemperatur allerede eksisterer slr denne til
-		 */
-		if(minT && !maxT && d.getMaxTemp() <= MAXMAXTEMP && d.getMinTemp() > d.getMaxTemp())
-		{
-			d.setMinTemp(gammelMinTemp);
-			String feilretur = "Minimumstemperaturen er hyere enn allerede registrert maksimumstemperatur, og blir derfor ikke endret.";
-			if(nedB)
-				feilretur += " Nedbren ble endret.";
-			feilretur += "/W";
-			return feilretur;
-		}
-		/**
-		 * 	Hvis det kun er endret maksimumstemperatur og minimumstemperatur allerede eksisterer slr denne til
-		 */
-		if(!minT && maxT && d.getMinTemp() <= MAXMAXTEMP && d.getMinTemp() > d.getMaxTemp())
+		synchronized(stedliste)
 		{
-			d.setMaxTemp(gammelMaksTemp);
-			String feilretur = "Maksimumstemperaturen er lavere enn allerede registrert minimumstemperatur, og blir derfor ikke endret.";
+			if(d == null)
+			{
+				d = new Dato(dag, mned, r);
+				sted.getDatoliste().settInn(d);
+			}
+			if(minT)
+				d.setMinTemp(minTemp);
+			if(maxT)
+				d.setMaxTemp(maxTemp);
 			if(nedB)
-				feilretur += " Nedbren ble endret.";
-			feilretur += "/W";
-			return feilretur;
+				d.setNedbr(nedbr);
+			
+			/**
+			 * 	Hvis det kun er endret minimumstemperatur og maksimumstemperatur allerede eksisterer slr denne til
+			 */
+			if(minT && !maxT && d.getMaxTemp() <= MAXMAXTEMP && d.getMinTemp() > d.getMaxTemp())
+			{
+				d.setMinTemp(gammelMinTemp);
+				stedliste.dataEndret(sted, d.getDagnummer());
+				String feilretur = "Minimumstemperaturen er hyere enn allerede registrert maksimumstemperatur, og blir derfor ikke endret.";
+				if(nedB)
+					feilretur += " Nedbren ble endret.";
+				feilretur += "/W";
+				return feilretur;
+			}
+			/**
+			 * 	Hvis det kun er endret maksimumstemperatur og minimumstemperatur allerede eksisterer slr denne til
+			 */
+			if(!minT && maxT && d.getMinTemp() <= MAXMAXTEMP && d.getMinTemp() > d.getMaxTemp())
+			{
+				d.setMaxTemp(gammelMaksTemp);
+				stedliste.dataEndret(sted, d.getDagnummer());
+				String feilretur = "Maksimumstemperaturen er lavere enn allerede registrert minimumstemperatur, og blir derfor ikke endret.";
+				if(nedB)
+					feilretur += " Nedbren ble endret.";
+				feilretur += "/W";
+				return feilretur;
+			}
+			
+			stedliste.dataEndret(sted, d.getDagnummer());
 		}
-		
 		return "Data ble satt inn i tabellen/I";
 	} // end of registrerData(...)
 } // end of class Registrering
\ No newline at end of file
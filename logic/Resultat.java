@@ -0,0 +1,87 @@
+/**
+ * Inneholder klassen Resultat.
+ */
+package logic;
+
+/**
+ *	Klassen er resultatet av et sk: enten en tabell, data til grafikk, eller en melding til brukeren nr sket ikke ga noe  vise.
+ *	Meldingen er p samme format som SkrivMelding.skriv(...) tar imot, "Meldingstekst/X".
+ */
+public class Resultat
+{
+	private final Object[][] tabell;
+	private final double[][] grafikk;
+	private final String melding;
+	
+	/**
+	 * Privat konstruktr, resultater opprettes med de statiske metodene.
+	 */
+	private Resultat(Object[][] tabell, double[][] grafikk, String melding)
+	{
+		this.tabell = tabell;
+		this.grafikk = grafikk;
+		this.melding = melding;
+	}
+	
+	/**
+	 * Oppretter et resultat som skal vises i en tabell.
+	 * @param tabell	radene i tabellen
+	 * @return	resultatet
+	 */
+	public static Resultat tabell(Object[][] tabell)
+	{
+		return new Resultat(tabell, null, null);
+	}
+	
+	/**
+	 * Oppretter et resultat som skal tegnes ut som grafikk.
+	 * @param grafikk	nedbr p frste linje og temperatur p andre linje
+	 * @return	resultatet
+	 */
+	public static Resultat grafikk(double[][] grafikk)
+	{
+		return new Resultat(null, grafikk, null);
+	}
+	
+	/**
+	 * Oppretter et resultat uten data, med en melding om hvorfor.
+	 * @param melding	meldingen p formatet "Meldingstekst/X"
+	 * @return	resultatet
+	 */
+	public static Resultat melding(String melding)
+	{
+		return new Resultat(null, null, melding);
+	}
+	
+	/**
+	 * @return	true om resultatet har data, og false om det bare har en melding
+	 */
+	public boolean harData()
+	{
+		return melding == null;
+	}
+	
+	/**
+	 * @return	tabellen, eller null om resultatet ikke er en tabell
+	 */
+	public Object[][] getTabell()
+	{
+		return tabell;
+	}
+	
+	/**
+	 * @return	dataene til grafikk, eller null om resultatet ikke er grafikk
+	 */
+	public double[][] getGrafikk()
+	{
+		return grafikk;
+	}
+	
+	/**
+	 * @return	meldingen, eller null om resultatet har data
+	 */
+	public String getMelding()
+	{
+		return melding;
+	}
+} // end of class Resultat
\ No newline at end of file
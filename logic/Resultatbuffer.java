@@ -0,0 +1,260 @@
+/**
+ * Inneholder klassen Resultatbuffer.
+ */
+package logic;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import data.Dato;
+import data.Endringslytter;
+import data.Sted;
+import data.Stedliste;
+
+/**
+ *	Klassen tar vare p de siste skeresultatene for en stedliste, slik at et sk som gjentas ikke m regnes ut p nytt.
+ *	Resultatene lagres p det normaliserte utvalget, og nr bufferen er full kastes resultatet som er brukt minst nylig.
+ *	Hvert resultat husker hvilket omrde og hvilke dager det dekker. Bufferen lytter p stedlisten, og nr et sted settes inn eller slettes
+ *	eller vrdata registreres, kastes nyaktig de resultatene som dekker stedet og datoen, slik at et sk aldri fr et utdatert resultat.
+ *	Bufferen teller treff, bom, resultater som er kastet fordi bufferen var full, og resultater som er kastet fordi dataene er endret.
+ */
+public class Resultatbuffer implements Endringslytter
+{
+	/**
+	 * Antall resultater bufferen holder p dersom ikke noe annet er valgt
+	 */
+	public static final int STANDARDSTRRELSE = 64;
+	
+	/**
+	 * Et lagret resultat, med omrdet og dagene det dekker
+	 */
+	private static class Oppfring
+	{
+		private Resultat resultat;
+		private int omfang, fylke, fraDag, tilDag;
+		private Sted sted;
+	} // end of class Oppfring
+	
+	private final int strrelse;
+	private final LinkedHashMap<Utvalg, Oppfring> oppfringer;
+	private long treff, bom, utkastet, ugyldiggjort;
+	/**
+	 * Telles opp for hver endring i stedlisten, slik at et resultat som ble regnet ut mens dataene ble endret ikke lagres.
+	 */
+	private long versjon;
+	
+	/**
+	 * Konstruktr, oppretter en tom buffer og registrerer den som lytter p stedlisten
+	 * @param sl	Stedlisten resultatene gjelder
+	 * @param strrelse	Hvor mange resultater bufferen skal holde p, minst 1
+	 */
+	public Resultatbuffer(Stedliste sl, int strrelse)
+	{
+		this.strrelse = Math.max(1, strrelse);
+		oppfringer = new LinkedHashMap<Utvalg, Oppfring>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+			
+			protected boolean removeEldestEntry(Map.Entry<Utvalg, Oppfring> eldste)
+			{
+				if(size() <= Resultatbuffer.this.strrelse)
+					return false;
+				utkastet++;
+				return true;
+			}
+		};
+		sl.leggTilLytter(this);
+	}
+	
+	/**
+	 * Henter et lagret resultat for et utvalg
+	 * @param utvalg	Utvalget det skes etter
+	 * @return	Resultatet, eller null dersom det ikke er lagret
+	 */
+	public synchronized Resultat hent(Utvalg utvalg)
+	{
+		Utvalg nkkel = utvalg.normalisert();
+		Oppfring oppfring = oppfringer.get(nkkel);
+		// Grafer over mange r kan ha ftt et annet antall r siden resultatet ble lagret
+		if(oppfring != null && (oppfring.fraDag != fraDag(nkkel) || oppfring.tilDag != tilDag(nkkel)))
+		{
+			oppfringer.remove(nkkel);
+			ugyldiggjort++;
+			oppfring = null;
+		}
+		if(oppfring == null)
+		{
+			bom++;
+			return null;
+		}
+		treff++;
+		return oppfring.resultat;
+	}
+	
+	/**
+	 * Lagrer resultatet av et sk, dersom stedlisten ikke er endret siden sket startet
+	 * @param utvalg	Utvalget som ble skt etter
+	 * @param resultat	Resultatet av sket
+	 * @param sted	Stedet sket gjaldt, eller null dersom sket gjaldt et fylke eller hele landet, eller stedet ikke finnes
+	 * @param startversjon	Verdien av getVersjon() fr sket startet
+	 */
+	public synchronized void legg(Utvalg utvalg, Resultat resultat, Sted sted, long startversjon)
+	{
+		if(startversjon != versjon)
+			return;
+		Utvalg nkkel = utvalg.normalisert();
+		Oppfring oppfring = new Oppfring();
+		oppfring.resultat = resultat;
+		oppfring.omfang = nkkel.getOmfang();
+		oppfring.fylke = nkkel.getFylke();
+		oppfring.sted = sted;
+		oppfring.fraDag = fraDag(nkkel);
+		oppfring.tilDag = tilDag(nkkel);
+		oppfringer.put(nkkel, oppfring);
+	}
+	
+	/**
+	 * Returnerer et tall som endres hver gang stedlisten endres
+	 * @return	versjonen av dataene
+	 */
+	public synchronized long getVersjon()
+	{
+		return versjon;
+	}
+	
+	/**
+	 * Kaster resultatene for omrdet til stedet, siden et sted som settes inn eller slettes endrer hvilke steder fylket og landet har.
+	 * @param s	Stedet som er satt inn eller slettet
+	 */
+	public synchronized void stedEndret(Sted s)
+	{
+		versjon++;
+		Iterator<Oppfring> iterator = oppfringer.values().iterator();
+		while(iterator.hasNext())
+		{
+			Oppfring oppfring = iterator.next();
+			if(oppfring.omfang == Utvalg.LAND || oppfring.fylke == s.getFylke())
+			{
+				iterator.remove();
+				ugyldiggjort++;
+			}
+		}
+	}
+	
+	/**
+	 * Kaster resultatene som dekker stedet og datoen som er endret
+	 * @param s			Stedet som har ftt endrede data
+	 * @param dagnummer	Dagnummeret til datoen som er endret
+	 */
+	public synchronized void dataEndret(Sted s, int dagnummer)
+	{
+		versjon++;
+		Iterator<Oppfring> iterator = oppfringer.values().iterator();
+		while(iterator.hasNext())
+		{
+			Oppfring oppfring = iterator.next();
+			if(dagnummer < oppfring.fraDag || dagnummer > oppfring.tilDag)
+				continue;
+			if(oppfring.omfang == Utvalg.LAND || (oppfring.omfang == Utvalg.FYLKE && oppfring.fylke == s.getFylke()) || oppfring.sted == s)
+			{
+				iterator.remove();
+				ugyldiggjort++;
+			}
+		}
+	}
+	
+	/**
+	 * Kaster alle lagrede resultater. Tellerne beholdes.
+	 */
+	public synchronized void tm()
+	{
+		versjon++;
+		ugyldiggjort += oppfringer.size();
+		oppfringer.clear();
+	}
+	
+	/**
+	 * Finner det frste dagnummeret et normalisert utvalg dekker
+	 * @param u	Normalisert utvalg
+	 * @return	Frste dagnummer
+	 */
+	private static int fraDag(Utvalg u)
+	{
+		if(u.getAggregering() == Utvalg.REKORD)
+			return Integer.MIN_VALUE;
+		switch(u.getPeriode())
+		{
+			case Utvalg.DAG:		return Dato.tilDagnummer(u.getr(), u.getMned(), u.getDag());
+			case Utvalg.MNED:		return Dato.tilDagnummer(u.getr(), u.getMned(), 1);
+			case Utvalg.MANGE_R:	return Dato.tilDagnummer(u.getr() - Utvikling.antallr(u.getr()) + 1, 0, 1);
+			default:				return Dato.tilDagnummer(u.getr(), 0, 1);
+		}
+	}
+	
+	/**
+	 * Finner det siste dagnummeret et normalisert utvalg dekker
+	 * @param u	Normalisert utvalg
+	 * @return	Siste dagnummer
+	 */
+	private static int tilDag(Utvalg u)
+	{
+		if(u.getAggregering() == Utvalg.REKORD)
+			return Integer.MAX_VALUE;
+		switch(u.getPeriode())
+		{
+			case Utvalg.DAG:		return Dato.tilDagnummer(u.getr(), u.getMned(), u.getDag());
+			case Utvalg.MNED:		return Dato.tilDagnummer(u.getr(), u.getMned() + 1, 1) - 1;
+			default:				return Dato.tilDagnummer(u.getr() + 1, 0, 1) - 1;
+		}
+	}
+	
+	/**
+	 * @return	antall sk som ble funnet i bufferen
+	 */
+	public synchronized long getTreff()
+	{
+		return treff;
+	}
+	
+	/**
+	 * @return	antall sk som ikke ble funnet i bufferen
+	 */
+	public synchronized long getBom()
+	{
+		return bom;
+	}
+	
+	/**
+	 * @return	antall resultater som er kastet fordi bufferen var full
+	 */
+	public synchronized long getUtkastet()
+	{
+		return utkastet;
+	}
+	
+	/**
+	 * @return	antall resultater som er kastet fordi dataene de dekker er endret
+	 */
+	public synchronized long getUgyldiggjort()
+	{
+		return ugyldiggjort;
+	}
+	
+	/**
+	 * @return	antall resultater i bufferen n
+	 */
+	public synchronized int size()
+	{
+		return oppfringer.size();
+	}
+	
+	/**
+	 * Returnerer tellerne som tekst, for feilsking
+	 */
+	public synchronized String toString()
+	{
+		return "Resultatbuffer: " + oppfringer.size() + "/" + strrelse + " resultater, " + treff + " treff, " + bom + " bom, "
+				+ utkastet + " utkastet, " + ugyldiggjort + " ugyldiggjort";
+	}
+} // end of class Resultatbuffer
\ No newline at end of file
@@ -9,6 +9,7 @@ package logic;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
 /**
  *	Klassen inneholder statiske hjelpemetoder for utskrift av dialogbokser til brukeren.
@@ -18,12 +19,28 @@ public class SkrivMelding
 	/**
 	 * Metode som tar imot en spesialkonstruert String og skriver ut en melding.
 	 * Meldingen m vre p formatet "Meldingstekst/X der X m vre I, W, E eller et valgfritt tegn.
+	 * Kalles metoden fra et sk som kjrer i bakgrunnen, vises meldingen p event dispatch-trden uten at sket venter p den,
+	 * og meldinger fra sk som er avbrutt vises ikke.
 	 * Skrevet av: Lars Smeby
 	 * @param melding	Meldingsteksten med avsluttende kodebokstav
 	 * @param panel	Panelet metoden kalles fra
 	 */
-	public static void skriv(String melding, JPanel panel)
+	public static void skriv(final String melding, final JPanel panel)
 	{
+		if(!SwingUtilities.isEventDispatchThread())
+		{
+			if(Thread.currentThread().isInterrupted())
+				return;
+			SwingUtilities.invokeLater(new Runnable()
+			{
+				public void run()
+				{
+					skriv(melding, panel);
+				}
+			});
+			return;
+		}
+		
 		String kode = melding.substring(melding.length()-1);
 		String utskrift = melding.substring(0, melding.length()-2);
 		String overskrift = "Info";
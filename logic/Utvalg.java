@@ -0,0 +1,172 @@
+/**
+ * Inneholder klassen Utvalg.
+ */
+package logic;
+
+/**
+ *	Klassen beskriver et sk i vrdataene, uavhengig av gui: hva som skal regnes ut, hvilken verdi det gjelder,
+ *	hvilket omrde og hvilken tidsperiode. Et utvalg kjres med Analyse.kjr(...), som gir et Resultat.
+ *	Objektene kan ikke endres etter at de er opprettet, og to like utvalg er like etter equals(...).
+ */
+public class Utvalg
+{
+	/**
+	 * Hva som skal regnes ut: alle registrerte verdier, gjennomsnitt, utvikling over tid (grafikk), ekstremverdier
+	 * (enkeltverdier eller gjennomsnitt) eller mnedlige rekorder.
+	 */
+	public static final int VERDIER = 0, GJENNOMSNITT = 1, UTVIKLING = 2, EKSTREMVERDI = 3, EKSTREM_GJENNOMSNITT = 4, REKORD = 5;
+	/**
+	 * Verdien sket gjelder. For ekstremverdier og rekorder brukes typene fra Datoliste (LAVESTE_MINTEMP, HYESTE_MAXTEMP,
+	 * LAVESTE_NEDBR og HYESTE_NEDBR), ellers ALLE.
+	 */
+	public static final int ALLE = -1;
+	/**
+	 * Omrdet sket gjelder.
+	 */
+	public static final int LAND = 0, FYLKE = 1, STED = 2;
+	/**
+	 * Tidsperioden sket gjelder. MANGE_R er de siste rene frem til og med valgt r (se Utvikling.getAntallr()).
+	 */
+	public static final int DAG = 0, MNED = 1, R = 2, MANGE_R = 3;
+	
+	private final int aggregering, mling, omfang, fylke, periode, r, mned, dag;
+	private final String sted;
+	
+	/**
+	 * Oppretter et utvalg. Verdier som ikke brukes for den valgte aggregeringen, omfanget eller perioden blir ikke sjekket.
+	 * @param aggregering	VERDIER, GJENNOMSNITT, UTVIKLING, EKSTREMVERDI, EKSTREM_GJENNOMSNITT eller REKORD
+	 * @param mling	typen fra Datoliste for ekstremverdier og rekorder, ellers ALLE
+	 * @param omfang	LAND, FYLKE eller STED
+	 * @param fylke	fylkesnummeret, for fylker og steder
+	 * @param sted	navnet p stedet, eller null om ingen steder er valgt
+	 * @param periode	DAG, MNED, R eller MANGE_R
+	 * @param r	rstallet
+	 * @param mned	mneden (0-11)
+	 * @param dag	dagen i mneden
+	 */
+	public Utvalg(int aggregering, int mling, int omfang, int fylke, String sted, int periode, int r, int mned, int dag)
+	{
+		this.aggregering = aggregering;
+		this.mling = mling;
+		this.omfang = omfang;
+		this.fylke = fylke;
+		this.sted = sted;
+		this.periode = periode;
+		this.r = r;
+		this.mned = mned;
+		this.dag = dag;
+	}
+	
+	/**
+	 * @return	hva som skal regnes ut
+	 */
+	public int getAggregering()
+	{
+		return aggregering;
+	}
+	
+	/**
+	 * @return	typen fra Datoliste, eller ALLE
+	 */
+	public int getMling()
+	{
+		return mling;
+	}
+	
+	/**
+	 * @return	LAND, FYLKE eller STED
+	 */
+	public int getOmfang()
+	{
+		return omfang;
+	}
+	
+	/**
+	 * @return	fylkesnummeret
+	 */
+	public int getFylke()
+	{
+		return fylke;
+	}
+	
+	/**
+	 * @return	navnet p stedet, eller null
+	 */
+	public String getSted()
+	{
+		return sted;
+	}
+	
+	/**
+	 * @return	DAG, MNED, R eller MANGE_R
+	 */
+	public int getPeriode()
+	{
+		return periode;
+	}
+	
+	/**
+	 * @return	rstallet
+	 */
+	public int getr()
+	{
+		return r;
+	}
+	
+	/**
+	 * @return	mneden (0-11)
+	 */
+	public int getMned()
+	{
+		return mned;
+	}
+	
+	/**
+	 * @return	dagen i mneden
+	 */
+	public int getDag()
+	{
+		return dag;
+	}
+	
+	/**
+	 * Returnerer et likt utvalg der verdiene sket ikke bruker er nullstilt, slik at sk som gir samme resultat ogs blir like etter equals(...).
+	 * Stedet brukes bare for steder, fylket ikke for hele landet, dagen bare for n dag og mneden bare for n dag eller mned.
+	 * Gjennomsnitt gjelder alltid et helt r, og rekorder alltid alle r for hele landet.
+	 * @return	det normaliserte utvalget
+	 */
+	public Utvalg normalisert()
+	{
+		if(aggregering == REKORD)
+			return new Utvalg(REKORD, mling, LAND, 0, null, R, 0, 0, 0);
+		boolean medMling = aggregering == EKSTREMVERDI || aggregering == EKSTREM_GJENNOMSNITT;
+		int p = aggregering == GJENNOMSNITT ? R : periode;
+		return new Utvalg(aggregering, medMling ? mling : ALLE, omfang, omfang == LAND ? 0 : fylke, omfang == STED ? sted : null,
+				p, r, p == DAG || p == MNED ? mned : 0, p == DAG ? dag : 0);
+	}
+	
+	/**
+	 * Sjekker om et annet objekt er et utvalg med de samme verdiene.
+	 */
+	public boolean equals(Object o)
+	{
+		if(!(o instanceof Utvalg))
+			return false;
+		Utvalg u = (Utvalg)o;
+		return aggregering == u.aggregering && mling == u.mling && omfang == u.omfang && fylke == u.fylke && periode == u.periode
+				&& r == u.r && mned == u.mned && dag == u.dag && (sted == null ? u.sted == null : sted.equals(u.sted));
+	}
+	
+	public int hashCode()
+	{
+		int h = aggregering;
+		h = 31 * h + mling;
+		h = 31 * h + omfang;
+		h = 31 * h + fylke;
+		h = 31 * h + periode;
+		h = 31 * h + r;
+		h = 31 * h + mned;
+		h = 31 * h + dag;
+		return 31 * h + (sted == null ? 0 : sted.hashCode());
+	}
+} // end of class Utvalg
\ No newline at end of file
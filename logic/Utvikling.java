@@ -6,16 +6,15 @@
  */
 package logic;
 
-import gui.MetroPanel;
-
-import java.util.GregorianCalendar;
+import java.util.Arrays;
 import java.util.Iterator;
 
-import javax.swing.*;
-
 import data.Dato;
+import data.Datoliste;
+import data.Kube;
 import data.Sted;
 import data.Stedliste;
+import data.Utviklingsindeks;
 
 /**
  *	Klassen inneholder statiske metoder for  regne ut data som brukes til  tegne
@@ -25,124 +24,150 @@ import data.Stedliste;
 public class Utvikling
 {
 	/**
-	 * Tar imot alle input-objektene i panelet den kalles fra og konverterer dem, fr s og sende de korrekte verdiene videre. Returnerer data til grafikk.
+	 * Hvor mange r grafene over mange r viser, som standard 10
+	 */
+	private static int vindu = 10;
+	
+	/**
+	 * Tar imot et sk etter utvikling over tid og sender de korrekte verdiene videre. Returnerer data til grafikk.
 	 * Skrevet av: Lars Smeby
 	 * @param sl	Stedlisten med alle lagrede data
-	 * @param panel	Panelet metoden kalles fra
-	 * @param rland	Radioknapp "Hele landet"
-	 * @param rfylke	Radioknapp for fylke
-	 * @param rsted	Radioknapp for sted
-	 * @param rr	Radioknapp for r
-	 * @param rmned	Radioknapp for mned
-	 * @param fylke	Fylkeslisten i panelet
-	 * @param sted	Stedlisten i panelet
-	 * @param lr	rlisten i panelet
-	 * @param lmned	Mnedslisten i panelet
-	 * @return	En 2-dim. double-array klar til  genereres grafikk fra
+	 * @param utvalg	Sket, med omrde, periode (MANGE_R, R eller MNED), r og mned
+	 * @return	Resultat med en 2-dim. double-array klar til  genereres grafikk fra, eller null om sket ble avbrutt
 	 */
-	public static double[][] dataTilGrafikk(Stedliste sl, JPanel panel, JRadioButton rland,JRadioButton rfylke, JRadioButton rsted, JRadioButton rr, JRadioButton rmned, JRadioButton rmanger, JComboBox fylke, JComboBox sted, JComboBox lr, JComboBox lmned)
+	public static Resultat dataTilGrafikk(Stedliste sl, Utvalg utvalg)
 	{
-		int r;		
-		try
-		{
-			r = Integer.parseInt((String)lr.getSelectedItem());
-		}
-		catch(NumberFormatException nfe)
-		{
-			SkrivMelding.skriv("Ukjent programfeil (L012)/E", panel);
-			return null;
-		}
+		int r = utvalg.getr();
+		int mned = utvalg.getMned();
+		int periode = utvalg.getPeriode();
 		
-		if(rland.isSelected())
+		if(utvalg.getOmfang() == Utvalg.LAND)
 		{
-			if(rmanger.isSelected())
+			if(periode == Utvalg.MANGE_R)
 			{
-				return landDataManger(sl, panel, r);
+				return grafikk(landDataManger(sl, r));
 			}
-			if(rr.isSelected())
+			if(periode == Utvalg.R)
 			{
-				return landData(sl, panel, r);
+				return grafikk(landData(sl, r));
 			}
-			if(rmned.isSelected())
+			if(periode == Utvalg.MNED)
 			{
-				int mned = lmned.getSelectedIndex();
-				return landData(sl, r, mned);
+				return grafikk(landData(sl, r, mned));
 			}
-		} // end of if(rland.isSelected())
+		} // end of if(LAND)
 		
-		int f = fylke.getSelectedIndex();
+		int f = utvalg.getFylke();
 		
-		if(rfylke.isSelected())
+		if(utvalg.getOmfang() == Utvalg.FYLKE)
 		{
-			if(rmanger.isSelected())
+			if(sl.finnSted(f) == null)
 			{
-				return fylkeDataManger(sl, panel, f, r);
+				return Resultat.melding("Fylket har ingen registrerte steder/I");
 			}
-			if(rr.isSelected())
+			if(periode == Utvalg.MANGE_R)
 			{
-				return fylkeData(sl, panel, f, r);
+				return grafikk(fylkeDataManger(sl, f, r));
 			}
-			if(rmned.isSelected())
+			if(periode == Utvalg.R)
 			{
-				int mned = lmned.getSelectedIndex();
-				return fylkeData(sl, panel, f, r, mned);
+				return grafikk(fylkeData(sl, f, r));
 			}
-		} // end of if(rfylke.isSelected())
+			if(periode == Utvalg.MNED)
+			{
+				return grafikk(fylkeData(sl, f, r, mned));
+			}
+		} // end of if(FYLKE)
 		
-		String s = (String) sted.getSelectedItem();
+		String s = utvalg.getSted();
 		if(s == null)
 		{
-			SkrivMelding.skriv("Sted er ikke valgt/W", panel);
-			return null;
+			return Resultat.melding("Sted er ikke valgt/W");
 		}
 		Sted st = sl.finnSted(s, f);
 		if(st == null)
 		{
-			SkrivMelding.skriv("Ukjent programfeil (L013)/E", panel);
-			return null;
+			return Resultat.melding("Ukjent programfeil (L013)/E");
 		}
 		
-		if(rsted.isSelected())
+		if(utvalg.getOmfang() == Utvalg.STED)
 		{
-			if(rmanger.isSelected())
+			if(periode == Utvalg.MANGE_R)
 			{
-				return stedDataManger(panel, st, r);
+				return grafikk(stedDataManger(st, r));
 			}
-			if(rr.isSelected())
+			if(periode == Utvalg.R)
 			{
-				return stedData(panel,st,r);
+				return grafikk(stedData(st, r));
 			}
-			if(rmned.isSelected())
+			if(periode == Utvalg.MNED)
 			{
-				int mned = lmned.getSelectedIndex();
-				return stedData(panel,st,r,mned);
+				return grafikk(stedData(st, r, mned));
 			}
-		} // end of if(rsted.isSelected())
-		return null; //Programmet kommer aldri hit, men kompilatoren krever det siden koden ikke har noen else.
+		} // end of if(STED)
+		return null;
 	} // end of dataTilGrafikk(...)
 	
 	/**
-	 * Henter gjennomsnittsdata for hele landet fra et gitt r og 10 r bakover, og returnerer data til grafikk
+	 * Lager et Resultat med grafikkdata, eller gir null videre dersom sket ble avbrutt
+	 * @param data	Dataene fra en av metodene under, eller null
+	 * @return	Resultat med dataene, eller null
+	 */
+	private static Resultat grafikk(double[][] data)
+	{
+		return data == null ? null : Resultat.grafikk(data);
+	}
+	
+	/**
+	 * Setter hvor mange r grafene over mange r skal vise
+	 * @param antallr	Antall r, minst 1
+	 */
+	public static void setAntallr(int antallr)
+	{
+		vindu = Math.max(1, antallr);
+	}
+	
+	/**
+	 * Returnerer hvor mange r grafene over mange r viser
+	 * @return	Antall r
+	 */
+	public static int getAntallr()
+	{
+		return vindu;
+	}
+	
+	/**
+	 * Finner hvor mange r en graf over mange r frem til et gitt r skal vise. Det blir frre r enn vanlig hvis frste r i programmet ns.
+	 * @param r	Det siste ret i grafen
+	 * @return	Antall r i grafen
+	 */
+	static int antallr(int r)
+	{
+		return Math.min(vindu, r-Dato.FRSTER+1);
+	}
+	
+	/**
+	 * Henter gjennomsnittsdata for hele landet fra et gitt r og 10 r bakover (eller det antall r som er satt med setAntallr), og returnerer data til grafikk.
+	 * Dataene for hvert r hentes fra stedlistens rssummer, s hvert r koster konstant tid etter frste gang.
 	 * Skrevet av: Lars Smeby
 	 * @param sl	Stedlisten med alle lagrede data
-	 * @param panel	Panelet som metoden ble kalt fra
-	 * @param r	ret sket skal gjres frem til, alts det siste av maks 10 r
-	 * @return	En 2-dim. double-array klar til  genereres grafikk fra
+	 * @param r	ret sket skal gjres frem til, alts det siste av maks 10 r (eller getAntallr())
+	 * @return	En 2-dim. double-array klar til  genereres grafikk fra, eller null om sket ble avbrutt
 	 */
-	public static double[][] landDataManger(Stedliste sl, JPanel panel, int r)
+	public static double[][] landDataManger(Stedliste sl, int r)
 	{
-		int antallr;
-		if(r <= MetroPanel.FRSTER+9)
-			antallr = r-MetroPanel.FRSTER+1;
-		else
-			antallr = 10;
+		int antallr = antallr(r);
 		double[][] returarray = new double[2][antallr];
+		Utviklingsindeks rssummer = sl.getUtviklingsindeks();
 		
 		for(int i = 0; i < antallr; i++)
 		{
-			double[][] temparray = Gjennomsnitt.gjennomsnittLand(sl, panel, r-antallr+1+i);
-			returarray[0][i] = temparray[12][0];
-			returarray[1][i] = temparray[12][2];
+			//Sket avbrytes her dersom det kjrer i bakgrunnen og brukeren har endret valgene sine.
+			if(Thread.currentThread().isInterrupted())
+				return null;
+			double[] temparray = rssummer.land(r-antallr+1+i);
+			returarray[0][i] = temparray[0];
+			returarray[1][i] = temparray[1];
 		}
 		
 		return returarray;
@@ -152,14 +177,15 @@ public class Utvikling
 	 * Henter gjennomsnittsdata for hele landet et gitt r, en verdi for hver mned, og returnerer data til grafikk
 	 * Skrevet av: Lars Smeby
 	 * @param sl	Stedlisten med alle lagrede data
-	 * @param panel	Panelet metoden ble kalt fra
 	 * @param r	ret sket skal gjres p
-	 * @return	En 2-dim. double-array klar til  genereres grafikk fra
+	 * @return	En 2-dim. double-array klar til  genereres grafikk fra, eller null om sket ble avbrutt
 	 */
-	public static double[][] landData(Stedliste sl, JPanel panel, int r)
+	public static double[][] landData(Stedliste sl, int r)
 	{
 		double[][] returarray = new double[2][12];
-		double[][] temparray = Gjennomsnitt.gjennomsnittLand(sl, panel, r);
+		double[][] temparray = Gjennomsnitt.gjennomsnittLand(sl, r);
+		if(temparray == null)
+			return null;
 		
 		for(int i = 0; i < returarray[0].length; i++)
 		{
@@ -176,43 +202,39 @@ public class Utvikling
 	 * @param sl	Stedlisten med alle lagrede data
 	 * @param r	ret det skal skes p
 	 * @param mned	Mneden det skal skes p
-	 * @return	En 2-dim. double-array klar til  genereres grafikk fra
+	 * @return	En 2-dim. double-array klar til  genereres grafikk fra, eller null om sket ble avbrutt
 	 */
 	public static double[][] landData(Stedliste sl, int r, int mned)
 	{
-		return mnedsdata(sl, r, mned);
+		return mnedsdata(sl.getKube(), Kube.LAND, r, mned);
 	}
 	
 	/**
-	 * Henter gjennomsnittsdata for et fylke fra et gitt r og 10 r tilbake i tid, og returnerer data til grafikk
+	 * Henter gjennomsnittsdata for et fylke fra et gitt r og 10 r tilbake i tid (eller det antall r som er satt med setAntallr), og returnerer data til grafikk.
+	 * Dataene for hvert r hentes fra stedlistens rssummer, s hvert r koster konstant tid etter frste gang.
 	 * Skrevet av: Lars Smeby
 	 * @param sl	Stedlisten med alle lagrede data
-	 * @param panel	Panelet metoden kalles fra
 	 * @param fylke	Det aktuelle fylket
-	 * @param r	ret sket skal gjres frem til, alts det siste av maks 10 r
-	 * @return	En 2-dim. double-array klar til  genereres grafikk fra
+	 * @param r	ret sket skal gjres frem til, alts det siste av maks 10 r (eller getAntallr())
+	 * @return	En 2-dim. double-array klar til  genereres grafikk fra, eller null om fylket ikke finnes eller sket ble avbrutt
 	 */
-	public static double[][] fylkeDataManger(Stedliste sl, JPanel panel, int fylke, int r)
+	public static double[][] fylkeDataManger(Stedliste sl, int fylke, int r)
 	{
 		Stedliste fylkesl = sl.finnSted(fylke);
 		if(fylkesl == null)
-		{
-			SkrivMelding.skriv("Fylket har ingen registrerte steder/I", panel);
 			return null;
-		}
 		
-		int antallr;
-		if(r <= MetroPanel.FRSTER+9)
-			antallr = r-MetroPanel.FRSTER+1;
-		else
-			antallr = 10;
+		int antallr = antallr(r);
 		double[][] returarray = new double[2][antallr];
+		Utviklingsindeks rssummer = sl.getUtviklingsindeks();
 		
 		for(int i = 0; i < antallr; i++)
 		{
-			double[][] temparray = Gjennomsnitt.gjennomsnittFylke(fylkesl, panel, r-antallr+1+i);
-			returarray[0][i] = temparray[12][0];
-			returarray[1][i] = temparray[12][2];
+			if(Thread.currentThread().isInterrupted())
+				return null;
+			double[] temparray = rssummer.fylke(fylke, r-antallr+1+i);
+			returarray[0][i] = temparray[0];
+			returarray[1][i] = temparray[1];
 		}
 		
 		return returarray;
@@ -222,22 +244,20 @@ public class Utvikling
 	 * Henter gjennomsnittsdata for et fylke et gitt r, en verdi for hver mned, og returnerer data til grafikk
 	 * Skrevet av: Lars Smeby
 	 * @param sl	Stedlisten med alle lagrede data
-	 * @param panel	Panelet metoden kalles fra
 	 * @param fylke	Fylket det skal skes p
 	 * @param r	ret det skal skes p
-	 * @return	En 2-dim. double-array klar til  genereres grafikk fra
+	 * @return	En 2-dim. double-array klar til  genereres grafikk fra, eller null om fylket ikke finnes eller sket ble avbrutt
 	 */
-	public static double[][] fylkeData(Stedliste sl, JPanel panel, int fylke, int r)
+	public static double[][] fylkeData(Stedliste sl, int fylke, int r)
 	{
 		Stedliste fylkesl = sl.finnSted(fylke);
 		if(fylkesl == null)
-		{
-			SkrivMelding.skriv("Fylket har ingen registrerte steder/I", panel);
 			return null;
-		}
 		
 		double[][] returarray = new double[2][12];
-		double[][] temparray = Gjennomsnitt.gjennomsnittFylke(fylkesl, panel, r);
+		double[][] temparray = Gjennomsnitt.gjennomsnittFylke(fylkesl, r);
+		if(temparray == null)
+			return null;
 		
 		for(int i = 0; i < returarray[0].length; i++)
 		{
@@ -252,44 +272,38 @@ public class Utvikling
 	 * Henter gjennomsnittsdata for et fylke en gitt mned, en verdi for hver dag, og returnerer data til grafikk
 	 * Skrevet av: Lars Smeby
 	 * @param sl	Stedlisten med alle lagrede data
-	 * @param panel	Panelet metoden kalles fra
 	 * @param fylke	Fylket det skal skes p
 	 * @param r	ret det skal skes p
 	 * @param mned	Mneden det skal skes p
-	 * @return	En 2-dim. double-array klar til  genereres grafikk fra
+	 * @return	En 2-dim. double-array klar til  genereres grafikk fra, eller null om fylket ikke finnes eller sket ble avbrutt
 	 */
-	public static double[][] fylkeData(Stedliste sl, JPanel panel, int fylke, int r, int mned)
+	public static double[][] fylkeData(Stedliste sl, int fylke, int r, int mned)
 	{
 		Stedliste fylkesl = sl.finnSted(fylke);
 		if(fylkesl == null)
-		{
-			SkrivMelding.skriv("Fylket har ingen registrerte steder/I", panel);
 			return null;
-		}
 		
-		return mnedsdata(fylkesl, r, mned);
+		return mnedsdata(sl.getKube(), fylke, r, mned);
 	}
 	
 	/**
-	 * Henter gjennomsnittsdata for et sted et gitt r og 10 r bakover i tid, og returnerer data til grafikk
+	 * Henter gjennomsnittsdata for et sted et gitt r og 10 r bakover i tid (eller det antall r som er satt med setAntallr), og returnerer data til grafikk.
+	 * Summene for hvert r hentes fra datolistens kumulative summer.
 	 * Skrevet av: Lars Smeby
-	 * @param panel	Panelet metoden kalles fra
 	 * @param sted	Stedet det skal skes p
-	 * @param r	ret sket skal gjres frem til, alts det siste av maks 10 r
-	 * @return	En 2-dim. double-array klar til  genereres grafikk fra
+	 * @param r	ret sket skal gjres frem til, alts det siste av maks 10 r (eller getAntallr())
+	 * @return	En 2-dim. double-array klar til  genereres grafikk fra, eller null om sket ble avbrutt
 	 */
-	public static double[][] stedDataManger(JPanel panel, Sted sted, int r)
+	public static double[][] stedDataManger(Sted sted, int r)
 	{
-		int antallr;
-		if(r <= MetroPanel.FRSTER+9)
-			antallr = r-MetroPanel.FRSTER+1;
-		else
-			antallr = 10;
+		int antallr = antallr(r);
 		double[][] returarray = new double[2][antallr];
 		
 		for(int i = 0; i < antallr; i++)
 		{
-			double[] temparray = Gjennomsnitt.gjennomsnitt(panel, r-antallr+1+i, sted);
+			if(Thread.currentThread().isInterrupted())
+				return null;
+			double[] temparray = Gjennomsnitt.gjennomsnitt(r-antallr+1+i, sted);
 			returarray[0][i] = temparray[0];
 			returarray[1][i] = temparray[2];
 		}
@@ -300,18 +314,19 @@ public class Utvikling
 	/**
 	 * Henter gjennomsnittsdata for et sted et gitt r, en verdi for hver mned, og returnerer data til grafikk
 	 * Skrevet av: Lars Smeby
-	 * @param panel	Panelet metoden kalles fra
 	 * @param sted	Stedet det skal skes p
 	 * @param r	ret det skal skes p
-	 * @return	En 2-dim. double-array klar til  genereres grafikk fra
+	 * @return	En 2-dim. double-array klar til  genereres grafikk fra, eller null om sket ble avbrutt
 	 */
-	public static double[][] stedData(JPanel panel, Sted sted, int r)
+	public static double[][] stedData(Sted sted, int r)
 	{
 		double[][] returarray = new double[2][12];
 		
 		for(int i = 0; i < returarray[0].length; i++)
 		{
-			double[] temp = Gjennomsnitt.gjennomsnitt(panel, r, i, sted);
+			if(Thread.currentThread().isInterrupted())
+				return null;
+			double[] temp = Gjennomsnitt.gjennomsnitt(r, i, sted);
 			returarray[0][i] = temp[0];
 			returarray[1][i] = temp[2];
 		}
@@ -322,75 +337,77 @@ public class Utvikling
 	/**
 	 * Henter data for et sted en gitt mned, en verdi for hver dag, og returnerer data til grafikk
 	 * Skrevet av: Lars Smeby
-	 * @param panel	Panelet metoden kalles fra
 	 * @param sted	Stedet det skal skes p
 	 * @param r	ret det skal skes p
 	 * @param mned	Mneden det skal skes p
-	 * @return	En 2-dim. double-array klar til  genereres grafikk fra
+	 * @return	En 2-dim. double-array klar til  genereres grafikk fra, eller null om sket ble avbrutt
 	 */
-	public static double[][] stedData(JPanel panel, Sted sted, int r, int mned)
+	public static double[][] stedData(Sted sted, int r, int mned)
 	{
-		GregorianCalendar kal = new GregorianCalendar(r, mned, 1);
-		int antallDager = kal.getActualMaximum(GregorianCalendar.DAY_OF_MONTH);
-		
+		int frsteDag = Dato.tilDagnummer(r, mned, 1);
+		int antallDager = Dato.tilDagnummer(r, mned + 1, 1) - frsteDag;
 		double[][] returarray = new double[2][antallDager];
+		Arrays.fill(returarray[0], -1);
+		Arrays.fill(returarray[1], Registrering.MAXMAXTEMP + 1);
 		
-		for(int i = 0; i < returarray[0].length; i++)
+		//Datoene i mneden ligger etter hverandre i datolisten, s hver dato legges rett i sin dag.
+		Datoliste datoer = sted.getDatoliste().finnDatoer(r, mned);
+		for(int i = 0; i < datoer.size(); i++)
 		{
-			Dato dato = sted.getDatoliste().finnDato(r, mned, i+1);
-			if(dato != null)
-			{
-				returarray[0][i] = dato.getNedbr();
-				returarray[1][i] = dato.getAvgTemp();
-			}
-			else
-			{
-				returarray[0][i] = -1;
-				returarray[1][i] = Registrering.MAXMAXTEMP + 1;
-			}
+			if(Thread.currentThread().isInterrupted())
+				return null;
+			int dag = datoer.dagnummerVed(i) - frsteDag;
+			returarray[0][dag] = datoer.getNedbrVerdi(i);
+			returarray[1][dag] = datoer.getAvgTempVerdi(i);
 		} // end of for(...)
 		
 		return returarray;
 	}
 	
 	/**
-	 * Hjelpemetode for sk p gjennomsnitt for en mned, for enten alle steder eller steder i et gitt fylke. Returnerer data til grafikk
+	 * Hjelpemetode for sk p gjennomsnitt for en mned, for enten alle steder eller steder i et gitt fylke. Returnerer data til grafikk.
+	 * Bare datoene i mneden gs gjennom, n gang, og legges sammen dag for dag.
 	 * Skrevet av: Lars Smeby
 	 * @param stedliste	En vilkrlig stedliste som skal brukes i beregningen
 	 * @param r	ret det skal skes p
 	 * @param mned	Mneden det skal skes p
-	 * @return	En 2-dim. double-array klar til  genereres grafikk fra
+	 * @return	En 2-dim. double-array klar til  genereres grafikk fra, eller null om sket ble avbrutt
 	 */
 	public static double[][] mnedsdata(Stedliste stedliste, int r, int mned)
 	{
-		GregorianCalendar kal = new GregorianCalendar(r, mned, 1);
-		int antallDager = kal.getActualMaximum(GregorianCalendar.DAY_OF_MONTH);
+		int frsteDag = Dato.tilDagnummer(r, mned, 1);
+		int antallDager = Dato.tilDagnummer(r, mned + 1, 1) - frsteDag;
 		
 		double[][] returarray = new double[2][antallDager];
-		double[][] tellerarray = new double[2][antallDager];
+		int[][] tellerarray = new int[2][antallDager];
 		
 		Iterator<Sted> iterator = stedliste.iterator();
 		
 		while(iterator.hasNext())
 		{
-			Sted neste = iterator.next();
+			//Sket avbrytes her dersom det kjrer i bakgrunnen og brukeren har endret valgene sine.
+			if(Thread.currentThread().isInterrupted())
+				return null;
+			//Stedets datoer i mneden finnes med ett binrsk, og gs s gjennom i rekkeflge rett inn i dagene.
+			Datoliste datoer = iterator.next().getDatoliste().finnDatoer(r, mned);
 			
-			for(int i = 0; i < returarray[0].length; i++)
+			for(int i = 0; i < datoer.size(); i++)
 			{
-				Dato dato = neste.getDatoliste().finnDato(r, mned, i+1);
-				if(dato != null)
+				if(Thread.currentThread().isInterrupted())
+					return null;
+				int dag = datoer.dagnummerVed(i) - frsteDag;
+				double nedbr = datoer.getNedbrVerdi(i);
+				if(nedbr >= 0)
+				{
+					returarray[0][dag] += nedbr;
+					tellerarray[0][dag]++;
+				}
+				double avgTemp = datoer.getAvgTempVerdi(i);
+				if(avgTemp <= Registrering.MAXMAXTEMP)
 				{
-					if(dato.getNedbr() >= 0)
-					{
-						returarray[0][i] += dato.getNedbr();
-						tellerarray[0][i]++;
-					}
-					if(dato.getAvgTemp() <= Registrering.MAXMAXTEMP)
-					{
-						returarray[1][i] += dato.getAvgTemp();
-						tellerarray[1][i]++;
-					}
-				} // end of if(dato != null)
+					returarray[1][dag] += avgTemp;
+					tellerarray[1][dag]++;
+				}
 			} // end og for(...)
 		} // end of while(...)
 		
@@ -407,4 +424,42 @@ public class Utvikling
 		
 		return returarray;
 	} // end of mnedsdata(...)
+	
+	/**
+	 * Hjelpemetode for sk p gjennomsnitt for en mned for et fylke eller hele landet, som henter summene for hver dag rett fra kuben.
+	 * Gir det samme resultatet som mnedsdata(stedliste, r, mned) for stedene i omrdet. Returnerer data til grafikk
+	 * @param kube	Kuben til stedlisten med alle lagrede data, eller null
+	 * @param omrde	Fylkesnummeret, eller Kube.LAND
+	 * @param r	ret det skal skes p
+	 * @param mned	Mneden det skal skes p
+	 * @return	En 2-dim. double-array klar til  genereres grafikk fra, eller null om sket ble avbrutt
+	 */
+	private static double[][] mnedsdata(Kube kube, int omrde, int r, int mned)
+	{
+		//Kuben er null dersom sket ble avbrutt mens den ble laget
+		if(kube == null)
+			return null;
+		int frsteDag = Dato.tilDagnummer(r, mned, 1);
+		int antallDager = Dato.tilDagnummer(r, mned + 1, 1) - frsteDag;
+		double[][] returarray = new double[2][antallDager];
+		
+		for(int i = 0; i < returarray[0].length; i++)
+		{
+			if(Thread.currentThread().isInterrupted())
+				return null;
+			int dag = frsteDag + i;
+			if(kube.finnVerdi(omrde, Kube.DAG, dag, Kube.ANTALL_NEDBR) > 0)
+				returarray[0][i] = kube.finnVerdi(omrde, Kube.DAG, dag, Kube.SUM_NEDBR);
+			else
+				returarray[0][i] = -1;
+			
+			double antallTemp = kube.finnVerdi(omrde, Kube.DAG, dag, Kube.ANTALL_TEMP);
+			if(antallTemp <= Registrering.MAXMAXTEMP)
+				returarray[1][i] = kube.finnVerdi(omrde, Kube.DAG, dag, Kube.SUM_TEMP)/antallTemp;
+			else
+				returarray[1][i] = Registrering.MAXMAXTEMP + 1;
+		}
+		
+		return returarray;
+	}
 } // end of class Utvikling
\ No newline at end of file